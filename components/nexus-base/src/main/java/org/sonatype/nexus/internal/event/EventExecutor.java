@@ -12,14 +12,17 @@
  */
 package org.sonatype.nexus.internal.event;
 
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executor;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.RejectedExecutionHandler;
-import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.ThreadPoolExecutor;
-import java.util.concurrent.ThreadPoolExecutor.CallerRunsPolicy;
 import java.util.concurrent.TimeUnit;
-import java.util.function.Supplier;
 
 import javax.annotation.Nullable;
 import javax.inject.Inject;
@@ -34,11 +37,14 @@ import org.sonatype.nexus.common.event.HasAffinity;
 import org.sonatype.nexus.thread.NexusExecutorService;
 import org.sonatype.nexus.thread.NexusThreadFactory;
 
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
 import com.google.common.annotations.VisibleForTesting;
-import com.google.common.cache.CacheBuilder;
-import com.google.common.cache.CacheLoader;
-import com.google.common.cache.LoadingCache;
 
+import static com.codahale.metrics.MetricRegistry.name;
+import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.base.Preconditions.checkState;
 import static com.google.common.util.concurrent.MoreExecutors.newSequentialExecutor;
@@ -57,6 +63,18 @@ import static org.sonatype.nexus.internal.event.EventManagerImpl.HOST_THREAD_POO
  * and subscribers will again be called directly by the originating thread. This avoids
  * asynchronous subscribers from having services disappear beneath them.
  *
+ * Events with {@link HasAffinity} are posted on one of a fixed number of single-threaded lanes chosen by hashing
+ * their affinity. Each subscriber receives the events of a lane through a sequential executor of its own on the shared
+ * thread pool, so events with the same affinity are delivered to a subscriber in order, while a slow subscriber only
+ * holds up its own deliveries. A lane waits for a subscriber only once that subscriber has a full lane queue of
+ * deliveries pending, which bounds how far a slow subscriber can hold up the others. Other events are delivered by the
+ * shared thread pool. Lanes and pool have bounded queues; when a queue is full the {@link BackPressure} policy decides
+ * whether the posting thread delivers the event itself or waits for room first. Event threads never wait on a full
+ * queue, as that could wait on themselves.
+ *
+ * Delivery time per subscriber, queue depths and the number of deliveries run by posting threads are published to
+ * the {@link MetricRegistry}.
+ *
  * @since 3.2
  */
 @Named
@@ -67,40 +85,99 @@ class EventExecutor
     implements Executor
 {
   /**
-   * Like {@link CallerRunsPolicy} but it continues to work after the executor is shutdown.
+   * What to do when an event can't be queued because the queue is full.
+   *
+   * @since 3.26
    */
-  private static final RejectedExecutionHandler CALLER_RUNS_FAILSAFE = (command, executor) -> command.run();
+  enum BackPressure
+  {
+    /**
+     * The posting thread delivers the event itself, so it is never held up for longer than the delivery takes. Under
+     * overload an event with affinity may then be delivered ahead of earlier ones with the same affinity.
+     */
+    CALLER_RUNS,
+
+    /**
+     * The posting thread waits for room in the queue, up to the back-pressure timeout, before delivering the event
+     * itself.
+     */
+    BLOCK;
+
+    /**
+     * Parses a policy name, ignoring case and accepting {@code -} for {@code _}, e.g. {@code caller-runs}.
+     *
+     * @return {@code null} if the name is not of a policy
+     */
+    @Nullable
+    static BackPressure parse(final String name) {
+      String normalized = name.trim().toUpperCase(Locale.ENGLISH).replace('-', '_');
+      for (BackPressure policy : values()) {
+        if (policy.name().equals(normalized)) {
+          return policy;
+        }
+      }
+      return null;
+    }
+  }
+
+  private static final String METRIC_PREFIX = EventExecutor.class.getName();
+
+  private static final ThreadLocal<Boolean> EVENT_THREAD = new ThreadLocal<>();
+
+  private static final ThreadLocal<Integer> POSTING_ON_LANE = new ThreadLocal<>();
+
+  private static final ThreadLocal<Boolean> LANE_THREAD = new ThreadLocal<>();
 
   private final boolean affinityEnabled;
 
-  private final int affinityCacheSize;
+  private final int laneCount;
 
-  private final Time affinityTimeout;
+  private final int laneQueueSize;
 
-  private final boolean singleCoordinator;
+  private final int queueSize;
 
-  private final boolean fairThreading;
+  private final BackPressure backPressure;
 
-  private NexusExecutorService eventProcessor;
+  private final Time backPressureTimeout;
+
+  private final MetricRegistry metricRegistry;
+
+  private final Meter callerRuns;
 
-  private NexusExecutorService affinityProcessor;
+  private final Map<String, Timer> subscriberTimers = new ConcurrentHashMap<>();
 
-  private LoadingCache<String, AffinityBarrier> affinityBarriers;
+  private final Map<String, SubscriberLane> subscriberLanes = new ConcurrentHashMap<>();
+
+  private NexusExecutorService eventProcessor;
+
+  private NexusExecutorService[] lanes;
 
   private volatile boolean asyncProcessing;
 
   @Inject
   public EventExecutor(@Named("${nexus.event.affinityEnabled:-true}") final boolean affinityEnabled,
-                       @Named("${nexus.event.affinityCacheSize:-1000}") final int affinityCacheSize,
-                       @Named("${nexus.event.affinityTimeout:-1s}") final Time affinityTimeout,
-                       @Named("${nexus.event.singleCoordinator:-false}") final boolean singleCoordinator,
-                       @Named("${nexus.event.fairThreading:-false}") final boolean fairThreading)
+                       @Named("${nexus.event.lanes:-16}") final int laneCount,
+                       @Named("${nexus.event.laneQueueSize:-1000}") final int laneQueueSize,
+                       @Named("${nexus.event.queueSize:-10000}") final int queueSize,
+                       @Named("${nexus.event.backPressure:-caller-runs}") final String backPressure,
+                       @Named("${nexus.event.backPressureTimeout:-100ms}") final Time backPressureTimeout,
+                       final MetricRegistry metricRegistry)
   {
+    checkArgument(laneCount > 0, "Number of lanes must be positive");
+    checkArgument(laneQueueSize > 0 && queueSize > 0, "Queue sizes must be positive");
     this.affinityEnabled = affinityEnabled;
-    this.affinityCacheSize = affinityCacheSize;
-    this.affinityTimeout = checkNotNull(affinityTimeout);
-    this.singleCoordinator = singleCoordinator;
-    this.fairThreading = fairThreading;
+    this.laneCount = laneCount;
+    this.laneQueueSize = laneQueueSize;
+    this.queueSize = queueSize;
+    BackPressure policy = BackPressure.parse(backPressure);
+    if (policy == null) {
+      log.warn("Unknown event back-pressure policy '{}', using {}", backPressure, BackPressure.CALLER_RUNS);
+      policy = BackPressure.CALLER_RUNS;
+    }
+    this.backPressure = policy;
+    this.backPressureTimeout = checkNotNull(backPressureTimeout);
+    this.metricRegistry = checkNotNull(metricRegistry);
+    this.callerRuns = metricRegistry.meter(name(METRIC_PREFIX, "caller-runs"));
   }
 
   /**
@@ -109,47 +186,24 @@ class EventExecutor
   @Override
   protected void doStart() throws Exception {
 
-    ThreadPoolExecutor threadPool = new ThreadPoolExecutor(
-        0,
-        HOST_THREAD_POOL_SIZE,
-        60L,
-        TimeUnit.SECONDS,
-        new SynchronousQueue<>(fairThreading), // rendezvous only, zero capacity
-        new NexusThreadFactory("event", "event-manager"),
-        CALLER_RUNS_FAILSAFE
-    );
+    ThreadPoolExecutor threadPool = newThreadPool(
+        HOST_THREAD_POOL_SIZE, queueSize, new NexusThreadFactory("event", "event-manager"));
 
     eventProcessor = NexusExecutorService.forCurrentSubject(threadPool);
+    registerGauge(name(METRIC_PREFIX, "queue-depth"), () -> threadPool.getQueue().size());
 
     if (affinityEnabled) {
-
-      Supplier<Executor> coordinator;
-      if (singleCoordinator) {
-        // like singleThreadExecutor but with custom rejection handler
-        ThreadPoolExecutor affinityThread = new ThreadPoolExecutor(
-            1,
-            1,
-            0L,
-            TimeUnit.SECONDS,
-            new LinkedBlockingQueue<>(), // allow queueing up of requests
-            new NexusThreadFactory("affinity", "affinity-manager"),
-            CALLER_RUNS_FAILSAFE
-        );
-
-        affinityProcessor = NexusExecutorService.forCurrentSubject(affinityThread);
-
-        // use single-thread queue to coordinate all events (delivery to subscribers is still multi-threaded)
-        coordinator = () -> affinityProcessor;
+      ThreadFactory affinityThreadFactory = new NexusThreadFactory("affinity", "affinity-manager");
+      ThreadFactory laneThreadFactory = runnable -> affinityThreadFactory.newThread(() -> {
+        LANE_THREAD.set(Boolean.TRUE);
+        runnable.run();
+      });
+      lanes = new NexusExecutorService[laneCount];
+      for (int i = 0; i < laneCount; i++) {
+        lanes[i] = NexusExecutorService.forCurrentSubject(newThreadPool(1, laneQueueSize, laneThreadFactory));
       }
-      else {
-        // multi-threaded coordination and delivery, with sequential coordination for events with same affinity
-        coordinator = () -> newSequentialExecutor(eventProcessor); // wraps behaviour on top of eventProcessor
-      }
-
-      affinityBarriers = CacheBuilder.newBuilder()
-          .maximumSize(affinityCacheSize)
-          .build(CacheLoader.from(() ->
-              new AffinityBarrier(coordinator.get(), eventProcessor, affinityTimeout)));
+      registerGauge(name(METRIC_PREFIX, "lanes", "queue-depth"), this::getLaneQueueDepth);
+      registerGauge(name(METRIC_PREFIX, "lanes", "max-queue-depth"), this::getMaxLaneQueueDepth);
     }
 
     asyncProcessing = true;
@@ -158,8 +212,13 @@ class EventExecutor
   @Override
   protected void doStop() throws Exception {
     if (asyncProcessing) {
-      shutdown(affinityProcessor);
+      if (lanes != null) {
+        for (NexusExecutorService lane : lanes) {
+          shutdown(lane);
+        }
+      }
       shutdown(eventProcessor);
+      subscriberLanes.clear();
       asyncProcessing = false;
     }
   }
@@ -170,7 +229,14 @@ class EventExecutor
   @VisibleForTesting
   boolean isCalmPeriod() {
     if (asyncProcessing) {
-      return isCalmPeriod(affinityProcessor) && isCalmPeriod(eventProcessor);
+      if (lanes != null) {
+        for (NexusExecutorService lane : lanes) {
+          if (!isCalmPeriod(lane)) {
+            return false;
+          }
+        }
+      }
+      return isCalmPeriod(eventProcessor);
     }
     else {
       return true; // single-threaded mode is always calm
@@ -195,8 +261,16 @@ class EventExecutor
     checkState(affinityEnabled);
     if (asyncProcessing) {
       Runnable command = inheritIsReplicating(postEventToAsyncBus);
-      AffinityBarrier barrier = affinityBarriers.getUnchecked(affinity);
-      barrier.coordinate(command); // waits (on separate thread) for last event delivery to complete before posting
+      int lane = Math.floorMod(affinity.hashCode(), lanes.length);
+      lanes[lane].execute(() -> {
+        POSTING_ON_LANE.set(lane); // deliver to subscribers through this lane, in order
+        try {
+          command.run();
+        }
+        finally {
+          POSTING_ON_LANE.remove();
+        }
+      });
     }
     else {
       postEventToAsyncBus.run();
@@ -209,10 +283,15 @@ class EventExecutor
   @Override
   public void execute(final Runnable deliverEventToSubscriber) {
     if (asyncProcessing) {
-      Runnable command = inheritIsReplicating(deliverEventToSubscriber);
-      AffinityBarrier barrier = affinityEnabled ? AffinityBarrier.current() : null;
-      if (barrier != null) {
-        barrier.execute(command); // tracks each event delivery to help with coordination of the next posting request
+      String subscriber = SubscriberNames.nameOf(deliverEventToSubscriber);
+      Timer timer = subscriberTimers.computeIfAbsent(subscriber,
+          name -> metricRegistry.timer(name(METRIC_PREFIX, "subscriber", name)));
+      Runnable command = inheritIsReplicating(timed(timer, deliverEventToSubscriber));
+      Integer lane = POSTING_ON_LANE.get();
+      if (lane != null) {
+        subscriberLanes
+            .computeIfAbsent(subscriber + '#' + lane, key -> new SubscriberLane(eventProcessor, laneQueueSize))
+            .execute(command, LANE_THREAD.get() != null);
       }
       else {
         eventProcessor.execute(command);
@@ -223,6 +302,79 @@ class EventExecutor
     }
   }
 
+  private int getLaneQueueDepth() {
+    int depth = 0;
+    for (NexusExecutorService lane : lanes) {
+      depth += queueOf(lane).size();
+    }
+    return depth;
+  }
+
+  private int getMaxLaneQueueDepth() {
+    int depth = 0;
+    for (NexusExecutorService lane : lanes) {
+      depth = Math.max(depth, queueOf(lane).size());
+    }
+    return depth;
+  }
+
+  private ThreadPoolExecutor newThreadPool(final int threads, final int capacity, final ThreadFactory threadFactory) {
+    ThreadPoolExecutor threadPool = new ThreadPoolExecutor(
+        threads,
+        threads,
+        60L,
+        TimeUnit.SECONDS,
+        new LinkedBlockingQueue<>(capacity),
+        runnable -> threadFactory.newThread(() -> {
+          EVENT_THREAD.set(Boolean.TRUE);
+          runnable.run();
+        }),
+        this::rejected
+    );
+    threadPool.allowCoreThreadTimeOut(true);
+    return threadPool;
+  }
+
+  /**
+   * Applies the {@link BackPressure} policy to a command which could not be queued. Unlike
+   * {@link ThreadPoolExecutor.CallerRunsPolicy} the command is still run after the executor is shutdown.
+   *
+   * @see RejectedExecutionHandler
+   */
+  private void rejected(final Runnable command, final ThreadPoolExecutor executor) {
+    if (backPressure == BackPressure.BLOCK && EVENT_THREAD.get() == null && !executor.isShutdown()) {
+      try {
+        if (executor.getQueue().offer(command, backPressureTimeout.value(), backPressureTimeout.unit())) {
+          if (!executor.isShutdown() || !executor.remove(command)) {
+            return; // queued, and will be run by the executor
+          }
+        }
+      }
+      catch (InterruptedException e) { // NOSONAR: restore flag and let the caller run it
+        Thread.currentThread().interrupt();
+      }
+    }
+    callerRuns.mark();
+    command.run();
+  }
+
+  private void registerGauge(final String name, final Gauge<Integer> gauge) {
+    metricRegistry.remove(name); // replace any gauge left from a previous start
+    metricRegistry.register(name, gauge);
+  }
+
+  private static Runnable timed(final Timer timer, final Runnable command) {
+    return () -> {
+      try (Timer.Context context = timer.time()) { // NOSONAR: context only stops the timer
+        command.run();
+      }
+    };
+  }
+
+  private static BlockingQueue<Runnable> queueOf(final NexusExecutorService executorService) {
+    return ((ThreadPoolExecutor) executorService.getTargetExecutorService()).getQueue();
+  }
+
   /**
    * @return {@code true} if the thread pool backing the (optional) executor service is inactive
    */
@@ -269,4 +421,50 @@ class EventExecutor
       }
     };
   }
+
+  /**
+   * Delivers the events of a lane to a subscriber in order, on the shared thread pool. At most a lane queue of
+   * deliveries is pending; once as many are, lane threads wait for room while other threads, which may be needed to
+   * make room, go ahead.
+   */
+  private static class SubscriberLane
+  {
+    private final Executor executor;
+
+    private final Semaphore permits;
+
+    SubscriberLane(final Executor threadPool, final int capacity) {
+      this.executor = newSequentialExecutor(threadPool);
+      this.permits = new Semaphore(capacity);
+    }
+
+    void execute(final Runnable command, final boolean mayWait) {
+      boolean acquired = permits.tryAcquire();
+      if (!acquired && mayWait) {
+        try {
+          permits.acquire();
+          acquired = true;
+        }
+        catch (InterruptedException e) { // NOSONAR: restore flag and deliver without a permit
+          Thread.currentThread().interrupt();
+        }
+      }
+      boolean release = acquired;
+      executor.execute(() -> {
+        Integer lane = POSTING_ON_LANE.get();
+        POSTING_ON_LANE.remove(); // any events posted by the subscriber are not part of the lane
+        try {
+          command.run();
+        }
+        finally {
+          if (lane != null) {
+            POSTING_ON_LANE.set(lane);
+          }
+          if (release) {
+            permits.release();
+          }
+        }
+      });
+    }
+  }
 }
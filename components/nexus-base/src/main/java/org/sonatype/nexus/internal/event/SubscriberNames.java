@@ -0,0 +1,114 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-present Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.internal.event;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.annotation.Nullable;
+
+import com.google.common.eventbus.EventBus;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Resolves the name of the subscriber an event delivery is for, from the delivery {@link Runnable} that the
+ * Guava {@code EventBus} hands to its executor.
+ *
+ * The subscriber is not part of the public API, so it is found reflectively as the captured field of the delivery
+ * whose type is Guava's internal {@code Subscriber}. Deliveries without one are named {@link #UNKNOWN}.
+ *
+ * @since 3.26
+ */
+class SubscriberNames
+{
+  private static final Logger log = LoggerFactory.getLogger(SubscriberNames.class);
+
+  static final String UNKNOWN = "unknown";
+
+  private static final String SUBSCRIBER_CLASS_NAME = "com.google.common.eventbus.Subscriber";
+
+  private static final ClassValue<Field> SUBSCRIBER_FIELDS = new ClassValue<Field>()
+  {
+    @Override
+    @Nullable
+    protected Field computeValue(final Class<?> deliveryClass) {
+      for (Field field : deliveryClass.getDeclaredFields()) {
+        if (SUBSCRIBER_CLASS_NAME.equals(field.getType().getName())) {
+          return accessible(field);
+        }
+      }
+      return null;
+    }
+  };
+
+  @Nullable
+  private static final Field METHOD_FIELD = subscriberField("method");
+
+  private static final Map<Method, String> names = new ConcurrentHashMap<>();
+
+  private SubscriberNames() {
+    // empty
+  }
+
+  /**
+   * Returns the name of the subscriber method the delivery invokes, as {@code declaring-class.method}.
+   */
+  static String nameOf(final Runnable delivery) {
+    if (METHOD_FIELD == null) {
+      return UNKNOWN;
+    }
+    Field subscriberField = SUBSCRIBER_FIELDS.get(delivery.getClass());
+    if (subscriberField == null) {
+      return UNKNOWN;
+    }
+    try {
+      Object subscriber = subscriberField.get(delivery);
+      if (subscriber == null) {
+        return UNKNOWN;
+      }
+      Method method = (Method) METHOD_FIELD.get(subscriber);
+      return names.computeIfAbsent(method, key -> key.getDeclaringClass().getName() + '.' + key.getName());
+    }
+    catch (IllegalAccessException | RuntimeException e) { // NOSONAR: naming is best-effort
+      log.trace("Unable to resolve subscriber of {}", delivery, e);
+      return UNKNOWN;
+    }
+  }
+
+  @Nullable
+  private static Field subscriberField(final String name) {
+    try {
+      Class<?> subscriberClass = EventBus.class.getClassLoader().loadClass(SUBSCRIBER_CLASS_NAME);
+      return accessible(subscriberClass.getDeclaredField(name));
+    }
+    catch (Exception | LinkageError e) { // NOSONAR: naming is best-effort
+      log.debug("Subscriber names are not available: {}", e.toString());
+      return null;
+    }
+  }
+
+  @Nullable
+  private static Field accessible(final Field field) {
+    try {
+      field.setAccessible(true);
+      return field;
+    }
+    catch (RuntimeException e) { // NOSONAR: naming is best-effort
+      log.debug("Subscriber names are not available: {}", e.toString());
+      return null;
+    }
+  }
+}
@@ -12,6 +12,8 @@
  */
 package org.sonatype.nexus.internal.orient;
 
+import javax.annotation.Nullable;
+
 import org.sonatype.nexus.orient.DatabaseManager;
 import org.sonatype.nexus.orient.DatabaseServer;
 import org.sonatype.nexus.orient.EncryptedRecordIdObfuscator;
@@ -19,6 +21,9 @@ import org.sonatype.nexus.orient.RecordIdObfuscator;
 import org.sonatype.nexus.transaction.RetryController;
 
 import com.google.inject.AbstractModule;
+import com.orientechnologies.orient.core.exception.OConcurrentModificationException;
+import com.orientechnologies.orient.core.id.ORID;
+import com.orientechnologies.orient.core.storage.ORecordDuplicatedException;
 
 /**
  * Orient module.
@@ -35,5 +40,27 @@ public class OrientModule
     bind(DatabaseManager.class).to(DatabaseManagerImpl.class);
     bind(RecordIdObfuscator.class).to(EncryptedRecordIdObfuscator.class);
     bind(RetryController.class).toInstance(RetryController.INSTANCE);
+
+    RetryController.INSTANCE.setContentionKeyFunction(OrientModule::conflictingRecord);
+  }
+
+  /**
+   * Returns the id of the record which caused the given conflict, if known.
+   */
+  @Nullable
+  private static Object conflictingRecord(final Exception cause) {
+    for (Throwable t = cause; t != null; t = t.getCause()) {
+      ORID rid = null;
+      if (t instanceof OConcurrentModificationException) {
+        rid = ((OConcurrentModificationException) t).getRid();
+      }
+      else if (t instanceof ORecordDuplicatedException) {
+        rid = ((ORecordDuplicatedException) t).getRid();
+      }
+      if (rid != null) {
+        return rid.toString();
+      }
+    }
+    return null;
   }
 }
@@ -12,6 +12,8 @@
  */
 package org.sonatype.nexus.internal.orient;
 
+import java.util.Map;
+
 import javax.inject.Inject;
 import javax.inject.Named;
 import javax.inject.Singleton;
@@ -108,4 +110,49 @@ public class RetryControllerBean
   public void setNoisyExceptionFilter(final String noisyExceptionFilter) {
     retryController.noisyExceptionFilter().setFilterString(noisyExceptionFilter);
   }
+
+  @ManagedAttribute
+  public boolean isContentionAware() {
+    return retryController.isContentionAware();
+  }
+
+  @ManagedAttribute
+  public void setContentionAware(final boolean contentionAware) {
+    retryController.setContentionAware(contentionAware);
+  }
+
+  @ManagedAttribute
+  public int getContentionThreshold() {
+    return retryController.getContentionThreshold();
+  }
+
+  @ManagedAttribute
+  public void setContentionThreshold(final int contentionThreshold) {
+    retryController.setContentionThreshold(contentionThreshold);
+  }
+
+  @ManagedAttribute
+  public int getContentionTimeoutMillis() {
+    return retryController.getContentionTimeoutMillis();
+  }
+
+  @ManagedAttribute
+  public void setContentionTimeoutMillis(final int contentionTimeoutMillis) {
+    retryController.setContentionTimeoutMillis(contentionTimeoutMillis);
+  }
+
+  @ManagedAttribute
+  public Map<String, Integer> getRetriesInLastHour() {
+    return retryController.retriesInLastHour();
+  }
+
+  @ManagedAttribute
+  public long getSerializedRetriesInLastHour() {
+    return retryController.serializedRetriesInLastHour();
+  }
+
+  @ManagedAttribute
+  public long getExcessiveRetriesInLastHour() {
+    return retryController.excessiveRetriesInLastHour();
+  }
 }
@@ -12,9 +12,11 @@
  */
 package org.sonatype.nexus.internal.template;
 
+import java.io.IOException;
 import java.io.InputStreamReader;
 import java.io.Reader;
 import java.io.StringWriter;
+import java.io.Writer;
 import java.net.URL;
 import java.nio.charset.StandardCharsets;
 
@@ -91,4 +93,17 @@ public class TemplateHelperImpl
       throw new RuntimeException(e);
     }
   }
+
+  @Override
+  public void render(final URL template, final TemplateParameters parameters, final Writer writer) throws IOException {
+    checkNotNull(template);
+    checkNotNull(parameters);
+    checkNotNull(writer);
+
+    log.trace("Rendering template: {} w/params: {}", template, parameters);
+
+    try (Reader input = new InputStreamReader(template.openStream(), StandardCharsets.UTF_8)) {
+      velocityEngine.evaluate(new VelocityContext(parameters.get()), writer, template.getFile(), input);
+    }
+  }
 }
@@ -13,27 +13,36 @@
 package org.sonatype.nexus.internal.event;
 
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import org.sonatype.goodies.common.Time;
 import org.sonatype.goodies.testsupport.TestSupport;
+import org.sonatype.nexus.internal.event.EventExecutor.BackPressure;
 import org.sonatype.nexus.common.event.EventAware.Asynchronous;
 import org.sonatype.nexus.common.event.EventHelper;
 import org.sonatype.nexus.common.event.EventManager;
+import org.sonatype.nexus.common.event.HasAffinity;
 import org.sonatype.nexus.security.subject.FakeAlmightySubject;
 
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
 import com.google.common.base.Throwables;
 import com.google.common.eventbus.Subscribe;
 import org.eclipse.sisu.inject.DefaultBeanLocator;
 import org.junit.Test;
 
 import static com.jayway.awaitility.Awaitility.await;
+import static java.util.stream.Collectors.toList;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.nullValue;
 
 /**
  * Tests for {@link EventManagerImpl}.
@@ -190,8 +199,133 @@ public class EventManagerImplTest
     });
   }
 
+  @Test
+  public void affinityEventsAreDeliveredInOrder() throws Exception {
+    MetricRegistry metricRegistry = new MetricRegistry();
+    EventExecutor executor = new EventExecutor(true, 4, 10, 10, "block", Time.seconds(5), metricRegistry);
+    EventManager underTest = new EventManagerImpl(new DefaultBeanLocator(), executor);
+    AffinityHandler handler = new AffinityHandler();
+    underTest.register(handler);
+
+    executor.start(); // enable multi-threaded mode
+
+    for (int i = 0; i < 100; i++) {
+      AffinityEvent event = new AffinityEvent("affinity-" + (i % 3), i);
+      FakeAlmightySubject.forUserId("testUser").execute(() -> underTest.post(event));
+    }
+
+    await().atMost(5, TimeUnit.SECONDS).until(underTest::isCalmPeriod);
+
+    executor.stop();
+
+    assertThat(handler.handled.keySet(), hasSize(3));
+    for (List<Integer> sequence : handler.handled.values()) {
+      assertThat(sequence, is(sequence.stream().sorted().collect(toList())));
+    }
+
+    Timer timer = metricRegistry.getTimers().get(
+        EventExecutor.class.getName() + ".subscriber." + AffinityHandler.class.getName() + ".handle");
+    assertThat(timer.getCount(), is(100L));
+  }
+
+  @Test
+  public void slowSubscriberDoesNotHoldUpOthersOnItsLane() throws Exception {
+    EventExecutor executor = new EventExecutor(true, 1, 10, 10, "caller-runs", Time.millis(100), new MetricRegistry());
+    EventManager underTest = new EventManagerImpl(new DefaultBeanLocator(), executor);
+    SlowAffinityHandler slowHandler = new SlowAffinityHandler();
+    AffinityHandler handler = new AffinityHandler();
+    underTest.register(slowHandler);
+    underTest.register(handler);
+
+    executor.start(); // enable multi-threaded mode
+
+    try {
+      for (int i = 0; i < 5; i++) {
+        AffinityEvent event = new AffinityEvent("affinity", i);
+        FakeAlmightySubject.forUserId("testUser").execute(() -> underTest.post(event));
+      }
+
+      await().atMost(5, TimeUnit.SECONDS).until(() -> handler.handled.containsKey("affinity")
+          && handler.handled.get("affinity").size() == 5);
+      assertThat(slowHandler.handled.get(), is(0));
+    }
+    finally {
+      slowHandler.release.countDown();
+    }
+
+    await().atMost(5, TimeUnit.SECONDS).until(underTest::isCalmPeriod);
+
+    executor.stop();
+
+    assertThat(slowHandler.handled.get(), is(5));
+  }
+
+  @Test
+  public void backPressurePolicyIsParsedLeniently() {
+    assertThat(BackPressure.parse("block"), is(BackPressure.BLOCK));
+    assertThat(BackPressure.parse("BLOCK"), is(BackPressure.BLOCK));
+    assertThat(BackPressure.parse("caller-runs"), is(BackPressure.CALLER_RUNS));
+    assertThat(BackPressure.parse("caller_runs"), is(BackPressure.CALLER_RUNS));
+    assertThat(BackPressure.parse(" CALLER-RUNS "), is(BackPressure.CALLER_RUNS));
+    assertThat(BackPressure.parse("discard"), is(nullValue()));
+  }
+
+  @Test
+  public void unknownBackPressurePolicyFallsBackToDefault() throws Exception {
+    EventExecutor executor = new EventExecutor(false, 1, 10, 10, "discard", Time.seconds(1), new MetricRegistry());
+    EventManager underTest = new EventManagerImpl(new DefaultBeanLocator(), executor);
+
+    executor.start();
+    executor.stop();
+
+    assertThat(underTest.isCalmPeriod(), is(true));
+  }
+
+  private static class AffinityEvent
+      implements HasAffinity
+  {
+    private final String affinity;
+
+    private final int sequence;
+
+    AffinityEvent(final String affinity, final int sequence) {
+      this.affinity = affinity;
+      this.sequence = sequence;
+    }
+
+    @Override
+    public String getAffinity() {
+      return affinity;
+    }
+  }
+
+  private static class AffinityHandler
+      implements Asynchronous
+  {
+    private final Map<String, List<Integer>> handled = new ConcurrentHashMap<>();
+
+    @Subscribe
+    public void handle(final AffinityEvent event) {
+      handled.computeIfAbsent(event.affinity, key -> new CopyOnWriteArrayList<>()).add(event.sequence);
+    }
+  }
+
+  private static class SlowAffinityHandler
+      implements Asynchronous
+  {
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    private final AtomicInteger handled = new AtomicInteger();
+
+    @Subscribe
+    public void handle(final AffinityEvent event) throws InterruptedException {
+      release.await();
+      handled.incrementAndGet();
+    }
+  }
+
   private static EventExecutor newEventExecutor() {
-    return new EventExecutor(false, 0, Time.seconds(0), false, false);
+    return new EventExecutor(false, 1, 10, 10, "block", Time.seconds(1), new MetricRegistry());
   }
 
   private class AsyncHandler
@@ -174,6 +174,17 @@ public interface BlobStore
    */
   boolean deleteHard(BlobId blobId);
 
+  /**
+   * Removes the given blobs from the blob store immediately, like {@link #deleteHard(BlobId)}. Blob stores may send
+   * the removals to the underlying storage in batches, so this should be preferred by callers removing many blobs.
+   *
+   * @throws BlobStoreException if any of the blobs could not be removed
+   * @since 3.26
+   */
+  default void deleteHard(Iterable<BlobId> blobIds) {
+    blobIds.forEach(this::deleteHard);
+  }
+
   /**
    * Provides an immutable snapshot of metrics about the BlobStore's usage.
    */
@@ -318,7 +318,9 @@ public class FileBlobStore
   private Blob tryCreate(final Map<String, String> headers, final BlobIngester ingester, final BlobId reusedBlobId) { // NOSONAR
     final BlobId blobId = getBlobId(headers, reusedBlobId);
     final boolean isDirectPath = Boolean.parseBoolean(headers.getOrDefault(DIRECT_PATH_BLOB_HEADER, "false"));
-    final Long existingSize = isDirectPath && exists(blobId) ? getContentSizeForDeletion(blobId) : null;
+    final Long existingSize =
+        isDirectPath && exists(blobId) ? getContentSizeForDeletion(getFileBlobAttributes(blobId)) : null;
+    final String repositoryName = headers.get(REPO_NAME_HEADER);
 
     final Path blobPath = contentPath(blobId);
     final Path attributePath = attributePath(blobId);
@@ -352,14 +354,14 @@ public class FileBlobStore
         if (existingSize != null) {
           overwrite(temporaryBlobPath, blobPath);
           overwrite(temporaryAttributePath, attributePath);
-          metricsStore.recordDeletion(existingSize);
+          metricsStore.recordDeletion(repositoryName, existingSize);
         }
         else {
           move(temporaryBlobPath, blobPath);
           move(temporaryAttributePath, attributePath);
         }
 
-        metricsStore.recordAddition(blobAttributes.getMetrics().getContentSize());
+        metricsStore.recordAddition(repositoryName, blobAttributes.getMetrics().getContentSize());
 
         return blob;
       }
@@ -500,7 +502,8 @@ public class FileBlobStore
       log.debug("Hard deleting blob {}", blobId);
 
       Path attributePath = attributePath(blobId);
-      Long contentSize = getContentSizeForDeletion(blobId);
+      FileBlobAttributes blobAttributes = getFileBlobAttributes(blobId);
+      Long contentSize = getContentSizeForDeletion(blobAttributes);
 
       Path blobPath = contentPath(blobId);
 
@@ -508,7 +511,7 @@ public class FileBlobStore
       delete(attributePath);
 
       if (blobDeleted && contentSize != null) {
-        metricsStore.recordDeletion(contentSize);
+        metricsStore.recordDeletion(repositoryName(blobAttributes), contentSize);
       }
 
       return blobDeleted;
@@ -523,14 +526,20 @@ public class FileBlobStore
   }
 
   @Nullable
-  private Long getContentSizeForDeletion(final BlobId blobId) {
-    return Optional.ofNullable(getFileBlobAttributes(blobId))
+  private Long getContentSizeForDeletion(@Nullable final FileBlobAttributes blobAttributes) {
+    return Optional.ofNullable(blobAttributes)
           .map(BlobAttributes::getMetrics)
           .map(BlobMetrics::getContentSize)
           .orElse(null);
   }
 
 
+  @Nullable
+  private static String repositoryName(final BlobAttributes blobAttributes) {
+    Map<String, String> headers = blobAttributes.getHeaders();
+    return headers != null ? headers.get(REPO_NAME_HEADER) : null;
+  }
+
   @Override
   @Guarded(by = STARTED)
   public BlobStoreMetrics getMetrics() {
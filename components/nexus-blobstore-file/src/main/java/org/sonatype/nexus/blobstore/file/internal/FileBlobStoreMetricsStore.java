@@ -99,6 +99,17 @@ public class FileBlobStoreMetricsStore
     }
   }
 
+  @Override
+  protected String backingFileId(final PropertiesFile backingFile) {
+    return backingFile.getFile().getAbsolutePath();
+  }
+
+  @Override
+  protected Object backingFileVersion(final PropertiesFile backingFile) {
+    File file = backingFile.getFile();
+    return file.lastModified() + ":" + file.length();
+  }
+
   public void setStorageDir(final Path storageDirectory) {
     checkNotNull(storageDirectory);
     checkArgument(storageDirectory.toFile().isDirectory());
@@ -110,6 +110,42 @@ public class FileBlobStoreMetricsStoreIT
     await().atMost(METRICS_FLUSH_TIMEOUT, SECONDS).until(() -> underTest.getMetrics().getTotalSize(), is(200L));
   }
 
+  @SuppressWarnings("java:S2699") // sonar doesn't detect assertions in awaitility https://jira.sonarsource.com/browse/SONARJAVA-3334
+  @Test
+  public void metricsIncludeOtherNodes() throws Exception {
+    PropertiesFile props = new PropertiesFile(
+        blobStoreDirectory.resolve(UUID.randomUUID() + "-" + FileBlobStoreMetricsStore.METRICS_FILENAME).toFile());
+
+    props.put(FileBlobStoreMetricsStore.BLOB_COUNT_PROP_NAME, "5");
+    props.put(FileBlobStoreMetricsStore.TOTAL_SIZE_PROP_NAME, "500");
+
+    props.store();
+
+    underTest.start();
+
+    underTest.recordAddition(1000);
+    await().atMost(METRICS_FLUSH_TIMEOUT, SECONDS).until(() -> underTest.getMetrics().getBlobCount(), is(6L));
+    await().atMost(METRICS_FLUSH_TIMEOUT, SECONDS).until(() -> underTest.getMetrics().getTotalSize(), is(1500L));
+  }
+
+  @Test
+  public void metricsAreRecordedPerRepository() throws Exception {
+    underTest.start();
+
+    underTest.recordAddition("maven-releases", 1000);
+    underTest.recordAddition("maven-releases", 500);
+    underTest.recordDeletion("maven-releases", 1000);
+    underTest.recordAddition("npm-proxy", 200);
+    underTest.recordAddition(100);
+
+    assertThat(underTest.getRepositoryMetrics().size(), is(2));
+    assertThat(underTest.getRepositoryMetrics().get("maven-releases").getBlobCount(), is(1L));
+    assertThat(underTest.getRepositoryMetrics().get("maven-releases").getTotalSize(), is(500L));
+    assertThat(underTest.getRepositoryMetrics().get("npm-proxy").getBlobCount(), is(1L));
+    assertThat(underTest.getRepositoryMetrics().get("npm-proxy").getTotalSize(), is(200L));
+    assertThat(underTest.getMetrics().getBlobCount(), is(3L));
+  }
+
   @Test
   public void listBackingFiles() throws Exception {
     underTest = new FileBlobStoreMetricsStore(new PeriodicJobServiceImpl(), nodeAccess, quotaService, 5,
@@ -13,10 +13,17 @@
 package org.sonatype.nexus.blobstore;
 
 import java.io.IOException;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Stream;
 
+import javax.annotation.Nullable;
+
 import org.sonatype.nexus.blobstore.api.BlobStore;
 import org.sonatype.nexus.blobstore.api.BlobStoreMetrics;
 import org.sonatype.nexus.blobstore.quota.BlobStoreQuotaService;
@@ -34,7 +41,6 @@ import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.base.Preconditions.checkState;
 import static java.lang.Long.parseLong;
 import static java.util.concurrent.TimeUnit.MILLISECONDS;
-import static java.util.stream.Stream.iterate;
 import static org.sonatype.nexus.blobstore.quota.BlobStoreQuotaSupport.createQuotaCheckJob;
 import static org.sonatype.nexus.common.stateguard.StateGuardLifecycleSupport.State.STARTED;
 
@@ -56,6 +62,8 @@ public abstract class BlobStoreMetricsStoreSupport<T extends ImplicitSourcePrope
 
   private static final int METRICS_FLUSH_PERIOD_SECONDS = 2;
 
+  private static final int METRICS_REFRESH_PERIOD_SECONDS = 10;
+
   protected AtomicLong blobCount;
 
   protected AtomicLong totalSize;
@@ -78,6 +86,20 @@ public abstract class BlobStoreMetricsStoreSupport<T extends ImplicitSourcePrope
 
   protected final int quotaCheckInterval;
 
+  private PeriodicJob metricsRefreshingJob;
+
+  /**
+   * Last known metrics of the other backing files, keyed by {@link #backingFileId}.
+   */
+  private final Map<String, BackingFileMetrics> backingFileMetrics = new ConcurrentHashMap<>();
+
+  private final Map<String, RepositoryMetrics> repositoryMetrics = new ConcurrentHashMap<>();
+
+  /**
+   * Snapshot of the metrics which aren't counted by this store, such as the available space.
+   */
+  private volatile BlobStoreMetrics baseMetrics = UnavailableBlobStoreMetrics.getInstance();
+
   public BlobStoreMetricsStoreSupport(final NodeAccess nodeAccess,
                                       final PeriodicJobService jobService,
                                       final BlobStoreQuotaService quotaService,
@@ -123,6 +145,9 @@ public abstract class BlobStoreMetricsStoreSupport<T extends ImplicitSourcePrope
       }
     }, METRICS_FLUSH_PERIOD_SECONDS);
 
+    refreshMetrics();
+    metricsRefreshingJob = jobService.schedule(this::refreshMetrics, METRICS_REFRESH_PERIOD_SECONDS);
+
     quotaCheckingJob = jobService.schedule(createQuotaCheckJob(blobStore, quotaService, log), quotaCheckInterval);
   }
 
@@ -131,6 +156,8 @@ public abstract class BlobStoreMetricsStoreSupport<T extends ImplicitSourcePrope
     blobStore = null;
     metricsWritingJob.cancel();
     metricsWritingJob = null;
+    metricsRefreshingJob.cancel();
+    metricsRefreshingJob = null;
     quotaCheckingJob.cancel();
     quotaCheckingJob = null;
     jobService.stopUsing();
@@ -139,6 +166,10 @@ public abstract class BlobStoreMetricsStoreSupport<T extends ImplicitSourcePrope
     totalSize = null;
     dirty = null;
 
+    backingFileMetrics.clear();
+    repositoryMetrics.clear();
+    baseMetrics = UnavailableBlobStoreMetrics.getInstance();
+
     properties = null;
   }
 
@@ -148,36 +179,92 @@ public abstract class BlobStoreMetricsStoreSupport<T extends ImplicitSourcePrope
 
   protected abstract Stream<T> backingFiles() throws BlobStoreMetricsNotAvailableException;
 
-  protected BlobStoreMetrics getCombinedMetrics(final Stream<T> blobStoreMetricsFiles) throws BlobStoreMetricsNotAvailableException {
-    AccumulatingBlobStoreMetrics blobStoreMetrics = getAccumulatingBlobStoreMetrics();
-    blobStoreMetricsFiles.forEach(metricsFile -> {
-      iterate(1, i -> i + 1)
-          .limit(MAXIMUM_TRIES)
-          .forEach(currentTry -> {
-                try {
-                  metricsFile.load();
-                }
-                catch (IOException e) {
-                  log.debug("Unable to load properties file {}. Try number {} of {}.", metricsFile,
-                      currentTry, MAXIMUM_TRIES, e);
-                  if (currentTry >= MAXIMUM_TRIES) {
-                    throw new RuntimeException("Failed to load blob store metrics from " + metricsFile,
-                        e);
-                  }
-                  try {
-                    MILLISECONDS.sleep(METRICS_LOADING_DELAY_MILLIS);
-                  }
-                  catch (InterruptedException e1) {
-                    throw new RuntimeException(e1);
-                  }
-                }
-              }
-          );
-
-      blobStoreMetrics.addBlobCount(parseLong(metricsFile.getProperty(BLOB_COUNT_PROP_NAME, "0")));
-      blobStoreMetrics.addTotalSize(parseLong(metricsFile.getProperty(TOTAL_SIZE_PROP_NAME, "0")));
-    });
-    return blobStoreMetrics;
+  /**
+   * Identifies the given backing file, so changes to it can be tracked between refreshes.
+   *
+   * @since 3.26
+   */
+  protected abstract String backingFileId(T backingFile);
+
+  /**
+   * Returns a token which changes whenever the given backing file is updated, such as its ETag or modification time;
+   * {@code null} if the version is unknown in which case the file is loaded on every refresh.
+   *
+   * @since 3.26
+   */
+  @Nullable
+  protected abstract Object backingFileVersion(T backingFile);
+
+  /**
+   * Refreshes the metrics of the other backing files, only loading those which changed since the last refresh.
+   */
+  private void refreshMetrics() {
+    try {
+      BlobStoreMetrics metrics = getAccumulatingBlobStoreMetrics();
+
+      String ownId = backingFileId(properties);
+      Set<String> backingFileIds = new HashSet<>();
+      try (Stream<T> backingFiles = backingFiles()) {
+        backingFiles.forEach(backingFile -> {
+          String id = backingFileId(backingFile);
+          if (!id.equals(ownId)) {
+            backingFileIds.add(id);
+            try {
+              refreshMetrics(id, backingFile);
+            }
+            catch (IOException | RuntimeException e) {
+              // keep the last known metrics of this file until the next refresh
+              log.warn("Failed to load blob store metrics from {}", backingFile, e);
+            }
+          }
+        });
+      }
+      backingFileMetrics.keySet().retainAll(backingFileIds);
+
+      baseMetrics = metrics;
+    }
+    catch (BlobStoreMetricsNotAvailableException e) {
+      log.error("Blob store metrics cannot be accessed", e);
+      baseMetrics = UnavailableBlobStoreMetrics.getInstance();
+    }
+    catch (Exception e) {
+      // Don't propagate, as this stops subsequent executions
+      log.error("Cannot refresh blob store metrics", e);
+    }
+  }
+
+  private void refreshMetrics(final String id, final T backingFile) throws IOException {
+    Object version = backingFileVersion(backingFile);
+    BackingFileMetrics cached = backingFileMetrics.get(id);
+    if (cached == null || version == null || !version.equals(cached.version)) {
+      load(backingFile);
+      backingFileMetrics.put(id, new BackingFileMetrics(version,
+          parseLong(backingFile.getProperty(BLOB_COUNT_PROP_NAME, "0")),
+          parseLong(backingFile.getProperty(TOTAL_SIZE_PROP_NAME, "0"))));
+    }
+  }
+
+  private void load(final T metricsFile) throws IOException {
+    for (int currentTry = 1; ; currentTry++) {
+      try {
+        metricsFile.load();
+        return;
+      }
+      catch (IOException e) {
+        log.debug("Unable to load properties file {}. Try number {} of {}.", metricsFile,
+            currentTry, MAXIMUM_TRIES, e);
+        if (currentTry >= MAXIMUM_TRIES) {
+          throw e;
+        }
+        try {
+          MILLISECONDS.sleep(METRICS_LOADING_DELAY_MILLIS);
+        }
+        catch (InterruptedException e1) {
+          Thread.currentThread().interrupt();
+          throw new IOException(e1);
+        }
+      }
+    }
   }
 
   public void setBlobStore(final BlobStore blobStore) {
@@ -186,29 +273,69 @@ public abstract class BlobStoreMetricsStoreSupport<T extends ImplicitSourcePrope
     this.blobStore = blobStore;
   }
 
+  /**
+   * Combines the live metrics of this node with the last known metrics of the other backing files; these are
+   * refreshed in the background so this doesn't need to access storage.
+   */
   @Guarded(by = STARTED)
   public BlobStoreMetrics getMetrics() {
-    try {
-      return getCombinedMetrics(backingFiles());
-    }
-    catch (BlobStoreMetricsNotAvailableException e) {
-      log.error("Blob store metrics cannot be accessed", e);
-      return UnavailableBlobStoreMetrics.getInstance();
+    BlobStoreMetrics metrics = baseMetrics;
+    if (metrics.isUnavailable()) {
+      return metrics;
     }
+    AccumulatingBlobStoreMetrics combinedMetrics = new AccumulatingBlobStoreMetrics(blobCount.get(), totalSize.get(),
+        metrics.getAvailableSpaceByFileStore(), metrics.isUnlimited());
+    backingFileMetrics.values().forEach(other -> {
+      combinedMetrics.addBlobCount(other.blobCount);
+      combinedMetrics.addTotalSize(other.totalSize);
+    });
+    return combinedMetrics;
+  }
+
+  /**
+   * Returns the blobs added and removed by this node since it started, by repository name.
+   *
+   * @since 3.26
+   */
+  @Guarded(by = STARTED)
+  public Map<String, RepositoryMetrics> getRepositoryMetrics() {
+    return Collections.unmodifiableMap(repositoryMetrics);
   }
 
   @Guarded(by = STARTED)
   public void recordAddition(final long size) {
+    recordAddition(null, size);
+  }
+
+  /**
+   * @since 3.26
+   */
+  @Guarded(by = STARTED)
+  public void recordAddition(@Nullable final String repositoryName, final long size) {
     blobCount.incrementAndGet();
     totalSize.addAndGet(size);
     dirty.set(true);
+    if (repositoryName != null) {
+      repositoryMetrics.computeIfAbsent(repositoryName, k -> new RepositoryMetrics()).record(1, size);
+    }
   }
 
   @Guarded(by = STARTED)
   public void recordDeletion(final long size) {
+    recordDeletion(null, size);
+  }
+
+  /**
+   * @since 3.26
+   */
+  @Guarded(by = STARTED)
+  public void recordDeletion(@Nullable final String repositoryName, final long size) {
     blobCount.decrementAndGet();
     totalSize.addAndGet(-size);
     dirty.set(true);
+    if (repositoryName != null) {
+      repositoryMetrics.computeIfAbsent(repositoryName, k -> new RepositoryMetrics()).record(-1, -size);
+    }
   }
 
   private void updateProperties() {
@@ -229,4 +356,50 @@ public abstract class BlobStoreMetricsStoreSupport<T extends ImplicitSourcePrope
   }
 
   public abstract void remove();
+
+  /**
+   * Blob count and size recorded for a repository.
+   *
+   * @since 3.26
+   */
+  public static class RepositoryMetrics
+  {
+    private final AtomicLong blobCount = new AtomicLong();
+
+    private final AtomicLong totalSize = new AtomicLong();
+
+    void record(final long count, final long size) {
+      blobCount.addAndGet(count);
+      totalSize.addAndGet(size);
+    }
+
+    public long getBlobCount() {
+      return blobCount.get();
+    }
+
+    public long getTotalSize() {
+      return totalSize.get();
+    }
+
+    @Override
+    public String toString() {
+      return "blobCount=" + blobCount + ", totalSize=" + totalSize;
+    }
+  }
+
+  private static class BackingFileMetrics
+  {
+    @Nullable
+    private final Object version;
+
+    private final long blobCount;
+
+    private final long totalSize;
+
+    BackingFileMetrics(@Nullable final Object version, final long blobCount, final long totalSize) {
+      this.version = version;
+      this.blobCount = blobCount;
+      this.totalSize = totalSize;
+    }
+  }
 }
@@ -12,6 +12,8 @@
  */
 package org.sonatype.nexus.blobstore.group;
 
+import java.io.FilterInputStream;
+import java.io.IOException;
 import java.io.InputStream;
 import java.nio.file.Path;
 import java.util.ArrayList;
@@ -20,6 +22,10 @@ import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Lock;
+import java.util.function.Function;
 import java.util.stream.Stream;
 
 import javax.annotation.Nullable;
@@ -54,12 +60,15 @@ import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Supplier;
 import com.google.common.base.Suppliers;
 import com.google.common.hash.HashCode;
+import com.google.common.util.concurrent.Striped;
 
+import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 import static java.util.Collections.synchronizedList;
 import static java.util.Collections.unmodifiableList;
 import static java.util.function.Function.identity;
 import static java.util.stream.Collectors.toList;
+import static java.util.stream.Collectors.toMap;
 import static org.sonatype.nexus.common.stateguard.StateGuardLifecycleSupport.State.FAILED;
 import static org.sonatype.nexus.common.stateguard.StateGuardLifecycleSupport.State.NEW;
 import static org.sonatype.nexus.common.stateguard.StateGuardLifecycleSupport.State.SHUTDOWN;
@@ -88,6 +97,8 @@ public class BlobStoreGroup
 
   public static final String CACHE_NAME = "blobstore-group-blobIds";
 
+  private static final int BLOB_LOCK_STRIPES = 256;
+
   private final BlobStoreManager blobStoreManager;
 
   private final Map<String, Provider<FillPolicy>> fillPolicyProviders;
@@ -105,6 +116,12 @@ public class BlobStoreGroup
   // cache of located blobs that have not been soft deleted
   private Cache<BlobId, String> locatedBlobs;
 
+  // number of blobs written to each member since this group was created
+  private final Map<String, LongAdder> writesByMember = new ConcurrentHashMap<>();
+
+  // serializes moves and deletes of the same blob
+  private final Striped<Lock> blobLocks = Striped.lock(BLOB_LOCK_STRIPES);
+
   @Inject
   public BlobStoreGroup(final BlobStoreManager blobStoreManager,
                         final Map<String, Provider<FillPolicy>> fillPolicyProviders,
@@ -171,22 +188,44 @@ public class BlobStoreGroup
   @Override
   @Guarded(by = STARTED)
   public Blob create(final InputStream blobData, final Map<String, String> headers, @Nullable final BlobId blobId) {
-    return create(headers, target -> target.create(blobData, headers, blobId));
+    SourceStream source = new SourceStream(blobData);
+    return create(headers, source, target -> target.create(source, headers, blobId));
   }
 
   @Override
   @Guarded(by = STARTED)
   public Blob create(final Path sourceFile, final Map<String, String> headers, final long size, final HashCode sha1) {
-    return create(headers, target -> target.create(sourceFile, headers, size, sha1));
+    return create(headers, null, target -> target.create(sourceFile, headers, size, sha1));
   }
 
-  private Blob create(final Map<String, String> headers, final CreateBlobFunction createBlobFunction) {
+  /**
+   * Creates a blob in the member chosen by the fill policy, reporting the write to the policy. The time spent waiting
+   * for the (optional) source stream is not the member's and is left out, and writes failed by the source are not
+   * reported at all.
+   */
+  private Blob create(final Map<String, String> headers,
+                      @Nullable final SourceStream source,
+                      final CreateBlobFunction createBlobFunction)
+  {
     BlobStore result = fillPolicy.chooseBlobStore(this, headers);
     if (result == null) {
       throw new BlobStoreException("Unable to find a member Blob Store of '" + this + "' for create", null);
     }
-    Blob blob = createBlobFunction.create(result);
-    locatedBlobs.put(blob.getId(), result.getBlobStoreConfiguration().getName());
+    long start = System.nanoTime();
+    Blob blob;
+    try {
+      blob = createBlobFunction.create(result);
+    }
+    catch (RuntimeException e) {
+      if (source == null || !source.failed) {
+        fillPolicy.recordWrite(result, 0L, storageNanos(start, source), false);
+      }
+      throw e;
+    }
+    fillPolicy.recordWrite(result, blob.getMetrics().getContentSize(), storageNanos(start, source), true);
+    String memberName = result.getBlobStoreConfiguration().getName();
+    writesByMember.computeIfAbsent(memberName, name -> new LongAdder()).increment();
+    locatedBlobs.put(blob.getId(), memberName);
     return blob;
   }
 
@@ -204,9 +243,7 @@ public class BlobStoreGroup
   @Override
   @Guarded(by = STARTED)
   public Blob get(final BlobId blobId) {
-    return locate(blobId)
-        .map((BlobStore target) -> target.get(blobId))
-        .orElse(null);
+    return readLocated(blobId, (BlobStore target) -> target.get(blobId));
   }
 
   @Nullable
@@ -222,43 +259,55 @@ public class BlobStoreGroup
           .orElse(null);
     }
     else {
-      return locate(blobId)
-        .map((BlobStore target) -> target.get(blobId, false))
-        .orElse(null);
+      return readLocated(blobId, (BlobStore target) -> target.get(blobId, false));
     }
   }
 
   @Override
   @Guarded(by = STARTED)
   public boolean delete(final BlobId blobId, final String reason) {
-    locatedBlobs.remove(blobId);
-    List<BlobStore> locations = members.get().stream()
-        .filter((BlobStore member) -> member.exists(blobId))
-        .collect(toList());
-
-    if (!locations.isEmpty()) {
-      return locations.stream()
-          .allMatch((BlobStore member) -> member.delete(blobId, reason));
+    Lock lock = blobLocks.get(blobId);
+    lock.lock();
+    try {
+      locatedBlobs.remove(blobId);
+      List<BlobStore> locations = members.get().stream()
+          .filter((BlobStore member) -> member.exists(blobId))
+          .collect(toList());
+
+      if (!locations.isEmpty()) {
+        return locations.stream()
+            .allMatch((BlobStore member) -> member.delete(blobId, reason));
+      }
+      else {
+        return false;
+      }
     }
-    else {
-      return false;
+    finally {
+      lock.unlock();
     }
   }
 
   @Override
   @Guarded(by = STARTED)
   public boolean deleteHard(final BlobId blobId) {
-    locatedBlobs.remove(blobId);
-    List<BlobStore> locations = members.get().stream()
-        .filter((BlobStore member) -> member.exists(blobId))
-        .collect(toList());
-
-    if (!locations.isEmpty()) {
-      return locations.stream()
-          .allMatch((BlobStore member) -> member.deleteHard(blobId));
+    Lock lock = blobLocks.get(blobId);
+    lock.lock();
+    try {
+      locatedBlobs.remove(blobId);
+      List<BlobStore> locations = members.get().stream()
+          .filter((BlobStore member) -> member.exists(blobId))
+          .collect(toList());
+
+      if (!locations.isEmpty()) {
+        return locations.stream()
+            .allMatch((BlobStore member) -> member.deleteHard(blobId));
+      }
+      else {
+        return false;
+      }
     }
-    else {
-      return false;
+    finally {
+      lock.unlock();
     }
   }
 
@@ -268,7 +317,9 @@ public class BlobStoreGroup
     Iterable<BlobStoreMetrics> membersMetrics = (Iterable<BlobStoreMetrics>) members.get().stream()
       .map((BlobStore member) -> member.getMetrics())
       ::iterator;
-    return new BlobStoreGroupMetrics(membersMetrics);
+    Map<String, Long> memberWrites = writesByMember.entrySet().stream()
+        .collect(toMap(Map.Entry::getKey, entry -> entry.getValue().sum()));
+    return new BlobStoreGroupMetrics(membersMetrics, memberWrites);
   }
 
   @Override
@@ -354,9 +405,7 @@ public class BlobStoreGroup
   @Nullable
   @Override
   public BlobAttributes getBlobAttributes(final BlobId blobId) {
-    return locate(blobId)
-        .map((BlobStore target) -> target.getBlobAttributes(blobId))
-        .orElse(null);
+    return readLocated(blobId, (BlobStore target) -> target.getBlobAttributes(blobId));
   }
 
   @Override
@@ -369,6 +418,73 @@ public class BlobStoreGroup
     return unmodifiableList(members.get());
   }
 
+  /**
+   * Moves a blob from one member to another. The blob keeps its {@link BlobId}, so references made through this group
+   * stay valid and only the location cache has to change. The copy is written before the original is hard deleted,
+   * so the blob can always be read through the group, and a move that was interrupted can simply be repeated. Deletes
+   * of the blob through this group wait for the move to complete.
+   *
+   * @return {@code true} if the blob was moved; {@code false} if the source no longer holds a live copy of it
+   * @since 3.26
+   */
+  @Guarded(by = STARTED)
+  public boolean moveBlob(final BlobId blobId, final BlobStore source, final BlobStore target) {
+    checkArgument(source != target, "Source and target must be different members");
+    checkArgument(members.get().contains(source) && members.get().contains(target),
+        "Source and target must be members of %s", this);
+
+    Lock lock = blobLocks.get(blobId);
+    lock.lock();
+    try {
+      return doMoveBlob(blobId, source, target);
+    }
+    finally {
+      lock.unlock();
+    }
+  }
+
+  private boolean doMoveBlob(final BlobId blobId, final BlobStore source, final BlobStore target) {
+    if (!isLive(source, blobId)) {
+      return false;
+    }
+
+    // an earlier, interrupted move may already have written the copy
+    if (!target.exists(blobId)) {
+      Blob blob = source.get(blobId);
+      BlobAttributes attributes = source.getBlobAttributes(blobId);
+      if (blob == null || attributes == null) {
+        return false;
+      }
+      Blob copy;
+      try (InputStream in = blob.getInputStream()) {
+        copy = target.create(in, attributes.getHeaders(), blobId);
+      }
+      catch (IOException e) {
+        throw new BlobStoreException(e, blobId);
+      }
+      if (!blobId.equals(copy.getId())) {
+        target.deleteHard(copy.getId());
+        throw new BlobStoreException("Unable to keep blob id when moving to " + target, blobId);
+      }
+    }
+
+    // the blob may have been deleted directly in the member while it was being copied
+    if (!isLive(source, blobId)) {
+      target.deleteHard(blobId);
+      locatedBlobs.remove(blobId);
+      return false;
+    }
+
+    locatedBlobs.put(blobId, target.getBlobStoreConfiguration().getName());
+    source.deleteHard(blobId);
+    return true;
+  }
+
+  private static boolean isLive(final BlobStore member, final BlobId blobId) {
+    BlobAttributes attributes = member.getBlobAttributes(blobId);
+    return attributes != null && !attributes.isDeleted();
+  }
+
   /**
    * Supplier for thread-safe lazy initialization of members.
    */
@@ -390,8 +506,13 @@ public class BlobStoreGroup
   Optional<BlobStore> locate(final BlobId blobId) {
     String blobStoreName = locatedBlobs.get(blobId);
     if (blobStoreName != null) {
-      log.trace("{} location was cached as {}", blobId, blobStoreName);
-      return Optional.ofNullable(blobStoreManager.get(blobStoreName));
+      BlobStore blobStore = blobStoreManager.get(blobStoreName);
+      if (blobStore != null && members.get().contains(blobStore)) {
+        log.trace("{} location was cached as {}", blobId, blobStoreName);
+        return Optional.of(blobStore);
+      }
+      log.debug("{} location was cached as {} which is no longer a member of {}", blobId, blobStoreName, this);
+      locatedBlobs.remove(blobId);
     }
 
     BlobStore blobStore = search(blobId);
@@ -404,6 +525,26 @@ public class BlobStoreGroup
     return Optional.ofNullable(blobStore);
   }
 
+  /**
+   * Reads from the member the blob is located in. When the cached member does not return anything, as the blob may
+   * have been moved to another member since it was cached, the cache entry is dropped and the members are searched.
+   */
+  @Nullable
+  private <T> T readLocated(final BlobId blobId, final Function<BlobStore, T> reader) {
+    boolean cached = locatedBlobs.containsKey(blobId);
+    Optional<BlobStore> located = locate(blobId);
+    T result = located.map(reader).orElse(null);
+    if (result == null && cached && located.isPresent()) {
+      locatedBlobs.remove(blobId);
+      log.debug("{} was not found in cached member {}, searching again", blobId, located.get());
+      result = locate(blobId)
+          .filter((BlobStore member) -> member != located.get())
+          .map(reader)
+          .orElse(null);
+    }
+    return result;
+  }
+
   private BlobStore search(BlobId blobId) {
     log.trace("Searching for {} in {}", blobId, members);
     return members.get().stream()
@@ -422,6 +563,11 @@ public class BlobStoreGroup
         '}';
   }
 
+  private static long storageNanos(final long start, @Nullable final SourceStream source) {
+    long elapsedNanos = System.nanoTime() - start;
+    return source == null ? elapsedNanos : Math.max(elapsedNanos - source.readNanos, 0L);
+  }
+
   /**
    * Functional interface for caller delegation of BlobStore creation
    *
@@ -431,4 +577,64 @@ public class BlobStoreGroup
   private interface CreateBlobFunction {
     Blob create(BlobStore blobStore);
   }
+
+  /**
+   * Stream of the content of a new blob, recording how long the member waited on it and whether it failed.
+   */
+  private static class SourceStream
+      extends FilterInputStream
+  {
+    private long readNanos;
+
+    private boolean failed;
+
+    SourceStream(final InputStream in) {
+      super(in);
+    }
+
+    @Override
+    public int read() throws IOException {
+      long start = System.nanoTime();
+      try {
+        return super.read();
+      }
+      catch (IOException e) {
+        failed = true;
+        throw e;
+      }
+      finally {
+        readNanos += System.nanoTime() - start;
+      }
+    }
+
+    @Override
+    public int read(final byte[] b, final int off, final int len) throws IOException {
+      long start = System.nanoTime();
+      try {
+        return super.read(b, off, len);
+      }
+      catch (IOException e) {
+        failed = true;
+        throw e;
+      }
+      finally {
+        readNanos += System.nanoTime() - start;
+      }
+    }
+
+    @Override
+    public long skip(final long n) throws IOException {
+      long start = System.nanoTime();
+      try {
+        return super.skip(n);
+      }
+      catch (IOException e) {
+        failed = true;
+        throw e;
+      }
+      finally {
+        readNanos += System.nanoTime() - start;
+      }
+    }
+  }
 }
@@ -33,4 +33,17 @@ public interface FillPolicy {
    */
   @Nullable
   BlobStore chooseBlobStore(BlobStoreGroup blobStoreGroup, Map<String, String> headers);
+
+  /**
+   * Notification that a write to a member chosen by this policy has finished.
+   *
+   * @param member       the member that was written to
+   * @param size         the content size of the written blob, {@code 0} if the write failed
+   * @param elapsedNanos how long the write took
+   * @param successful   {@code false} if the write failed
+   * @since 3.26
+   */
+  default void recordWrite(BlobStore member, long size, long elapsedNanos, boolean successful) {
+    // no-op by default
+  }
 }
@@ -0,0 +1,278 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-present Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.blobstore.group.internal;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+import javax.annotation.Nullable;
+import javax.inject.Inject;
+import javax.inject.Named;
+
+import org.sonatype.goodies.common.ByteSize;
+import org.sonatype.goodies.common.ComponentSupport;
+import org.sonatype.goodies.common.Time;
+import org.sonatype.nexus.blobstore.api.BlobStore;
+import org.sonatype.nexus.blobstore.api.BlobStoreMetrics;
+import org.sonatype.nexus.blobstore.group.BlobStoreGroup;
+import org.sonatype.nexus.blobstore.group.FillPolicy;
+
+import com.google.common.annotations.VisibleForTesting;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+/**
+ * {@link FillPolicy} that weights writes towards the healthiest members of the group.
+ *
+ * Each member's write throughput (bytes per second) and error rate are tracked as exponentially weighted moving
+ * averages and new blobs are spread over the writable members in proportion to how quickly and reliably they have been
+ * accepting writes. Throughput rather than latency is tracked, so members are not judged by the size of the blobs they
+ * happened to receive. Members are excluded while they have less than the configured minimum of available space, or
+ * while their average throughput is below the configured minimum or their error rate is above the configured maximum.
+ * A degraded member is given a single probing write every retry interval so that it can rejoin the rotation once it
+ * has recovered, and is used as a last resort when every writable member is degraded. As small writes don't measure
+ * throughput, a throughput average that hasn't been sampled for a retry interval is dropped on the next successful
+ * small write, so a member degraded by it can recover under small-blob traffic.
+ *
+ * @since 3.26
+ */
+@Named(AdaptiveFillPolicy.TYPE)
+public class AdaptiveFillPolicy
+    extends ComponentSupport
+    implements FillPolicy
+{
+  public static final String TYPE = "adaptive";
+
+  protected static final String NAME = "Adaptive";
+
+  /**
+   * Weight given to the latest sample when updating the moving averages.
+   */
+  private static final double SMOOTHING_FACTOR = 0.2;
+
+  /**
+   * Writes smaller than this are dominated by per request overhead rather than transfer, so they only count towards
+   * the error rate.
+   */
+  private static final long MIN_THROUGHPUT_SAMPLE_SIZE = 64 * 1024;
+
+  private final double minWriteThroughput;
+
+  private final double maxErrorRate;
+
+  private final long minAvailableSpace;
+
+  private final long retryIntervalNanos;
+
+  private final Map<String, MemberStats> memberStats = new ConcurrentHashMap<>();
+
+  @Inject
+  public AdaptiveFillPolicy(
+      @Named("${nexus.blobstore.group.adaptive.minWriteThroughput:-1m}") final ByteSize minWriteThroughput,
+      @Named("${nexus.blobstore.group.adaptive.maxErrorPercent:-50}") final int maxErrorPercent,
+      @Named("${nexus.blobstore.group.adaptive.minAvailableSpace:-1g}") final ByteSize minAvailableSpace,
+      @Named("${nexus.blobstore.group.adaptive.retryInterval:-30s}") final Time retryInterval)
+  {
+    checkArgument(maxErrorPercent >= 0 && maxErrorPercent <= 100, "maxErrorPercent must be between 0 and 100");
+    this.minWriteThroughput = checkNotNull(minWriteThroughput).toBytes();
+    this.maxErrorRate = maxErrorPercent / 100.0;
+    this.minAvailableSpace = checkNotNull(minAvailableSpace).toBytes();
+    this.retryIntervalNanos = checkNotNull(retryInterval).toNanos();
+  }
+
+  @Override
+  public String getName() {
+    return NAME;
+  }
+
+  @Override
+  @Nullable
+  public BlobStore chooseBlobStore(final BlobStoreGroup blobStoreGroup, final Map<String, String> headers) {
+    List<BlobStore> healthy = new ArrayList<>();
+    List<BlobStore> degraded = new ArrayList<>();
+
+    for (BlobStore member : blobStoreGroup.getMembers()) {
+      if (!member.isWritable() || !member.isStorageAvailable() || !hasEnoughSpace(member)) {
+        continue;
+      }
+      if (isDegraded(member)) {
+        if (stats(member).tryProbe(System.nanoTime(), retryIntervalNanos)) {
+          log.debug("Probing degraded member {}", memberName(member));
+          return member;
+        }
+        degraded.add(member);
+      }
+      else {
+        healthy.add(member);
+      }
+    }
+
+    if (!healthy.isEmpty()) {
+      return weightedChoice(healthy);
+    }
+    if (!degraded.isEmpty()) {
+      log.debug("All writable members of {} are degraded, using the least degraded one", blobStoreGroup);
+      double[] weights = weights(degraded);
+      int best = 0;
+      for (int i = 1; i < weights.length; i++) {
+        if (weights[i] > weights[best]) {
+          best = i;
+        }
+      }
+      return degraded.get(best);
+    }
+    return null;
+  }
+
+  @Override
+  public void recordWrite(final BlobStore member, final long size, final long elapsedNanos, final boolean successful) {
+    stats(member).record(size, elapsedNanos, successful, retryIntervalNanos);
+  }
+
+  @VisibleForTesting
+  boolean isDegraded(final BlobStore member) {
+    return stats(member).isDegraded(minWriteThroughput, maxErrorRate);
+  }
+
+  private boolean hasEnoughSpace(final BlobStore member) {
+    BlobStoreMetrics metrics = member.getMetrics();
+    if (metrics == null || metrics.isUnlimited() || metrics.isUnavailable()) {
+      return true;
+    }
+    if (metrics.getAvailableSpace() < minAvailableSpace) {
+      log.debug("Skipping member {} with only {} bytes available", memberName(member), metrics.getAvailableSpace());
+      return false;
+    }
+    return true;
+  }
+
+  private BlobStore weightedChoice(final List<BlobStore> candidates) {
+    if (candidates.size() == 1) {
+      return candidates.get(0);
+    }
+    double[] weights = weights(candidates);
+    double total = 0;
+    for (double weight : weights) {
+      total += weight;
+    }
+    double target = ThreadLocalRandom.current().nextDouble() * total;
+    for (int i = 0; i < weights.length; i++) {
+      target -= weights[i];
+      if (target < 0) {
+        return candidates.get(i);
+      }
+    }
+    return candidates.get(candidates.size() - 1);
+  }
+
+  /**
+   * Weights candidates by their reliable throughput. Members without a throughput average yet are weighted with the
+   * mean throughput of the other candidates, so they get their share of writes to establish a real average.
+   */
+  private double[] weights(final List<BlobStore> candidates) {
+    double[] throughputs = new double[candidates.size()];
+    double sum = 0;
+    int sampled = 0;
+    for (int i = 0; i < throughputs.length; i++) {
+      throughputs[i] = stats(candidates.get(i)).throughput();
+      if (!Double.isNaN(throughputs[i])) {
+        sum += throughputs[i];
+        sampled++;
+      }
+    }
+    double unknown = sampled > 0 ? sum / sampled : 1.0;
+    double[] weights = new double[throughputs.length];
+    for (int i = 0; i < weights.length; i++) {
+      double throughput = Double.isNaN(throughputs[i]) ? unknown : throughputs[i];
+      weights[i] = (1.0 - stats(candidates.get(i)).errorRate()) * throughput;
+    }
+    return weights;
+  }
+
+  private MemberStats stats(final BlobStore member) {
+    return memberStats.computeIfAbsent(memberName(member), name -> new MemberStats());
+  }
+
+  private static String memberName(final BlobStore member) {
+    return member.getBlobStoreConfiguration().getName();
+  }
+
+  /**
+   * Moving averages of a single member's write throughput and error rate. Only members that have been written to are
+   * ever degraded, so {@code lastWriteNanos} is always set by the time a probe is considered.
+   */
+  private static class MemberStats
+  {
+    private double throughput = Double.NaN;
+
+    private double errorRate;
+
+    private long lastWriteNanos;
+
+    private long lastThroughputNanos;
+
+    private boolean sampled;
+
+    synchronized void record(final long size,
+                             final long elapsedNanos,
+                             final boolean successful,
+                             final long retryIntervalNanos)
+    {
+      lastWriteNanos = System.nanoTime();
+      if (sampled) {
+        errorRate += SMOOTHING_FACTOR * ((successful ? 0.0 : 1.0) - errorRate);
+      }
+      else {
+        errorRate = successful ? 0.0 : SMOOTHING_FACTOR;
+        sampled = true;
+      }
+      if (successful && size >= MIN_THROUGHPUT_SAMPLE_SIZE) {
+        double sample = size * (double) SECONDS.toNanos(1) / Math.max(elapsedNanos, 1L);
+        throughput = Double.isNaN(throughput) ? sample : throughput + SMOOTHING_FACTOR * (sample - throughput);
+        lastThroughputNanos = lastWriteNanos;
+      }
+      else if (successful && lastWriteNanos - lastThroughputNanos >= retryIntervalNanos) {
+        throughput = Double.NaN; // stale, and small writes can't tell whether the member has recovered
+      }
+    }
+
+    /**
+     * Returns the average throughput in bytes per second, or {@link Double#NaN} if no write was large enough yet.
+     */
+    synchronized double throughput() {
+      return throughput;
+    }
+
+    synchronized double errorRate() {
+      return errorRate;
+    }
+
+    synchronized boolean isDegraded(final double minThroughput, final double maxErrorRate) {
+      return sampled && (throughput < minThroughput || errorRate > maxErrorRate);
+    }
+
+    synchronized boolean tryProbe(final long nowNanos, final long retryIntervalNanos) {
+      if (nowNanos - lastWriteNanos < retryIntervalNanos) {
+        return false;
+      }
+      // claim the probe so concurrent writers keep avoiding this member until it reports back
+      lastWriteNanos = nowNanos;
+      return true;
+    }
+  }
+}
@@ -18,6 +18,7 @@ import java.util.Map;
 import org.sonatype.nexus.blobstore.api.BlobStoreMetrics;
 import org.sonatype.nexus.common.math.Math2;
 
+import static java.util.Collections.emptyMap;
 import static java.util.Collections.unmodifiableMap;
 
 /**
@@ -39,7 +40,19 @@ public class BlobStoreGroupMetrics
 
   private final boolean unavailable;
 
+  private final Map<String, Long> writesByMember;
+
   public BlobStoreGroupMetrics(final Iterable<BlobStoreMetrics> membersMetrics) {
+    this(membersMetrics, emptyMap());
+  }
+
+  /**
+   * @param writesByMember number of blobs the group has written to each member, keyed by member name
+   * @since 3.26
+   */
+  public BlobStoreGroupMetrics(final Iterable<BlobStoreMetrics> membersMetrics,
+                               final Map<String, Long> writesByMember)
+  {
     long aggregatedBlobCount = 0L;
     long aggregatedTotalSize = 0L;
     Map<String, Long> aggregatedAvailableSpaceByFileStore = new HashMap<>();
@@ -63,6 +76,7 @@ public class BlobStoreGroupMetrics
     this.availableSpaceByFileStore = unmodifiableMap(aggregatedAvailableSpaceByFileStore);
     this.unlimited = aggregatedUnlimited;
     this.unavailable = totalMembers > 0 && unavailableMembers == totalMembers;
+    this.writesByMember = unmodifiableMap(new HashMap<>(writesByMember));
   }
 
   @Override
@@ -96,4 +110,13 @@ public class BlobStoreGroupMetrics
   public boolean isUnavailable() {
     return unavailable;
   }
+
+  /**
+   * Returns the distribution of group writes across members, keyed by member name.
+   *
+   * @since 3.26
+   */
+  public Map<String, Long> getWritesByMember() {
+    return writesByMember;
+  }
 }
@@ -21,14 +21,19 @@ import javax.inject.Provider
 import org.sonatype.goodies.common.Time
 import org.sonatype.nexus.blobstore.MockBlobStoreConfiguration
 import org.sonatype.nexus.blobstore.api.Blob
+import org.sonatype.nexus.blobstore.api.BlobAttributes
 import org.sonatype.nexus.blobstore.api.BlobId
+import org.sonatype.nexus.blobstore.api.BlobMetrics
 import org.sonatype.nexus.blobstore.api.BlobStore
 import org.sonatype.nexus.blobstore.api.BlobStoreConfiguration
+import org.sonatype.nexus.blobstore.api.BlobStoreException
 import org.sonatype.nexus.blobstore.api.BlobStoreManager
+import org.sonatype.nexus.blobstore.api.BlobStoreMetrics
 import org.sonatype.nexus.blobstore.group.internal.WriteToFirstMemberFillPolicy
 import org.sonatype.nexus.cache.CacheHelper
 
 import com.google.common.hash.HashCode
+import org.joda.time.DateTime
 import spock.lang.Shared
 import spock.lang.Specification
 import spock.lang.Unroll
@@ -367,4 +372,256 @@ class BlobStoreGroupTest
     and: 'the cache was not updated'
       0 * cache.put(_, _)
   }
+
+  def 'Writes are reported to the fill policy with their size and counted per member'() {
+    given: 'A group with two members'
+      config.attributes = [group: [members: ['one', 'two'], fillPolicy: 'test']]
+      blobStore.init(config)
+      blobStore.doStart()
+      blobStoreManager.get('one') >> one
+      blobStoreManager.get('two') >> two
+      testFillPolicy.chooseBlobStore(blobStore, [:]) >> two
+      two.create(_, [:], null) >> Mock(Blob) {
+        getId() >> new BlobId('created')
+        getMetrics() >> new BlobMetrics(new DateTime(), 'sha1', 1024L)
+      }
+      two.getMetrics() >> Mock(BlobStoreMetrics) { getAvailableSpaceByFileStore() >> [:] }
+      one.getMetrics() >> Mock(BlobStoreMetrics) { getAvailableSpaceByFileStore() >> [:] }
+
+    when: 'a blob is created'
+      blobStore.create(new ByteArrayInputStream(''.bytes), [:])
+
+    then: 'the write is reported to the fill policy'
+      1 * testFillPolicy.recordWrite(two, 1024L, _ as Long, true)
+
+    and: 'the write is counted against the member'
+      blobStore.getMetrics().writesByMember == [two: 1L]
+  }
+
+  def 'Failed writes are reported to the fill policy'() {
+    given: 'A group with a failing member'
+      config.attributes = [group: [members: ['one'], fillPolicy: 'test']]
+      blobStore.init(config)
+      blobStore.doStart()
+      blobStoreManager.get('one') >> one
+      testFillPolicy.chooseBlobStore(blobStore, [:]) >> one
+      one.create(_, [:], null) >> { throw new BlobStoreException('failed', null) }
+
+    when: 'a blob is created'
+      blobStore.create(new ByteArrayInputStream(''.bytes), [:])
+
+    then: 'the failure is reported to the fill policy'
+      thrown(BlobStoreException)
+      1 * testFillPolicy.recordWrite(one, 0L, _ as Long, false)
+  }
+
+  def 'Time spent waiting for the blob content is not reported as the member\'s'() {
+    given: 'A group whose member reads a slow source'
+      config.attributes = [group: [members: ['one'], fillPolicy: 'test']]
+      blobStore.init(config)
+      blobStore.doStart()
+      blobStoreManager.get('one') >> one
+      testFillPolicy.chooseBlobStore(blobStore, [:]) >> one
+      one.create(_, [:], null) >> { InputStream source, Map headers, BlobId blobId ->
+        source.read()
+        Mock(Blob) {
+          getId() >> new BlobId('created')
+          getMetrics() >> new BlobMetrics(new DateTime(), 'sha1', 1L)
+        }
+      }
+      def source = new ByteArrayInputStream('a'.bytes) {
+        @Override
+        synchronized int read() {
+          Thread.sleep(500)
+          return super.read()
+        }
+      }
+
+    when: 'a blob is created'
+      blobStore.create(source, [:])
+
+    then: 'the write is reported without the time spent reading the source'
+      1 * testFillPolicy.recordWrite(one, 1L, { it < TimeUnit.MILLISECONDS.toNanos(500) }, true)
+  }
+
+  def 'Writes failed by the blob content are not reported to the fill policy'() {
+    given: 'A group whose member fails reading a broken source'
+      config.attributes = [group: [members: ['one'], fillPolicy: 'test']]
+      blobStore.init(config)
+      blobStore.doStart()
+      blobStoreManager.get('one') >> one
+      testFillPolicy.chooseBlobStore(blobStore, [:]) >> one
+      one.create(_, [:], null) >> { InputStream source, Map headers, BlobId blobId ->
+        try {
+          source.read()
+        }
+        catch (IOException e) {
+          throw new BlobStoreException(e, null)
+        }
+      }
+      def source = new InputStream() {
+        @Override
+        int read() {
+          throw new IOException('client aborted')
+        }
+      }
+
+    when: 'a blob is created'
+      blobStore.create(source, [:])
+
+    then: 'the failure is not held against the member'
+      thrown(BlobStoreException)
+      0 * testFillPolicy.recordWrite(*_)
+  }
+
+  def 'Moving a blob copies it with the same id, updates the cache and hard deletes the original'() {
+    given: 'A group with a blob in member one'
+      config.attributes = [group: [members: ['one', 'two'], fillPolicy: 'test']]
+      blobStore.init(config)
+      blobStore.doStart()
+      blobStoreManager.get('one') >> one
+      blobStoreManager.get('two') >> two
+      def blobId = new BlobId('moving')
+      def content = new ByteArrayInputStream('content'.bytes)
+      one.getBlobAttributes(blobId) >> Mock(BlobAttributes) { getHeaders() >> [header: 'value'] }
+      one.get(blobId) >> Mock(Blob) { getInputStream() >> content }
+
+    when: 'the blob is moved to member two'
+      def moved = blobStore.moveBlob(blobId, one, two)
+
+    then: 'it is written to member two before being removed from member one'
+      moved
+      1 * two.exists(blobId) >> false
+      1 * two.create(content, [header: 'value'], blobId) >> Mock(Blob) { getId() >> blobId }
+
+    then:
+      1 * cache.put(blobId, 'two')
+
+    then:
+      1 * one.deleteHard(blobId)
+  }
+
+  def 'Moving a blob reuses the copy left by an interrupted move'() {
+    given: 'A group with a blob in both members'
+      config.attributes = [group: [members: ['one', 'two'], fillPolicy: 'test']]
+      blobStore.init(config)
+      blobStore.doStart()
+      blobStoreManager.get('one') >> one
+      blobStoreManager.get('two') >> two
+      def blobId = new BlobId('moving')
+      one.getBlobAttributes(blobId) >> Mock(BlobAttributes)
+      two.exists(blobId) >> true
+
+    when: 'the blob is moved to member two'
+      def moved = blobStore.moveBlob(blobId, one, two)
+
+    then: 'the original is removed without copying the blob again'
+      moved
+      0 * two.create(*_)
+      1 * cache.put(blobId, 'two')
+      1 * one.deleteHard(blobId)
+  }
+
+  def 'Moving a blob that was deleted while being copied discards the copy'() {
+    given: 'A group with a blob in member one which is deleted during the move'
+      config.attributes = [group: [members: ['one', 'two'], fillPolicy: 'test']]
+      blobStore.init(config)
+      blobStore.doStart()
+      blobStoreManager.get('one') >> one
+      blobStoreManager.get('two') >> two
+      def blobId = new BlobId('moving')
+      one.getBlobAttributes(blobId) >>> [Mock(BlobAttributes), Mock(BlobAttributes), Mock(BlobAttributes) {
+        isDeleted() >> true
+      }]
+      one.get(blobId) >> Mock(Blob) { getInputStream() >> new ByteArrayInputStream('content'.bytes) }
+      two.create(_, _, blobId) >> Mock(Blob) { getId() >> blobId }
+
+    when: 'the blob is moved to member two'
+      def moved = blobStore.moveBlob(blobId, one, two)
+
+    then: 'the copy is discarded and the deleted original is left for compaction'
+      !moved
+      1 * two.deleteHard(blobId)
+      1 * cache.remove(blobId)
+      0 * one.deleteHard(_)
+      0 * cache.put(*_)
+  }
+
+  def 'Deleting a blob waits for its move to complete'() {
+    given: 'A group with a blob in member one'
+      config.attributes = [group: [members: ['one', 'two'], fillPolicy: 'test']]
+      blobStore.init(config)
+      blobStore.doStart()
+      blobStoreManager.get('one') >> one
+      blobStoreManager.get('two') >> two
+      def blobId = new BlobId('moving')
+      def copy = Mock(Blob) { getId() >> blobId }
+      one.getBlobAttributes(blobId) >> Mock(BlobAttributes) { getHeaders() >> [:] }
+      one.get(blobId) >> Mock(Blob) { getInputStream() >> new ByteArrayInputStream('content'.bytes) }
+      two.exists(blobId) >>> [false, true]
+      Thread deleting = null
+
+    when: 'the blob is deleted through the group while it is being copied'
+      def moved = blobStore.moveBlob(blobId, one, two)
+      deleting.join()
+
+    then: 'the delete is blocked by the move'
+      moved
+      1 * two.create(_, _, blobId) >> {
+        deleting = Thread.start { blobStore.delete(blobId, 'test') }
+        sleep(100)
+        assert deleting.alive
+        copy
+      }
+
+    then: 'the delete applies to the moved blob'
+      1 * one.deleteHard(blobId)
+
+    then:
+      1 * two.delete(blobId, 'test') >> true
+  }
+
+  def 'Reading a blob searches the members when the cached member no longer has it'() {
+    given: 'A group with a blob moved from member one to member two'
+      config.attributes = [group: [members: ['one', 'two'], fillPolicy: 'test']]
+      blobStore.init(config)
+      blobStore.doStart()
+      blobStoreManager.get('one') >> one
+      blobStoreManager.get('two') >> two
+      def blobId = new BlobId('moved')
+      def blob = Mock(Blob)
+      two.isWritable() >> true
+      two.exists(blobId) >> true
+      two.get(blobId) >> blob
+
+    when: 'the blob is read while its location is cached as member one'
+      def found = blobStore.get(blobId)
+
+    then: 'the stale location is replaced by the member holding the blob'
+      found == blob
+      cache.containsKey(blobId) >> true
+      cache.get(blobId) >>> ['one', null]
+      1 * one.get(blobId) >> null
+      1 * cache.remove(blobId)
+      1 * cache.put(blobId, 'two')
+  }
+
+  def 'Locating a blob cached in a member that left the group searches the members'() {
+    given: 'A group whose blob location is cached as a removed member'
+      config.attributes = [group: [members: ['one', 'two'], fillPolicy: 'test']]
+      blobStore.init(config)
+      blobStore.doStart()
+      blobStoreManager.get('one') >> one
+      blobStoreManager.get('two') >> two
+      def blobId = new BlobId('located')
+      cache.get(blobId) >> 'three'
+      two.exists(blobId) >> true
+
+    when: 'the blob is located'
+      def located = blobStore.locate(blobId)
+
+    then: 'the member holding the blob is found'
+      located.get() == two
+      1 * cache.remove(blobId)
+  }
 }
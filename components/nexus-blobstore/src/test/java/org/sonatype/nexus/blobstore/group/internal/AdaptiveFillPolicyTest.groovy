@@ -0,0 +1,255 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-present Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.blobstore.group.internal
+
+import org.sonatype.goodies.common.ByteSize
+import org.sonatype.goodies.common.Time
+import org.sonatype.nexus.blobstore.api.BlobStore
+import org.sonatype.nexus.blobstore.api.BlobStoreConfiguration
+import org.sonatype.nexus.blobstore.api.BlobStoreMetrics
+import org.sonatype.nexus.blobstore.group.BlobStoreGroup
+
+import spock.lang.Specification
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS
+import static java.util.concurrent.TimeUnit.SECONDS
+
+/**
+ * {@link AdaptiveFillPolicy} tests.
+ */
+class AdaptiveFillPolicyTest
+    extends Specification
+{
+  static final long MB = 1024 * 1024
+
+  AdaptiveFillPolicy policy = new AdaptiveFillPolicy(ByteSize.megaBytes(1), 50, ByteSize.bytes(100), Time.hours(1))
+
+  def 'It weights writes towards the faster member'() {
+    given: 'a group with a fast and a slow member'
+      def fast = mockMember('fast')
+      def slow = mockMember('slow')
+      BlobStoreGroup group = Mock() {
+        getMembers() >> [slow, fast]
+      }
+      policy.recordWrite(fast, MB, MILLISECONDS.toNanos(10), true)
+      policy.recordWrite(slow, MB, MILLISECONDS.toNanos(100), true)
+
+    when: 'the policy chooses many times'
+      def choices = (1..1000).collect { policy.chooseBlobStore(group, [:]) }
+
+    then: 'both members are used but the fast one gets most writes'
+      def fastCount = choices.count { it == fast }
+      fastCount > 800
+      fastCount < 1000
+  }
+
+  def 'It judges members by throughput rather than by the size of their writes'() {
+    given: 'a group where one member received a large blob and the other a small one at the same speed'
+      def large = mockMember('large')
+      def small = mockMember('small')
+      BlobStoreGroup group = Mock() {
+        getMembers() >> [large, small]
+      }
+      policy.recordWrite(large, 100 * MB, SECONDS.toNanos(10), true)
+      policy.recordWrite(small, MB, MILLISECONDS.toNanos(100), true)
+
+    when: 'the policy chooses many times'
+      def choices = (1..1000).collect { policy.chooseBlobStore(group, [:]) }
+
+    then: 'neither member is degraded and both get a similar share of writes'
+      !policy.isDegraded(large)
+      !policy.isDegraded(small)
+      def largeCount = choices.count { it == large }
+      largeCount > 400
+      largeCount < 600
+  }
+
+  def 'It does not judge throughput by small writes'() {
+    given: 'a member which took long for a tiny write'
+      def member = mockMember('member')
+      policy.recordWrite(member, 100L, SECONDS.toNanos(1), true)
+
+    expect: 'the member is not degraded'
+      !policy.isDegraded(member)
+  }
+
+  def 'It weights members without throughput samples as the average of the others'() {
+    given: 'a group with a measured and a new member'
+      def measured = mockMember('measured')
+      def fresh = mockMember('fresh')
+      BlobStoreGroup group = Mock() {
+        getMembers() >> [measured, fresh]
+      }
+      policy.recordWrite(measured, MB, MILLISECONDS.toNanos(10), true)
+
+    when: 'the policy chooses many times'
+      def choices = (1..1000).collect { policy.chooseBlobStore(group, [:]) }
+
+    then: 'both members get a similar share of writes'
+      def freshCount = choices.count { it == fresh }
+      freshCount > 400
+      freshCount < 600
+  }
+
+  def 'It skips members without enough available space'() {
+    given: 'a group where one member is nearly full'
+      BlobStoreGroup group = Mock() {
+        getMembers() >> [mockMember('full', 99L), mockMember('roomy', 1000L)]
+      }
+
+    expect: 'the roomy member is always chosen'
+      (1..20).every { policy.chooseBlobStore(group, [:]).blobStoreConfiguration.name == 'roomy' }
+  }
+
+  def 'It ignores available space of unlimited members'() {
+    given: 'a group with an unlimited member reporting no space'
+      def unlimited = mockMember('unlimited', 0L, true, true, true)
+      BlobStoreGroup group = Mock() {
+        getMembers() >> [unlimited]
+      }
+
+    expect: 'the unlimited member is chosen'
+      policy.chooseBlobStore(group, [:]) == unlimited
+  }
+
+  def 'It excludes degraded members while a healthy member is available'() {
+    given: 'a group where one member is failing'
+      def failing = mockMember('failing')
+      def healthy = mockMember('healthy')
+      BlobStoreGroup group = Mock() {
+        getMembers() >> [failing, healthy]
+      }
+      4.times { policy.recordWrite(failing, 0L, MILLISECONDS.toNanos(10), false) }
+      policy.recordWrite(healthy, MB, MILLISECONDS.toNanos(10), true)
+
+    expect: 'the healthy member is always chosen'
+      (1..20).every { policy.chooseBlobStore(group, [:]) == healthy }
+  }
+
+  def 'It excludes members whose average throughput is below the limit'() {
+    given: 'a group where one member is too slow'
+      def slow = mockMember('slow')
+      def healthy = mockMember('healthy')
+      BlobStoreGroup group = Mock() {
+        getMembers() >> [slow, healthy]
+      }
+      policy.recordWrite(slow, MB, SECONDS.toNanos(2), true)
+
+    expect: 'the healthy member is always chosen'
+      (1..20).every { policy.chooseBlobStore(group, [:]) == healthy }
+  }
+
+  def 'It falls back to the least degraded member when all members are degraded'() {
+    given: 'a group where every member is slow'
+      def slower = mockMember('slower')
+      def slowest = mockMember('slowest')
+      BlobStoreGroup group = Mock() {
+        getMembers() >> [slowest, slower]
+      }
+      policy.recordWrite(slower, MB, SECONDS.toNanos(2), true)
+      policy.recordWrite(slowest, MB, SECONDS.toNanos(5), true)
+
+    expect: 'the less slow member is chosen'
+      policy.chooseBlobStore(group, [:]) == slower
+  }
+
+  def 'It probes degraded members once the retry interval has passed'() {
+    given: 'a policy without a retry interval and a group with a degraded member'
+      policy = new AdaptiveFillPolicy(ByteSize.megaBytes(1), 50, ByteSize.bytes(100), Time.seconds(0))
+      def slow = mockMember('slow')
+      def healthy = mockMember('healthy')
+      BlobStoreGroup group = Mock() {
+        getMembers() >> [slow, healthy]
+      }
+      policy.recordWrite(slow, MB, SECONDS.toNanos(2), true)
+
+    when: 'the policy chooses a member'
+      def chosen = policy.chooseBlobStore(group, [:])
+
+    then: 'the degraded member gets a probing write'
+      policy.isDegraded(slow)
+      chosen == slow
+
+    when: 'the probes show the member has recovered'
+      10.times { policy.recordWrite(slow, MB, MILLISECONDS.toNanos(10), true) }
+
+    then: 'it is no longer degraded'
+      !policy.isDegraded(slow)
+  }
+
+  def 'It lets members degraded by throughput recover under small writes'() {
+    given: 'a policy without a retry interval and a member which was too slow for a large write'
+      policy = new AdaptiveFillPolicy(ByteSize.megaBytes(1), 50, ByteSize.bytes(100), Time.seconds(0))
+      def slow = mockMember('slow')
+      policy.recordWrite(slow, MB, SECONDS.toNanos(2), true)
+
+    expect: 'the member is degraded'
+      policy.isDegraded(slow)
+
+    when: 'a small write succeeds once the retry interval has passed'
+      policy.recordWrite(slow, 100L, MILLISECONDS.toNanos(10), true)
+
+    then: 'the stale throughput is dropped and the member is no longer degraded'
+      !policy.isDegraded(slow)
+  }
+
+  def 'It keeps recent throughput averages on small writes'() {
+    given: 'a member which was too slow for a large write'
+      def slow = mockMember('slow')
+      policy.recordWrite(slow, MB, SECONDS.toNanos(2), true)
+
+    when: 'a small write succeeds within the retry interval'
+      policy.recordWrite(slow, 100L, MILLISECONDS.toNanos(10), true)
+
+    then: 'the member is still degraded'
+      policy.isDegraded(slow)
+  }
+
+  def 'It will return null if no members are writable'() {
+    given: 'a group whose members are read only or unavailable'
+      BlobStoreGroup group = Mock() {
+        getMembers() >> [mockMember('readOnly', 1000L, false), mockMember('unavailable', 1000L, true, false)]
+      }
+
+    expect: 'no member is chosen'
+      policy.chooseBlobStore(group, [:]) == null
+  }
+
+  def 'It will return null if the group has no member'() {
+    given: 'a group with no members'
+      BlobStoreGroup group = Mock() {
+        getMembers() >> []
+      }
+
+    expect: 'no member is chosen'
+      policy.chooseBlobStore(group, [:]) == null
+  }
+
+  private BlobStore mockMember(final String name,
+                               final long availableSpace = 1000L,
+                               final boolean writable = true,
+                               final boolean storageAvailable = true,
+                               final boolean unlimited = false)
+  {
+    BlobStoreMetrics metrics = Mock() {
+      getAvailableSpace() >> availableSpace
+      isUnlimited() >> unlimited
+    }
+    Mock(BlobStore) {
+      isWritable() >> writable
+      isStorageAvailable() >> storageAvailable
+      getMetrics() >> metrics
+      getBlobStoreConfiguration() >> Mock(BlobStoreConfiguration) { getName() >> name }
+    }
+  }
+}
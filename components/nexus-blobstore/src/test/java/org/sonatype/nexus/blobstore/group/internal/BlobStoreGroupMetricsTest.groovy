@@ -61,4 +61,13 @@ class BlobStoreGroupMetricsTest
       1 * a1.isUnavailable() >> false
       _ * a1.getAvailableSpaceByFileStore() >> [:]
   }
+
+  def 'Writes by member are exposed'() {
+    when: 'metrics are created with a write distribution'
+      def metrics = new BlobStoreGroupMetrics([], [one: 3L, two: 1L])
+
+    then: 'the distribution is available and defaults to empty'
+      metrics.writesByMember == [one: 3L, two: 1L]
+      new BlobStoreGroupMetrics([]).writesByMember == [:]
+  }
 }
@@ -12,6 +12,8 @@
  */
 package org.sonatype.nexus.common.template;
 
+import java.io.IOException;
+import java.io.Writer;
 import java.net.URL;
 
 /**
@@ -30,4 +32,13 @@ public interface TemplateHelper
    * Render template with given parameters.
    */
   String render(URL template, TemplateParameters parameters);
+
+  /**
+   * Render template with given parameters to a writer, so large output need not be held in memory.
+   *
+   * @since 3.26
+   */
+  default void render(URL template, TemplateParameters parameters, Writer writer) throws IOException {
+    writer.write(render(template, parameters));
+  }
 }
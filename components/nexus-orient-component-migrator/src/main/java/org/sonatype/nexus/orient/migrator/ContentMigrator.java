@@ -18,53 +18,100 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
-import java.sql.Timestamp;
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import javax.sql.DataSource;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.base.Stopwatch;
+import com.google.common.base.Throwables;
 import com.google.common.io.Resources;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.orientechnologies.orient.core.db.document.ODatabaseDocumentTx;
 import com.orientechnologies.orient.core.db.record.OIdentifiable;
 import com.orientechnologies.orient.core.id.ORID;
-import com.orientechnologies.orient.core.id.ORecordId;
 import com.orientechnologies.orient.core.metadata.schema.OType;
 import com.orientechnologies.orient.core.record.impl.ODocument;
 import com.orientechnologies.orient.core.sql.query.OSQLSynchQuery;
-import com.orientechnologies.orient.core.storage.impl.local.OAbstractPaginatedStorage;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Strings.nullToEmpty;
-import static java.lang.String.join;
+import static java.lang.Math.max;
 import static java.nio.charset.StandardCharsets.UTF_8;
-import static java.sql.Types.NULL;
-import static java.util.Collections.nCopies;
 import static java.util.UUID.nameUUIDFromBytes;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
 
 /**
  * Migrates component/asset content metadata from OrientDB to new-DB.
  *
+ * Each Orient class is read by several threads, one cluster at a time, and written by one thread per format with its
+ * own connection; PostgreSQL targets are loaded using the {@code COPY} protocol. Unique constraints, foreign keys and
+ * indexes are only added once the content has been loaded. Each migrated class is checkpointed in the target database
+ * so a failed migration can be resumed from the class it was migrating.
+ *
  * @since 3.20
  */
 public class ContentMigrator
+    implements AutoCloseable
 {
   private static final Logger log = LoggerFactory.getLogger(ContentMigrator.class);
 
   private static final int BATCH_SIZE = 100_000;
 
+  private static final int QUEUE_SIZE = 10_000;
+
+  private static final int DRY_RUN_SAMPLE_SIZE = 100_000;
+
+  private static final String CHECKPOINT_TABLE = "orient_migration_checkpoint";
+
   private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
 
+  private static final String[] ASSET_BLOB_COLUMNS = {
+      "asset_blob_id", "blob_ref", "blob_size", "content_type", "blob_created", "created_by", "created_by_ip"
+  };
+
+  private static final String[] ASSET_COLUMNS = {
+      "repository_id", "component_id", "asset_blob_id", "path", "last_downloaded", "attributes", "rid", "component_rid"
+  };
+
+  private static final String[] COMPONENT_COLUMNS = {
+      "repository_id", "namespace", "name", "version", "attributes", "rid"
+  };
+
+  private static final String[] BROWSE_NODE_COLUMNS = {
+      "repository_id", "format", "path", "name", "asset_rid", "component_rid", "parent_path", "parent_parent_path",
+      "parent_name"
+  };
+
+  private final Supplier<ODatabaseDocumentTx> componentDbs;
+
   private final ODatabaseDocumentTx componentDb;
 
+  private final DataSource targetDataSource;
+
   private final Connection targetConnection;
 
   private final boolean extractBrowseNodes;
 
+  private final int threads;
+
   private final Set<String> formats = new HashSet<>();
 
   private final Map<String, String> repositoryFormats = new HashMap<>();
@@ -75,12 +122,29 @@ public class ContentMigrator
 
   private final String databaseId;
 
-  public ContentMigrator(final ODatabaseDocumentTx componentDb,
-                         final Connection targetConnection, final boolean extractBrowseNodes) throws SQLException
+  private boolean checkpointTableExists;
+
+  /**
+   * @param componentDbs       opens a new connection to the component database; one is opened for each reader
+   * @param targetDataSource   provides connections to the target database; one is used for each format
+   * @param extractBrowseNodes {@code true} to migrate browse nodes
+   * @param threads            number of threads reading from the component database
+   *
+   * @since 3.26
+   */
+  public ContentMigrator(final Supplier<ODatabaseDocumentTx> componentDbs,
+                         final DataSource targetDataSource,
+                         final boolean extractBrowseNodes,
+                         final int threads) throws SQLException
   {
-    this.componentDb = componentDb;
-    this.targetConnection = targetConnection;
+    checkArgument(threads > 0, "threads must be positive");
+    this.componentDbs = componentDbs;
+    this.targetDataSource = targetDataSource;
     this.extractBrowseNodes = extractBrowseNodes;
+    this.threads = threads;
+
+    componentDb = componentDbs.get();
+    targetConnection = targetDataSource.getConnection();
 
     databaseId = targetConnection.getMetaData().getDatabaseProductName();
   }
@@ -92,39 +156,73 @@ public class ContentMigrator
     if (extractBrowseNodes) {
       extractBrowseNodes();
     }
+    addConstraints();
     cleanup();
   }
 
   /**
-   * Migrates data into the relevant {@code content_repository} tables.
+   * Reads a sample of each class without writing anything and logs the read rate, along with the time it would take
+   * to read the whole class at that rate. Writing to the target database takes extra time which isn't included.
+   *
+   * @since 3.26
    */
-  public void extractRepositories() throws SQLException, IOException { // NOSONAR
+  public void estimateThroughput() throws SQLException {
+    scanRepositories();
 
-    for (ODocument bucket : componentDb.browseClass("bucket")) {
-      String repositoryName = bucket.field("repository_name", OType.STRING);
+    estimateThroughput("component", "components", this::extractComponent);
+    estimateThroughput("asset", "assets", this::extractAsset);
+    if (extractBrowseNodes) {
+      estimateThroughput("browse_node", "browse nodes", this::extractBrowseNode);
+    }
+  }
 
-      repositoryNameToId.put(repositoryName, bucket.getIdentity());
+  private void estimateThroughput(final String className, final String description, final Extractor extractor)
+      throws SQLException
+  {
+    long expectedCount = componentDb.countClass(className);
+    AtomicLong sampled = new AtomicLong();
+    Stopwatch stopwatch = Stopwatch.createStarted();
 
-      ODocument result = new OSQLSynchQuery<ODocument>(
-          "SELECT format FROM asset WHERE bucket = :bucket LIMIT 1").runFirst(bucket);
+    read(className, extractor, (format, row) -> sampled.incrementAndGet() < DRY_RUN_SAMPLE_SIZE);
 
-      if (result != null) {
-        String format = result.field("format", OType.STRING);
-        repositoryFormats.put(repositoryName, normalizeFormat(format));
-      }
-    }
+    long sampleCount = Math.min(sampled.get(), expectedCount);
+    long rate = sampleCount * 1000 / max(stopwatch.elapsed(MILLISECONDS), 1);
+    log.info("Read {}/{} {} in {} ({}/s), estimated time to read all {}: {}", sampleCount, expectedCount,
+        description, stopwatch, rate, description, rate > 0 ? formatSeconds(expectedCount / rate) : "unknown");
+  }
 
-    formats.addAll(repositoryFormats.values());
+  @Override
+  public void close() throws SQLException {
+    try {
+      targetConnection.close();
+    }
+    finally {
+      componentDb.close();
+    }
+  }
 
-    createFormatSchema();
+  /**
+   * Migrates data into the relevant {@code content_repository} tables.
+   */
+  public void extractRepositories() throws SQLException, IOException { // NOSONAR
+    scanRepositories();
 
-    try {
-      addRidColumns("content_repository");
+    if (isCheckpointed("content_repository")) {
+      log.info("Repositories already migrated, resuming migration");
+    }
+    else {
+      // the schema is about to be replaced, so nothing that was migrated before can be kept
+      clearCheckpoints();
 
-      Map<String, PreparedStatement> repositoryStatements = prepareBatch(
-          "content_repository", "config_repository_id", "attributes", "rid");
+      createFormatSchema();
 
+      Map<String, TableWriter> repositoryWriters = new HashMap<>();
       try {
+        for (String format : formats) {
+          repositoryWriters.put(format, new InsertTableWriter(targetConnection, format + "_content_repository",
+              "config_repository_id", "attributes"));
+        }
+
         int repositoryCount = 0;
         for (ODocument bucket : componentDb.browseClass("bucket")) {
           String repositoryName = bucket.field("repository_name", OType.STRING);
@@ -133,7 +231,7 @@ public class ContentMigrator
           UUID configRepositoryId = nameUUIDFromBytes(repositoryName.getBytes(UTF_8));
           String format = repositoryFormat(repositoryName);
           if (format != null) {
-            insert(repositoryStatements.get(format), configRepositoryId, json(attributes), bucket);
+            repositoryWriters.get(format).add(configRepositoryId, json(attributes));
             ++repositoryCount;
           }
           else {
@@ -141,235 +239,482 @@ public class ContentMigrator
           }
         }
 
-        executeBatch(repositoryStatements);
+        for (TableWriter writer : repositoryWriters.values()) {
+          writer.flush();
+        }
 
         log.info("Migrating {} repositories spanning {} formats", repositoryCount, formats);
 
-        extractBucketRepositoryIds();
+        checkpoint("content_repository", repositoryCount);
       }
       finally {
-        closeBatch(repositoryStatements);
+        for (TableWriter writer : repositoryWriters.values()) {
+          writer.close();
+        }
       }
     }
-    finally {
-      dropRidColumns("content_repository");
+
+    extractBucketRepositoryIds();
+  }
+
+  /**
+   * Finds the repositories and their formats.
+   */
+  private void scanRepositories() {
+    for (ODocument bucket : componentDb.browseClass("bucket")) {
+      String repositoryName = bucket.field("repository_name", OType.STRING);
+
+      repositoryNameToId.put(repositoryName, bucket.getIdentity());
+
+      ODocument result = new OSQLSynchQuery<ODocument>(
+          "SELECT format FROM asset WHERE bucket = :bucket LIMIT 1").runFirst(bucket);
+
+      if (result != null) {
+        String format = result.field("format", OType.STRING);
+        repositoryFormats.put(repositoryName, normalizeFormat(format));
+      }
     }
+
+    formats.addAll(repositoryFormats.values());
   }
 
   /**
    * Migrates data into the relevant {@code component} tables.
    */
   public void extractComponents() throws SQLException, IOException { // NOSONAR
+    if (isCheckpointed("component")) {
+      log.info("Components already migrated");
+      return;
+    }
 
     addRidColumns("component");
+    truncate("component");
 
-    Map<String, PreparedStatement> componentStatements = prepareBatch(
-        "component", "repository_id", "namespace", "name", "version", "attributes", "rid");
+    Map<String, String[]> tables = new LinkedHashMap<>();
+    tables.put("component", COMPONENT_COLUMNS);
 
-    try {
-      int componentCount = 0;
-      long expectedComponentCount = componentDb.countClass("component");
-      for (ODocument component : componentDb.browseClass("component")) {
-
-        OIdentifiable bucket = component.field("bucket", OType.LINK);
-        String format = normalizeFormat(component.field("format", OType.STRING));
-        Map<?, ?> attributes = component.field("attributes", OType.EMBEDDEDMAP);
-        String group = component.field("group", OType.STRING);
-        String name = component.field("name", OType.STRING);
-        String version = component.field("version", OType.STRING);
+    long componentCount = migrate("component", "components", tables, this::extractComponent);
 
-        insert(componentStatements.get(format), bucketRepositoryIds.get(bucket.getIdentity()),
-            nullToEmpty(group), name, nullToEmpty(version), json(attributes), component);
+    log.info("Migrated {} components", componentCount);
 
-        if (++componentCount % BATCH_SIZE == 0) {
-          executeBatch(componentStatements);
+    checkpoint("component", componentCount);
+  }
 
-          log.info("...migrating {}/{} components", componentCount, expectedComponentCount);
+  private FormatWriter.Row extractComponent(final ODocument component) throws IOException {
+    OIdentifiable bucket = component.field("bucket", OType.LINK);
+    Map<?, ?> attributes = component.field("attributes", OType.EMBEDDEDMAP);
+    String group = component.field("group", OType.STRING);
+    String name = component.field("name", OType.STRING);
+    String version = component.field("version", OType.STRING);
 
-          // force clear as we won't revisit these records and it keeps memory use down
-          ((OAbstractPaginatedStorage) componentDb.getStorage()).getReadCache().clear();
-        }
-      }
+    Integer repositoryId = bucketRepositoryIds.get(bucket.getIdentity());
+    Object json = json(attributes);
+    String rid = rid(component);
 
-      executeBatch(componentStatements);
-
-      log.info("Migrated {} components", componentCount);
-    }
-    finally {
-      closeBatch(componentStatements);
-    }
+    return writer -> writer.table("component").add(
+        repositoryId, nullToEmpty(group), name, nullToEmpty(version), json, rid);
   }
 
   /**
    * Migrates data into the relevant {@code asset} tables.
    */
   public void extractAssets() throws SQLException, IOException { // NOSONAR
+    if (isCheckpointed("asset")) {
+      log.info("Assets already migrated");
+      return;
+    }
 
     addRidColumns("asset");
     addColumn("asset", "component_rid");
+    truncate("asset", "asset_blob");
 
-    Map<String, PreparedStatement> assetStatements = prepareBatch(
-        "asset", "repository_id", "component_id", "asset_blob_id", "path", "last_downloaded", "attributes", "rid", "component_rid");
+    Map<String, String[]> tables = new LinkedHashMap<>();
+    tables.put("asset_blob", ASSET_BLOB_COLUMNS);
+    tables.put("asset", ASSET_COLUMNS);
 
-    Map<String, PreparedStatement> assetBlobStatements = prepareBatch(
-        "asset_blob", "blob_ref", "blob_size", "content_type", "blob_created", "created_by", "created_by_ip");
+    long assetCount = migrate("asset", "assets", tables, this::extractAsset);
 
-    try {
-      int assetCount = 0;
-      Map<String, Integer> blobCountsPerFormat = new HashMap<>();
-      long expectedAssetCount = componentDb.countClass("asset");
-      for (ODocument asset : componentDb.browseClass("asset")) {
-
-        OIdentifiable bucket = asset.field("bucket", OType.LINK);
-        String format = normalizeFormat(asset.field("format", OType.STRING));
-        Map<?, ?> attributes = asset.field("attributes", OType.EMBEDDEDMAP);
-        OIdentifiable component = asset.field("component", OType.LINK);
-        String name = asset.field("name", OType.STRING);
-        long size = asset.field("size", OType.LONG);
-        String contentType = asset.field("content_type", OType.STRING);
-        String blobRef = asset.field("blob_ref", OType.STRING);
-        Date lastDownloaded = asset.field("last_downloaded", OType.DATETIME);
-        Date blobCreated = asset.field("blob_created", OType.DATETIME);
-        Date blobUpdated = asset.field("blob_updated", OType.DATETIME);
-        String createdBy =  asset.field("created_by", OType.STRING);
-        String createdByIp = asset.field("created_by_ip", OType.STRING);
-
-        Integer assetBlobId = null;
-        if (blobRef != null) {
-          insert(assetBlobStatements.get(format), blobRef, size, contentType,
-              blobUpdated != null ? blobUpdated : blobCreated, createdBy, createdByIp);
-
-          assetBlobId = blobCountsPerFormat.merge(format, 1, Integer::sum);
-        }
+    // asset blob ids were assigned by the migrator, so move the identity past them
+    restartIdentity("asset_blob", "asset_blob_id");
 
-        insert(assetStatements.get(format), bucketRepositoryIds.get(bucket.getIdentity()),
-            null, assetBlobId, normalizePath(name), lastDownloaded, json(attributes), asset, component);
+    log.info("Migrated {} assets", assetCount);
 
-        if (++assetCount % BATCH_SIZE == 0) {
-          executeBatch(assetBlobStatements);
-          executeBatch(assetStatements);
+    log.info("Linking assets to components (this may take a while)");
 
-          log.info("...migrating {}/{} assets", assetCount, expectedAssetCount);
+    createIndex("component", "rid");
+    createIndex("asset", "component_rid");
 
-          // force clear as we won't revisit these records and it keeps memory use down
-          ((OAbstractPaginatedStorage) componentDb.getStorage()).getReadCache().clear();
-        }
-      }
-
-      executeBatch(assetBlobStatements);
-      executeBatch(assetStatements);
+    linkAssetsToComponents();
 
-      log.info("Migrated {} assets", assetCount);
-    }
-    finally {
-      closeBatch(assetBlobStatements);
-      closeBatch(assetStatements);
-    }
+    checkpoint("asset", assetCount);
+  }
 
-    log.info("Linking assets to components (this may take a while)");
+  private FormatWriter.Row extractAsset(final ODocument asset) throws IOException {
+    OIdentifiable bucket = asset.field("bucket", OType.LINK);
+    Map<?, ?> attributes = asset.field("attributes", OType.EMBEDDEDMAP);
+    OIdentifiable component = asset.field("component", OType.LINK);
+    String name = asset.field("name", OType.STRING);
+    long size = asset.field("size", OType.LONG);
+    String contentType = asset.field("content_type", OType.STRING);
+    String blobRef = asset.field("blob_ref", OType.STRING);
+    Date lastDownloaded = asset.field("last_downloaded", OType.DATETIME);
+    Date blobCreated = asset.field("blob_created", OType.DATETIME);
+    Date blobUpdated = asset.field("blob_updated", OType.DATETIME);
+    String createdBy =  asset.field("created_by", OType.STRING);
+    String createdByIp = asset.field("created_by_ip", OType.STRING);
+
+    Integer repositoryId = bucketRepositoryIds.get(bucket.getIdentity());
+    String path = normalizePath(name);
+    Object json = json(attributes);
+    String rid = rid(asset);
+    String componentRid = rid(component);
+
+    return writer -> {
+      Integer assetBlobId = null;
+      if (blobRef != null) {
+        assetBlobId = writer.nextAssetBlobId();
+        writer.table("asset_blob").add(assetBlobId, blobRef, size, contentType,
+            blobUpdated != null ? blobUpdated : blobCreated, createdBy, createdByIp);
+      }
 
-    linkAssetsToComponents();
+      writer.table("asset").add(
+          repositoryId, null, assetBlobId, path, lastDownloaded, json, rid, componentRid);
+    };
   }
 
   public void extractBrowseNodes() throws SQLException {
-    addColumn("browse_node", "asset_rid", true);
-    addColumn("browse_node", "component_rid", true);
+    if (isCheckpointed("browse_node")) {
+      log.info("Browse nodes already migrated");
+      return;
+    }
+
+    addColumn("browse_node", "asset_rid");
+    addColumn("browse_node", "component_rid");
     // for matching parent_id
-    addColumn("browse_node", "parent_path", false);
-    addColumn("browse_node", "parent_parent_path", false);
-    addColumn("browse_node", "parent_name", false);
+    addColumn("browse_node", "parent_path");
+    addColumn("browse_node", "parent_parent_path");
+    addColumn("browse_node", "parent_name");
+    truncate("browse_node");
+
+    Map<String, String[]> tables = new LinkedHashMap<>();
+    tables.put("browse_node", BROWSE_NODE_COLUMNS);
+
+    long browseNodeCount = migrate("browse_node", "browse nodes", tables, this::extractBrowseNode);
+
+    log.info("Migrated {} browse nodes", browseNodeCount);
+
+    createIndex("asset", "rid");
+    createIndex("component", "rid");
+    createIndex("browse_node", "asset_rid");
+    createIndex("browse_node", "component_rid");
+
+    log.info("Linking browse nodes to assets (this may take a while)");
+
+    linkBrowseNodesToAssets();
+
+    log.info("Linking browse nodes to components (this may take a while)");
+
+    linkBrowseNodesToComponents();
+
+    log.info("Linking browse nodes to their parents (this may take a while)");
 
     createBrowseNodeParentIndex();
 
-    Map<String, PreparedStatement> browseNodeStatements = prepareBatch(
-        "browse_node", "repository_id", "format", "path", "name", "asset_rid", "component_rid", "parent_path", "parent_parent_path", "parent_name");
+    linkBrowseNodesToParent();
 
-    try {
-      int browseNodeCount = 0;
+    dropBrowseNodeParentIndex();
+
+    checkpoint("browse_node", browseNodeCount);
+  }
 
-      long expectedBrowseNodeCount = componentDb.countClass("browse_node");
-      for (ODocument browseNode : componentDb.browseClass("browse_node")) {
-        String format = normalizeFormat(browseNode.field("format", OType.STRING));
-        String repositoryName = browseNode.field("repository_name", OType.STRING);
+  private FormatWriter.Row extractBrowseNode(final ODocument browseNode) {
+    String format = normalizeFormat(browseNode.field("format", OType.STRING));
+    String repositoryName = browseNode.field("repository_name", OType.STRING);
 
-        if (repositoryName != null) {
-          ORID rid = repositoryNameToId.get(repositoryName);
-          int repositoryId = bucketRepositoryIds.get(rid);
+    if (repositoryName == null) {
+      return null;
+    }
 
-          String path = browseNode.field("path", OType.STRING);
-          String name = browseNode.field("name", OType.STRING);
+    ORID rid = repositoryNameToId.get(repositoryName);
+    Integer repositoryId = bucketRepositoryIds.get(rid);
 
-          String parentPath = browseNode.field("parent_path", OType.STRING);
+    String path = browseNode.field("path", OType.STRING);
+    String name = browseNode.field("name", OType.STRING);
 
-          String parentParentPath = null;
-          String parentName = null;
+    String parentPath = browseNode.field("parent_path", OType.STRING);
 
-          if (!parentPath.equals("/")) {
-            // remove trailing slash
-            String parentPathMatch = parentPath.substring(0, parentPath.length() - 1);
+    String parentParentPath = null;
+    String parentName = null;
 
-            int lastSlash = parentPathMatch.lastIndexOf('/');
-            parentParentPath = parentPathMatch.substring(0, lastSlash + 1);
-            parentName = parentPathMatch.substring(lastSlash + 1);
-          }
+    if (!parentPath.equals("/")) {
+      // remove trailing slash
+      String parentPathMatch = parentPath.substring(0, parentPath.length() - 1);
 
-          OIdentifiable asset = browseNode.field("asset_id", OType.LINK);
-          OIdentifiable component = browseNode.field("component_id", OType.LINK);
+      int lastSlash = parentPathMatch.lastIndexOf('/');
+      parentParentPath = parentPathMatch.substring(0, lastSlash + 1);
+      parentName = parentPathMatch.substring(lastSlash + 1);
+    }
 
-          insert(browseNodeStatements.get(format), repositoryId, format, path, name, asset, component,
-              parentPath, parentParentPath, parentName);
+    String assetRid = rid(browseNode.field("asset_id", OType.LINK));
+    String componentRid = rid(browseNode.field("component_id", OType.LINK));
 
-          if (++browseNodeCount % BATCH_SIZE == 0) {
-            executeBatch(browseNodeStatements);
+    String finalParentParentPath = parentParentPath;
+    String finalParentName = parentName;
+    return writer -> writer.table("browse_node").add(repositoryId, format, path, name, assetRid, componentRid,
+        parentPath, finalParentParentPath, finalParentName);
+  }
 
-            log.info("...migrating {}/{} browse nodes", browseNodeCount, expectedBrowseNodeCount);
+  /**
+   * Adds the unique constraints, foreign keys and indexes which were left off while the content was loaded.
+   *
+   * @since 3.26
+   */
+  public void addConstraints() throws SQLException, IOException { // NOSONAR
+    if (isCheckpointed("constraints")) {
+      return;
+    }
 
-            // force clear as we won't revisit these records and it keeps memory use down
-            ((OAbstractPaginatedStorage) componentDb.getStorage()).getReadCache().clear();
-          }
+    log.info("Adding constraints and indexes (this may take a while)");
+
+    String constraintsTemplate = Resources.toString(getClass().getResource("/format_constraints.sql"), UTF_8);
+    try (Statement stmt = targetConnection.createStatement()) {
+      for (String format : formats) {
+        stmt.executeUpdate(constraintsTemplate.replace("${format}", format));
+      }
+    }
+
+    checkpoint("constraints", formats.size());
+  }
+
+  /**
+   * Reads the given class using several threads and writes the extracted rows using one thread per format.
+   *
+   * @return number of rows written
+   */
+  private long migrate(final String className,
+                       final String description,
+                       final Map<String, String[]> tables,
+                       final Extractor extractor) throws SQLException
+  {
+    long expectedCount = componentDb.countClass(className);
+
+    ExecutorService writerPool = Executors.newFixedThreadPool(max(formats.size(), 1),
+        threadFactory("orient-migrator-writer-%d"));
+    try {
+      Map<String, FormatWriter> writers = new HashMap<>();
+      List<Future<Long>> results = new ArrayList<>();
+      for (String format : formats) {
+        FormatWriter writer = new FormatWriter(format, targetDataSource.getConnection(), useCopy(), BATCH_SIZE,
+            QUEUE_SIZE, tables);
+        writers.put(format, writer);
+        results.add(writerPool.submit(writer));
+      }
+
+      AtomicLong readCount = new AtomicLong();
+      read(className, extractor, (format, row) -> {
+        FormatWriter writer = writers.get(format);
+        if (writer != null) {
+          writer.put(row);
+        }
+        long count = readCount.incrementAndGet();
+        if (count % BATCH_SIZE == 0) {
+          log.info("...migrating {}/{} {}", count, expectedCount, description);
         }
+        return true;
+      });
+
+      for (FormatWriter writer : writers.values()) {
+        writer.finish();
+      }
+
+      long count = 0;
+      for (Future<Long> result : results) {
+        count += getResult(result);
       }
+      return count;
+    }
+    catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while migrating " + description, e);
+    }
+    finally {
+      writerPool.shutdownNow();
+    }
+  }
 
-      executeBatch(browseNodeStatements);
+  /**
+   * Reads the clusters of the given class in parallel, passing the extracted rows to the sink.
+   */
+  private void read(final String className, final Extractor extractor, final Sink sink) throws SQLException {
+    int[] clusterIds = componentDb.getMetadata().getSchema().getClass(className).getClusterIds();
 
-      log.info("Migrated {} browse nodes", browseNodeCount);
+    ExecutorService readerPool = Executors.newFixedThreadPool(threads, threadFactory("orient-migrator-reader-%d"));
+    try {
+      List<Future<Void>> results = new ArrayList<>();
+      for (int clusterId : clusterIds) {
+        String clusterName = componentDb.getClusterNameById(clusterId);
+        results.add(readerPool.submit(() -> readCluster(clusterName, extractor, sink)));
+      }
+      for (Future<Void> result : results) {
+        getResult(result);
+      }
     }
     finally {
-      closeBatch(browseNodeStatements);
+      readerPool.shutdownNow();
     }
+  }
 
-    log.info("Linking browse nodes to assets (this may take a while)");
+  /**
+   * Reads a single cluster using its own database connection; stops early if the sink doesn't want more rows.
+   */
+  private Void readCluster(final String clusterName, final Extractor extractor, final Sink sink)
+      throws IOException, InterruptedException
+  {
+    try (ODatabaseDocumentTx db = componentDbs.get()) {
+      for (ODocument document : db.<ODocument>browseCluster(clusterName)) {
+        FormatWriter.Row row = extractor.extract(document);
+        if (row != null && !sink.accept(normalizeFormat(document.field("format", OType.STRING)), row)) {
+          break;
+        }
+      }
+    }
+    return null;
+  }
 
-    linkBrowseNodesToAssets();
+  /**
+   * Extracts the row to write from an Orient document, or {@code null} to skip it.
+   */
+  @FunctionalInterface
+  private interface Extractor
+  {
+    FormatWriter.Row extract(ODocument document) throws IOException;
+  }
 
-    log.info("Linking browse nodes to components (this may take a while)");
+  /**
+   * Accepts extracted rows; returns {@code false} when no more rows are wanted.
+   */
+  @FunctionalInterface
+  private interface Sink
+  {
+    boolean accept(String format, FormatWriter.Row row) throws InterruptedException;
+  }
 
-    linkBrowseNodesToComponents();
+  private static <T> T getResult(final Future<T> future) throws SQLException {
+    try {
+      return future.get();
+    }
+    catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while migrating", e);
+    }
+    catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      Throwables.throwIfInstanceOf(cause, SQLException.class);
+      Throwables.throwIfUnchecked(cause);
+      throw new IllegalStateException(cause);
+    }
+  }
 
-    log.info("Linking browse nodes to their parents (this may take a while)");
+  private static ThreadFactory threadFactory(final String nameFormat) {
+    return new ThreadFactoryBuilder().setNameFormat(nameFormat).setDaemon(true).build();
+  }
 
-    linkBrowseNodesToParent();
+  private static String formatSeconds(final long seconds) {
+    return String.format("%d:%02d:%02d", seconds / 3600, (seconds / 60) % 60, seconds % 60);
+  }
 
-    dropBrowseNodeParentIndex();
+  private boolean useCopy() {
+    return "PostgreSQL".equals(databaseId);
   }
 
-  private void createBrowseNodeParentIndex() throws SQLException {
+  /**
+   * Returns the Orient record-id of the given record as a string.
+   */
+  private static String rid(final OIdentifiable record) {
+    return record != null ? record.getIdentity().toString() : null;
+  }
+
+  /**
+   * Has the given step already been migrated?
+   */
+  private boolean isCheckpointed(final String step) throws SQLException {
+    createCheckpointTable();
+    try (PreparedStatement stmt = targetConnection.prepareStatement(
+        "SELECT record_count FROM " + CHECKPOINT_TABLE + " WHERE step = ?;")) {
+      stmt.setString(1, step);
+      try (ResultSet resultSet = stmt.executeQuery()) {
+        return resultSet.next();
+      }
+    }
+  }
+
+  /**
+   * Records that the given step has been migrated, so it can be skipped when resuming a failed migration.
+   */
+  private void checkpoint(final String step, final long recordCount) throws SQLException {
+    createCheckpointTable();
+    try (PreparedStatement stmt = targetConnection.prepareStatement(
+        "INSERT INTO " + CHECKPOINT_TABLE + " (step, record_count) VALUES (?, ?);")) {
+      stmt.setString(1, step);
+      stmt.setLong(2, recordCount);
+      stmt.executeUpdate();
+    }
+  }
+
+  private void clearCheckpoints() throws SQLException {
+    createCheckpointTable();
+    try (Statement stmt = targetConnection.createStatement()) {
+      stmt.executeUpdate("DELETE FROM " + CHECKPOINT_TABLE + ";");
+    }
+  }
+
+  private void createCheckpointTable() throws SQLException {
+    if (!checkpointTableExists) {
+      try (Statement stmt = targetConnection.createStatement()) {
+        stmt.executeUpdate("CREATE TABLE IF NOT EXISTS " + CHECKPOINT_TABLE
+            + " (step VARCHAR PRIMARY KEY, record_count BIGINT NOT NULL);");
+      }
+      checkpointTableExists = true;
+    }
+  }
+
+  private void dropCheckpointTable() throws SQLException {
+    try (Statement stmt = targetConnection.createStatement()) {
+      stmt.executeUpdate("DROP TABLE IF EXISTS " + CHECKPOINT_TABLE + ";");
+    }
+    checkpointTableExists = false;
+  }
+
+  /**
+   * Removes any content left behind in the given tables by an earlier attempt.
+   */
+  private void truncate(final String... tables) throws SQLException {
     try (Statement stmt = targetConnection.createStatement()) {
       for (String format : formats) {
-        String formatTable = format + '_' + "browse_node";
-        stmt.addBatch("CREATE INDEX IF NOT EXISTS idx_" + formatTable + "_repository_id_parent_path_name ON " + formatTable + "(repository_id, parent_path, name);");
+        for (String table : tables) {
+          stmt.addBatch("TRUNCATE TABLE " + format + '_' + table + ";");
+        }
       }
       stmt.executeBatch();
     }
   }
 
-  private void dropBrowseNodeParentIndex() throws SQLException {
+  /**
+   * Moves the identity of the given table past the ids that were assigned during the migration.
+   */
+  private void restartIdentity(final String table, final String idColumn) throws SQLException {
     try (Statement stmt = targetConnection.createStatement()) {
       for (String format : formats) {
-        String formatTable = format + '_' + "browse_node";
-        stmt.addBatch("DROP INDEX IF EXISTS idx_" + formatTable + "_repository_id_parent_path_name;");
+        String formatTable = format + '_' + table;
+        long nextId;
+        try (ResultSet resultSet = stmt.executeQuery(
+            "SELECT COALESCE(MAX(" + idColumn + "), 0) + 1 FROM " + formatTable + ";")) {
+          resultSet.next();
+          nextId = resultSet.getLong(1);
+        }
+        stmt.executeUpdate(
+            "ALTER TABLE " + formatTable + " ALTER COLUMN " + idColumn + " RESTART WITH " + nextId + ";");
       }
-      stmt.executeBatch();
     }
   }
 
@@ -387,6 +732,8 @@ public class ContentMigrator
       dropColumn("browse_node", "parent_name");
     }
 
+    dropCheckpointTable();
+
     log.info("Done");
   }
 
@@ -451,30 +798,33 @@ public class ContentMigrator
   }
 
   /**
-   * Adds a new varchar column with index.
+   * Adds a new varchar column; it is indexed separately once the content has been loaded.
    */
   private void addColumn(final String table, final String var) throws SQLException {
-    addColumn(table, var, true);
+    try (Statement stmt = targetConnection.createStatement()) {
+      for (String format : formats) {
+        String formatTable = format + '_' + table;
+        stmt.addBatch("ALTER TABLE " + formatTable + " ADD COLUMN IF NOT EXISTS " + var + " VARCHAR;");
+      }
+      stmt.executeBatch();
+    }
   }
 
   /**
-   * Adds a new varchar column with optional index.
+   * Indexes a column added by {@link #addColumn}.
    */
-  private void addColumn(final String table, final String var, boolean createIndex) throws SQLException {
+  private void createIndex(final String table, final String var) throws SQLException {
     try (Statement stmt = targetConnection.createStatement()) {
       for (String format : formats) {
         String formatTable = format + '_' + table;
-        stmt.addBatch("ALTER TABLE " + formatTable + " ADD COLUMN IF NOT EXISTS " + var + " VARCHAR;");
-        if (createIndex) {
-          if ("PostgreSQL".equals(databaseId)) {
-            stmt.addBatch(
-                "CREATE INDEX IF NOT EXISTS idx_" + formatTable + "_" + var + " ON " + formatTable + " USING HASH (" +
-                    var + ");");
-          }
-          else {
-            stmt.addBatch(
-                "CREATE INDEX IF NOT EXISTS idx_" + formatTable + "_" + var + " ON " + formatTable + "(" + var + ");");
-          }
+        if ("PostgreSQL".equals(databaseId)) {
+          stmt.addBatch(
+              "CREATE INDEX IF NOT EXISTS idx_" + formatTable + "_" + var + " ON " + formatTable + " USING HASH (" +
+                  var + ");");
+        }
+        else {
+          stmt.addBatch(
+              "CREATE INDEX IF NOT EXISTS idx_" + formatTable + "_" + var + " ON " + formatTable + "(" + var + ");");
         }
       }
       stmt.executeBatch();
@@ -506,15 +856,24 @@ public class ContentMigrator
    * Extracts the mapping from the bucket record-id in Orient to the new {@code repository_id} sequence.
    */
   private void extractBucketRepositoryIds() throws SQLException {
+    Map<String, Integer> repositoryIds = new HashMap<>();
     try (Statement stmt = targetConnection.createStatement()) {
       for (String format : formats) {
-        try (ResultSet resultSet = stmt.executeQuery("SELECT rid, repository_id FROM " + format + "_content_repository;")) {
+        try (ResultSet resultSet = stmt.executeQuery(
+            "SELECT config_repository_id, repository_id FROM " + format + "_content_repository;")) {
           while (resultSet.next()) {
-            bucketRepositoryIds.put(new ORecordId(resultSet.getString(1)), resultSet.getInt(2));
+            repositoryIds.put(resultSet.getString(1), resultSet.getInt(2));
           }
         }
       }
     }
+    // config_repository_id is derived from the repository name, which lets the mapping be rebuilt when resuming
+    repositoryNameToId.forEach((repositoryName, bucketId) -> {
+      Integer repositoryId = repositoryIds.get(nameUUIDFromBytes(repositoryName.getBytes(UTF_8)).toString());
+      if (repositoryId != null) {
+        bucketRepositoryIds.put(bucketId, repositoryId);
+      }
+    });
   }
 
   /**
@@ -595,86 +954,23 @@ public class ContentMigrator
     }
   }
 
-  /**
-   * Prepares a new batch statement for inserting data into the given table.
-   */
-  private Map<String, PreparedStatement> prepareBatch(final String table, final String... parameterNames)
-      throws SQLException
-  {
-    String tableLayout = new StringBuilder(table)
-        .append(" (")
-        .append(join(",", parameterNames))
-        .append(") VALUES (")
-        .append(join(",", nCopies(parameterNames.length, "?")))
-        .append(");")
-        .toString();
-
-    Map<String, PreparedStatement> stmts = new HashMap<>();
-    for (String format : formats) {
-      stmts.put(format, targetConnection.prepareStatement("INSERT INTO " + format + '_' + tableLayout)); // NOSONAR
-    }
-    return stmts;
-  }
-
-  /**
-   * Executes the given collection of batch statements.
-   */
-  private static void executeBatch(final Map<String, PreparedStatement> stmts) throws SQLException {
-    for (PreparedStatement stmt : stmts.values()) {
+  private void createBrowseNodeParentIndex() throws SQLException {
+    try (Statement stmt = targetConnection.createStatement()) {
+      for (String format : formats) {
+        String formatTable = format + '_' + "browse_node";
+        stmt.addBatch("CREATE INDEX IF NOT EXISTS idx_" + formatTable + "_repository_id_parent_path_name ON " + formatTable + "(repository_id, parent_path, name);");
+      }
       stmt.executeBatch();
     }
   }
 
-  /**
-   * Closes the given collection of batch statements.
-   */
-  private static void closeBatch(final Map<String, PreparedStatement> stmts) throws SQLException {
-    for (PreparedStatement stmt : stmts.values()) {
-      stmt.close();
-    }
-  }
-
-  /**
-   * Adds an SQL command to the batch statement to insert the given data.
-   */
-  private static void insert(final PreparedStatement stmt, final Object... parameterValues)
-      throws SQLException
-  {
-    for (int i = 0; i < parameterValues.length; i++) {
-      setParameter(stmt, i + 1, parameterValues[i]);
-    }
-    stmt.addBatch();
-  }
-
-  /**
-   * Simple mapping from Java data to SQL parameters.
-   */
-  private static void setParameter(final PreparedStatement stmt, final int index, final Object value)
-      throws SQLException
-  {
-    if (value == null) {
-      stmt.setNull(index, NULL);
-    }
-    else if (value instanceof String) {
-      stmt.setString(index, (String) value);
-    }
-    else if (value instanceof Integer) {
-      stmt.setInt(index, (int) value);
-    }
-    else if (value instanceof Long) {
-      stmt.setLong(index, (long) value);
-    }
-    else if (value instanceof OIdentifiable) {
-      stmt.setString(index, ((OIdentifiable) value).getIdentity().toString());
-    }
-    else if (value instanceof Date) {
-      stmt.setTimestamp(index, new Timestamp(((Date) value).getTime()));
-    }
-    else if (value instanceof byte[]) {
-      stmt.setBytes(index, (byte[]) value);
-    }
-    else {
-      stmt.setObject(index, value);
+  private void dropBrowseNodeParentIndex() throws SQLException {
+    try (Statement stmt = targetConnection.createStatement()) {
+      for (String format : formats) {
+        String formatTable = format + '_' + "browse_node";
+        stmt.addBatch("DROP INDEX IF EXISTS idx_" + formatTable + "_repository_id_parent_path_name;");
+      }
+      stmt.executeBatch();
     }
   }
 }
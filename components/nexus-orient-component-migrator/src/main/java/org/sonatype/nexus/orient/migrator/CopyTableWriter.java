@@ -0,0 +1,115 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-present Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.orient.migrator;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.Date;
+
+import com.google.common.io.CharSource;
+import com.orientechnologies.orient.core.db.record.OIdentifiable;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyManager;
+
+import static java.lang.String.join;
+
+/**
+ * {@link TableWriter} that streams rows to PostgreSQL using the {@code COPY} bulk-load protocol in CSV format.
+ *
+ * @since 3.26
+ */
+class CopyTableWriter
+    implements TableWriter
+{
+  /**
+   * Rows are sent once this many characters are buffered, so wide rows don't hold on to too much memory.
+   */
+  private static final int MAX_BUFFERED_CHARS = 8 * 1024 * 1024;
+
+  private final CopyManager copyManager;
+
+  private final String copySql;
+
+  private final StringBuilder buffer = new StringBuilder();
+
+  CopyTableWriter(final Connection connection, final String table, final String... columns) throws SQLException {
+    this.copyManager = connection.unwrap(PGConnection.class).getCopyAPI();
+    this.copySql = "COPY " + table + " (" + join(",", columns) + ") FROM STDIN WITH (FORMAT csv)";
+  }
+
+  @Override
+  public void add(final Object... values) throws SQLException, IOException {
+    for (int i = 0; i < values.length; i++) {
+      if (i > 0) {
+        buffer.append(',');
+      }
+      appendValue(values[i]);
+    }
+    buffer.append('\n');
+
+    if (buffer.length() >= MAX_BUFFERED_CHARS) {
+      flush();
+    }
+  }
+
+  @Override
+  public void flush() throws SQLException, IOException {
+    if (buffer.length() > 0) {
+      try (Reader reader = CharSource.wrap(buffer).openStream()) {
+        copyManager.copyIn(copySql, reader);
+      }
+      buffer.setLength(0);
+    }
+  }
+
+  @Override
+  public void close() {
+    buffer.setLength(0);
+  }
+
+  /**
+   * Appends the given value as a CSV field; unquoted empty fields are read as {@code NULL}.
+   */
+  private void appendValue(final Object value) {
+    if (value == null) {
+      return;
+    }
+    if (value instanceof Integer || value instanceof Long) {
+      buffer.append(value);
+    }
+    else if (value instanceof OIdentifiable) {
+      appendQuoted(((OIdentifiable) value).getIdentity().toString());
+    }
+    else if (value instanceof Date) {
+      appendQuoted(new Timestamp(((Date) value).getTime()).toString());
+    }
+    else {
+      appendQuoted(value.toString());
+    }
+  }
+
+  private void appendQuoted(final String text) {
+    buffer.append('"');
+    for (int i = 0; i < text.length(); i++) {
+      char c = text.charAt(i);
+      if (c == '"') {
+        buffer.append('"');
+      }
+      buffer.append(c);
+    }
+    buffer.append('"');
+  }
+}
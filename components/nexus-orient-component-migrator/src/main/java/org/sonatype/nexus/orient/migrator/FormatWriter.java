@@ -0,0 +1,175 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-present Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.orient.migrator;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+/**
+ * Writes the rows of a single format to the target database on its own connection. Rows are taken from a bounded
+ * queue fed by the Orient readers, so a slow writer holds back the readers rather than filling up memory.
+ *
+ * @since 3.26
+ */
+class FormatWriter
+    implements Callable<Long>
+{
+  /**
+   * Extracted content waiting to be written to the tables of a format.
+   */
+  @FunctionalInterface
+  interface Row
+  {
+    void write(FormatWriter writer) throws SQLException, IOException;
+  }
+
+  private static final Row END = writer -> {
+    // marks the end of the rows
+  };
+
+  private final String format;
+
+  private final Connection connection;
+
+  private final int batchSize;
+
+  private final BlockingQueue<Row> queue;
+
+  private final Map<String, TableWriter> tables = new HashMap<>();
+
+  private volatile Throwable failure;
+
+  private int assetBlobId;
+
+  /**
+   * @param format      the format whose tables are written
+   * @param connection  the connection to write with, closed once the writer is done
+   * @param useCopy     {@code true} to write using the PostgreSQL {@code COPY} protocol, otherwise JDBC batches
+   * @param batchSize   number of rows written between flushes
+   * @param queueSize   number of rows that can wait to be written
+   * @param tables      columns to be written, by table name without the format prefix
+   */
+  FormatWriter(final String format,
+               final Connection connection,
+               final boolean useCopy,
+               final int batchSize,
+               final int queueSize,
+               final Map<String, String[]> tables) throws SQLException
+  {
+    this.format = format;
+    this.connection = connection;
+    this.batchSize = batchSize;
+    this.queue = new ArrayBlockingQueue<>(queueSize);
+
+    try {
+      for (Map.Entry<String, String[]> entry : tables.entrySet()) {
+        String formatTable = format + '_' + entry.getKey();
+        this.tables.put(entry.getKey(), useCopy
+            ? new CopyTableWriter(connection, formatTable, entry.getValue())
+            : new InsertTableWriter(connection, formatTable, entry.getValue()));
+      }
+    }
+    catch (SQLException | RuntimeException e) {
+      close();
+      throw e;
+    }
+  }
+
+  /**
+   * Returns the writer for the given table, named without the format prefix.
+   */
+  TableWriter table(final String table) {
+    return tables.get(table);
+  }
+
+  /**
+   * Allocates the id of the next asset blob; ids are assigned here rather than by the database so assets can refer
+   * to their blobs without waiting for the blob rows to be written.
+   */
+  int nextAssetBlobId() {
+    return ++assetBlobId;
+  }
+
+  /**
+   * Queues the given row to be written, waiting while the queue is full.
+   *
+   * @throws IllegalStateException if the writer has failed
+   */
+  void put(final Row row) throws InterruptedException {
+    while (!queue.offer(row, 1, SECONDS)) {
+      checkNotFailed();
+    }
+    checkNotFailed();
+  }
+
+  /**
+   * Tells the writer there are no more rows; it completes once the queued rows are written.
+   */
+  void finish() throws InterruptedException {
+    put(END);
+  }
+
+  @Override
+  public Long call() throws Exception {
+    long count = 0;
+    try {
+      Row row;
+      while ((row = queue.take()) != END) {
+        row.write(this);
+        if (++count % batchSize == 0) {
+          flush();
+        }
+      }
+      flush();
+      return count;
+    }
+    catch (Exception | Error e) { // NOSONAR
+      failure = e;
+      throw e;
+    }
+    finally {
+      close();
+    }
+  }
+
+  private void checkNotFailed() {
+    if (failure != null) {
+      throw new IllegalStateException("Failed to write " + format + " content", failure);
+    }
+  }
+
+  private void flush() throws SQLException, IOException {
+    for (TableWriter table : tables.values()) {
+      table.flush();
+    }
+  }
+
+  private void close() throws SQLException {
+    try {
+      for (TableWriter table : tables.values()) {
+        table.close();
+      }
+    }
+    finally {
+      connection.close();
+    }
+  }
+}
@@ -0,0 +1,98 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-present Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.orient.migrator;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.Date;
+
+import com.orientechnologies.orient.core.db.record.OIdentifiable;
+
+import static java.lang.String.join;
+import static java.sql.Types.NULL;
+import static java.util.Collections.nCopies;
+
+/**
+ * {@link TableWriter} that inserts rows using JDBC batches.
+ *
+ * @since 3.26
+ */
+class InsertTableWriter
+    implements TableWriter
+{
+  private final PreparedStatement stmt;
+
+  InsertTableWriter(final Connection connection, final String table, final String... columns) throws SQLException {
+    String tableLayout = new StringBuilder(table)
+        .append(" (")
+        .append(join(",", columns))
+        .append(") VALUES (")
+        .append(join(",", nCopies(columns.length, "?")))
+        .append(");")
+        .toString();
+
+    this.stmt = connection.prepareStatement("INSERT INTO " + tableLayout); // NOSONAR
+  }
+
+  @Override
+  public void add(final Object... values) throws SQLException {
+    for (int i = 0; i < values.length; i++) {
+      setParameter(stmt, i + 1, values[i]);
+    }
+    stmt.addBatch();
+  }
+
+  @Override
+  public void flush() throws SQLException {
+    stmt.executeBatch();
+  }
+
+  @Override
+  public void close() throws SQLException {
+    stmt.close();
+  }
+
+  /**
+   * Simple mapping from Java data to SQL parameters.
+   */
+  private static void setParameter(final PreparedStatement stmt, final int index, final Object value)
+      throws SQLException
+  {
+    if (value == null) {
+      stmt.setNull(index, NULL);
+    }
+    else if (value instanceof String) {
+      stmt.setString(index, (String) value);
+    }
+    else if (value instanceof Integer) {
+      stmt.setInt(index, (int) value);
+    }
+    else if (value instanceof Long) {
+      stmt.setLong(index, (long) value);
+    }
+    else if (value instanceof OIdentifiable) {
+      stmt.setString(index, ((OIdentifiable) value).getIdentity().toString());
+    }
+    else if (value instanceof Date) {
+      stmt.setTimestamp(index, new Timestamp(((Date) value).getTime()));
+    }
+    else if (value instanceof byte[]) {
+      stmt.setBytes(index, (byte[]) value);
+    }
+    else {
+      stmt.setObject(index, value);
+    }
+  }
+}
@@ -14,6 +14,7 @@ package org.sonatype.nexus.orient.migrator;
 
 import java.io.IOException;
 import java.sql.SQLException;
+import java.util.function.Supplier;
 import java.util.logging.LogManager;
 
 import com.orientechnologies.orient.core.Orient;
@@ -29,12 +30,28 @@ import com.zaxxer.hikari.HikariDataSource;
  */
 public class Main
 {
+  private static final String THREADS_OPTION = "--threads=";
+
+  private static final String DRY_RUN_OPTION = "--dry-run";
+
   public static void main(final String[] args) throws SQLException, IOException {
     if (args.length < 2) {
-      System.err.println("Usage: java -jar nexus-orient-migrator.jar <plocal:component-db-path> <jdbc:target-db>"); // NOSONAR
+      System.err.println("Usage: java -jar nexus-orient-migrator.jar <plocal:component-db-path> <jdbc:target-db>" // NOSONAR
+          + " [" + THREADS_OPTION + "<reader-threads>] [" + DRY_RUN_OPTION + "]");
       System.exit(1);
     }
 
+    int threads = Runtime.getRuntime().availableProcessors();
+    boolean dryRun = false;
+    for (int i = 2; i < args.length; i++) {
+      if (args[i].startsWith(THREADS_OPTION)) {
+        threads = Integer.parseInt(args[i].substring(THREADS_OPTION.length()));
+      }
+      else if (DRY_RUN_OPTION.equals(args[i])) {
+        dryRun = true;
+      }
+    }
+
     LogManager.getLogManager().readConfiguration(Main.class.getResourceAsStream("/logging.properties"));
 
     // register placeholder so we can load databases that use our custom conflict hook
@@ -43,18 +60,27 @@ public class Main
 
     HikariConfig hikariConfig = new HikariConfig();
     hikariConfig.setJdbcUrl(args[1]);
+    // each format is written using its own connection
+    hikariConfig.setMaximumPoolSize(32);
 
     if (hikariConfig.getJdbcUrl().contains("postgresql")) {
       // workaround https://github.com/pgjdbc/pgjdbc/issues/265
       hikariConfig.getDataSourceProperties().setProperty("stringtype", "unspecified");
     }
 
-    try (ODatabaseDocumentTx componentDb = new ODatabaseDocumentTx(args[0])) {
+    Supplier<ODatabaseDocumentTx> componentDbs = () -> {
+      ODatabaseDocumentTx componentDb = new ODatabaseDocumentTx(args[0]);
       componentDb.open("admin", "admin");
-      try (HikariDataSource targetDb = new HikariDataSource(hikariConfig)) {
-        ContentMigrator migrator = new ContentMigrator(componentDb, targetDb.getConnection(), false);
+      return componentDb;
+    };
 
-       migrator.extractAll();
+    try (HikariDataSource targetDb = new HikariDataSource(hikariConfig);
+         ContentMigrator migrator = new ContentMigrator(componentDbs, targetDb, false, threads)) {
+      if (dryRun) {
+        migrator.estimateThroughput();
+      }
+      else {
+        migrator.extractAll();
       }
     }
   }
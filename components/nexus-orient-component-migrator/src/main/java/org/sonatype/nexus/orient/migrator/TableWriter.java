@@ -0,0 +1,38 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-present Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.orient.migrator;
+
+import java.io.IOException;
+import java.sql.SQLException;
+
+/**
+ * Writes rows to a table in the target database.
+ *
+ * @since 3.26
+ */
+interface TableWriter
+    extends AutoCloseable
+{
+  /**
+   * Adds a row with the given column values; rows may be buffered until the next {@link #flush()}.
+   */
+  void add(Object... values) throws SQLException, IOException;
+
+  /**
+   * Writes any buffered rows to the table.
+   */
+  void flush() throws SQLException, IOException;
+
+  @Override
+  void close() throws SQLException;
+}
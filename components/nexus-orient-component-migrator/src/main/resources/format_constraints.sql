@@ -0,0 +1,47 @@
+--------------------------------------------------------------------------------
+-- constraints and indexes from NXRM's DAO XML files, added after the content
+-- has been loaded because it is much quicker than checking them on every row
+--------------------------------------------------------------------------------
+
+ALTER TABLE ${format}_content_repository
+  ADD CONSTRAINT uk_${format}_config_repository_id UNIQUE (config_repository_id);
+
+ALTER TABLE ${format}_component
+  ADD CONSTRAINT uk_${format}_component_coordinate UNIQUE (repository_id, namespace, name, version);
+ALTER TABLE ${format}_component
+  ADD CONSTRAINT fk_${format}_component_repository_id FOREIGN KEY (repository_id)
+     REFERENCES ${format}_content_repository (repository_id);
+
+ALTER TABLE ${format}_asset_blob
+  ADD CONSTRAINT uk_${format}_asset_blob_ref UNIQUE (blob_ref);
+
+ALTER TABLE ${format}_asset
+  ADD CONSTRAINT uk_${format}_asset_repository_path UNIQUE (repository_id, path);
+ALTER TABLE ${format}_asset
+  ADD CONSTRAINT fk_${format}_asset_repository_id FOREIGN KEY (repository_id)
+     REFERENCES ${format}_content_repository (repository_id);
+ALTER TABLE ${format}_asset
+  ADD CONSTRAINT fk_${format}_asset_component FOREIGN KEY (component_id)
+     REFERENCES ${format}_component (component_id);
+ALTER TABLE ${format}_asset
+  ADD CONSTRAINT fk_${format}_asset_blob FOREIGN KEY (asset_blob_id)
+     REFERENCES ${format}_asset_blob (asset_blob_id);
+
+ALTER TABLE ${format}_browse_node
+  ADD CONSTRAINT uk_${format}_browse_node_asset UNIQUE (asset_id);
+ALTER TABLE ${format}_browse_node
+  ADD CONSTRAINT uk_${format}_browse_node_component UNIQUE (component_id);
+ALTER TABLE ${format}_browse_node
+  ADD CONSTRAINT fk_${format}_browse_node_component_id FOREIGN KEY (component_id)
+     REFERENCES ${format}_component (component_id);
+ALTER TABLE ${format}_browse_node
+  ADD CONSTRAINT fk_${format}_browse_node_asset_id FOREIGN KEY (asset_id)
+     REFERENCES ${format}_asset (asset_id);
+ALTER TABLE ${format}_browse_node
+  ADD CONSTRAINT fk_${format}_browse_node_parent_id FOREIGN KEY (parent_id)
+     REFERENCES ${format}_browse_node (browse_node_id);
+
+CREATE INDEX IF NOT EXISTS idx_${format}_browse_node_repository_id_parent_id
+  ON ${format}_browse_node (repository_id, parent_id);
+CREATE INDEX IF NOT EXISTS idx_${format}_browse_node_repository_id_path
+  ON ${format}_browse_node (repository_id, path);
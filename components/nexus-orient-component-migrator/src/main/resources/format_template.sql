@@ -2,8 +2,8 @@
 -- WARNING existing content will be removed! (we don't attempt to merge it)
 --------------------------------------------------------------------------------
 
-DROP INDEX IF EXISTS idx_maven_browse_node_repository_id_parent_id;
-DROP INDEX IF EXISTS idx_maven_browse_node_repository_id_path;
+DROP INDEX IF EXISTS idx_${format}_browse_node_repository_id_parent_id;
+DROP INDEX IF EXISTS idx_${format}_browse_node_repository_id_path;
 DROP TABLE IF EXISTS ${format}_browse_node;
 DROP TABLE IF EXISTS ${format}_asset;
 DROP TABLE IF EXISTS ${format}_asset_blob;
@@ -12,6 +12,9 @@ DROP TABLE IF EXISTS ${format}_content_repository;
 
 --------------------------------------------------------------------------------
 -- copy of the content schemas taken from NXRM's DAO XML files
+--
+-- unique constraints, foreign keys, and indexes are added by format_constraints.sql
+-- once the content has been loaded
 --------------------------------------------------------------------------------
 
 CREATE TABLE ${format}_content_repository (
@@ -21,8 +24,7 @@ CREATE TABLE ${format}_content_repository (
   created              TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
   last_updated         TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
 
-  CONSTRAINT pk_${format}_content_repository_id PRIMARY KEY (repository_id),
-  CONSTRAINT uk_${format}_config_repository_id UNIQUE (config_repository_id)
+  CONSTRAINT pk_${format}_content_repository_id PRIMARY KEY (repository_id)
 );
 
 CREATE TABLE ${format}_component (
@@ -35,10 +37,7 @@ CREATE TABLE ${format}_component (
   created       TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
   last_updated  TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
 
-  CONSTRAINT pk_${format}_component_id PRIMARY KEY (component_id),
-  CONSTRAINT uk_${format}_component_coordinate UNIQUE (repository_id, namespace, name, version),
-  CONSTRAINT fk_${format}_component_repository_id FOREIGN KEY (repository_id)
-     REFERENCES ${format}_content_repository (repository_id)
+  CONSTRAINT pk_${format}_component_id PRIMARY KEY (component_id)
 );
 
 CREATE TABLE ${format}_asset_blob (
@@ -50,8 +49,7 @@ CREATE TABLE ${format}_asset_blob (
   created_by    VARCHAR,
   created_by_ip VARCHAR,
 
-  CONSTRAINT pk_${format}_asset_blob_id PRIMARY KEY (asset_blob_id),
-  CONSTRAINT uk_${format}_asset_blob_ref UNIQUE (blob_ref)
+  CONSTRAINT pk_${format}_asset_blob_id PRIMARY KEY (asset_blob_id)
 );
 
 CREATE TABLE ${format}_asset (
@@ -65,14 +63,7 @@ CREATE TABLE ${format}_asset (
   created         TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
   last_updated    TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
 
-  CONSTRAINT pk_${format}_asset_id PRIMARY KEY (asset_id),
-  CONSTRAINT uk_${format}_asset_repository_path UNIQUE (repository_id, path),
-  CONSTRAINT fk_${format}_asset_repository_id FOREIGN KEY (repository_id)
-     REFERENCES ${format}_content_repository (repository_id),
-  CONSTRAINT fk_${format}_asset_component FOREIGN KEY (component_id)
-     REFERENCES ${format}_component (component_id),
-  CONSTRAINT fk_${format}_asset_blob FOREIGN KEY (asset_blob_id)
-     REFERENCES ${format}_asset_blob (asset_blob_id)
+  CONSTRAINT pk_${format}_asset_id PRIMARY KEY (asset_id)
 );
 
 CREATE TABLE ${format}_browse_node (
@@ -85,17 +76,5 @@ CREATE TABLE ${format}_browse_node (
     component_id    INT NULL,
     asset_id        INT NULL,
 
-    CONSTRAINT pk_${format}_browse_node_id PRIMARY KEY (browse_node_id),
-    CONSTRAINT uk_${format}_browse_node_asset UNIQUE (asset_id),
-    CONSTRAINT uk_${format}_browse_node_component UNIQUE (component_id),
-
-    CONSTRAINT fk_${format}_browse_node_component_id FOREIGN KEY (component_id)
-         REFERENCES ${format}_component (component_id),
-    CONSTRAINT fk_${format}_browse_node_asset_id FOREIGN KEY (asset_id)
-         REFERENCES ${format}_asset (asset_id),
-    CONSTRAINT fk_${format}_browse_node_parent_id FOREIGN KEY (parent_id)
-         REFERENCES ${format}_browse_node (browse_node_id)
+    CONSTRAINT pk_${format}_browse_node_id PRIMARY KEY (browse_node_id)
 );
-
-create index idx_maven_browse_node_repository_id_parent_id on maven_browse_node(repository_id, parent_id);
-create index idx_maven_browse_node_repository_id_path on maven_browse_node(repository_id, path);
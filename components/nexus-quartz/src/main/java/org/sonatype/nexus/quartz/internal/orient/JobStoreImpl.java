@@ -24,7 +24,7 @@ import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
 import java.util.UUID;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.stream.Collectors;
 
 import javax.annotation.Nullable;
@@ -42,6 +42,7 @@ import org.sonatype.nexus.common.text.Strings2;
 import org.sonatype.nexus.orient.DatabaseInstance;
 import org.sonatype.nexus.orient.DatabaseInstanceNames;
 
+import com.codahale.metrics.annotation.Timed;
 import com.google.common.base.Throwables;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Iterables;
@@ -91,6 +92,10 @@ import static org.sonatype.nexus.scheduling.TaskDescriptorSupport.MULTINODE_KEY;
 /**
  * Orient {@link JobStore}.
  *
+ * Writes are serialized by a store-wide lock, while reads rely on transaction isolation and never wait for writes,
+ * so listing tasks is not held up by trigger acquisition. Acquirable triggers are found with an index on their state
+ * and next fire time, and the time taken to acquire triggers is published as a metric.
+ *
  * @since 3.0
  */
 @Named("orient")
@@ -106,9 +111,13 @@ public class JobStoreImpl
 
   private static final Set<TriggerEntity.State> ALL_ACQUIRABLE_STATES = union(ACQUIRABLE_LOCAL_STATES, ACQUIRABLE_ORPHAN_STATES).immutableCopy();
 
+  private static final Set<TriggerEntity.State> BLOCKABLE_STATES = immutableEnumSet(WAITING, PAUSED);
+
+  private static final Set<TriggerEntity.State> BLOCKED_STATES = immutableEnumSet(BLOCKED, PAUSED_BLOCKED);
+
   private static final String NODE_ID = "node.identity";
 
-  private final ReentrantReadWriteLock storeLock = new ReentrantReadWriteLock();
+  private final ReentrantLock writeLock = new ReentrantLock();
 
   private final Provider<DatabaseInstance> databaseInstance;
 
@@ -195,7 +204,6 @@ public class JobStoreImpl
    * Execute read operation within transaction and propagate/translate exceptions.
    */
   private <T> T executeRead(final Operation<T> operation) throws JobPersistenceException {
-    storeLock.readLock().lock();
     try {
       return inTx(databaseInstance)
           .retryOn(ONeedRetryException.class, ORecordNotFoundException.class)
@@ -207,16 +215,13 @@ public class JobStoreImpl
       Throwables.propagateIfPossible(e, JobPersistenceException.class);
       throw new JobPersistenceException(e.toString(), e);
     }
-    finally {
-      storeLock.readLock().unlock();
-    }
   }
 
   /**
    * Execute write operation within transaction and propagate/translate exceptions.
    */
   private <T> T executeWrite(final Operation<T> operation) throws JobPersistenceException {
-    storeLock.writeLock().lock();
+    writeLock.lock();
     try {
       return inTx(databaseInstance)
           .retryOn(ONeedRetryException.class, ORecordNotFoundException.class)
@@ -229,7 +234,7 @@ public class JobStoreImpl
       throw new JobPersistenceException(e.toString(), e);
     }
     finally {
-      storeLock.writeLock().unlock();
+      writeLock.unlock();
     }
   }
 
@@ -935,12 +940,13 @@ public class JobStoreImpl
   }
 
   @Override
+  @Timed
   public List<OperableTrigger> acquireNextTriggers(final long noLaterThan,
                                                    final int maxCount,
                                                    final long timeWindow)
       throws JobPersistenceException
   {
-    storeLock.writeLock().lock();
+    writeLock.lock();
     try {
       return inTx(databaseInstance)
           .retryOn(ONeedRetryException.class, ORecordNotFoundException.class)
@@ -957,7 +963,7 @@ public class JobStoreImpl
       throw new JobPersistenceException(e.toString(), e);
     }
     finally {
-      storeLock.writeLock().unlock();
+      writeLock.unlock();
     }
   }
 
@@ -976,11 +982,7 @@ public class JobStoreImpl
   }
 
   private boolean isTriggerGroupPaused(final ODatabaseDocumentTx db, final String groupName) {
-    Iterable<TriggerEntity> matches = triggerEntityAdapter.browseWithPredicate
-        (db, input ->
-            groupName.equals(input.getGroup()) && PAUSED.equals(input.getState())
-        );
-    return !Iterables.isEmpty(matches);
+    return triggerEntityAdapter.existsByGroupAndState(db, groupName, PAUSED);
   }
 
   private void updateTriggerStatesForJobFromOtherState(final ODatabaseDocumentTx db,
@@ -988,17 +990,12 @@ public class JobStoreImpl
                                                        final TriggerEntity.State state,
                                                        final TriggerEntity.State oldState)
   {
-    Iterable<TriggerEntity> matches = triggerEntityAdapter.browseWithPredicate
-        (db, input ->
-            triggerKey.getName().equals(input.getName()) &&
-                triggerKey.getGroup().equals(input.getGroup()) &&
-                oldState.equals(input.getState())
-        );
+    TriggerEntity entity = triggerEntityAdapter.readByKey(db, triggerKey);
 
-    matches.forEach(entity -> {
+    if (entity != null && oldState.equals(entity.getState())) {
       entity.setState(state);
       triggerEntityAdapter.editEntity(db, entity);
-    });
+    }
   }
 
   @Override
@@ -1014,7 +1011,8 @@ public class JobStoreImpl
     List<TriggerEntity> possibleEntities = new ArrayList<>();
     List<TriggerEntity> acquirableEntities = new ArrayList<>();
 
-    triggerEntityAdapter.browseByStates(db, ALL_ACQUIRABLE_STATES).forEach(possibleEntities::add);
+    triggerEntityAdapter.browseByStatesFiringBy(db, ALL_ACQUIRABLE_STATES, noLaterThan + timeWindow)
+        .forEach(possibleEntities::add);
 
     possibleEntities.stream()
         .filter(this::isLocalOrOrphaned)
@@ -1239,15 +1237,7 @@ public class JobStoreImpl
 
     log.trace("Blocking other triggers: firedTriggerKey={}, jobKey={}", firedTriggerKey, jobKey);
 
-    Iterable<TriggerEntity> matches = triggerEntityAdapter.browseWithPredicate
-        (db, input -> {
-          switch (input.getState()) {
-            case WAITING:
-            case PAUSED:
-              return jobKey.equals(input.getValue().getJobKey());
-          }
-          return false;
-        });
+    Iterable<TriggerEntity> matches = triggerEntityAdapter.browseByJobKeyAndStates(db, jobKey, BLOCKABLE_STATES);
 
     if (isMultiNodeTask(jobDetail)) {
       matches = local(matches); // multinode task; each node only needs to block local triggers
@@ -1344,15 +1334,7 @@ public class JobStoreImpl
 
     log.trace("Unblock triggers: jobKey={}", jobKey);
 
-    Iterable<TriggerEntity> matches = triggerEntityAdapter.browseWithPredicate
-        (db, input -> {
-          switch (input.getState()) {
-            case BLOCKED:
-            case PAUSED_BLOCKED:
-              return jobKey.equals(input.getValue().getJobKey());
-          }
-          return false;
-        });
+    Iterable<TriggerEntity> matches = triggerEntityAdapter.browseByJobKeyAndStates(db, jobKey, BLOCKED_STATES);
 
     if (isMultiNodeTask(jobDetail)) {
       matches = local(matches); // multinode task; each node only needs to unblock local triggers
@@ -13,6 +13,8 @@
 package org.sonatype.nexus.quartz.internal.orient;
 
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
 import java.util.List;
 import java.util.function.Predicate;
 
@@ -42,6 +44,7 @@ import org.quartz.JobKey;
 import org.quartz.TriggerKey;
 import org.quartz.spi.OperableTrigger;
 
+import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 
 /**
@@ -71,6 +74,8 @@ public class TriggerEntityAdapter
 
   private static final String P_STATE = "state";
 
+  private static final String P_NEXT_FIRE_TIME = "next_fire_time";
+
   private static final String I_NAME_GROUP = new OIndexNameBuilder()
       .type(DB_CLASS)
       .property(P_NAME)
@@ -93,6 +98,12 @@ public class TriggerEntityAdapter
       .property(P_STATE)
       .build();
 
+  private static final String I_STATE_NEXT_FIRE_TIME = new OIndexNameBuilder()
+      .type(DB_CLASS)
+      .property(P_STATE)
+      .property(P_NEXT_FIRE_TIME)
+      .build();
+
   private final ReadEntityByKeyAction<TriggerEntity> readByKey =
       new ReadEntityByKeyAction<>(this, P_NAME, P_GROUP);
 
@@ -153,11 +164,46 @@ public class TriggerEntityAdapter
     type.createProperty(P_STATE, OType.STRING)
         .setMandatory(true)
         .setNotNull(true);
+    type.createProperty(P_NEXT_FIRE_TIME, OType.LONG); // nullable
 
     type.createIndex(I_NAME_GROUP, INDEX_TYPE.UNIQUE, P_NAME, P_GROUP);
     type.createIndex(I_JOB_NAME_JOB_GROUP, INDEX_TYPE.NOTUNIQUE, P_JOB_NAME, P_JOB_GROUP);
     type.createIndex(I_CALENDAR_NAME, INDEX_TYPE.NOTUNIQUE, P_CALENDAR_NAME);
     type.createIndex(I_STATE, INDEX_TYPE.NOTUNIQUE, P_STATE);
+    type.createIndex(I_STATE_NEXT_FIRE_TIME, INDEX_TYPE.NOTUNIQUE, P_STATE, P_NEXT_FIRE_TIME);
+  }
+
+  /**
+   * Adds the next-fire-time index to types created before it existed, recording the next-fire-time of the triggers
+   * stored before then. This is done before registering, so no entity events are sent for these updates.
+   */
+  @Override
+  public void register(final ODatabaseDocumentTx db, @Nullable final Runnable initializer) {
+    OClass type = db.getMetadata().getSchema().getClass(DB_CLASS);
+    if (type != null && type.getClassIndex(I_STATE_NEXT_FIRE_TIME) == null) {
+      if (!type.existsProperty(P_NEXT_FIRE_TIME)) {
+        type.createProperty(P_NEXT_FIRE_TIME, OType.LONG);
+      }
+      for (ODocument document : db.browseClass(DB_CLASS)) {
+        TriggerEntity entity = newEntity();
+        try {
+          readFields(document, entity);
+        }
+        catch (Exception e) {
+          log.warn("Unable to read trigger {} to record its next fire time", document.getIdentity(), e);
+          continue;
+        }
+        Date nextFireTime = entity.getValue().getNextFireTime();
+        if (nextFireTime != null) {
+          document.field(P_NEXT_FIRE_TIME, nextFireTime.getTime());
+          document.save();
+        }
+      }
+      type.createIndex(I_STATE_NEXT_FIRE_TIME, INDEX_TYPE.NOTUNIQUE, P_STATE, P_NEXT_FIRE_TIME);
+      log.info("Indexed {} by next fire time", DB_CLASS);
+    }
+
+    super.register(db, initializer);
   }
 
   @Override
@@ -187,6 +233,9 @@ public class TriggerEntityAdapter
     document.field(P_JOB_GROUP, entity.getJobGroup());
     document.field(P_CALENDAR_NAME, entity.getCalendarName());
     document.field(P_STATE, entity.getState().name());
+
+    Date nextFireTime = entity.getValue().getNextFireTime();
+    document.field(P_NEXT_FIRE_TIME, nextFireTime != null ? nextFireTime.getTime() : null);
   }
 
   //
@@ -298,6 +347,93 @@ public class TriggerEntityAdapter
     deleteByJobKey.execute(db, jobKey.getName(), jobKey.getGroup());
   }
 
+  private static final String EXISTS_BY_GROUP_AND_STATE_QUERY = String.format(
+      "SELECT FROM %s WHERE %s = ? AND %s = ? LIMIT 1", DB_CLASS, P_GROUP, P_STATE);
+
+  /**
+   * Check if any entity in the given group has the given state.
+   *
+   * @since 3.26
+   */
+  public boolean existsByGroupAndState(final ODatabaseDocumentTx db,
+                                       final String group,
+                                       final TriggerEntity.State state)
+  {
+    checkNotNull(db);
+    checkNotNull(group);
+    checkNotNull(state);
+
+    List<ODocument> results = db.command(new OSQLSynchQuery<>(EXISTS_BY_GROUP_AND_STATE_QUERY))
+        .execute(group, state.name());
+
+    return !results.isEmpty();
+  }
+
+  private static final String BROWSE_BY_JOB_KEY_AND_STATES_QUERY = String.format(
+      "SELECT FROM %s WHERE %s = ? AND %s = ? AND %s IN [ %%s ]", DB_CLASS, P_JOB_NAME, P_JOB_GROUP, P_STATE);
+
+  /**
+   * Browse all entities matching {@link JobKey} which have one of the given states.
+   *
+   * @since 3.26
+   */
+  public Iterable<TriggerEntity> browseByJobKeyAndStates(final ODatabaseDocumentTx db,
+                                                         final JobKey jobKey,
+                                                         final Collection<TriggerEntity.State> states)
+  {
+    checkNotNull(db);
+    checkNotNull(jobKey);
+    checkArgument(states != null && !states.isEmpty());
+
+    Object[] parameters = new Object[states.size() + 2];
+    parameters[0] = jobKey.getName();
+    parameters[1] = jobKey.getGroup();
+    int i = 2;
+    for (TriggerEntity.State state : states) {
+      parameters[i++] = state.name();
+    }
+
+    List<ODocument> results = db.command(new OSQLSynchQuery<>(
+        String.format(BROWSE_BY_JOB_KEY_AND_STATES_QUERY, placeholders(states.size()))))
+        .execute(parameters);
+
+    return transform(results);
+  }
+
+  private static final String BROWSE_BY_STATES_FIRING_BY_QUERY = String.format(
+      "SELECT FROM %s WHERE %s IN [ %%s ] AND %s <= ?", DB_CLASS, P_STATE, P_NEXT_FIRE_TIME);
+
+  /**
+   * Browse all entities which have one of the given states and are due to fire no later than the given time.
+   * Entities which will not fire again are never included.
+   *
+   * @since 3.26
+   */
+  public Iterable<TriggerEntity> browseByStatesFiringBy(final ODatabaseDocumentTx db,
+                                                        final Collection<TriggerEntity.State> states,
+                                                        final long noLaterThan)
+  {
+    checkNotNull(db);
+    checkArgument(states != null && !states.isEmpty());
+
+    Object[] parameters = new Object[states.size() + 1];
+    int i = 0;
+    for (TriggerEntity.State state : states) {
+      parameters[i++] = state.name();
+    }
+    parameters[i] = noLaterThan;
+
+    List<ODocument> results = db.command(new OSQLSynchQuery<>(
+        String.format(BROWSE_BY_STATES_FIRING_BY_QUERY, placeholders(states.size()))))
+        .execute(parameters);
+
+    return transform(results);
+  }
+
+  private static String placeholders(final int count) {
+    return String.join(",", Collections.nCopies(count, "?"));
+  }
+
   @Override
   public boolean sendEvents() {
     return true;
@@ -20,7 +20,13 @@ import org.sonatype.nexus.orient.testsupport.DatabaseInstanceRule
 import org.junit.Before
 import org.junit.Rule
 import org.junit.Test
+import org.quartz.JobKey
 import org.quartz.impl.triggers.CronTriggerImpl
+import org.quartz.impl.triggers.SimpleTriggerImpl
+
+import static org.sonatype.nexus.quartz.internal.orient.TriggerEntity.State.BLOCKED
+import static org.sonatype.nexus.quartz.internal.orient.TriggerEntity.State.PAUSED
+import static org.sonatype.nexus.quartz.internal.orient.TriggerEntity.State.WAITING
 
 /**
  * Tests for {@link TriggerEntityAdapter}.
@@ -98,6 +104,60 @@ class TriggerEntityAdapterTest
     }
   }
 
+  @Test
+  void 'browse by states firing by'() {
+    database.instance.acquire().withCloseable {db ->
+      underTest.addEntity(db, simpleTrigger('early', 'job', 1000L, WAITING))
+      underTest.addEntity(db, simpleTrigger('late', 'job', 5000L, WAITING))
+      underTest.addEntity(db, simpleTrigger('paused', 'job', 1000L, PAUSED))
+      underTest.addEntity(db, simpleTrigger('never', 'job', null, WAITING))
+
+      assert underTest.browseByStatesFiringBy(db, [WAITING], 2000L)*.name == ['early']
+      assert underTest.browseByStatesFiringBy(db, [WAITING, PAUSED], 2000L)*.name.sort() == ['early', 'paused']
+      assert underTest.browseByStatesFiringBy(db, [WAITING], 5000L)*.name.sort() == ['early', 'late']
+    }
+  }
+
+  @Test
+  void 'browse by job key and states'() {
+    database.instance.acquire().withCloseable {db ->
+      underTest.addEntity(db, simpleTrigger('waiting', 'job', 1000L, WAITING))
+      underTest.addEntity(db, simpleTrigger('paused', 'job', 1000L, PAUSED))
+      underTest.addEntity(db, simpleTrigger('blocked', 'job', 1000L, BLOCKED))
+      underTest.addEntity(db, simpleTrigger('other', 'other-job', 1000L, WAITING))
+
+      def jobKey = new JobKey('job', 'test-group')
+      assert underTest.browseByJobKeyAndStates(db, jobKey, [WAITING, PAUSED])*.name.sort() == ['paused', 'waiting']
+      assert underTest.browseByJobKeyAndStates(db, jobKey, [BLOCKED])*.name == ['blocked']
+    }
+  }
+
+  @Test
+  void 'exists by group and state'() {
+    database.instance.acquire().withCloseable {db ->
+      underTest.addEntity(db, simpleTrigger('paused', 'job', 1000L, PAUSED))
+
+      assert underTest.existsByGroupAndState(db, 'test-group', PAUSED)
+      assert !underTest.existsByGroupAndState(db, 'test-group', WAITING)
+      assert !underTest.existsByGroupAndState(db, 'other-group', PAUSED)
+    }
+  }
+
+  private static TriggerEntity simpleTrigger(final String name,
+                                             final String jobName,
+                                             final Long nextFireTime,
+                                             final TriggerEntity.State state)
+  {
+    def trigger = new SimpleTriggerImpl(
+        name: name,
+        group: 'test-group',
+        jobName: jobName,
+        jobGroup: 'test-group',
+        nextFireTime: nextFireTime != null ? new Date(nextFireTime) : null
+    )
+    return new TriggerEntity(trigger, state)
+  }
+
   // TODO: Add tests for: readByKey, existsByKey, browseGroups, browseByCalendarName,
   // TODO: ... browseWithPredicate, deleteByKey, deleteAll and browseByJobKey
 
@@ -12,6 +12,8 @@
  */
 package org.sonatype.nexus.repository.tools.datastore;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
 import java.util.function.Consumer;
 import java.util.stream.Stream;
@@ -54,6 +56,8 @@ public class DatastoreOrphanedBlobFinder
 
   private static final String BLOB_STORE_NAME_KEY = "blobStoreName";
 
+  private static final int DELETE_BATCH_SIZE = 1000;
+
   private final RepositoryManager repositoryManager;
 
   private final BlobStoreManager blobStoreManager;
@@ -91,11 +95,19 @@ public class DatastoreOrphanedBlobFinder
   }
 
   private void delete(final BlobStore blobStore) {
+    List<BlobId> batch = new ArrayList<>(DELETE_BATCH_SIZE);
     detect(blobStore, blobId -> {
       log.info("Deleting orphaned blob {} from blobstore {}", blobId, blobStore.getBlobStoreConfiguration().getName());
 
-      blobStore.deleteHard(new BlobId(blobId));
+      batch.add(new BlobId(blobId));
+      if (batch.size() >= DELETE_BATCH_SIZE) {
+        blobStore.deleteHard(new ArrayList<>(batch));
+        batch.clear();
+      }
     });
+    if (!batch.isEmpty()) {
+      blobStore.deleteHard(batch);
+    }
   }
 
   /**
@@ -47,7 +47,10 @@ import org.junit.Test;
 import org.mockito.Mock;
 
 import static com.google.common.collect.ImmutableMap.of;
+import static java.util.Arrays.asList;
 import static java.util.Collections.emptyMap;
+import static java.util.Collections.singletonList;
+import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
@@ -117,7 +120,7 @@ public class DatastoreOrphanedBlobFinderTest
 
     underTest.delete(repository);
 
-    verify(blobStore).deleteHard(new BlobId(ORPHANED_BLOB_ID));
+    verify(blobStore).deleteHard(singletonList(new BlobId(ORPHANED_BLOB_ID)));
   }
 
   @Test
@@ -126,7 +129,7 @@ public class DatastoreOrphanedBlobFinderTest
 
     underTest.delete(repository);
 
-    verify(blobStore, never()).deleteHard(new BlobId(ORPHANED_BLOB_ID));
+    verify(blobStore, never()).deleteHard(any(Iterable.class));
   }
 
   @Test
@@ -138,8 +141,8 @@ public class DatastoreOrphanedBlobFinderTest
 
     underTest.delete();
 
-    verify(blobStore).deleteHard(new BlobId(ORPHANED_BLOB_ID));
-    verify(blobStore2).deleteHard(new BlobId(ORPHANED_BLOB_ID));
+    verify(blobStore).deleteHard(singletonList(new BlobId(ORPHANED_BLOB_ID)));
+    verify(blobStore2).deleteHard(singletonList(new BlobId(ORPHANED_BLOB_ID)));
   }
 
   @Test
@@ -150,8 +153,7 @@ public class DatastoreOrphanedBlobFinderTest
 
     underTest.delete(repository);
 
-    verify(blobStore).deleteHard(new BlobId(ORPHANED_BLOB_ID));
-    verify(blobStore).deleteHard(new BlobId(USED_BLOB_ID));
+    verify(blobStore).deleteHard(asList(new BlobId(ORPHANED_BLOB_ID), new BlobId(USED_BLOB_ID)));
   }
 
   @Test(expected = IllegalArgumentException.class)
@@ -0,0 +1,165 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-present Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.repository.view;
+
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.annotation.Nullable;
+
+import org.sonatype.nexus.repository.view.matchers.LiteralMatcher;
+import org.sonatype.nexus.repository.view.matchers.PrefixMatcher;
+import org.sonatype.nexus.repository.view.matchers.SuffixMatcher;
+import org.sonatype.nexus.repository.view.matchers.logic.AndMatcher;
+import org.sonatype.nexus.repository.view.matchers.token.TokenMatcher;
+
+/**
+ * Narrows the routes of a {@link Router} down to those which can match a request path, in route order.
+ *
+ * The literal prefix and suffix every path matched by a route must have are derived from its matcher: the leading and
+ * trailing literals of {@link TokenMatcher} patterns, case-sensitive {@link PrefixMatcher}, {@link SuffixMatcher} and
+ * {@link LiteralMatcher}s, and the longest of these among the operands of an {@link AndMatcher}. Prefixes are indexed
+ * in a trie, so the routes whose prefix a path starts with are found in a single pass over the path. Routes with any
+ * other matcher have no prefix or suffix and remain candidates for every path, so they are still evaluated in order.
+ *
+ * @since 3.26
+ */
+class RouteDispatchTable
+{
+  private final int size;
+
+  private final BitSet unconstrained;
+
+  private final Node root = new Node();
+
+  private final String[] suffixes;
+
+  RouteDispatchTable(final List<Route> routes) {
+    this.size = routes.size();
+    this.unconstrained = new BitSet(size);
+    this.suffixes = new String[size];
+
+    for (int i = 0; i < size; i++) {
+      Matcher matcher = routes.get(i).getMatcher();
+      suffixes[i] = requiredSuffix(matcher);
+
+      String prefix = requiredPrefix(matcher);
+      if (prefix.isEmpty()) {
+        unconstrained.set(i);
+      }
+      else {
+        Node node = root;
+        for (int c = 0; c < prefix.length(); c++) {
+          node = node.children.computeIfAbsent(prefix.charAt(c), key -> new Node());
+        }
+        if (node.routes == null) {
+          node.routes = new BitSet(size);
+        }
+        node.routes.set(i);
+      }
+    }
+  }
+
+  /**
+   * Returns the indexes of the routes which can match the given path; all routes if there is no path.
+   */
+  BitSet candidates(@Nullable final String path) {
+    BitSet candidates = (BitSet) unconstrained.clone();
+    if (path == null) {
+      candidates.set(0, size);
+      return candidates;
+    }
+
+    Node node = root;
+    for (int i = 0; i < path.length(); i++) {
+      node = node.children.get(path.charAt(i));
+      if (node == null) {
+        break;
+      }
+      if (node.routes != null) {
+        candidates.or(node.routes);
+      }
+    }
+
+    for (int i = candidates.nextSetBit(0); i >= 0; i = candidates.nextSetBit(i + 1)) {
+      if (!path.endsWith(suffixes[i])) {
+        candidates.clear(i);
+      }
+    }
+    return candidates;
+  }
+
+  private static String requiredPrefix(@Nullable final Matcher matcher) {
+    if (matcher == null) {
+      return "";
+    }
+    Class<?> type = matcher.getClass();
+    if (type == TokenMatcher.class) {
+      return ((TokenMatcher) matcher).getLiteralPrefix();
+    }
+    if (type == PrefixMatcher.class && !((PrefixMatcher) matcher).isIgnoreCase()) {
+      return ((PrefixMatcher) matcher).getPrefix();
+    }
+    if (type == LiteralMatcher.class && !((LiteralMatcher) matcher).isIgnoreCase()) {
+      return ((LiteralMatcher) matcher).getLiteral();
+    }
+    if (type == AndMatcher.class) {
+      String longest = "";
+      for (Matcher operand : ((AndMatcher) matcher).getMatchers()) {
+        String prefix = requiredPrefix(operand);
+        if (prefix.length() > longest.length()) {
+          longest = prefix;
+        }
+      }
+      return longest;
+    }
+    return "";
+  }
+
+  private static String requiredSuffix(@Nullable final Matcher matcher) {
+    if (matcher == null) {
+      return "";
+    }
+    Class<?> type = matcher.getClass();
+    if (type == TokenMatcher.class) {
+      return ((TokenMatcher) matcher).getLiteralSuffix();
+    }
+    if (type == SuffixMatcher.class && !((SuffixMatcher) matcher).isIgnoreCase()) {
+      return ((SuffixMatcher) matcher).getSuffix();
+    }
+    if (type == LiteralMatcher.class && !((LiteralMatcher) matcher).isIgnoreCase()) {
+      return ((LiteralMatcher) matcher).getLiteral();
+    }
+    if (type == AndMatcher.class) {
+      String longest = "";
+      for (Matcher operand : ((AndMatcher) matcher).getMatchers()) {
+        String suffix = requiredSuffix(operand);
+        if (suffix.length() > longest.length()) {
+          longest = suffix;
+        }
+      }
+      return longest;
+    }
+    return "";
+  }
+
+  private static class Node
+  {
+    private final Map<Character, Node> children = new HashMap<>();
+
+    @Nullable
+    private BitSet routes;
+  }
+}
@@ -13,6 +13,7 @@
 package org.sonatype.nexus.repository.view;
 
 import java.util.Arrays;
+import java.util.BitSet;
 import java.util.List;
 import java.util.Map;
 
@@ -23,6 +24,7 @@ import org.sonatype.nexus.repository.Repository;
 import org.sonatype.nexus.repository.recipe.RouterBuilder;
 
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Lists;
 
 import static com.google.common.base.Preconditions.checkNotNull;
@@ -41,11 +43,14 @@ public class Router
 
   private final DefaultRoute defaultRoute;
 
+  private final RouteDispatchTable dispatchTable;
+
   public static final String LOCAL_ATTRIBUTE_PREFIX = "local.attribute.";
 
   public Router(final List<Route> routes, final DefaultRoute defaultRoute) {
-    this.routes = checkNotNull(routes, "Missing routes");
+    this.routes = ImmutableList.copyOf(checkNotNull(routes, "Missing routes"));
     this.defaultRoute = checkNotNull(defaultRoute, "Missing default route");
+    this.dispatchTable = new RouteDispatchTable(this.routes);
   }
 
   /**
@@ -138,10 +143,13 @@ public class Router
   }
 
   /**
-   * Find the first matching route for the given context.
+   * Find the first matching route for the given context, skipping routes which cannot match the request path.
    */
-  private Route findRoute(final Context context) {
-    for (Route route : routes) {
+  @VisibleForTesting
+  Route findRoute(final Context context) {
+    BitSet candidates = dispatchTable.candidates(context.getRequest().getPath());
+    for (int i = candidates.nextSetBit(0); i >= 0; i = candidates.nextSetBit(i + 1)) {
+      Route route = routes.get(i);
       if (route.getMatcher().matches(context)) {
         return route;
       }
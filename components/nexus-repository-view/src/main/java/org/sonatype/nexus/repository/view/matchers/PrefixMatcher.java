@@ -48,6 +48,20 @@ public class PrefixMatcher
     return new PrefixMatcher(prefix, ignoreCase);
   }
 
+  /**
+   * @since 3.26
+   */
+  public String getPrefix() {
+    return prefix;
+  }
+
+  /**
+   * @since 3.26
+   */
+  public boolean isIgnoreCase() {
+    return ignoreCase;
+  }
+
   @Override
   public boolean matches(final Context context) {
     checkNotNull(context);
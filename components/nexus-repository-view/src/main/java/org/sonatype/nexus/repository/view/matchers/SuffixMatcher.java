@@ -48,6 +48,20 @@ public class SuffixMatcher
     return new SuffixMatcher(suffix, ignoreCase);
   }
 
+  /**
+   * @since 3.26
+   */
+  public String getSuffix() {
+    return suffix;
+  }
+
+  /**
+   * @since 3.26
+   */
+  public boolean isIgnoreCase() {
+    return ignoreCase;
+  }
+
   @Override
   public boolean matches(final Context context) {
     checkNotNull(context);
@@ -49,6 +49,20 @@ public class TokenMatcher
     this.parser = new TokenParser(pattern);
   }
 
+  /**
+   * @since 3.26
+   */
+  public String getLiteralPrefix() {
+    return parser.getLiteralPrefix();
+  }
+
+  /**
+   * @since 3.26
+   */
+  public String getLiteralSuffix() {
+    return parser.getLiteralSuffix();
+  }
+
   @Override
   public boolean matches(final Context context) {
     checkNotNull(context);
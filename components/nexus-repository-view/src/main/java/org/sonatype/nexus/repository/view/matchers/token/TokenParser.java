@@ -53,11 +53,18 @@ public class TokenParser
 
   private final Pattern pattern;
 
+  private final String literalPrefix;
+
+  private final String literalSuffix;
+
   public TokenParser(final String templatePattern) {
     final List<Token> tokens = new PatternParser(templatePattern).getTokens();
     pattern = Pattern.compile(regexp(tokens));
     log.trace("Pattern: {}", pattern);
 
+    literalPrefix = literalValue(tokens.isEmpty() ? null : tokens.get(0));
+    literalSuffix = literalValue(tokens.isEmpty() ? null : tokens.get(tokens.size() - 1));
+
     // Separate the variable tokens
     variables = new ArrayList<>();
     for (Token token : tokens) {
@@ -102,6 +109,28 @@ public class TokenParser
     return pattern.toString();
   }
 
+  /**
+   * Returns the literal text every matching path starts with, empty if the pattern starts with a variable.
+   *
+   * @since 3.26
+   */
+  public String getLiteralPrefix() {
+    return literalPrefix;
+  }
+
+  /**
+   * Returns the literal text every matching path ends with, empty if the pattern ends with a variable.
+   *
+   * @since 3.26
+   */
+  public String getLiteralSuffix() {
+    return literalSuffix;
+  }
+
+  private static String literalValue(@Nullable final Token token) {
+    return token instanceof LiteralToken ? token.value : "";
+  }
+
   private String regexp(final List<Token> tokens) {
     StringBuilder b = new StringBuilder();
     Set<String> previous = new HashSet<>();
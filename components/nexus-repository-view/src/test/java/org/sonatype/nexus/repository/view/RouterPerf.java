@@ -0,0 +1,107 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-present Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.repository.view;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.sonatype.goodies.testsupport.TestSupport;
+import org.sonatype.nexus.repository.Repository;
+import org.sonatype.nexus.repository.view.matchers.ActionMatcher;
+import org.sonatype.nexus.repository.view.matchers.token.TokenMatcher;
+
+import com.google.common.base.Stopwatch;
+import org.junit.Test;
+import org.mockito.Mock;
+
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static org.sonatype.nexus.repository.http.HttpMethods.GET;
+import static org.sonatype.nexus.repository.http.HttpMethods.HEAD;
+import static org.sonatype.nexus.repository.view.matchers.logic.LogicMatchers.and;
+
+/**
+ * Measures the per-request cost of finding the route for a path, compared with trying every route in order. The
+ * routes resemble those of a format recipe with the common download route last. The number of lookups defaults to
+ * 1000000 and can be changed with {@code -Dperf.iterations=COUNT}.
+ */
+public class RouterPerf
+    extends TestSupport
+{
+  private static final int ITERATIONS = Integer.getInteger("perf.iterations", 1000000);
+
+  private static final String[] PATHS = {
+      "/org/sonatype/nexus/nexus-core/3.26.0/nexus-core-3.26.0.jar",
+      "/org/sonatype/nexus/nexus-core/maven-metadata.xml",
+      "/-/v1/search",
+      "/simple/requests/"
+  };
+
+  @Mock
+  private Repository repository;
+
+  @Mock
+  private Handler handler;
+
+  @Mock
+  private DefaultRoute defaultRoute;
+
+  @Test
+  public void findRoute() {
+    List<Route> routes = new ArrayList<>();
+    for (String pattern : new String[]{
+        "/-/v1/search", "/-/all", "/-/npm/v1/security/audits", "/-/user/org.couchdb.user:{userId}",
+        "/-/whoami", "/simple/", "/simple/{name}/", "/packages/{path:.+}", "/{path:.+}/.index/{file}",
+        "/archetype-catalog.xml", "/{path:.+}/maven-metadata.xml", "/{path:.+}/maven-metadata.xml.sha1",
+        "/{path:.+}/{artifactId}-{version}.pom", "/{path:.+}/{artifactId}-{version}.{ext:jar|war|zip}"}) {
+      routes.add(new Route(and(new ActionMatcher(GET, HEAD), new TokenMatcher(pattern)),
+          Collections.singletonList(handler)));
+    }
+    Router router = new Router(routes, defaultRoute);
+
+    List<Context> contexts = new ArrayList<>();
+    for (String path : PATHS) {
+      contexts.add(new Context(repository, new Request.Builder().action(GET).path(path).build()));
+    }
+
+    for (int i = 0; i < ITERATIONS / 10; i++) {
+      Context context = contexts.get(i % contexts.size());
+      router.findRoute(context);
+      findRouteInOrder(routes, context);
+    }
+
+    Stopwatch stopwatch = Stopwatch.createStarted();
+    for (int i = 0; i < ITERATIONS; i++) {
+      router.findRoute(contexts.get(i % contexts.size()));
+    }
+    long dispatchNanos = stopwatch.elapsed(NANOSECONDS);
+
+    stopwatch.reset().start();
+    for (int i = 0; i < ITERATIONS; i++) {
+      findRouteInOrder(routes, contexts.get(i % contexts.size()));
+    }
+    long orderedNanos = stopwatch.elapsed(NANOSECONDS);
+
+    log.info("found routes for {} requests among {} routes: dispatch table {} ns/request, in order {} ns/request",
+        ITERATIONS, routes.size(), dispatchNanos / ITERATIONS, orderedNanos / ITERATIONS);
+  }
+
+  private Route findRouteInOrder(final List<Route> routes, final Context context) {
+    for (Route route : routes) {
+      if (route.getMatcher().matches(context)) {
+        return route;
+      }
+    }
+    return defaultRoute;
+  }
+}
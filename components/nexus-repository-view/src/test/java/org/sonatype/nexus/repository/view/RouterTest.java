@@ -12,10 +12,14 @@
  */
 package org.sonatype.nexus.repository.view;
 
+import java.util.Arrays;
 import java.util.Collections;
 
 import org.sonatype.goodies.testsupport.TestSupport;
 import org.sonatype.nexus.repository.Repository;
+import org.sonatype.nexus.repository.view.matchers.PrefixMatcher;
+import org.sonatype.nexus.repository.view.matchers.SuffixMatcher;
+import org.sonatype.nexus.repository.view.matchers.token.TokenMatcher;
 
 import org.junit.Before;
 import org.junit.Test;
@@ -24,7 +28,14 @@ import org.mockito.Mock;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 import static org.sonatype.nexus.repository.view.Router.LOCAL_ATTRIBUTE_PREFIX;
+import static org.sonatype.nexus.repository.view.matchers.logic.LogicMatchers.and;
 
 public class RouterTest
     extends TestSupport
@@ -43,6 +54,15 @@ public class RouterTest
   @Mock
   DefaultRoute defaultRoute;
 
+  @Mock
+  Handler handler;
+
+  @Mock
+  Matcher customMatcher;
+
+  @Mock
+  Matcher probeMatcher;
+
 
   @Before
   public void setup() throws Exception {
@@ -58,4 +78,45 @@ public class RouterTest
     assertThat(newContext.getAttributes().get("somekey"), is("somevalue"));
     assertThat(newContext.getAttributes().get(LOCAL_ATTRIBUTE_PREFIX + "anotherkey"), nullValue());
   }
+
+  @Test
+  public void findRouteSkipsRoutesWhichCannotMatchPath() {
+    Route pom = route(new TokenMatcher("/{group:.+}/{name}.pom"));
+    Route jar = route(and(probeMatcher, new PrefixMatcher("/org/"), new SuffixMatcher(".jar")));
+    Route custom = route(customMatcher);
+    Router router = new Router(Arrays.asList(pom, jar, custom), defaultRoute);
+    when(probeMatcher.matches(any(Context.class))).thenReturn(true);
+
+    assertThat(router.findRoute(context("/org/sonatype/nexus.pom")), is(sameInstance(pom)));
+    assertThat(router.findRoute(context("/com/sonatype/nexus.jar")), is(sameInstance(defaultRoute)));
+    verify(probeMatcher, never()).matches(any(Context.class));
+    verify(customMatcher, times(1)).matches(any(Context.class));
+
+    assertThat(router.findRoute(context("/org/sonatype/nexus.jar")), is(sameInstance(jar)));
+    verify(probeMatcher, times(1)).matches(any(Context.class));
+  }
+
+  @Test
+  public void findRouteEvaluatesRoutesInOrder() {
+    Route custom = route(customMatcher);
+    Route token = route(new TokenMatcher("/org/{name}/{file}"));
+    Route prefix = route(new PrefixMatcher("/org/"));
+    Router router = new Router(Arrays.asList(custom, token, prefix), defaultRoute);
+
+    assertThat(router.findRoute(context("/org/sonatype/nexus.jar")), is(sameInstance(token)));
+    assertThat(router.findRoute(context("/org/sonatype/nexus/nexus.jar")), is(sameInstance(prefix)));
+    assertThat(router.findRoute(context("/com/sonatype/nexus.jar")), is(sameInstance(defaultRoute)));
+
+    when(customMatcher.matches(any(Context.class))).thenReturn(true);
+    assertThat(router.findRoute(context("/org/sonatype/nexus.jar")), is(sameInstance(custom)));
+  }
+
+  private Route route(final Matcher matcher) {
+    return new Route(matcher, Collections.singletonList(handler));
+  }
+
+  private Context context(final String path) {
+    Request request = new Request.Builder().action("GET").path(path).build();
+    return new Context(repository, request);
+  }
 }
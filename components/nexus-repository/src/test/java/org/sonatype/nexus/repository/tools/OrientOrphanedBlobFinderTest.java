@@ -44,7 +44,10 @@ import org.junit.Test;
 import org.mockito.Mock;
 
 import static com.google.common.collect.ImmutableMap.of;
+import static java.util.Arrays.asList;
 import static java.util.Collections.emptyMap;
+import static java.util.Collections.singletonList;
+import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
@@ -120,7 +123,7 @@ public class OrientOrphanedBlobFinderTest
 
     underTest.delete(repository);
 
-    verify(blobStore).deleteHard(new BlobId(ORPHANED_BLOB_ID));
+    verify(blobStore).deleteHard(singletonList(new BlobId(ORPHANED_BLOB_ID)));
   }
 
   @Test
@@ -129,7 +132,7 @@ public class OrientOrphanedBlobFinderTest
 
     underTest.delete(repository);
 
-    verify(blobStore, never()).deleteHard(new BlobId(ORPHANED_BLOB_ID));
+    verify(blobStore, never()).deleteHard(any(Iterable.class));
   }
 
   @Test
@@ -141,8 +144,8 @@ public class OrientOrphanedBlobFinderTest
 
     underTest.delete();
 
-    verify(blobStore).deleteHard(new BlobId(ORPHANED_BLOB_ID));
-    verify(blobStore2).deleteHard(new BlobId(ORPHANED_BLOB_ID));
+    verify(blobStore).deleteHard(singletonList(new BlobId(ORPHANED_BLOB_ID)));
+    verify(blobStore2).deleteHard(singletonList(new BlobId(ORPHANED_BLOB_ID)));
   }
 
   @Test
@@ -153,8 +156,7 @@ public class OrientOrphanedBlobFinderTest
 
     underTest.delete(repository);
 
-    verify(blobStore).deleteHard(new BlobId(ORPHANED_BLOB_ID));
-    verify(blobStore).deleteHard(new BlobId(USED_BLOB_ID));
+    verify(blobStore).deleteHard(asList(new BlobId(ORPHANED_BLOB_ID), new BlobId(USED_BLOB_ID)));
   }
 
   @Test(expected = IllegalArgumentException.class)
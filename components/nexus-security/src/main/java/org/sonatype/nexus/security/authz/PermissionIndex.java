@@ -0,0 +1,147 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-present Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.security.authz;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.Nullable;
+
+import org.apache.shiro.authz.Permission;
+
+/**
+ * Set of permissions indexed by their leading parts, so a permission is only checked against the permissions which
+ * can imply it.
+ *
+ * {@link WildcardPermission2}s whose first two parts, the domain such as {@code nexus:repository-view}, are single
+ * literal values are indexed by domain, and within their domain by the third part, such as the format, when that is a
+ * single literal value too. A permission with a literal part never implies one with a wildcard or several values in
+ * the same position, nor one which ends before it, so only the permissions sharing the domain and format of the
+ * permission being checked, plus those with wildcards in these positions, need to be checked.
+ *
+ * @since 3.26
+ */
+public class PermissionIndex
+{
+  private static final String WILDCARD = "*";
+
+  private final List<Permission> general = new ArrayList<>();
+
+  private final Map<String, Domain> domains = new HashMap<>();
+
+  public PermissionIndex(final Collection<Permission> permissions) {
+    for (Permission permission : permissions) {
+      List<Set<String>> parts = partsOf(permission);
+      String domainKey = parts != null ? domainKey(parts) : null;
+      if (domainKey == null) {
+        general.add(permission);
+        continue;
+      }
+      Domain domain = domains.computeIfAbsent(domainKey, key -> new Domain());
+      String format = literal(parts, 2);
+      if (format == null) {
+        domain.general.add(permission);
+      }
+      else {
+        domain.formats.computeIfAbsent(format, key -> new ArrayList<>()).add(permission);
+      }
+    }
+  }
+
+  /**
+   * Returns {@code true} if any of the indexed permissions implies the given permission.
+   */
+  public boolean implies(final Permission permission) {
+    if (implies(general, permission)) {
+      return true;
+    }
+
+    List<Set<String>> parts = partsOf(permission);
+    if (parts == null) {
+      for (Domain domain : domains.values()) {
+        if (domain.implies(permission)) {
+          return true;
+        }
+      }
+      return false;
+    }
+
+    String domainKey = domainKey(parts);
+    Domain domain = domainKey != null ? domains.get(domainKey) : null;
+    if (domain == null) {
+      return false;
+    }
+    if (implies(domain.general, permission)) {
+      return true;
+    }
+    String format = literal(parts, 2);
+    return format != null && implies(domain.formats.getOrDefault(format, Collections.emptyList()), permission);
+  }
+
+  private static boolean implies(final List<Permission> permissions, final Permission permission) {
+    for (Permission candidate : permissions) {
+      if (candidate.implies(permission)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  @Nullable
+  private static List<Set<String>> partsOf(final Permission permission) {
+    return permission instanceof WildcardPermission2 ? ((WildcardPermission2) permission).getParts() : null;
+  }
+
+  @Nullable
+  private static String domainKey(final List<Set<String>> parts) {
+    String system = literal(parts, 0);
+    String domain = literal(parts, 1);
+    return system != null && domain != null ? system + ':' + domain : null;
+  }
+
+  /**
+   * Returns the value of the given part if it is a single value other than the wildcard, otherwise {@code null}.
+   */
+  @Nullable
+  private static String literal(final List<Set<String>> parts, final int index) {
+    if (parts.size() <= index || parts.get(index).size() != 1) {
+      return null;
+    }
+    String value = parts.get(index).iterator().next();
+    return WILDCARD.equals(value) ? null : value;
+  }
+
+  private static class Domain
+  {
+    private final List<Permission> general = new ArrayList<>();
+
+    private final Map<String, List<Permission>> formats = new HashMap<>();
+
+    private boolean implies(final Permission permission) {
+      if (PermissionIndex.implies(general, permission)) {
+        return true;
+      }
+      for (List<Permission> permissions : formats.values()) {
+        if (PermissionIndex.implies(permissions, permission)) {
+          return true;
+        }
+      }
+      return false;
+    }
+  }
+}
@@ -12,16 +12,32 @@
  */
 package org.sonatype.nexus.security.internal;
 
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Arrays;
 import java.util.ConcurrentModificationException;
+import java.util.concurrent.atomic.LongAdder;
 
+import javax.annotation.Nullable;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
 import javax.inject.Inject;
 import javax.inject.Named;
 import javax.inject.Singleton;
 
+import org.sonatype.goodies.common.Time;
+import org.sonatype.nexus.common.event.EventManager;
+import org.sonatype.nexus.security.authc.UserPasswordChanged;
 import org.sonatype.nexus.security.config.CUser;
 import org.sonatype.nexus.security.config.SecurityConfigurationManager;
 import org.sonatype.nexus.security.user.UserNotFoundException;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.eventbus.Subscribe;
 import org.apache.shiro.authc.AccountException;
 import org.apache.shiro.authc.AuthenticationInfo;
 import org.apache.shiro.authc.AuthenticationToken;
@@ -40,10 +56,18 @@ import org.eclipse.sisu.Description;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import static java.nio.charset.StandardCharsets.UTF_8;
+
 /**
  * Default {@link AuthenticatingRealm}.
  *
  * This realm ONLY handles authentication.
+ *
+ * Successfully verified credentials are remembered per user as a keyed HMAC of the user, password and stored password
+ * hash, so repeated requests with the same credentials, such as HTTP Basic authentication on every request, are
+ * verified without hashing the password again. The HMAC key is random and only held in memory, the cache is bounded
+ * and entries expire, and a user's entry is invalidated when their password changes. Since the stored hash is part of
+ * the HMAC, a password changed elsewhere never matches a remembered entry either.
  */
 @Singleton
 @Named(AuthenticatingRealmImpl.NAME)
@@ -58,23 +82,131 @@ public class AuthenticatingRealmImpl
 
   private static final int MAX_LEGACY_PASSWORD_LENGTH = 40;
 
+  private static final String HMAC_ALGORITHM = "HmacSHA256";
+
   private final SecurityConfigurationManager configuration;
 
   private final PasswordService passwordService;
 
+  /**
+   * User-id to HMAC of the last verified credentials cache.
+   */
+  private final Cache<String, byte[]> verifiedCredentials;
+
+  private final SecretKeySpec credentialKey;
+
+  private final LongAdder credentialCacheHits = new LongAdder();
+
+  private final LongAdder credentialCacheMisses = new LongAdder();
+
   @Inject
   public AuthenticatingRealmImpl(
       final SecurityConfigurationManager configuration,
-      final PasswordService passwordService)
+      final PasswordService passwordService,
+      final EventManager eventManager,
+      @Named("${security.verifiedCredentialCacheSize:-10000}") final int verifiedCredentialCacheSize,
+      @Named("${security.verifiedCredentialCacheTimeToLive:-5m}") final Time verifiedCredentialTimeToLive)
   {
     this.configuration = configuration;
     this.passwordService = passwordService;
+    this.verifiedCredentials = CacheBuilder.newBuilder()
+        .maximumSize(verifiedCredentialCacheSize)
+        .expireAfterWrite(verifiedCredentialTimeToLive.value(), verifiedCredentialTimeToLive.unit())
+        .build();
+
+    byte[] key = new byte[32];
+    new SecureRandom().nextBytes(key);
+    this.credentialKey = new SecretKeySpec(key, HMAC_ALGORITHM);
 
     PasswordMatcher passwordMatcher = new PasswordMatcher();
     passwordMatcher.setPasswordService(this.passwordService);
     setCredentialsMatcher(passwordMatcher);
     setName(NAME);
     setAuthenticationCachingEnabled(true);
+    eventManager.register(this);
+  }
+
+  @Subscribe
+  public void on(final UserPasswordChanged event) {
+    verifiedCredentials.invalidate(event.getUserId());
+  }
+
+  /**
+   * Returns the number of credential verifications answered from the verified credential cache.
+   *
+   * @since 3.26
+   */
+  public long getCredentialCacheHits() {
+    return credentialCacheHits.sum();
+  }
+
+  /**
+   * Returns the number of credential verifications which had to check the password against the stored hash.
+   *
+   * @since 3.26
+   */
+  public long getCredentialCacheMisses() {
+    return credentialCacheMisses.sum();
+  }
+
+  @Override
+  protected void assertCredentialsMatch(final AuthenticationToken token, final AuthenticationInfo info) {
+    byte[] digest = credentialDigest(token, info);
+    if (digest == null) {
+      super.assertCredentialsMatch(token, info);
+      return;
+    }
+
+    String userId = ((UsernamePasswordToken) token).getUsername();
+    byte[] verified = verifiedCredentials.getIfPresent(userId);
+    if (verified != null && MessageDigest.isEqual(verified, digest)) {
+      credentialCacheHits.increment();
+      return;
+    }
+
+    credentialCacheMisses.increment();
+    super.assertCredentialsMatch(token, info);
+    verifiedCredentials.put(userId, digest);
+  }
+
+  /**
+   * Returns the HMAC of the user, password and stored credentials, or {@code null} if the credentials can't be
+   * remembered.
+   */
+  @Nullable
+  private byte[] credentialDigest(final AuthenticationToken token, final AuthenticationInfo info) {
+    if (!(token instanceof UsernamePasswordToken)) {
+      return null;
+    }
+    UsernamePasswordToken upToken = (UsernamePasswordToken) token;
+    Object storedCredentials = info.getCredentials();
+    if (upToken.getUsername() == null || upToken.getPassword() == null || storedCredentials == null) {
+      return null;
+    }
+    String stored = storedCredentials instanceof char[]
+        ? new String((char[]) storedCredentials)
+        : storedCredentials.toString();
+
+    ByteBuffer password = UTF_8.encode(CharBuffer.wrap(upToken.getPassword()));
+    try {
+      Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+      mac.init(credentialKey);
+      mac.update(upToken.getUsername().getBytes(UTF_8));
+      mac.update((byte) 0);
+      mac.update(password);
+      mac.update((byte) 0);
+      mac.update(stored.getBytes(UTF_8));
+      return mac.doFinal();
+    }
+    catch (GeneralSecurityException e) {
+      logger.debug("Unable to compute credential digest, verified credentials will not be remembered", e);
+      return null;
+    }
+    finally {
+      if (password.hasArray()) {
+        Arrays.fill(password.array(), (byte) 0);
+      }
+    }
   }
 
   @Override
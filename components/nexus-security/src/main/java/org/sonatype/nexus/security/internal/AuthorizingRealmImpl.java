@@ -12,26 +12,42 @@
  */
 package org.sonatype.nexus.security.internal;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
 
 import javax.inject.Inject;
 import javax.inject.Named;
 import javax.inject.Singleton;
 
+import org.sonatype.goodies.common.Time;
+import org.sonatype.nexus.common.event.EventManager;
+import org.sonatype.nexus.security.UserPrincipalsExpired;
+import org.sonatype.nexus.security.authz.AuthorizationConfigurationChanged;
+import org.sonatype.nexus.security.authz.PermissionIndex;
+import org.sonatype.nexus.security.realm.RealmConfigurationChangedEvent;
 import org.sonatype.nexus.security.role.RoleIdentifier;
 import org.sonatype.nexus.security.user.RoleMappingUserManager;
 import org.sonatype.nexus.security.user.UserManager;
 import org.sonatype.nexus.security.user.UserNotFoundException;
+import org.sonatype.nexus.security.user.UserRoleMappingEvent;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.eventbus.Subscribe;
 import org.apache.shiro.authc.AuthenticationInfo;
 import org.apache.shiro.authc.AuthenticationToken;
 import org.apache.shiro.authc.credential.HashedCredentialsMatcher;
 import org.apache.shiro.authz.AuthorizationException;
 import org.apache.shiro.authz.AuthorizationInfo;
+import org.apache.shiro.authz.Permission;
 import org.apache.shiro.authz.SimpleAuthorizationInfo;
+import org.apache.shiro.authz.permission.RolePermissionResolver;
 import org.apache.shiro.crypto.hash.Sha1Hash;
 import org.apache.shiro.mgt.RealmSecurityManager;
 import org.apache.shiro.realm.AuthorizingRealm;
@@ -45,6 +61,12 @@ import org.slf4j.LoggerFactory;
  * Default {@link AuthorizingRealm}.
  *
  * This realm ONLY handles authorization.
+ *
+ * Permission checks are answered from a bounded cache of decisions per principals and permission, which is
+ * invalidated when the authorization configuration, security contributions, realms or user role mappings change, and
+ * for the users whose principals expired.
+ * Decisions are computed against the permissions of the user's roles indexed with {@link PermissionIndex}, which is
+ * shared by users with the same roles.
  */
 @Singleton
 @Named(AuthorizingRealmImpl.NAME)
@@ -63,20 +85,124 @@ public class AuthorizingRealmImpl
 
   private final Map<String, UserManager> userManagerMap;
 
+  /**
+   * (Principals, permission) to decision cache.
+   */
+  private final Cache<DecisionKey, Boolean> decisionCache;
+
+  /**
+   * Role-ids to indexed role permissions cache.
+   */
+  private final Cache<Set<String>, PermissionIndex> permissionIndexCache;
+
   @Inject
   public AuthorizingRealmImpl(final RealmSecurityManager realmSecurityManager,
                               final UserManager userManager,
-                              final Map<String, UserManager> userManagerMap)
+                              final Map<String, UserManager> userManagerMap,
+                              final EventManager eventManager,
+                              @Named("${security.permissionDecisionCacheSize:-100000}") final int decisionCacheSize,
+                              @Named("${nexus.shiro.cache.defaultTimeToLive:-2m}") final Time decisionTimeToLive,
+                              @Named("${security.permissionIndexCacheSize:-1000}") final int permissionIndexCacheSize)
   {
     this.realmSecurityManager = realmSecurityManager;
     this.userManager = userManager;
     this.userManagerMap = userManagerMap;
+    this.decisionCache = CacheBuilder.newBuilder()
+        .maximumSize(decisionCacheSize)
+        .expireAfterWrite(decisionTimeToLive.value(), decisionTimeToLive.unit())
+        .build();
+    this.permissionIndexCache = CacheBuilder.newBuilder().maximumSize(permissionIndexCacheSize).softValues().build();
     HashedCredentialsMatcher credentialsMatcher = new HashedCredentialsMatcher();
     credentialsMatcher.setHashAlgorithmName(Sha1Hash.ALGORITHM_NAME);
     setCredentialsMatcher(credentialsMatcher);
     setName(NAME);
     setAuthenticationCachingEnabled(false); // we authz only, no authc done by this realm
     setAuthorizationCachingEnabled(true);
+    eventManager.register(this);
+  }
+
+  /**
+   * Invalidate caches.
+   */
+  void invalidate() {
+    decisionCache.invalidateAll();
+    permissionIndexCache.invalidateAll();
+    logger.trace("Permission caches invalidated");
+  }
+
+  @Subscribe
+  public void on(final AuthorizationConfigurationChanged event) {
+    invalidate();
+  }
+
+  @Subscribe
+  public void on(final SecurityContributionChangedEvent event) {
+    invalidate();
+  }
+
+  @Subscribe
+  public void on(final RealmConfigurationChangedEvent event) {
+    invalidate();
+  }
+
+  @Subscribe
+  public void on(final UserRoleMappingEvent event) {
+    invalidate();
+  }
+
+  @Subscribe
+  public void on(final UserPrincipalsExpired event) {
+    String userId = event.getUserId();
+    if (userId == null) {
+      decisionCache.invalidateAll();
+    }
+    else {
+      decisionCache.asMap().keySet()
+          .removeIf(key -> userId.equals(String.valueOf(key.principals.getPrimaryPrincipal())));
+    }
+  }
+
+  @Override
+  public boolean isPermitted(final PrincipalCollection principals, final Permission permission) {
+    if (principals == null || permission == null) {
+      return super.isPermitted(principals, permission);
+    }
+    DecisionKey key = new DecisionKey(principals, permission);
+    Boolean permitted = decisionCache.getIfPresent(key);
+    if (permitted == null) {
+      permitted = super.isPermitted(principals, permission);
+      decisionCache.put(key, permitted);
+    }
+    return permitted;
+  }
+
+  @Override
+  public boolean[] isPermitted(final PrincipalCollection principals, final List<Permission> permissions) {
+    boolean[] result = new boolean[permissions.size()];
+    for (int i = 0; i < result.length; i++) {
+      result[i] = isPermitted(principals, permissions.get(i));
+    }
+    return result;
+  }
+
+  @Override
+  protected boolean isPermitted(final Permission permission, final AuthorizationInfo info) {
+    RolePermissionResolver resolver = getRolePermissionResolver();
+    if (resolver == null || info == null
+        || info.getStringPermissions() != null || info.getObjectPermissions() != null) {
+      return super.isPermitted(permission, info);
+    }
+    Set<String> roles = info.getRoles() != null ? ImmutableSet.copyOf(info.getRoles()) : ImmutableSet.of();
+    PermissionIndex index = permissionIndexCache.getIfPresent(roles);
+    if (index == null) {
+      List<Permission> permissions = new ArrayList<>();
+      for (String role : roles) {
+        permissions.addAll(resolver.resolvePermissionsInRole(role));
+      }
+      index = new PermissionIndex(permissions);
+      permissionIndexCache.put(roles, index);
+    }
+    return index.implies(permission);
   }
 
   @Override
@@ -170,4 +296,36 @@ public class AuthorizingRealmImpl
       realmNames.add("default");
     }
   }
+
+  private static class DecisionKey
+  {
+    private final PrincipalCollection principals;
+
+    private final Permission permission;
+
+    private final int hashCode;
+
+    DecisionKey(final PrincipalCollection principals, final Permission permission) {
+      this.principals = principals;
+      this.permission = permission;
+      this.hashCode = Objects.hash(principals, permission);
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof DecisionKey)) {
+        return false;
+      }
+      DecisionKey that = (DecisionKey) o;
+      return principals.equals(that.principals) && permission.equals(that.permission);
+    }
+
+    @Override
+    public int hashCode() {
+      return hashCode;
+    }
+  }
 }
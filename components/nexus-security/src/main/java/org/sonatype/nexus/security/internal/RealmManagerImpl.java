@@ -381,6 +381,10 @@ public class RealmManagerImpl
             cache.clear();
           }
         }
+        if (realm instanceof AuthorizingRealmImpl) {
+          // permission decisions are derived from the authorization info just cleared
+          ((AuthorizingRealmImpl) realm).invalidate();
+        }
       }
     }
   }
@@ -12,21 +12,28 @@
  */
 package org.sonatype.nexus.security.authz;
 
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.Set;
 
+import org.sonatype.nexus.common.event.EventManager;
 import org.sonatype.nexus.security.AbstractSecurityTest;
+import org.sonatype.nexus.security.UserPrincipalsExpired;
 import org.sonatype.nexus.security.config.CPrivilege;
 import org.sonatype.nexus.security.config.CRole;
 import org.sonatype.nexus.security.config.CUser;
 import org.sonatype.nexus.security.config.memory.MemoryCUser;
 import org.sonatype.nexus.security.internal.AuthorizingRealmImpl;
 import org.sonatype.nexus.security.internal.SecurityConfigurationManagerImpl;
+import org.sonatype.nexus.security.internal.SecurityContributionChangedEvent;
 import org.sonatype.nexus.security.privilege.WildcardPrivilegeDescriptor;
+import org.sonatype.nexus.security.user.UserRoleMappingUpdatedEvent;
 import org.sonatype.nexus.security.user.UserStatus;
 
+import org.apache.shiro.authz.AuthorizationInfo;
 import org.apache.shiro.authz.permission.RolePermissionResolver;
 import org.apache.shiro.authz.permission.WildcardPermission;
+import org.apache.shiro.cache.Cache;
 import org.apache.shiro.realm.Realm;
 import org.apache.shiro.subject.SimplePrincipalCollection;
 import org.junit.Assert;
@@ -42,6 +49,8 @@ public class AuthorizingRealmImplTest
 
   private SecurityConfigurationManagerImpl configurationManager;
 
+  private EventManager eventManager;
+
   @Override
   protected void setUp() throws Exception {
     super.setUp();
@@ -50,6 +59,7 @@ public class AuthorizingRealmImplTest
     realm.setRolePermissionResolver(this.lookup(RolePermissionResolver.class));
 
     configurationManager = lookup(SecurityConfigurationManagerImpl.class);
+    eventManager = lookup(EventManager.class);
   }
 
   @Test
@@ -76,6 +86,80 @@ public class AuthorizingRealmImplTest
     Assert.assertFalse(realm.isPermitted(principal, new WildcardPermission("app:ui:delete")));
   }
 
+  @Test
+  public void testDecisionsInvalidatedOnAuthorizationConfigurationChange() throws Exception {
+    buildTestAuthorizationConfig();
+    SimplePrincipalCollection principal = new SimplePrincipalCollection("username", realm.getName());
+    WildcardPermission permission = new WildcardPermission("app:config:read");
+    Assert.assertTrue(realm.isPermitted(principal, permission));
+
+    removeRolePrivileges();
+    Assert.assertTrue(realm.isPermitted(principal, permission));
+
+    eventManager.post(new AuthorizationConfigurationChanged());
+    Assert.assertFalse(realm.isPermitted(principal, permission));
+  }
+
+  @Test
+  public void testDecisionsInvalidatedOnSecurityContributionChange() throws Exception {
+    buildTestAuthorizationConfig();
+    SimplePrincipalCollection principal = new SimplePrincipalCollection("username", realm.getName());
+    WildcardPermission permission = new WildcardPermission("app:config:read");
+    Assert.assertTrue(realm.isPermitted(principal, permission));
+
+    removeRolePrivileges();
+    Assert.assertTrue(realm.isPermitted(principal, permission));
+
+    eventManager.post(new SecurityContributionChangedEvent());
+    Assert.assertFalse(realm.isPermitted(principal, permission));
+  }
+
+  @Test
+  public void testDecisionsInvalidatedOnRoleMappingChange() throws Exception {
+    buildTestAuthorizationConfig();
+    SimplePrincipalCollection principal = new SimplePrincipalCollection("username", realm.getName());
+    WildcardPermission permission = new WildcardPermission("app:config:read");
+    Assert.assertTrue(realm.isPermitted(principal, permission));
+
+    configurationManager.updateUser(configurationManager.readUser("username"), Collections.emptySet());
+    clearAuthorizationInfo();
+    Assert.assertTrue(realm.isPermitted(principal, permission));
+
+    eventManager.post(new UserRoleMappingUpdatedEvent("username", "default", Collections.emptySet()));
+    Assert.assertFalse(realm.isPermitted(principal, permission));
+  }
+
+  @Test
+  public void testDecisionsInvalidatedOnExpiredUserPrincipals() throws Exception {
+    buildTestAuthorizationConfig();
+    SimplePrincipalCollection principal = new SimplePrincipalCollection("username", realm.getName());
+    WildcardPermission permission = new WildcardPermission("app:config:read");
+    Assert.assertTrue(realm.isPermitted(principal, permission));
+
+    configurationManager.deleteUser("username");
+    clearAuthorizationInfo();
+    Assert.assertTrue(realm.isPermitted(principal, permission));
+
+    eventManager.post(new UserPrincipalsExpired("username", "default"));
+    Assert.assertFalse(realm.isPermitted(principal, permission));
+  }
+
+  private void removeRolePrivileges() {
+    CRole role = configurationManager.readRole("role");
+    role.setPrivileges(Collections.emptySet());
+    configurationManager.updateRole(role);
+  }
+
+  /**
+   * Drops the roles Shiro cached for the principals, leaving only the realm's own caches to invalidate.
+   */
+  private void clearAuthorizationInfo() {
+    Cache<Object, AuthorizationInfo> cache = realm.getAuthorizationCache();
+    if (cache != null) {
+      cache.clear();
+    }
+  }
+
   private void buildTestAuthorizationConfig() throws Exception {
     buildTestAuthorizationConfig("username");
   }
@@ -0,0 +1,105 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-present Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.security.authz;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.sonatype.goodies.testsupport.TestSupport;
+
+import org.apache.shiro.authz.Permission;
+import org.apache.shiro.authz.permission.WildcardPermission;
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+/**
+ * Tests for {@link PermissionIndex}.
+ */
+public class PermissionIndexTest
+    extends TestSupport
+{
+  private static final String[] HELD = {
+      "nexus:repository-view:maven2:maven-central:browse,read",
+      "nexus:repository-view:npm:*:read",
+      "nexus:repository-view:*:releases:*",
+      "nexus:repository-admin:maven2,npm:*:read",
+      "nexus:repository-view",
+      "nexus:settings:read",
+      "nexus:*:docker:*:read",
+      "*:search:read",
+      "nexus:tasks"
+  };
+
+  private static final String[] CHECKED = {
+      "nexus:repository-view:maven2:maven-central:read",
+      "nexus:repository-view:maven2:maven-central:edit",
+      "nexus:repository-view:maven2:maven-snapshots:read",
+      "nexus:repository-view:npm:npm-proxy:read",
+      "nexus:repository-view:npm:npm-proxy:add",
+      "nexus:repository-view:pypi:releases:delete",
+      "nexus:repository-view:pypi:pypi-proxy:read",
+      "nexus:repository-view:maven2,npm:maven-central:read",
+      "nexus:repository-view:*:maven-central:read",
+      "nexus:repository-view",
+      "nexus:repository-view:maven2",
+      "nexus:repository-admin:maven2:maven-central:read",
+      "nexus:repository-admin:pypi:pypi-proxy:read",
+      "nexus:repository-admin:*:maven-central:read",
+      "nexus:settings:read",
+      "nexus:settings:update",
+      "nexus:settings",
+      "nexus:docker:docker:hosted:read",
+      "nexus:search:read",
+      "other:search:read",
+      "nexus:tasks:read",
+      "nexus",
+      "*"
+  };
+
+  @Test
+  public void impliesSameAsCheckingEveryPermission() {
+    List<Permission> held = new ArrayList<>();
+    for (String permission : HELD) {
+      held.add(new WildcardPermission2(permission));
+    }
+    PermissionIndex underTest = new PermissionIndex(held);
+
+    for (String permission : CHECKED) {
+      for (Permission checked : new Permission[]{new WildcardPermission2(permission),
+          new WildcardPermission(permission)}) {
+        boolean expected = held.stream().anyMatch(candidate -> candidate.implies(checked));
+        assertThat(permission, underTest.implies(checked), is(expected));
+      }
+    }
+  }
+
+  @Test
+  public void permissionsWhichAreNotIndexedAreAlwaysChecked() {
+    PermissionIndex underTest = new PermissionIndex(Collections.singletonList(new WildcardPermission("nexus:*")));
+
+    assertThat(underTest.implies(new WildcardPermission2("nexus:repository-view:maven2:maven-central:read")),
+        is(true));
+    assertThat(underTest.implies(new WildcardPermission2("other:repository-view:maven2:maven-central:read")),
+        is(false));
+  }
+
+  @Test
+  public void emptyIndexImpliesNothing() {
+    PermissionIndex underTest = new PermissionIndex(Collections.emptyList());
+
+    assertThat(underTest.implies(new WildcardPermission2("nexus:settings:read")), is(false));
+  }
+}
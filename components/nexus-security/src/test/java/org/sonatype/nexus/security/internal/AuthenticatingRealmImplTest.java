@@ -12,11 +12,15 @@
  */
 package org.sonatype.nexus.security.internal;
 
+import org.sonatype.goodies.common.Time;
 import org.sonatype.goodies.testsupport.TestSupport;
+import org.sonatype.nexus.common.event.EventManager;
+import org.sonatype.nexus.security.authc.UserPasswordChanged;
 import org.sonatype.nexus.security.config.CUser;
 import org.sonatype.nexus.security.config.SecurityConfigurationManager;
 import org.sonatype.nexus.security.config.memory.MemoryCUser;
 
+import org.apache.shiro.authc.IncorrectCredentialsException;
 import org.apache.shiro.authc.UsernamePasswordToken;
 import org.junit.Before;
 import org.junit.Test;
@@ -41,6 +45,9 @@ public class AuthenticatingRealmImplTest
   @Mock
   private SecurityConfigurationManager configuration;
 
+  @Mock
+  private EventManager eventManager;
+
   private CUser testUser = new MemoryCUser();
 
   private AuthenticatingRealmImpl underTest;
@@ -63,7 +70,7 @@ public class AuthenticatingRealmImplTest
     }).when(configuration).updateUser(any());
 
     underTest = new AuthenticatingRealmImpl(configuration,
-        new DefaultSecurityPasswordService(new LegacyNexusPasswordService()));
+        new DefaultSecurityPasswordService(new LegacyNexusPasswordService()), eventManager, 100, Time.minutes(5));
   }
 
   @Test
@@ -72,4 +79,37 @@ public class AuthenticatingRealmImplTest
     underTest.getAuthenticationInfo(new UsernamePasswordToken(TEST_USERNAME, TEST_PASSWORD));
     assertThat(testUser.getPassword(), startsWith("$shiro1$SHA-512$1024$"));
   }
+
+  @Test
+  public void testVerifiedCredentialsAreRemembered() throws Exception {
+    underTest.getAuthenticationInfo(new UsernamePasswordToken(TEST_USERNAME, TEST_PASSWORD));
+    underTest.getAuthenticationInfo(new UsernamePasswordToken(TEST_USERNAME, TEST_PASSWORD));
+
+    assertThat(underTest.getCredentialCacheMisses(), is(1L));
+    assertThat(underTest.getCredentialCacheHits(), is(1L));
+  }
+
+  @Test(expected = IncorrectCredentialsException.class)
+  public void testIncorrectPasswordIsNotRemembered() throws Exception {
+    underTest.getAuthenticationInfo(new UsernamePasswordToken(TEST_USERNAME, TEST_PASSWORD));
+
+    try {
+      underTest.getAuthenticationInfo(new UsernamePasswordToken(TEST_USERNAME, "wrong"));
+    }
+    finally {
+      assertThat(underTest.getCredentialCacheHits(), is(0L));
+      assertThat(underTest.getCredentialCacheMisses(), is(2L));
+    }
+  }
+
+  @Test
+  public void testPasswordChangeForgetsVerifiedCredentials() throws Exception {
+    underTest.getAuthenticationInfo(new UsernamePasswordToken(TEST_USERNAME, TEST_PASSWORD));
+
+    underTest.on(new UserPasswordChanged(TEST_USERNAME));
+    underTest.getAuthenticationInfo(new UsernamePasswordToken(TEST_USERNAME, TEST_PASSWORD));
+
+    assertThat(underTest.getCredentialCacheHits(), is(0L));
+    assertThat(underTest.getCredentialCacheMisses(), is(2L));
+  }
 }
@@ -13,18 +13,33 @@
 package org.sonatype.nexus.transaction;
 
 import java.io.IOException;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.Lock;
+import java.util.function.Function;
+
+import javax.annotation.Nullable;
 
 import org.sonatype.goodies.common.ComponentSupport;
 import org.sonatype.goodies.common.Time;
 import org.sonatype.nexus.common.sequence.ThreadLocalSplittableRandom;
 
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.Striped;
 
 import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
 import static java.lang.Math.max;
 import static java.lang.Math.min;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
 import static java.util.concurrent.TimeUnit.MINUTES;
+import static java.util.concurrent.TimeUnit.SECONDS;
 import static org.sonatype.goodies.common.Time.millis;
+import static org.sonatype.goodies.common.Time.seconds;
+import static org.sonatype.nexus.common.property.SystemPropertiesHelper.getBoolean;
 import static org.sonatype.nexus.common.property.SystemPropertiesHelper.getInteger;
 import static org.sonatype.nexus.common.property.SystemPropertiesHelper.getString;
 import static org.sonatype.nexus.common.property.SystemPropertiesHelper.getTime;
@@ -49,10 +64,30 @@ public class RetryController
 
   private static final Time DEFAULT_MAJOR_DELAY_MILLIS = millis(100);
 
+  private static final int DEFAULT_CONTENTION_THRESHOLD = 3;
+
+  private static final Time DEFAULT_CONTENTION_TIMEOUT = seconds(10);
+
+  private static final int DEFAULT_CONTENTION_STRIPES = 64;
+
+  private static final int MAX_CONTENTION_KEYS = 10_000;
+
   public static final RetryController INSTANCE = new RetryController();
 
   private final RollingStats excessiveRetriesHourlyStats = new RollingStats(60, MINUTES);
 
+  private final RollingStats serializedRetriesHourlyStats = new RollingStats(60, MINUTES);
+
+  private final ConcurrentMap<String, RollingStats> operationRetriesHourlyStats = new ConcurrentHashMap<>();
+
+  private final ConcurrentMap<Object, RollingStats> keyConflictsMinutelyStats = CacheBuilder.newBuilder()
+      .maximumSize(MAX_CONTENTION_KEYS)
+      .<Object, RollingStats>build()
+      .asMap();
+
+  private final Striped<Lock> contentionLocks = Striped.lock(
+      getInteger("nexus.tx.retry.contentionStripes", DEFAULT_CONTENTION_STRIPES));
+
   private int retryLimit = getInteger("nexus.tx.retry.limit", DEFAULT_RETRY_LIMIT);
 
   private int minSlots = getInteger("nexus.tx.retry.minSlots", DEFAULT_MIN_SLOTS);
@@ -63,6 +98,15 @@ public class RetryController
 
   private int majorDelayMillis = getTime("nexus.tx.retry.majorDelay", DEFAULT_MAJOR_DELAY_MILLIS).toMillisI();
 
+  private boolean contentionAware = getBoolean("nexus.tx.retry.contentionAware", false);
+
+  private int contentionThreshold = getInteger("nexus.tx.retry.contentionThreshold", DEFAULT_CONTENTION_THRESHOLD);
+
+  private int contentionTimeoutMillis = getTime("nexus.tx.retry.contentionTimeout", DEFAULT_CONTENTION_TIMEOUT)
+      .toMillisI();
+
+  private Function<Exception, Object> contentionKeyFunction = cause -> null;
+
   private final ExceptionFilter majorExceptionFilter = new ExceptionFilter(
       getString("nexus.tx.retry.majorExceptionFilter", IOException.class.getName()));
 
@@ -153,6 +197,72 @@ public class RetryController
     this.majorDelayMillis = majorDelayMillis;
   }
 
+  /**
+   * Is contention-aware retry enabled?
+   *
+   * @since 3.26
+   */
+  public boolean isContentionAware() {
+    return contentionAware;
+  }
+
+  /**
+   * Enables or disables contention-aware retry.
+   *
+   * @since 3.26
+   */
+  public void setContentionAware(final boolean contentionAware) {
+    this.contentionAware = contentionAware;
+  }
+
+  /**
+   * Gets the number of conflicts on a key in the last minute at which retries on that key are serialized.
+   *
+   * @since 3.26
+   */
+  public int getContentionThreshold() {
+    return contentionThreshold;
+  }
+
+  /**
+   * Sets the number of conflicts on a key in the last minute at which retries on that key are serialized.
+   *
+   * @since 3.26
+   */
+  public void setContentionThreshold(final int contentionThreshold) {
+    checkArgument(contentionThreshold >= 1);
+    this.contentionThreshold = contentionThreshold;
+  }
+
+  /**
+   * Gets how long a retry waits to be serialized on a contended key before going ahead regardless.
+   *
+   * @since 3.26
+   */
+  public int getContentionTimeoutMillis() {
+    return contentionTimeoutMillis;
+  }
+
+  /**
+   * Sets how long a retry waits to be serialized on a contended key before going ahead regardless.
+   *
+   * @since 3.26
+   */
+  public void setContentionTimeoutMillis(final int contentionTimeoutMillis) {
+    checkArgument(contentionTimeoutMillis >= 0);
+    this.contentionTimeoutMillis = contentionTimeoutMillis;
+  }
+
+  /**
+   * Sets the function that extracts the key of the conflicting entity from the exception that caused a retry,
+   * returning {@code null} when it's not known.
+   *
+   * @since 3.26
+   */
+  public void setContentionKeyFunction(final Function<Exception, Object> contentionKeyFunction) {
+    this.contentionKeyFunction = checkNotNull(contentionKeyFunction);
+  }
+
   /**
    * Filter that decides if an exception is major (like an I/O issue) resulting in a longer delay.
    *
@@ -220,6 +330,82 @@ public class RetryController
     return excessiveRetriesHourlyStats.sum();
   }
 
+  /**
+   * Records a retry of the given operation point, such as the transactional method being retried.
+   *
+   * @since 3.26
+   */
+  public void recordRetry(final String operation) {
+    operationRetriesHourlyStats.computeIfAbsent(operation, k -> new RollingStats(60, MINUTES)).mark();
+  }
+
+  /**
+   * Return the number of retries in the last hour of each operation point which has been retried.
+   *
+   * @since 3.26
+   */
+  public Map<String, Integer> retriesInLastHour() {
+    Map<String, Integer> retries = new TreeMap<>();
+    operationRetriesHourlyStats.forEach((operation, stats) -> {
+      int sum = stats.sum();
+      if (sum > 0) {
+        retries.put(operation, sum);
+      }
+    });
+    return retries;
+  }
+
+  /**
+   * Return the number of retries which were serialized on a contended key in the last hour.
+   *
+   * @since 3.26
+   */
+  public long serializedRetriesInLastHour() {
+    return serializedRetriesHourlyStats.sum();
+  }
+
+  /**
+   * Records a conflict on the key of the entity which caused the retry and, when contention-aware and the key has had
+   * at least {@link #getContentionThreshold()} conflicts in the last minute, waits until no other retry holds that key
+   * so writers retrying against the same hot entity go one at a time instead of colliding again.
+   *
+   * @param cause the exception that caused the retry
+   * @return the lock held for the key, to be released by the caller when the retried transaction is over;
+   *         {@code null} if the retry isn't serialized
+   *
+   * @since 3.26
+   */
+  @Nullable
+  public Lock serializeRetry(final Exception cause) {
+    if (!contentionAware) {
+      return null;
+    }
+    Object key = contentionKeyFunction.apply(cause);
+    if (key == null) {
+      return null;
+    }
+    RollingStats conflicts = keyConflictsMinutelyStats.computeIfAbsent(key, k -> new RollingStats(60, SECONDS));
+    conflicts.mark();
+    if (conflicts.sum() < contentionThreshold) {
+      return null;
+    }
+
+    Lock lock = contentionLocks.get(key);
+    try {
+      if (lock.tryLock(contentionTimeoutMillis, MILLISECONDS)) {
+        serializedRetriesHourlyStats.mark();
+        log.debug("Serializing retry on contended {}", key);
+        return lock;
+      }
+    }
+    catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new RuntimeException(e);
+    }
+    log.debug("Timed out serializing retry on contended {}", key);
+    return null;
+  }
+
   /**
    * Updates the excessive retries threshold to be just above the mid-point of the retry limit.
    */
@@ -236,6 +422,7 @@ public class RetryController
       Thread.sleep(delay);
     }
     catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
       throw new RuntimeException(e);
     }
   }
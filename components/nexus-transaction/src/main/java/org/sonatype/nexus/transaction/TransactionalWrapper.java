@@ -12,6 +12,12 @@
  */
 package org.sonatype.nexus.transaction;
 
+import java.lang.reflect.AccessibleObject;
+import java.lang.reflect.Method;
+import java.util.concurrent.locks.Lock;
+
+import javax.annotation.Nullable;
+
 import org.sonatype.goodies.common.Loggers;
 
 import org.aopalliance.intercept.Joinpoint;
@@ -32,6 +38,9 @@ final class TransactionalWrapper
 
   private final boolean tracing;
 
+  @Nullable
+  private Lock contentionLock;
+
   public TransactionalWrapper(final Transactional spec, final Joinpoint aspect) {
     this.spec = spec;
     this.aspect = aspect;
@@ -43,6 +52,18 @@ final class TransactionalWrapper
    * Applies transactional behaviour around the method call, supports automatic retries.
    */
   public Object proceedWithTransaction(final Transaction tx) throws Throwable {
+    try {
+      return proceedWithRetries(tx);
+    }
+    finally {
+      if (contentionLock != null) {
+        contentionLock.unlock();
+        contentionLock = null;
+      }
+    }
+  }
+
+  private Object proceedWithRetries(final Transaction tx) throws Throwable {
     tx.reason(spec.reason());
     while (true) {
       boolean committed = false;
@@ -83,6 +104,11 @@ final class TransactionalWrapper
             if (tracing) {
               log.trace("RETRY {} : {}", tx, aspect.getStaticPart(), e);
             }
+            RetryController.INSTANCE.recordRetry(operationName());
+            if (contentionLock == null) {
+              // retries against a hot entity hold its lock until this transactional call is over
+              contentionLock = RetryController.INSTANCE.serializeRetry(e);
+            }
             continue;
           }
           // only want to swallow commit exceptions distinct from 'throwing'
@@ -104,6 +130,23 @@ final class TransactionalWrapper
     }
   }
 
+  /**
+   * @return name of the operation point being retried, lambdas are named after their enclosing class
+   */
+  private String operationName() {
+    AccessibleObject staticPart = aspect.getStaticPart();
+    if (!(staticPart instanceof Method)) {
+      return String.valueOf(staticPart);
+    }
+    Method method = (Method) staticPart;
+    String className = method.getDeclaringClass().getName();
+    int lambda = className.indexOf("$$Lambda");
+    if (lambda > 0) {
+      className = className.substring(0, lambda);
+    }
+    return className + '.' + method.getName();
+  }
+
   /**
    * @return {@code true} if the given throwable is an instance of one of the types.
    */
@@ -13,9 +13,12 @@
 package org.sonatype.nexus.transaction;
 
 import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.locks.Lock;
 
 import org.sonatype.goodies.testsupport.TestSupport;
 
+import com.google.common.collect.ImmutableMap;
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.ArgumentCaptor;
@@ -26,6 +29,8 @@ import static org.hamcrest.Matchers.empty;
 import static org.hamcrest.Matchers.greaterThanOrEqualTo;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.spy;
 
@@ -275,6 +280,62 @@ public class RetryControllerTest
     assertThat(underTest.excessiveRetriesInLastHour(), is(2L)); // bump
   }
 
+  @Test
+  public void testRetriesPerOperationStats() throws Exception {
+    assertThat(underTest.retriesInLastHour().isEmpty(), is(true));
+
+    underTest.recordRetry("Example.putAsset");
+    underTest.recordRetry("Example.putAsset");
+    underTest.recordRetry("Example.deleteAsset");
+
+    assertThat(underTest.retriesInLastHour(), is(ImmutableMap.of("Example.deleteAsset", 1, "Example.putAsset", 2)));
+  }
+
+  @Test
+  public void testRetriesAreNotSerializedUnlessContentionAware() throws Exception {
+    underTest.setContentionKeyFunction(cause -> "#12:34");
+    underTest.setContentionThreshold(1);
+
+    assertThat(underTest.serializeRetry(MINOR_CAUSE), is(nullValue()));
+
+    underTest.setContentionAware(true);
+
+    Lock lock = underTest.serializeRetry(MINOR_CAUSE);
+    assertThat(lock, is(notNullValue()));
+    lock.unlock();
+  }
+
+  @Test
+  public void testRetriesAreSerializedOnHotKeys() throws Exception {
+    underTest.setContentionAware(true);
+    underTest.setContentionTimeoutMillis(0);
+    underTest.setContentionKeyFunction(cause -> cause == MINOR_CAUSE ? "#12:34" : null);
+
+    assertThat(underTest.serializeRetry(TEST_CAUSE), is(nullValue()));
+    assertThat(underTest.serializeRetry(MINOR_CAUSE), is(nullValue()));
+    assertThat(underTest.serializeRetry(MINOR_CAUSE), is(nullValue()));
+
+    // third conflict in the last minute makes the key hot
+    Lock lock = underTest.serializeRetry(MINOR_CAUSE);
+    assertThat(lock, is(notNullValue()));
+    assertThat(underTest.serializedRetriesInLastHour(), is(1L));
+
+    // another retry on the same key times out waiting and goes ahead without serializing
+    assertThat(CompletableFuture.supplyAsync(() -> underTest.serializeRetry(MINOR_CAUSE)).get(), is(nullValue()));
+
+    lock.unlock();
+
+    Lock nextLock = CompletableFuture.supplyAsync(() -> {
+      Lock acquired = underTest.serializeRetry(MINOR_CAUSE);
+      if (acquired != null) {
+        acquired.unlock();
+      }
+      return acquired;
+    }).get();
+    assertThat(nextLock, is(notNullValue()));
+    assertThat(underTest.serializedRetriesInLastHour(), is(2L));
+  }
+
   private void verifyBackoff(final int retriesSoFar,
                              final Exception cause,
                              final long minBackoff,
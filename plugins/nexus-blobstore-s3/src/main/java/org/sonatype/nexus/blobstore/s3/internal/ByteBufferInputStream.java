@@ -0,0 +1,126 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-present Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.blobstore.s3.internal;
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.List;
+
+import static java.util.Collections.singletonList;
+
+/**
+ * {@link InputStream} over the remaining bytes of one or more {@link ByteBuffer}s, read one after the other. Supports
+ * mark and reset, so the S3 client can replay the content when it retries a request.
+ *
+ * @since 3.26
+ */
+class ByteBufferInputStream
+    extends InputStream
+{
+  private final ByteBuffer[] buffers;
+
+  private final int[] starts;
+
+  private int current;
+
+  private int markBuffer;
+
+  private int markPosition;
+
+  ByteBufferInputStream(final ByteBuffer buffer) {
+    this(singletonList(buffer));
+  }
+
+  ByteBufferInputStream(final List<ByteBuffer> buffers) {
+    this.buffers = new ByteBuffer[buffers.size()];
+    this.starts = new int[buffers.size()];
+    for (int i = 0; i < this.buffers.length; i++) {
+      this.buffers[i] = buffers.get(i).duplicate();
+      this.starts[i] = this.buffers[i].position();
+    }
+    this.markPosition = this.buffers.length > 0 ? starts[0] : 0;
+  }
+
+  @Override
+  public int read() {
+    ByteBuffer buffer = currentBuffer();
+    return buffer != null ? buffer.get() & 0xFF : -1;
+  }
+
+  @Override
+  public int read(final byte[] b, final int off, final int len) {
+    if (len == 0) {
+      return 0;
+    }
+    ByteBuffer buffer = currentBuffer();
+    if (buffer == null) {
+      return -1;
+    }
+    int count = Math.min(len, buffer.remaining());
+    buffer.get(b, off, count);
+    return count;
+  }
+
+  @Override
+  public long skip(final long n) {
+    long skipped = 0;
+    ByteBuffer buffer;
+    while (skipped < n && (buffer = currentBuffer()) != null) {
+      int count = (int) Math.min(n - skipped, buffer.remaining());
+      buffer.position(buffer.position() + count);
+      skipped += count;
+    }
+    return skipped;
+  }
+
+  @Override
+  public int available() {
+    long remaining = 0;
+    for (int i = current; i < buffers.length; i++) {
+      remaining += buffers[i].remaining();
+    }
+    return (int) Math.min(remaining, Integer.MAX_VALUE);
+  }
+
+  @Override
+  public boolean markSupported() {
+    return true;
+  }
+
+  @Override
+  public synchronized void mark(final int readLimit) {
+    markBuffer = current;
+    markPosition = current < buffers.length ? buffers[current].position() : 0;
+  }
+
+  @Override
+  public synchronized void reset() {
+    for (int i = markBuffer + 1; i < buffers.length; i++) {
+      buffers[i].position(starts[i]);
+    }
+    if (markBuffer < buffers.length) {
+      buffers[markBuffer].position(markPosition);
+    }
+    current = markBuffer;
+  }
+
+  /**
+   * The buffer to read next, or {@code null} once all buffers have been read.
+   */
+  private ByteBuffer currentBuffer() {
+    while (current < buffers.length && !buffers[current].hasRemaining()) {
+      current++;
+    }
+    return current < buffers.length ? buffers[current] : null;
+  }
+}
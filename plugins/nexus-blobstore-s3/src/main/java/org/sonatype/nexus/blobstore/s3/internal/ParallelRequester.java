@@ -15,12 +15,14 @@ package org.sonatype.nexus.blobstore.s3.internal;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Callable;
 import java.util.concurrent.CancellationException;
 import java.util.concurrent.CompletionService;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorCompletionService;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.function.Supplier;
 
 import org.sonatype.nexus.blobstore.api.BlobStoreException;
@@ -73,6 +75,15 @@ public abstract class ParallelRequester
   }
 
 
+  /**
+   * Submits a single request to the threads used for parallel requests.
+   *
+   * @since 3.26
+   */
+  protected <T> Future<T> submit(final Callable<T> request) {
+    return executorService.submit(request);
+  }
+
   @FunctionalInterface
   protected interface IOFunction<T, R>
   {
@@ -12,19 +12,22 @@
  */
 package org.sonatype.nexus.blobstore.s3.internal;
 
-import java.io.BufferedInputStream;
-import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 import java.util.concurrent.atomic.AtomicInteger;
 
+import javax.annotation.Nullable;
 import javax.inject.Inject;
 import javax.inject.Named;
 import javax.inject.Singleton;
 
+import org.sonatype.goodies.common.Time;
 import org.sonatype.nexus.blobstore.api.BlobStoreException;
 import org.sonatype.nexus.blobstore.s3.internal.ParallelUploader.ChunkReader.Chunk;
 
@@ -33,16 +36,25 @@ import com.amazonaws.services.s3.AmazonS3;
 import com.amazonaws.services.s3.model.ObjectMetadata;
 import com.amazonaws.services.s3.model.PartETag;
 import com.amazonaws.services.s3.model.UploadPartRequest;
+import com.google.common.annotations.VisibleForTesting;
 
+import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 import static java.lang.String.format;
+import static java.util.Collections.singletonList;
 import static java.util.Optional.empty;
 import static java.util.Optional.of;
+import static java.util.concurrent.TimeUnit.SECONDS;
 
 /**
  * Uploads an InputStream, using multipart upload in parallel if the file is larger or equal to the chunk size.
  * A normal putObject request is used instead if only a single chunk would be sent.
  *
+ * The start of the stream is read into a small buffer first, so small blobs are sent without taking a whole chunk.
+ * Parts are read into pooled heap slabs of {@code chunkSize} bytes. The first part is always {@code chunkSize} bytes;
+ * the remaining parts are sized from the recently observed upload throughput so that each takes about
+ * {@code targetPartTime}, in multiples of {@code chunkSize} up to {@code maxChunkSize}.
+ *
  * @since 3.19
  */
 @Singleton
@@ -51,34 +63,52 @@ public class ParallelUploader
     extends ParallelRequester
     implements S3Uploader
 {
-  private static final Chunk EMPTY_CHUNK = new ChunkReader.Chunk(0, new byte[0], 0);
+  /**
+   * Weight given to the latest part when updating the throughput estimate.
+   */
+  private static final double SMOOTHING_FACTOR = 0.2;
+
+  /**
+   * Most bytes read before deciding whether a blob needs pooled slabs.
+   */
+  private static final int HEAD_SIZE = 64 * 1024;
+
+  private final int maxChunkSize;
+
+  private final double targetPartSeconds;
+
+  private final PartBufferPool bufferPool;
+
+  // moving average of bytes per second achieved by single part uploads, 0 until the first part is uploaded
+  private double partThroughput;
 
   @Inject
   public ParallelUploader(@Named("${nexus.s3.parallelRequests.chunksize:-5242880}") final int chunkSize,
-                          @Named("${nexus.s3.parallelRequests.parallelism:-0}") final int nThreads)
+                          @Named("${nexus.s3.parallelRequests.parallelism:-0}") final int nThreads,
+                          @Named("${nexus.s3.parallelRequests.maxChunksize:-20971520}") final int maxChunkSize,
+                          @Named("${nexus.s3.parallelRequests.targetPartTime:-2s}") final Time targetPartTime)
   {
     super(chunkSize, nThreads, "uploadThreads");
+    checkArgument(maxChunkSize >= chunkSize, "Must use a maxChunkSize of at least chunkSize");
+    this.maxChunkSize = maxChunkSize;
+    this.targetPartSeconds = checkNotNull(targetPartTime).toMillis() / 1000.0;
+    int parallelism = nThreads > 0 ? nThreads : Runtime.getRuntime().availableProcessors();
+    // enough idle slabs for every upload thread to send a part of the maximum size
+    this.bufferPool = new PartBufferPool(chunkSize, parallelism * (maxChunkSize / chunkSize));
   }
 
   @Override
   public void upload(final AmazonS3 s3, final String bucket, final String key, final InputStream contents) {
-    try (InputStream input = new BufferedInputStream(contents, chunkSize)) {
+    try (InputStream input = contents) {
       log.debug("Starting upload to key {} in bucket {}", key, bucket);
 
-      input.mark(chunkSize);
-      ChunkReader chunkReader = new ChunkReader(input);
-      Chunk chunk = chunkReader.readChunk(chunkSize).orElse(EMPTY_CHUNK);
-      input.reset();
-
-      if (chunk.dataLength < chunkSize) {
-        ObjectMetadata metadata = new ObjectMetadata();
-        metadata.setContentLength(chunk.dataLength);
-        s3.putObject(bucket, key, new ByteArrayInputStream(chunk.data, 0, chunk.dataLength), metadata);
+      ReadableByteChannel channel = Channels.newChannel(input);
+      ByteBuffer head = readHead(channel);
+      if (head.remaining() < head.capacity()) {
+        putObject(s3, bucket, key, singletonList(head), head.remaining());
       }
       else {
-        ChunkReader parallelReader = new ChunkReader(input);
-        parallelRequests(s3, bucket, key,
-            () -> (uploadId -> uploadChunks(s3, bucket, key, uploadId, parallelReader)));
+        uploadChunked(s3, bucket, key, new ChunkReader(channel, head, bufferPool));
       }
       log.debug("Finished upload to key {} in bucket {}", key, bucket);
     }
@@ -87,64 +117,220 @@ public class ParallelUploader
     }
   }
 
+  private void uploadChunked(final AmazonS3 s3, final String bucket, final String key, final ChunkReader chunkReader)
+      throws IOException
+  {
+    try {
+      Chunk chunk = chunkReader.readChunk(chunkSize).orElseThrow(IllegalStateException::new);
+
+      if (chunk.dataLength < chunkSize) {
+        try {
+          putObject(s3, bucket, key, chunk.data, chunk.dataLength);
+        }
+        finally {
+          bufferPool.release(chunk.data);
+        }
+      }
+      else {
+        chunkReader.unread(chunk);
+        int partSize = nextPartSize();
+        log.debug("Uploading key {} in bucket {} with parts of {} bytes", key, bucket, partSize);
+        parallelRequests(s3, bucket, key,
+            () -> (uploadId -> uploadChunks(s3, bucket, key, uploadId, chunkReader, partSize)));
+      }
+    }
+    finally {
+      chunkReader.close();
+    }
+  }
+
+  /**
+   * Reads the start of the stream into a heap buffer of at most {@link #HEAD_SIZE} bytes, which is only partly filled
+   * when the whole stream fits in it.
+   */
+  private ByteBuffer readHead(final ReadableByteChannel input) throws IOException {
+    ByteBuffer head = ByteBuffer.allocate(Math.min(chunkSize, HEAD_SIZE));
+    while (head.hasRemaining() && input.read(head) != -1) {
+      // keep filling the buffer
+    }
+    head.flip();
+    return head;
+  }
+
+  private void putObject(final AmazonS3 s3,
+                         final String bucket,
+                         final String key,
+                         final List<ByteBuffer> data,
+                         final int dataLength)
+  {
+    ObjectMetadata metadata = new ObjectMetadata();
+    metadata.setContentLength(dataLength);
+    s3.putObject(bucket, key, new ByteBufferInputStream(data), metadata);
+  }
+
   private List<PartETag> uploadChunks(final AmazonS3 s3,
                                       final String bucket,
                                       final String key,
                                       final String uploadId,
-                                      final ChunkReader chunkReader)
+                                      final ChunkReader chunkReader,
+                                      final int partSize)
       throws IOException
   {
     List<PartETag> tags = new ArrayList<>();
     Optional<Chunk> chunk;
 
-    while ((chunk = chunkReader.readChunk(chunkSize)).isPresent()) {
-      UploadPartRequest request = new UploadPartRequest()
-          .withBucketName(bucket)
-          .withKey(key)
-          .withUploadId(uploadId)
-          .withPartNumber(chunk.get().chunkNumber)
-          .withInputStream(new ByteArrayInputStream(chunk.get().data, 0, chunk.get().dataLength))
-          .withPartSize(chunk.get().dataLength);
+    while ((chunk = chunkReader.readChunk(partSize)).isPresent()) {
+      Chunk part = chunk.get();
+      try {
+        UploadPartRequest request = new UploadPartRequest()
+            .withBucketName(bucket)
+            .withKey(key)
+            .withUploadId(uploadId)
+            .withPartNumber(part.chunkNumber)
+            .withInputStream(new ByteBufferInputStream(part.data))
+            .withPartSize(part.dataLength);
 
-      tags.add(s3.uploadPart(request).getPartETag());
+        long start = System.nanoTime();
+        tags.add(s3.uploadPart(request).getPartETag());
+        recordPartUpload(part.dataLength, System.nanoTime() - start);
+      }
+      finally {
+        bufferPool.release(part.data);
+      }
     }
 
     return tags;
   }
 
+  @VisibleForTesting
+  synchronized void recordPartUpload(final long bytes, final long elapsedNanos) {
+    if (elapsedNanos <= 0) {
+      return;
+    }
+    double throughput = bytes * (double) SECONDS.toNanos(1) / elapsedNanos;
+    if (partThroughput == 0) {
+      partThroughput = throughput;
+    }
+    else {
+      partThroughput += SMOOTHING_FACTOR * (throughput - partThroughput);
+    }
+  }
+
+  /**
+   * Size of the parts after the first one for the next multipart upload.
+   */
+  @VisibleForTesting
+  synchronized int nextPartSize() {
+    long chunks = (long) (partThroughput * targetPartSeconds / chunkSize);
+    return (int) (Math.max(1, Math.min(chunks, maxChunkSize / chunkSize)) * chunkSize);
+  }
+
   static class ChunkReader
   {
     private final AtomicInteger counter;
 
-    private final InputStream input;
+    private final ReadableByteChannel input;
+
+    private final ByteBuffer head;
+
+    private final PartBufferPool bufferPool;
+
+    @Nullable
+    private Chunk unread;
 
-    private ChunkReader(final InputStream input) {
+    private ChunkReader(final ReadableByteChannel input, final ByteBuffer head, final PartBufferPool bufferPool) {
       this.counter = new AtomicInteger(1);
       this.input = checkNotNull(input);
+      this.head = checkNotNull(head);
+      this.bufferPool = checkNotNull(bufferPool);
     }
 
+    /**
+     * Reads the next chunk of at most {@code size} bytes into pooled slabs, which must be released once the chunk has
+     * been sent. The size must be a multiple of the slab size.
+     */
     synchronized Optional<Chunk> readChunk(final int size) throws IOException
     {
-      byte[] buf = new byte[size];
-      int bytesRead = 0;
-      int readSize;
+      if (unread != null) {
+        Chunk chunk = unread;
+        unread = null;
+        return of(chunk);
+      }
 
-      while ((readSize = input.read(buf, bytesRead, size - bytesRead)) != -1 && bytesRead < size) {
-        bytesRead += readSize;
+      List<ByteBuffer> slabs = new ArrayList<>(size / bufferPool.slabSize());
+      int length = 0;
+      try {
+        boolean more = true;
+        while (more && length < size) {
+          ByteBuffer slab = bufferPool.acquire();
+          slabs.add(slab);
+          more = fill(slab);
+          slab.flip();
+          length += slab.remaining();
+        }
+      }
+      catch (IOException e) {
+        bufferPool.release(slabs);
+        throw e;
       }
 
-      return bytesRead > 0 ? of(new Chunk(bytesRead, buf, counter.getAndIncrement())) : empty();
+      ByteBuffer last = slabs.get(slabs.size() - 1);
+      if (!last.hasRemaining()) {
+        bufferPool.release(last);
+        slabs.remove(slabs.size() - 1);
+      }
+      if (slabs.isEmpty()) {
+        return empty();
+      }
+      return of(new Chunk(length, slabs, counter.getAndIncrement()));
+    }
+
+    /**
+     * Fills the slab with what is left of the head and then from the stream, returning {@code false} if the end of
+     * the stream was reached.
+     */
+    private boolean fill(final ByteBuffer slab) throws IOException {
+      if (head.hasRemaining()) {
+        ByteBuffer part = head.duplicate();
+        part.limit(part.position() + Math.min(part.remaining(), slab.remaining()));
+        slab.put(part);
+        head.position(part.position());
+      }
+      while (slab.hasRemaining()) {
+        if (input.read(slab) == -1) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    /**
+     * Makes a chunk that was already read the next one returned by {@link #readChunk(int)}.
+     */
+    synchronized void unread(final Chunk chunk) {
+      checkArgument(unread == null, "Only one chunk can be unread");
+      unread = chunk;
+    }
+
+    /**
+     * Releases the buffer of a chunk that was unread but never sent.
+     */
+    synchronized void close() {
+      if (unread != null) {
+        bufferPool.release(unread.data);
+        unread = null;
+      }
     }
 
     static class Chunk
     {
-      final byte[] data;
+      final List<ByteBuffer> data;
 
       final int dataLength;
 
       final int chunkNumber;
 
-      Chunk(final int dataLength, final byte[] data, final int chunkNumber) {
+      Chunk(final int dataLength, final List<ByteBuffer> data, final int chunkNumber) {
         this.dataLength = dataLength;
         this.data = data;  //NOSONAR
         this.chunkNumber = chunkNumber;
@@ -0,0 +1,89 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-present Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.blobstore.s3.internal;
+
+import java.nio.ByteBuffer;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.google.common.annotations.VisibleForTesting;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Pool of fixed size heap {@link ByteBuffer} slabs holding the parts of multipart uploads, so their buffers are reused
+ * rather than allocated for every upload. Parts larger than a slab are spread over several slabs, which keeps every
+ * pooled buffer usable whatever part size is chosen. At most {@code maxIdle} slabs are kept between uses; any others
+ * are left for the garbage collector.
+ *
+ * @since 3.26
+ */
+class PartBufferPool
+{
+  private final int slabSize;
+
+  private final int maxIdle;
+
+  private final Queue<ByteBuffer> idleSlabs = new ConcurrentLinkedQueue<>();
+
+  private final AtomicInteger idleCount = new AtomicInteger();
+
+  PartBufferPool(final int slabSize, final int maxIdle) {
+    checkArgument(slabSize > 0, "Must use a positive slab size");
+    checkArgument(maxIdle >= 0, "Must keep a non-negative number of idle slabs");
+    this.slabSize = slabSize;
+    this.maxIdle = maxIdle;
+  }
+
+  int slabSize() {
+    return slabSize;
+  }
+
+  /**
+   * Returns an empty slab of {@link #slabSize()} bytes.
+   */
+  ByteBuffer acquire() {
+    ByteBuffer slab = idleSlabs.poll();
+    if (slab == null) {
+      return ByteBuffer.allocate(slabSize);
+    }
+    idleCount.decrementAndGet();
+    slab.clear();
+    return slab;
+  }
+
+  /**
+   * Returns a slab to the pool. The slab must not be used by the caller afterwards.
+   */
+  void release(final ByteBuffer slab) {
+    checkArgument(slab.capacity() == slabSize, "Only slabs of the pool can be released");
+    if (idleCount.incrementAndGet() > maxIdle) {
+      idleCount.decrementAndGet();
+      return;
+    }
+    idleSlabs.offer(slab);
+  }
+
+  /**
+   * Returns all slabs to the pool.
+   */
+  void release(final Iterable<ByteBuffer> slabs) {
+    slabs.forEach(this::release);
+  }
+
+  @VisibleForTesting
+  int idleCount() {
+    return idleCount.get();
+  }
+}
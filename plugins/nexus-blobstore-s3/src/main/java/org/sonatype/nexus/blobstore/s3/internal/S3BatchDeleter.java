@@ -0,0 +1,145 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-present Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.blobstore.s3.internal;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+
+import com.amazonaws.SdkClientException;
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.AmazonS3Exception;
+import com.amazonaws.services.s3.model.DeleteObjectsRequest;
+import com.amazonaws.services.s3.model.MultiObjectDeleteException;
+import com.amazonaws.services.s3.model.MultiObjectDeleteException.DeleteError;
+import com.google.common.base.Throwables;
+import com.google.common.collect.Lists;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Deletes objects from a bucket with multi-object {@code DeleteObjects} requests, sending the batches in parallel and
+ * reporting which objects were confirmed deleted.
+ *
+ * @since 3.26
+ */
+public class S3BatchDeleter
+{
+  private static final Logger log = LoggerFactory.getLogger(S3BatchDeleter.class);
+
+  private final AmazonS3 s3;
+
+  private final String bucket;
+
+  private final int batchSize;
+
+  private final Function<Callable<Set<String>>, Future<Set<String>>> sender;
+
+  /**
+   * @param sender sends a batch in the background
+   */
+  S3BatchDeleter(final AmazonS3 s3,
+                 final String bucket,
+                 final int batchSize,
+                 final Function<Callable<Set<String>>, Future<Set<String>>> sender)
+  {
+    this.s3 = checkNotNull(s3);
+    this.bucket = checkNotNull(bucket);
+    this.batchSize = batchSize;
+    this.sender = checkNotNull(sender);
+  }
+
+  /**
+   * Deletes the given objects, returning once all requests have completed. Failures to delete objects are logged.
+   *
+   * @return the keys of the objects confirmed deleted
+   */
+  public Set<String> delete(final List<String> keys) {
+    List<Future<Set<String>>> batches = new ArrayList<>();
+    for (List<String> batch : Lists.partition(keys, batchSize)) {
+      batches.add(sender.apply(() -> deleteObjects(batch)));
+    }
+    Set<String> deleted = new HashSet<>(keys.size());
+    try {
+      for (Future<Set<String>> batch : batches) {
+        deleted.addAll(batch.get());
+      }
+    }
+    catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while deleting from bucket " + bucket, e);
+    }
+    catch (ExecutionException e) {
+      Throwables.throwIfUnchecked(e.getCause());
+      throw new IllegalStateException(e.getCause());
+    }
+    finally {
+      batches.forEach(batch -> batch.cancel(false));
+    }
+    return deleted;
+  }
+
+  private Set<String> deleteObjects(final List<String> keys) {
+    log.debug("Deleting {} objects from bucket {}", keys.size(), bucket);
+    Set<String> deleted = new HashSet<>(keys);
+    try {
+      // quiet requests only report the objects which failed to be deleted
+      s3.deleteObjects(new DeleteObjectsRequest(bucket).withKeys(keys.toArray(new String[0])).withQuiet(true));
+    }
+    catch (MultiObjectDeleteException e) {
+      for (DeleteError error : e.getErrors()) {
+        log.warn("Unable to delete {} from bucket {}: {} {}", error.getKey(), bucket, error.getCode(),
+            error.getMessage());
+        deleted.remove(error.getKey());
+      }
+    }
+    catch (AmazonS3Exception e) {
+      if (isNotImplemented(e)) {
+        // some S3 compatible stores don't implement multi-object deletes, so fall back to deleting each object
+        log.debug("Multi-object delete not supported by bucket {}, deleting objects one at a time", bucket, e);
+        deleted.removeIf(key -> !deleteObject(key));
+      }
+      else {
+        log.warn("Unable to delete {} objects from bucket {}", keys.size(), bucket, e);
+        deleted.clear();
+      }
+    }
+    catch (SdkClientException e) {
+      log.warn("Unable to delete {} objects from bucket {}", keys.size(), bucket, e);
+      deleted.clear();
+    }
+    return deleted;
+  }
+
+  private static boolean isNotImplemented(final AmazonS3Exception e) {
+    return e.getStatusCode() == 501 || "NotImplemented".equals(e.getErrorCode());
+  }
+
+  private boolean deleteObject(final String key) {
+    try {
+      s3.deleteObject(bucket, key);
+      return true;
+    }
+    catch (SdkClientException e) {
+      log.warn("Unable to delete {} from bucket {}", key, bucket, e);
+      return false;
+    }
+  }
+}
@@ -0,0 +1,92 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-present Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.blobstore.s3.internal;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.SetObjectTaggingRequest;
+import com.google.common.base.Throwables;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Spreads the single-object requests of an operation across the parallel request threads, and batches deletions
+ * into multi-object {@code DeleteObjects} requests.
+ *
+ * @since 3.26
+ */
+@Singleton
+@Named
+public class S3BatchRequester
+    extends ParallelRequester
+{
+  /**
+   * Maximum number of keys accepted by a single {@code DeleteObjects} request.
+   */
+  static final int MAX_DELETE_KEYS = 1000;
+
+  private final int deleteBatchSize;
+
+  @Inject
+  public S3BatchRequester(@Named("${nexus.s3.parallelRequests.parallelism:-0}") final int nThreads,
+                          @Named("${nexus.s3.batchDelete.size:-1000}") final int deleteBatchSize)
+  {
+    super(0, nThreads, "batchThreads");
+    checkArgument(deleteBatchSize > 0 && deleteBatchSize <= MAX_DELETE_KEYS,
+        "Delete batch size must be between 1 and %s", MAX_DELETE_KEYS);
+    this.deleteBatchSize = deleteBatchSize;
+  }
+
+  /**
+   * Returns a deleter which deletes objects from the given bucket in parallel batches.
+   */
+  public S3BatchDeleter deleter(final AmazonS3 s3, final String bucket) {
+    return new S3BatchDeleter(s3, bucket, deleteBatchSize, this::submit);
+  }
+
+  /**
+   * Applies the given tag updates in parallel, waiting until they have all completed.
+   *
+   * @throws com.amazonaws.SdkClientException if any of the updates failed
+   */
+  public void setObjectTagging(final AmazonS3 s3, final List<SetObjectTaggingRequest> requests) {
+    List<Future<?>> results = new ArrayList<>(requests.size());
+    for (SetObjectTaggingRequest request : requests) {
+      results.add(submit(() -> s3.setObjectTagging(request)));
+    }
+    try {
+      for (Future<?> result : results) {
+        result.get();
+      }
+    }
+    catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while updating tags", e);
+    }
+    catch (ExecutionException e) {
+      Throwables.throwIfUnchecked(e.getCause());
+      throw new IllegalStateException(e.getCause());
+    }
+    finally {
+      results.forEach(result -> result.cancel(false));
+    }
+  }
+}
@@ -15,7 +15,11 @@ package org.sonatype.nexus.blobstore.s3.internal;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.locks.Lock;
 import java.util.stream.Stream;
 
@@ -61,6 +65,7 @@ import static com.google.common.base.Preconditions.checkState;
 import static com.google.common.base.Strings.isNullOrEmpty;
 import static com.google.common.cache.CacheLoader.from;
 import static java.lang.String.format;
+import static java.util.Arrays.asList;
 import static java.util.Collections.emptyList;
 import static java.util.Collections.singletonList;
 import static java.util.stream.StreamSupport.stream;
@@ -147,6 +152,8 @@ public class S3BlobStore
 
   private S3BlobStoreMetricsStore storeMetrics;
 
+  private final S3BatchRequester batchRequester;
+
   private LoadingCache<BlobId, S3Blob> liveBlobs;
 
   private AmazonS3 s3;
@@ -158,7 +165,8 @@ public class S3BlobStore
                      @Named("${nexus.s3.copierName:-parallelCopier}") final S3Copier copier,
                      final S3BlobStoreMetricsStore storeMetrics,
                      final DryRunPrefix dryRunPrefix,
-                     final BucketManager bucketManager)
+                     final BucketManager bucketManager,
+                     final S3BatchRequester batchRequester)
   {
     super(blobIdLocationResolver, dryRunPrefix);
     this.amazonS3Factory = checkNotNull(amazonS3Factory);
@@ -166,6 +174,7 @@ public class S3BlobStore
     this.uploader = checkNotNull(uploader);
     this.storeMetrics = checkNotNull(storeMetrics);
     this.bucketManager = checkNotNull(bucketManager);
+    this.batchRequester = checkNotNull(batchRequester);
   }
 
   @Override
@@ -272,10 +281,11 @@ public class S3BlobStore
       S3BlobAttributes blobAttributes = new S3BlobAttributes(s3, getConfiguredBucket(), attributePath, headers, metrics);
 
       blobAttributes.store();
+      String repositoryName = headers.get(REPO_NAME_HEADER);
       if (isDirectPath && existingSize != null) {
-        storeMetrics.recordDeletion(existingSize);
+        storeMetrics.recordDeletion(repositoryName, existingSize);
       }
-      storeMetrics.recordAddition(blobAttributes.getMetrics().getContentSize());
+      storeMetrics.recordAddition(repositoryName, blobAttributes.getMetrics().getContentSize());
 
       return blob;
     }
@@ -391,15 +401,14 @@ public class S3BlobStore
       blobAttributes.store();
 
       // soft delete is implemented using an S3 lifecycle that sets expiration on objects with DELETED_TAG
-      // tag the bytes
-      s3.setObjectTagging(tagAsDeleted(contentPath(blobId)));
-      // tag the attributes
-      s3.setObjectTagging(tagAsDeleted(attributePath(blobId)));
+      // tag the bytes and the attributes
+      batchRequester.setObjectTagging(s3,
+          asList(tagAsDeleted(contentPath(blobId)), tagAsDeleted(attributePath(blobId))));
       blob.markStale();
 
       Long contentSize = getContentSizeForDeletion(blobAttributes);
       if (contentSize != null) {
-        storeMetrics.recordDeletion(contentSize);
+        storeMetrics.recordDeletion(repositoryName(blobAttributes), contentSize);
       }
 
       return true;
@@ -445,7 +454,7 @@ public class S3BlobStore
       delete(attributePath);
 
       if (blobDeleted && contentSize != null) {
-        storeMetrics.recordDeletion(contentSize);
+        storeMetrics.recordDeletion(repositoryName(blobAttributes), contentSize);
       }
 
       return blobDeleted;
@@ -459,6 +468,59 @@ public class S3BlobStore
     }
   }
 
+  /**
+   * Hard deletes the given blobs using multi-object delete requests, returning once all requests have completed.
+   * Deletions are only added to the metrics once confirmed.
+   *
+   * @throws BlobStoreException if any of the blobs could not be deleted, once the deletion of all was attempted
+   */
+  @Override
+  @Guarded(by = STARTED)
+  public void deleteHard(final Iterable<BlobId> blobIds) {
+    List<BlobId> blobs = new ArrayList<>();
+    Map<BlobId, S3BlobAttributes> measuredBlobs = new HashMap<>();
+    List<String> keys = new ArrayList<>();
+    for (BlobId blobId : blobIds) {
+      final S3Blob blob = liveBlobs.getUnchecked(blobId);
+      Lock lock = blob.lock();
+      try {
+        log.debug("Hard deleting blob {} in batch", blobId);
+
+        String attributePath = attributePath(blobId);
+        S3BlobAttributes blobAttributes = new S3BlobAttributes(s3, getConfiguredBucket(), attributePath);
+        if (getContentSizeForDeletion(blobAttributes) != null) {
+          measuredBlobs.put(blobId, blobAttributes);
+        }
+
+        blobs.add(blobId);
+        keys.add(contentPath(blobId));
+        keys.add(attributePath);
+      }
+      finally {
+        lock.unlock();
+        liveBlobs.invalidate(blobId);
+      }
+    }
+
+    Set<String> deleted = batchRequester.deleter(s3, getConfiguredBucket()).delete(keys);
+
+    List<BlobId> failed = new ArrayList<>();
+    for (BlobId blobId : blobs) {
+      boolean blobDeleted = deleted.contains(contentPath(blobId));
+      S3BlobAttributes blobAttributes = measuredBlobs.get(blobId);
+      if (blobDeleted && blobAttributes != null) {
+        storeMetrics.recordDeletion(repositoryName(blobAttributes), blobAttributes.getMetrics().getContentSize());
+      }
+      if (!blobDeleted || !deleted.contains(attributePath(blobId))) {
+        failed.add(blobId);
+      }
+    }
+    if (!failed.isEmpty()) {
+      throw new BlobStoreException(
+          format("Unable to delete %d of %d blobs, including %s", failed.size(), blobs.size(), failed.get(0)), null);
+    }
+  }
+
   @Nullable
   private Long getContentSizeForDeletion(final S3BlobAttributes blobAttributes) {
     try {
@@ -471,6 +533,12 @@ public class S3BlobStore
     }
   }
 
+  @Nullable
+  private static String repositoryName(final BlobAttributes blobAttributes) {
+    Map<String, String> headers = blobAttributes.getHeaders();
+    return headers != null ? headers.get(REPO_NAME_HEADER) : null;
+  }
+
   @Override
   @Guarded(by = STARTED)
   public BlobStoreMetrics getMetrics() {
@@ -637,9 +705,9 @@ public class S3BlobStore
 
   @Override
   protected void doUndelete(final BlobId blobId, final BlobAttributes attributes) {
-    s3.setObjectTagging(untagAsDeleted(contentPath(blobId)));
-    s3.setObjectTagging(untagAsDeleted(attributePath(blobId)));
-    storeMetrics.recordAddition(attributes.getMetrics().getContentSize());
+    batchRequester.setObjectTagging(s3,
+        asList(untagAsDeleted(contentPath(blobId)), untagAsDeleted(attributePath(blobId))));
+    storeMetrics.recordAddition(repositoryName(attributes), attributes.getMetrics().getContentSize());
   }
 
   @Override
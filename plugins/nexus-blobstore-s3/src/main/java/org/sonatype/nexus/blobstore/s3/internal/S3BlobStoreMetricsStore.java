@@ -82,7 +82,7 @@ public class S3BlobStoreMetricsStore
             .stream()
             .filter(Objects::nonNull)
             .filter(summary -> summary.getKey().endsWith(METRICS_FILENAME))
-            .map(summary -> new S3PropertiesFile(s3, bucket, summary.getKey()));
+            .map(summary -> new S3PropertiesFile(s3, bucket, summary.getKey(), summary.getETag()));
       }
     }
     catch (SdkClientException e) {
@@ -90,6 +90,16 @@ public class S3BlobStoreMetricsStore
     }
   }
 
+  @Override
+  protected String backingFileId(final S3PropertiesFile backingFile) {
+    return backingFile.getKey();
+  }
+
+  @Override
+  protected Object backingFileVersion(final S3PropertiesFile backingFile) {
+    return backingFile.getETag();
+  }
+
   public void setBucket(final String bucket) {
     checkNotNull(bucket);
     this.bucket = bucket;
@@ -17,6 +17,8 @@ import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 
+import javax.annotation.Nullable;
+
 import org.sonatype.nexus.common.property.ImplicitSourcePropertiesFile;
 
 import com.amazonaws.services.s3.AmazonS3;
@@ -44,10 +46,23 @@ public class S3PropertiesFile
 
   private final String key;
 
+  @Nullable
+  private final String eTag;
+
   public S3PropertiesFile(final AmazonS3 s3, final String bucket, final String key) {
+    this(s3, bucket, key, null);
+  }
+
+  /**
+   * @param eTag the ETag of the object when it was listed
+   *
+   * @since 3.26
+   */
+  public S3PropertiesFile(final AmazonS3 s3, final String bucket, final String key, @Nullable final String eTag) {
     this.s3 = checkNotNull(s3);
     this.bucket = checkNotNull(bucket);
     this.key = checkNotNull(key);
+    this.eTag = eTag;
   }
 
   public void load() throws IOException {
@@ -80,6 +95,23 @@ public class S3PropertiesFile
     s3.deleteObject(bucket, key);
   }
 
+  /**
+   * @since 3.26
+   */
+  public String getKey() {
+    return key;
+  }
+
+  /**
+   * Returns the ETag of the object when it was listed, {@code null} if unknown.
+   *
+   * @since 3.26
+   */
+  @Nullable
+  public String getETag() {
+    return eTag;
+  }
+
   public String toString() {
     return format("s3://%s/%s %s", bucket, key, super.toString());
   }
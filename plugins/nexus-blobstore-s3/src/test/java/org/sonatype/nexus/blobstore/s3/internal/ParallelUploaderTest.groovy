@@ -12,6 +12,7 @@
  */
 package org.sonatype.nexus.blobstore.s3.internal
 
+import org.sonatype.goodies.common.Time
 import org.sonatype.nexus.blobstore.api.BlobStoreException
 
 import com.amazonaws.SdkClientException
@@ -20,6 +21,8 @@ import com.amazonaws.services.s3.model.InitiateMultipartUploadResult
 import com.amazonaws.services.s3.model.UploadPartRequest
 import com.amazonaws.services.s3.model.UploadPartResult
 import spock.lang.Specification
+
+import static java.util.concurrent.TimeUnit.SECONDS
 /**
  * {@link ParallelUploader} tests.
  */
@@ -29,7 +32,7 @@ class ParallelUploaderTest
 
   def 'an empty stream still causes an upload'() {
     given: 'A parallel uploader'
-      ParallelUploader parallelUploader = new ParallelUploader(100, 4)
+      ParallelUploader parallelUploader = new ParallelUploader(100, 4, 400, Time.seconds(1))
       AmazonS3 s3 = Mock()
 
     when: 'an upload is started'
@@ -43,7 +46,7 @@ class ParallelUploaderTest
 
   def 'upload uploads with the multipart api'() {
     given: 'A parallel uploader'
-      ParallelUploader parallelUploader = new ParallelUploader(100, 4)
+      ParallelUploader parallelUploader = new ParallelUploader(100, 4, 400, Time.seconds(1))
       AmazonS3 s3 = Mock()
 
     when: 'an upload is started'
@@ -59,7 +62,7 @@ class ParallelUploaderTest
 
   def 'upload aborts multipart uploads on error'() {
     given: 'A parallel uploader'
-      ParallelUploader parallelUploader = new ParallelUploader(100, 4)
+      ParallelUploader parallelUploader = new ParallelUploader(100, 4, 400, Time.seconds(1))
       AmazonS3 s3 = Mock()
 
     when: 'an upload is started'
@@ -75,7 +78,7 @@ class ParallelUploaderTest
 
   def 'upload uses putObject for small uploads'() {
     given: 'A parallel uploader'
-      ParallelUploader parallelUploader = new ParallelUploader(100, 4)
+      ParallelUploader parallelUploader = new ParallelUploader(100, 4, 400, Time.seconds(1))
       AmazonS3 s3 = Mock()
 
     when: 'an upload is started'
@@ -86,4 +89,82 @@ class ParallelUploaderTest
       1 * s3.putObject(_, _, _, _)
       0 * s3.initiateMultipartUpload(_)
   }
+
+  def 'small uploads send the whole content without taking a pooled slab'() {
+    given: 'A parallel uploader'
+      ParallelUploader parallelUploader = new ParallelUploader(100, 4, 400, Time.seconds(1))
+      AmazonS3 s3 = Mock()
+      byte[] uploaded = null
+
+    when: 'an upload is started'
+      parallelUploader.upload(s3, 'bucketName', 'key', new ByteArrayInputStream('content'.bytes))
+
+    then: 'the content is put in one request'
+      1 * s3.putObject('bucketName', 'key', _, _) >> { args -> uploaded = ((InputStream) args[2]).bytes }
+      uploaded == 'content'.bytes
+      parallelUploader.bufferPool.idleCount() == 0
+  }
+
+  def 'multipart uploads reuse the slabs of earlier uploads'() {
+    given: 'A single threaded parallel uploader that has seen fast uploads'
+      ParallelUploader parallelUploader = new ParallelUploader(100, 1, 400, Time.seconds(1))
+      parallelUploader.recordPartUpload(400, SECONDS.toNanos(1))
+      AmazonS3 s3 = Mock()
+      List<byte[]> parts = [].asSynchronized()
+      byte[] content = (0..<900).collect { it as byte } as byte[]
+
+    when: 'two uploads of 900 bytes are made'
+      2.times { parallelUploader.upload(s3, 'bucketName', 'key', new ByteArrayInputStream(content)) }
+
+    then: 'every part is sent intact and only the slabs of the largest part are kept'
+      2 * s3.initiateMultipartUpload(_) >> new InitiateMultipartUploadResult(uploadId: 'testupload')
+      6 * s3.uploadPart(_) >> { UploadPartRequest request ->
+        parts << request.inputStream.bytes
+        new UploadPartResult()
+      }
+      2 * s3.completeMultipartUpload(_)
+      parts*.length == [100, 400, 400, 100, 400, 400]
+      parts[0..2].collectMany { it.toList() } == content.toList()
+      parallelUploader.bufferPool.idleCount() == 4
+  }
+
+  def 'part size follows the observed upload throughput'() {
+    given: 'A parallel uploader aiming for one second per part'
+      ParallelUploader parallelUploader = new ParallelUploader(100, 4, 400, Time.seconds(1))
+
+    expect: 'the minimum part size before anything has been uploaded'
+      parallelUploader.nextPartSize() == 100
+
+    when: 'parts upload at 250 bytes per second'
+      parallelUploader.recordPartUpload(250, SECONDS.toNanos(1))
+
+    then: 'parts are sized to a multiple of the chunk size that takes about a second'
+      parallelUploader.nextPartSize() == 200
+
+    when: 'parts upload much faster'
+      10.times { parallelUploader.recordPartUpload(100_000, SECONDS.toNanos(1)) }
+
+    then: 'parts are limited to the maximum chunk size'
+      parallelUploader.nextPartSize() == 400
+  }
+
+  def 'multipart uploads send the first chunk and then parts of the adapted size'() {
+    given: 'A parallel uploader that has seen fast uploads'
+      ParallelUploader parallelUploader = new ParallelUploader(100, 4, 400, Time.seconds(1))
+      parallelUploader.recordPartUpload(400, SECONDS.toNanos(1))
+      AmazonS3 s3 = Mock()
+      Map<Integer, Integer> partSizes = [:].asSynchronized()
+
+    when: 'an upload of 900 bytes is started'
+      parallelUploader.upload(s3, 'bucketName', 'key', new ByteArrayInputStream(new byte[900]))
+
+    then: 'the content is split into a first chunk and two full parts'
+      1 * s3.initiateMultipartUpload(_) >> new InitiateMultipartUploadResult(uploadId: 'testupload')
+      3 * s3.uploadPart(_) >> { UploadPartRequest request ->
+        partSizes[request.partNumber] = request.inputStream.bytes.length
+        new UploadPartResult()
+      }
+      1 * s3.completeMultipartUpload(_)
+      partSizes == [1: 100, 2: 400, 3: 400]
+  }
 }
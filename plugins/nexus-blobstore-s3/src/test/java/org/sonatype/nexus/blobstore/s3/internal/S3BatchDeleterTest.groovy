@@ -0,0 +1,137 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-present Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.blobstore.s3.internal
+
+import com.amazonaws.services.s3.AmazonS3
+import com.amazonaws.services.s3.model.AmazonS3Exception
+import com.amazonaws.services.s3.model.DeleteObjectsRequest
+import com.amazonaws.services.s3.model.MultiObjectDeleteException
+import com.amazonaws.services.s3.model.MultiObjectDeleteException.DeleteError
+import com.amazonaws.services.s3.model.SetObjectTaggingRequest
+import spock.lang.Specification
+
+/**
+ * {@link S3BatchDeleter} tests.
+ */
+class S3BatchDeleterTest
+    extends Specification
+{
+  AmazonS3 s3 = Mock()
+
+  S3BatchRequester batchRequester = new S3BatchRequester(4, 3)
+
+  def 'deletions are sent in batches'() {
+    given: 'a deleter'
+      S3BatchDeleter deleter = batchRequester.deleter(s3, 'mybucket')
+      List<List<String>> batches = [].asSynchronized()
+      def keys = ['a.bytes', 'a.properties', 'b.bytes', 'b.properties', 'c.bytes', 'c.properties']
+
+    when: 'objects are deleted'
+      def deleted = deleter.delete(keys)
+
+    then: 'they are deleted using multi-object requests no larger than the batch size'
+      2 * s3.deleteObjects(_) >> { DeleteObjectsRequest request ->
+        assert request.bucketName == 'mybucket'
+        assert request.quiet
+        batches << request.keys*.key
+        null
+      }
+      0 * s3.deleteObject(*_)
+      batches*.size().sort() == [3, 3]
+      batches.flatten().sort() == keys
+      deleted == keys as Set
+  }
+
+  def 'nothing is sent when there is nothing to delete'() {
+    given: 'a deleter'
+      S3BatchDeleter deleter = batchRequester.deleter(s3, 'mybucket')
+
+    when: 'no objects are deleted'
+      def deleted = deleter.delete([])
+
+    then: 'no requests are made'
+      0 * s3._
+      deleted.empty
+  }
+
+  def 'partial failures do not fail the batch'() {
+    given: 'a deleter'
+      S3BatchDeleter deleter = batchRequester.deleter(s3, 'mybucket')
+      def error = new DeleteError(key: 'a.bytes', code: 'AccessDenied', message: 'Access Denied')
+
+    when: 'objects are deleted and one fails'
+      def deleted = deleter.delete(['a.bytes', 'a.properties'])
+
+    then: 'only the other object is reported deleted and the failed one is not deleted again'
+      1 * s3.deleteObjects(_) >> { throw new MultiObjectDeleteException([error], []) }
+      0 * s3.deleteObject(*_)
+      deleted == ['a.properties'] as Set
+  }
+
+  def 'objects are deleted one at a time when multi-object deletes are not supported'() {
+    given: 'a deleter'
+      S3BatchDeleter deleter = batchRequester.deleter(s3, 'mybucket')
+
+    when: 'objects are deleted and one of the single deletes fails'
+      def deleted = deleter.delete(['a.bytes', 'a.properties'])
+
+    then: 'each object is deleted after the multi-object delete is rejected'
+      1 * s3.deleteObjects(_) >> { throw notImplemented() }
+      1 * s3.deleteObject('mybucket', 'a.bytes')
+      1 * s3.deleteObject('mybucket', 'a.properties') >> { throw new AmazonS3Exception('Access Denied') }
+      deleted == ['a.bytes'] as Set
+  }
+
+  def 'objects are not deleted one at a time when a multi-object delete fails otherwise'() {
+    given: 'a deleter'
+      S3BatchDeleter deleter = batchRequester.deleter(s3, 'mybucket')
+
+    when: 'objects are deleted and the multi-object delete is throttled'
+      def deleted = deleter.delete(['a.bytes', 'a.properties'])
+
+    then: 'no object is reported deleted and there is no fall back to single deletes'
+      1 * s3.deleteObjects(_) >> { throw new AmazonS3Exception('Slow Down') }
+      0 * s3.deleteObject(*_)
+      deleted.empty
+  }
+
+  def 'tags are updated in parallel'() {
+    given: 'some tag updates'
+      def requests = (1..4).collect { new SetObjectTaggingRequest('mybucket', "${it}.bytes", null) }
+
+    when: 'the tags are updated'
+      batchRequester.setObjectTagging(s3, requests)
+
+    then: 'every object is tagged'
+      4 * s3.setObjectTagging(_)
+  }
+
+  def 'tag update failures are propagated'() {
+    given: 'a tag update'
+      def requests = [new SetObjectTaggingRequest('mybucket', 'a.bytes', null)]
+
+    when: 'the tag update fails'
+      batchRequester.setObjectTagging(s3, requests)
+
+    then: 'the failure is thrown'
+      1 * s3.setObjectTagging(_) >> { throw new AmazonS3Exception('Slow Down') }
+      thrown(AmazonS3Exception)
+  }
+
+  private static AmazonS3Exception notImplemented() {
+    AmazonS3Exception e = new AmazonS3Exception('Not Implemented')
+    e.statusCode = 501
+    e.errorCode = 'NotImplemented'
+    e
+  }
+}
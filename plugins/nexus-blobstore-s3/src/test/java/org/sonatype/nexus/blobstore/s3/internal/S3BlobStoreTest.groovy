@@ -26,6 +26,8 @@ import org.sonatype.nexus.common.log.DryRunPrefix
 import com.amazonaws.SdkClientException
 import com.amazonaws.services.s3.AmazonS3
 import com.amazonaws.services.s3.model.AmazonS3Exception
+import com.amazonaws.services.s3.model.MultiObjectDeleteException
+import com.amazonaws.services.s3.model.MultiObjectDeleteException.DeleteError
 import com.amazonaws.services.s3.model.ObjectListing
 import com.amazonaws.services.s3.model.S3Object
 import com.amazonaws.services.s3.model.S3ObjectInputStream
@@ -59,8 +61,10 @@ class S3BlobStoreTest
 
   AmazonS3 s3 = Mock()
 
+  S3BatchRequester batchRequester = new S3BatchRequester(2, 1000)
+
   S3BlobStore blobStore = new S3BlobStore(amazonS3Factory, locationResolver, uploader, copier, storeMetrics,
-      dryRunPrefix, bucketManager)
+      dryRunPrefix, bucketManager, batchRequester)
 
   def config = new MockBlobStoreConfiguration()
 
@@ -210,6 +214,7 @@ class S3BlobStoreTest
 
     then: 'blob is tagged or deleted correctly'
       deletions * s3.deleteObject('mybucket', _)
+      0 * s3.deleteObjects(_)
       tags * s3.setObjectTagging(_)
 
     where:
@@ -220,6 +225,64 @@ class S3BlobStoreTest
       2          || 0         | 2
   }
 
+  def 'hard delete of a single blob fails when s3 fails'() {
+    given: 'blob store setup'
+      def blobId = new BlobId('some-blob')
+      def cfg = new MockBlobStoreConfiguration()
+      cfg.attributes = [s3: [bucket: 'mybucket', prefix: '']]
+      blobStore.init(cfg)
+      blobStore.doStart()
+
+    when: 'blob is hard deleted'
+      blobStore.deleteHard(blobId)
+
+    then: 'the s3 failure is propagated'
+      1 * s3.deleteObject('mybucket', bytesLocation(blobId)) >> { throw new AmazonS3Exception('Access Denied') }
+      thrown(AmazonS3Exception)
+  }
+
+  def 'hard delete of many blobs uses multi-object deletes'() {
+    given: 'blob store setup'
+      def blobIds = [new BlobId('blob-one'), new BlobId('blob-two')]
+      def cfg = new MockBlobStoreConfiguration()
+      cfg.attributes = [s3: [bucket: 'mybucket', prefix: '']]
+      blobStore.init(cfg)
+      blobStore.doStart()
+
+    when: 'the blobs are hard deleted together'
+      blobStore.deleteHard(blobIds)
+
+    then: 'their objects are deleted in one request before the call returns'
+      1 * s3.deleteObjects({ it.keys*.key.sort() == blobIds.collect { [bytesLocation(it), propertiesLocation(it)] }
+          .flatten().sort() })
+      0 * s3.deleteObject(*_)
+  }
+
+  def 'hard delete of many blobs records only confirmed deletions and reports failures'() {
+    given: 'blob store setup'
+      def deletedBlobId = new BlobId('blob-one')
+      def failedBlobId = new BlobId('blob-two')
+      def cfg = new MockBlobStoreConfiguration()
+      cfg.attributes = [s3: [bucket: 'mybucket', prefix: '']]
+      [deletedBlobId, failedBlobId].each { blobId ->
+        _ * s3.doesObjectExist('mybucket', propertiesLocation(blobId)) >> true
+        _ * s3.getObject('mybucket', propertiesLocation(blobId)) >> mockS3Object(attributesContents)
+      }
+      blobStore.init(cfg)
+      blobStore.doStart()
+
+    when: 'the blobs are hard deleted together and one of them fails to be deleted'
+      blobStore.deleteHard([deletedBlobId, failedBlobId])
+
+    then: 'only the deleted blob is recorded and the failure is reported'
+      1 * s3.deleteObjects(_) >> {
+        throw new MultiObjectDeleteException(
+            [new DeleteError(key: bytesLocation(failedBlobId), code: 'AccessDenied', message: 'Access Denied')], [])
+      }
+      1 * storeMetrics.recordDeletion('test', 11)
+      thrown(BlobStoreException)
+  }
+
   def 'undelete successful'() {
     given: 'blob store setup'
       Properties properties = ['@BlobStore.blob-name': 'my-blob']
@@ -0,0 +1,189 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-present Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.blobstore.rebalance;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import javax.annotation.Nullable;
+import javax.inject.Inject;
+import javax.inject.Named;
+
+import org.sonatype.nexus.blobstore.api.BlobAttributes;
+import org.sonatype.nexus.blobstore.api.BlobId;
+import org.sonatype.nexus.blobstore.api.BlobStore;
+import org.sonatype.nexus.blobstore.api.BlobStoreManager;
+import org.sonatype.nexus.blobstore.group.BlobStoreGroup;
+import org.sonatype.nexus.logging.task.ProgressLogIntervalHelper;
+import org.sonatype.nexus.scheduling.Cancelable;
+import org.sonatype.nexus.scheduling.TaskSupport;
+
+import com.google.common.util.concurrent.RateLimiter;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static java.util.stream.Collectors.toList;
+import static org.sonatype.nexus.blobstore.api.BlobStore.TEMPORARY_BLOB_HEADER;
+import static org.sonatype.nexus.blobstore.rebalance.RebalanceBlobStoreGroupTaskDescriptor.BLOB_STORE_NAME_FIELD_ID;
+import static org.sonatype.nexus.blobstore.rebalance.RebalanceBlobStoreGroupTaskDescriptor.IO_BUDGET_FIELD_ID;
+import static org.sonatype.nexus.blobstore.rebalance.RebalanceBlobStoreGroupTaskDescriptor.IO_BUDGET_INIT_VALUE;
+
+/**
+ * Task to even out the space used by the writable members of a blob store group.
+ *
+ * Blobs are moved from members holding more than their share of the group's data to members holding less, using
+ * {@link BlobStoreGroup#moveBlob}, at no more than the configured number of bytes per second. Each move is complete
+ * on its own and the plan is recomputed from the members' metrics on every run, so a canceled or interrupted run is
+ * resumed by running the task again.
+ *
+ * @since 3.26
+ */
+@Named
+public class RebalanceBlobStoreGroupTask
+    extends TaskSupport
+    implements Cancelable
+{
+  private static final long MEGABYTE = 1024L * 1024L;
+
+  private final BlobStoreManager blobStoreManager;
+
+  @Inject
+  public RebalanceBlobStoreGroupTask(final BlobStoreManager blobStoreManager) {
+    this.blobStoreManager = checkNotNull(blobStoreManager);
+  }
+
+  @Override
+  protected Object execute() throws Exception {
+    BlobStore blobStore = blobStoreManager.get(getBlobStoreField());
+    if (!(blobStore instanceof BlobStoreGroup)) {
+      log.warn("Unable to find blob store group: {}", getBlobStoreField());
+      return null;
+    }
+    BlobStoreGroup group = (BlobStoreGroup) blobStore;
+
+    List<BlobStore> members = group.getMembers().stream()
+        .filter(BlobStore::isWritable)
+        .filter(BlobStore::isStorageAvailable)
+        .collect(toList());
+    if (members.size() < 2) {
+      log.info("Blob store group {} has fewer than two writable members, nothing to rebalance", group);
+      return null;
+    }
+
+    // positive balances are surplus to move away, negative balances are room to fill
+    Map<BlobStore, Long> balances = new HashMap<>();
+    long share = members.stream().mapToLong(this::totalSize).sum() / members.size();
+    members.forEach(member -> balances.put(member, totalSize(member) - share));
+
+    RateLimiter ioBudget = RateLimiter.create((double) getIoBudgetField() * MEGABYTE);
+    ProgressLogIntervalHelper progressLogger = new ProgressLogIntervalHelper(log, 60);
+    RebalanceProgress progress = new RebalanceProgress();
+
+    for (BlobStore source : members) {
+      if (isCanceled()) {
+        break;
+      }
+      if (balances.get(source) > 0) {
+        rebalance(group, source, balances, ioBudget, progressLogger, progress);
+      }
+    }
+
+    log.info("Rebalanced {}: moved {} blobs ({} bytes), {} failed", group, progress.moved,
+        progress.movedBytes, progress.failed);
+    progressLogger.flush();
+    return null;
+  }
+
+  private void rebalance(final BlobStoreGroup group,
+                         final BlobStore source,
+                         final Map<BlobStore, Long> balances,
+                         final RateLimiter ioBudget,
+                         final ProgressLogIntervalHelper progressLogger,
+                         final RebalanceProgress progress)
+  {
+    try (Stream<BlobId> blobIds = source.getBlobIdStream()) {
+      for (BlobId blobId : (Iterable<BlobId>) blobIds::iterator) {
+        BlobStore target = neediestMember(balances);
+        if (isCanceled() || balances.get(source) <= 0 || target == null) {
+          return;
+        }
+
+        BlobAttributes attributes = source.getBlobAttributes(blobId);
+        if (!isMovable(attributes)) {
+          continue;
+        }
+        long size = attributes.getMetrics().getContentSize();
+
+        ioBudget.acquire((int) Math.max(1L, Math.min(size, Integer.MAX_VALUE)));
+        try {
+          if (group.moveBlob(blobId, source, target)) {
+            balances.merge(source, -size, Long::sum);
+            balances.merge(target, size, Long::sum);
+            progress.moved++;
+            progress.movedBytes += size;
+          }
+        }
+        catch (Exception e) {
+          log.warn("Unable to move blob {} from {} to {}: {}", blobId, source, target, e.getMessage(),
+              log.isDebugEnabled() ? e : null);
+          progress.failed++;
+        }
+
+        progressLogger.info("Moved {} blobs ({} bytes) in {}", progress.moved, progress.movedBytes, group);
+      }
+    }
+  }
+
+  /**
+   * Deleted blobs are left for compaction and temporary blobs are about to be deleted by their owner.
+   */
+  private static boolean isMovable(@Nullable final BlobAttributes attributes) {
+    return attributes != null && !attributes.isDeleted() && !attributes.getHeaders().containsKey(TEMPORARY_BLOB_HEADER);
+  }
+
+  @Nullable
+  private static BlobStore neediestMember(final Map<BlobStore, Long> balances) {
+    return balances.entrySet().stream()
+        .filter(entry -> entry.getValue() < 0)
+        .min(Map.Entry.comparingByValue())
+        .map(Map.Entry::getKey)
+        .orElse(null);
+  }
+
+  private long totalSize(final BlobStore member) {
+    return member.getMetrics().getTotalSize();
+  }
+
+  @Override
+  public String getMessage() {
+    return "Rebalancing " + getBlobStoreField() + " blob store group";
+  }
+
+  private String getBlobStoreField() {
+    return getConfiguration().getString(BLOB_STORE_NAME_FIELD_ID);
+  }
+
+  private int getIoBudgetField() {
+    return getConfiguration().getInteger(IO_BUDGET_FIELD_ID, IO_BUDGET_INIT_VALUE);
+  }
+
+  private static class RebalanceProgress
+  {
+    private long moved;
+
+    private long movedBytes;
+
+    private long failed;
+  }
+}
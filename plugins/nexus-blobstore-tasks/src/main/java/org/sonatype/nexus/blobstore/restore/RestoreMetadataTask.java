@@ -12,11 +12,21 @@
  */
 package org.sonatype.nexus.blobstore.restore;
 
-import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.ThreadPoolExecutor.CallerRunsPolicy;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.stream.StreamSupport;
 
 import javax.inject.Inject;
@@ -27,6 +37,7 @@ import org.sonatype.nexus.blobstore.api.BlobAttributes;
 import org.sonatype.nexus.blobstore.api.BlobId;
 import org.sonatype.nexus.blobstore.api.BlobStore;
 import org.sonatype.nexus.blobstore.api.BlobStoreManager;
+import org.sonatype.nexus.blobstore.api.BlobStoreMetrics;
 import org.sonatype.nexus.blobstore.api.BlobStoreUsageChecker;
 import org.sonatype.nexus.common.log.DryRunPrefix;
 import org.sonatype.nexus.logging.task.ProgressLogIntervalHelper;
@@ -39,9 +50,19 @@ import org.sonatype.nexus.repository.storage.BucketStore;
 import org.sonatype.nexus.repository.types.GroupType;
 import org.sonatype.nexus.scheduling.Cancelable;
 import org.sonatype.nexus.scheduling.TaskSupport;
+import org.sonatype.nexus.thread.NexusExecutorService;
+import org.sonatype.nexus.thread.NexusThreadFactory;
 
+import com.google.common.base.Stopwatch;
+
+import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
+import static java.lang.Math.floorMod;
+import static java.lang.Math.max;
 import static java.util.Optional.ofNullable;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static java.util.stream.Collectors.toList;
 import static org.sonatype.nexus.blobstore.api.BlobAttributesConstants.HEADER_PREFIX;
 import static org.sonatype.nexus.blobstore.restore.DefaultIntegrityCheckStrategy.DEFAULT_NAME;
 import static org.sonatype.nexus.blobstore.restore.RestoreMetadataTaskDescriptor.BLOB_STORE_NAME_FIELD_ID;
@@ -77,6 +98,12 @@ public class RestoreMetadataTask
 
   private final MaintenanceService maintenanceService;
 
+  private final int readerThreads;
+
+  private final int restoreThreads;
+
+  private final int queueSize;
+
   @Inject
   public RestoreMetadataTask(final BlobStoreManager blobStoreManager,
                              final RepositoryManager repositoryManager,
@@ -85,7 +112,10 @@ public class RestoreMetadataTask
                              final DryRunPrefix dryRunPrefix,
                              final Map<String, IntegrityCheckStrategy> integrityCheckStrategies,
                              final BucketStore bucketStore,
-                             final MaintenanceService maintenanceService)
+                             final MaintenanceService maintenanceService,
+                             @Named("${nexus.blobstore.restore.readerThreads:-8}") final int readerThreads,
+                             @Named("${nexus.blobstore.restore.restoreThreads:-4}") final int restoreThreads,
+                             @Named("${nexus.blobstore.restore.queueSize:-1000}") final int queueSize)
   {
     this.blobStoreManager = checkNotNull(blobStoreManager);
     this.repositoryManager = checkNotNull(repositoryManager);
@@ -96,6 +126,12 @@ public class RestoreMetadataTask
     this.integrityCheckStrategies = checkNotNull(integrityCheckStrategies);
     this.bucketStore = checkNotNull(bucketStore);
     this.maintenanceService = checkNotNull(maintenanceService);
+    checkArgument(readerThreads > 0, "readerThreads must be positive");
+    checkArgument(restoreThreads > 0, "restoreThreads must be positive");
+    checkArgument(queueSize > 0, "queueSize must be positive");
+    this.readerThreads = readerThreads;
+    this.restoreThreads = restoreThreads;
+    this.queueSize = queueSize;
   }
 
   @Override
@@ -129,51 +165,157 @@ public class RestoreMetadataTask
     BlobStore store = blobStoreManager.get(blobStoreName);
 
     ProgressLogIntervalHelper progressLogger = new ProgressLogIntervalHelper(log, 60);
-    long processed = 0;
-    long undeleted = 0;
+    RestoreProgress progress = new RestoreProgress(estimateBlobCount(store));
     boolean updateAssets = !dryRun && restore;
-    Set<Repository> touchedRepositories = new HashSet<>();
+    Set<Repository> touchedRepositories = ConcurrentHashMap.newKeySet();
 
     if (dryRun) {
       log.info("{}Actions will be logged, but no changes will be made.", logPrefix);
     }
-    for (BlobId blobId : (Iterable<BlobId>)store.getBlobIdStream()::iterator) {
-      try {
-        Optional<Context> context = buildContext(blobStoreName, store, blobId);
-        if (context.isPresent()) {
-          Context c =  context.get();
-          if (restore && c.restoreBlobStrategy != null && !c.blobAttributes.isDeleted()) {
-            c.restoreBlobStrategy.restore(c.properties, c.blob, c.blobStoreName, dryRun);
-          }
-          if (undelete &&
-              store.undelete(blobStoreUsageChecker, c.blobId, c.blobAttributes, dryRun))
-          {
-            undeleted++;
-          }
-
-          if (updateAssets) {
-            touchedRepositories.add(c.repository);
-          }
-        }
 
-        processed++;
-
-        progressLogger.info("{}Elapsed time: {}, processed: {}, un-deleted: {}", logPrefix, progressLogger.getElapsed(),
-                            processed, undeleted);
+    ExecutorService[] restorers = new ExecutorService[restoreThreads];
+    for (int i = 0; i < restorers.length; i++) {
+      restorers[i] = NexusExecutorService.forCurrentSubject(new ThreadPoolExecutor(1, 1, 0L, MILLISECONDS,
+          new LinkedBlockingQueue<>(queueSize), new NexusThreadFactory("restore-metadata", "Restore blob metadata"),
+          RestoreMetadataTask::waitForQueue));
+    }
+    ExecutorService readers = NexusExecutorService.forCurrentSubject(new ThreadPoolExecutor(readerThreads,
+        readerThreads, 0L, MILLISECONDS, new LinkedBlockingQueue<>(queueSize),
+        new NexusThreadFactory("restore-read", "Read blob attributes"), new CallerRunsPolicy()));
 
+    try {
+      for (BlobId blobId : (Iterable<BlobId>) store.getBlobIdStream()::iterator) {
         if (isCanceled()) {
           break;
         }
-      } catch (Exception e) {
-        log.error("Error restoring blob {}", blobId, e);
+        readers.execute(() -> {
+          if (isCanceled()) {
+            return;
+          }
+          try {
+            Optional<Context> context = buildContext(blobStoreName, store, blobId);
+            if (context.isPresent()) {
+              // blobs of the same repository are restored in turn, so they never contend with each other
+              Context c = context.get();
+              restorers[floorMod(c.repositoryName.hashCode(), restorers.length)].execute(() ->
+                  restore(c, restore, undelete, dryRun, updateAssets, touchedRepositories, progress));
+            }
+            else {
+              progress.processed.increment();
+            }
+          }
+          catch (Exception e) {
+            log.error("Error restoring blob {}", blobId, e);
+          }
+        });
+
+        logProgress(progressLogger, logPrefix, progress);
+      }
+
+      awaitTermination(readers, progressLogger, logPrefix, progress);
+      for (ExecutorService restorer : restorers) {
+        awaitTermination(restorer, progressLogger, logPrefix, progress);
       }
     }
+    catch (InterruptedException e) {
+      log.warn("Interrupted while restoring blob metadata", e);
+      Thread.currentThread().interrupt();
+    }
+    finally {
+      readers.shutdownNow();
+      for (ExecutorService restorer : restorers) {
+        restorer.shutdownNow();
+      }
+    }
+
+    logProgress(progressLogger, logPrefix, progress);
 
     updateAssets(touchedRepositories, updateAssets);
 
     progressLogger.flush();
   }
 
+  private void restore(final Context c,
+                       final boolean restore,
+                       final boolean undelete,
+                       final boolean dryRun,
+                       final boolean updateAssets,
+                       final Set<Repository> touchedRepositories,
+                       final RestoreProgress progress)
+  {
+    if (isCanceled()) {
+      return;
+    }
+    try {
+      if (restore && c.restoreBlobStrategy != null && !c.blobAttributes.isDeleted()) {
+        c.restoreBlobStrategy.restore(c.properties, c.blob, c.blobStoreName, dryRun);
+      }
+      if (undelete &&
+          c.blobStore.undelete(blobStoreUsageChecker, c.blobId, c.blobAttributes, dryRun))
+      {
+        progress.undeleted.increment();
+      }
+
+      if (updateAssets) {
+        touchedRepositories.add(c.repository);
+      }
+
+      progress.processed.increment();
+    }
+    catch (Exception e) {
+      log.error("Error restoring blob {}", c.blobId, e);
+    }
+  }
+
+  /**
+   * Stops the given stage accepting work and waits for the work already queued, logging progress while it waits.
+   */
+  private void awaitTermination(final ExecutorService stage,
+                                final ProgressLogIntervalHelper progressLogger,
+                                final String logPrefix,
+                                final RestoreProgress progress) throws InterruptedException
+  {
+    stage.shutdown();
+    while (!stage.awaitTermination(1, SECONDS)) {
+      logProgress(progressLogger, logPrefix, progress);
+    }
+  }
+
+  private void logProgress(final ProgressLogIntervalHelper progressLogger,
+                           final String logPrefix,
+                           final RestoreProgress progress)
+  {
+    long processed = progress.processed.sum();
+    long elapsedSeconds = max(progress.stopwatch.elapsed(SECONDS), 1);
+    long rate = processed / elapsedSeconds;
+    progressLogger.info("{}Elapsed time: {}, processed: {}, un-deleted: {}, rate: {} blobs/s, remaining: {}",
+        logPrefix, progressLogger.getElapsed(), processed, progress.undeleted.sum(), rate,
+        progress.remaining(processed, rate));
+  }
+
+  /**
+   * Blocks until there is room in the executor's queue, so a slower stage holds back the stage feeding it.
+   */
+  private static void waitForQueue(final Runnable task, final ThreadPoolExecutor executor) {
+    try {
+      executor.getQueue().put(task);
+    }
+    catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new RejectedExecutionException(e);
+    }
+  }
+
+  private static long estimateBlobCount(final BlobStore store) {
+    try {
+      BlobStoreMetrics metrics = store.getMetrics();
+      return metrics != null ? metrics.getBlobCount() : -1;
+    }
+    catch (Exception e) {
+      return -1;
+    }
+  }
+
   private void updateAssets(final Set<Repository> repositories, final boolean updateAssets) {
     for (Repository repository : repositories) {
       if (isCanceled()) {
@@ -198,12 +340,34 @@ public class RestoreMetadataTask
       return;
     }
 
-    StreamSupport.stream(repositoryManager.browseForBlobStore(blobStoreId).spliterator(), false)
-        .filter(r -> !(r.getType() instanceof GroupType))
-        .forEach(repository -> integrityCheckStrategies
-            .getOrDefault(repository.getFormat().getValue(), defaultIntegrityCheckStrategy)
-            .check(repository, blobStore, this::isCanceled, this::integrityCheckFailedHandler)
-        );
+    // repositories are checked in parallel, each by the strategy of its format
+    ExecutorService checkers = NexusExecutorService.forCurrentSubject(Executors.newFixedThreadPool(readerThreads,
+        new NexusThreadFactory("integrity-check", "Check blob integrity")));
+    try {
+      List<Future<?>> checks = StreamSupport
+          .stream(repositoryManager.browseForBlobStore(blobStoreId).spliterator(), false)
+          .filter(r -> !(r.getType() instanceof GroupType))
+          .map(repository -> checkers.submit(() -> integrityCheckStrategies
+              .getOrDefault(repository.getFormat().getValue(), defaultIntegrityCheckStrategy)
+              .check(repository, blobStore, this::isCanceled, this::integrityCheckFailedHandler)))
+          .collect(toList());
+
+      for (Future<?> check : checks) {
+        try {
+          check.get();
+        }
+        catch (ExecutionException e) {
+          log.error("Error checking integrity of blob store '{}'", blobStoreId, e.getCause());
+        }
+      }
+    }
+    catch (InterruptedException e) {
+      log.warn("Interrupted while checking integrity of blob store '{}'", blobStoreId, e);
+      Thread.currentThread().interrupt();
+    }
+    finally {
+      checkers.shutdownNow();
+    }
   }
 
   protected void integrityCheckFailedHandler(final Asset asset) {
@@ -229,6 +393,32 @@ public class RestoreMetadataTask
         .map(c -> c.restoreBlobStrategy(restoreBlobStrategies.get(c.repository.getFormat().getValue())));
   }
 
+  private static class RestoreProgress
+  {
+    final Stopwatch stopwatch = Stopwatch.createStarted();
+
+    final LongAdder processed = new LongAdder();
+
+    final LongAdder undeleted = new LongAdder();
+
+    final long total;
+
+    RestoreProgress(final long total) {
+      this.total = total;
+    }
+
+    /**
+     * Estimates the time remaining from the blob count reported by the blob store and the current rate.
+     */
+    String remaining(final long processed, final long rate) {
+      if (total < 0 || rate == 0) {
+        return "unknown";
+      }
+      long seconds = max(total - processed, 0) / rate;
+      return String.format("%d:%02d:%02d", seconds / 3600, (seconds / 60) % 60, seconds % 60);
+    }
+  }
+
   private static class Context {
     final String blobStoreName;
 
@@ -0,0 +1,148 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-present Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.blobstore.rebalance
+
+import org.sonatype.nexus.blobstore.api.BlobAttributes
+import org.sonatype.nexus.blobstore.api.BlobId
+import org.sonatype.nexus.blobstore.api.BlobMetrics
+import org.sonatype.nexus.blobstore.api.BlobStore
+import org.sonatype.nexus.blobstore.api.BlobStoreManager
+import org.sonatype.nexus.blobstore.api.BlobStoreMetrics
+import org.sonatype.nexus.blobstore.group.BlobStoreGroup
+import org.sonatype.nexus.scheduling.TaskConfiguration
+
+import spock.lang.Specification
+
+import static org.sonatype.nexus.blobstore.api.BlobStore.TEMPORARY_BLOB_HEADER
+import static org.sonatype.nexus.blobstore.rebalance.RebalanceBlobStoreGroupTaskDescriptor.BLOB_STORE_NAME_FIELD_ID
+import static org.sonatype.nexus.blobstore.rebalance.RebalanceBlobStoreGroupTaskDescriptor.IO_BUDGET_FIELD_ID
+import static org.sonatype.nexus.blobstore.rebalance.RebalanceBlobStoreGroupTaskDescriptor.TYPE_ID
+
+/**
+ * {@link RebalanceBlobStoreGroupTask} tests.
+ */
+class RebalanceBlobStoreGroupTaskTest
+    extends Specification
+{
+  BlobStoreManager blobStoreManager = Mock()
+
+  BlobStoreGroup group = Mock()
+
+  RebalanceBlobStoreGroupTask task = new RebalanceBlobStoreGroupTask(blobStoreManager)
+
+  def setup() {
+    def configuration = new TaskConfiguration()
+    configuration.setId('rebalance')
+    configuration.setTypeId(TYPE_ID)
+    configuration.setString(BLOB_STORE_NAME_FIELD_ID, 'group')
+    configuration.setInteger(IO_BUDGET_FIELD_ID, 1000)
+    task.configure(configuration)
+  }
+
+  def 'It moves surplus blobs from the fullest member to the emptiest member'() {
+    given: 'a group where one member holds three times as much as the other'
+      def full = mockMember(300L, [a: blob(100L), b: blob(100L), c: blob(100L)])
+      def empty = mockMember(100L, [:])
+      groupOf(full, empty)
+
+    when: 'the task runs'
+      task.execute()
+
+    then: 'only enough blobs are moved to even out the members'
+      1 * group.moveBlob(new BlobId('a'), full, empty) >> true
+      0 * group.moveBlob(*_)
+  }
+
+  def 'It skips deleted and temporary blobs'() {
+    given: 'a group where the fullest member starts with deleted and temporary blobs'
+      def full = mockMember(300L, [
+          deleted  : blob(100L, true),
+          temporary: blob(100L, false, [(TEMPORARY_BLOB_HEADER): '']),
+          live     : blob(100L)
+      ])
+      def empty = mockMember(100L, [:])
+      groupOf(full, empty)
+
+    when: 'the task runs'
+      task.execute()
+
+    then: 'only the live blob is moved'
+      1 * group.moveBlob(new BlobId('live'), full, empty) >> true
+      0 * group.moveBlob(*_)
+  }
+
+  def 'It carries on after a failed move'() {
+    given: 'a group where the first move fails'
+      def full = mockMember(300L, [a: blob(100L), b: blob(100L)])
+      def empty = mockMember(100L, [:])
+      groupOf(full, empty)
+
+    when: 'the task runs'
+      task.execute()
+
+    then: 'the next blob is moved instead'
+      1 * group.moveBlob(new BlobId('a'), full, empty) >> { throw new IllegalStateException('failed') }
+      1 * group.moveBlob(new BlobId('b'), full, empty) >> true
+  }
+
+  def 'It does nothing for groups with a single writable member'() {
+    given: 'a group with one writable and one read only member'
+      def full = mockMember(300L, [a: blob(100L)])
+      def readOnly = mockMember(0L, [:], false)
+      groupOf(full, readOnly)
+
+    when: 'the task runs'
+      task.execute()
+
+    then: 'no blobs are moved'
+      0 * group.moveBlob(*_)
+  }
+
+  def 'It ignores blob stores that are not groups'() {
+    given: 'a plain blob store'
+      BlobStore blobStore = Mock()
+      blobStoreManager.get('group') >> blobStore
+
+    when: 'the task runs against it'
+      task.execute()
+
+    then: 'nothing is read from it'
+      0 * blobStore._
+  }
+
+  private void groupOf(final BlobStore... members) {
+    blobStoreManager.get('group') >> group
+    group.getMembers() >> members.toList()
+  }
+
+  private BlobStore mockMember(final long totalSize,
+                               final Map<String, BlobAttributes> blobs,
+                               final boolean writable = true)
+  {
+    BlobStore member = Mock()
+    member.isWritable() >> writable
+    member.isStorageAvailable() >> true
+    member.getMetrics() >> Mock(BlobStoreMetrics) { getTotalSize() >> totalSize }
+    member.getBlobIdStream() >> { blobs.keySet().stream().map { new BlobId(it) } }
+    blobs.each { id, attributes -> member.getBlobAttributes(new BlobId(id)) >> attributes }
+    return member
+  }
+
+  private BlobAttributes blob(final long size, final boolean deleted = false, final Map<String, String> headers = [:]) {
+    Mock(BlobAttributes) {
+      isDeleted() >> deleted
+      getHeaders() >> headers
+      getMetrics() >> Mock(BlobMetrics) { getContentSize() >> size }
+    }
+  }
+}
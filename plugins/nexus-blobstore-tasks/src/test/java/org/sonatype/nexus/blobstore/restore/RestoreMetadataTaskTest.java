@@ -17,6 +17,7 @@ import java.nio.file.Paths;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Properties;
+import java.util.stream.IntStream;
 import java.util.stream.Stream;
 
 import org.sonatype.goodies.testsupport.TestSupport;
@@ -38,9 +39,12 @@ import org.sonatype.nexus.repository.storage.BucketStore;
 import org.sonatype.nexus.repository.storage.StorageTx;
 import org.sonatype.nexus.repository.types.GroupType;
 import org.sonatype.nexus.scheduling.TaskConfiguration;
+import org.sonatype.nexus.security.subject.FakeAlmightySubject;
 
 import com.google.common.collect.ImmutableMap;
 import com.google.common.io.Resources;
+import org.apache.shiro.util.ThreadContext;
+import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.ArgumentCaptor;
@@ -137,7 +141,7 @@ public class RestoreMetadataTaskTest
 
     underTest =
         new RestoreMetadataTask(blobStoreManager, repositoryManager, ImmutableMap.of("maven2", restoreBlobStrategy),
-            blobstoreUsageChecker, dryRunPrefix, integrityCheckStrategies, bucketStore, maintenanceService);
+            blobstoreUsageChecker, dryRunPrefix, integrityCheckStrategies, bucketStore, maintenanceService, 2, 2, 10);
 
     reset(integrityCheckStrategies); // reset this mock so we more easily verify calls
 
@@ -162,6 +166,13 @@ public class RestoreMetadataTaskTest
     when(fileBlobStore.getBlobAttributes(blobId)).thenReturn(blobAttributes);
 
     when(dryRunPrefix.get()).thenReturn("");
+
+    ThreadContext.bind(FakeAlmightySubject.forUserId("disabled-security"));
+  }
+
+  @After
+  public void tearDown() {
+    ThreadContext.unbindSubject();
   }
 
   @Test
@@ -331,7 +342,7 @@ public class RestoreMetadataTaskTest
 
     RestoreMetadataTask underTest =
         new RestoreMetadataTask(blobStoreManager, repositoryManager, ImmutableMap.of("maven2", restoreBlobStrategy),
-            blobstoreUsageChecker, dryRunPrefix, integrityCheckStrategies, bucketStore, maintenanceService)
+            blobstoreUsageChecker, dryRunPrefix, integrityCheckStrategies, bucketStore, maintenanceService, 2, 2, 10)
         {
       @Override
       public boolean isCanceled() {
@@ -434,4 +445,39 @@ public class RestoreMetadataTaskTest
     verify(restoreBlobStrategy, times(0)).after(true, repository2);
     verify(restoreBlobStrategy).after(true, repository3);
   }
+
+  @Test
+  public void everyBlobIsRestoredOnceWhenRestoringInParallel() throws Exception {
+    Repository repository2 = mock(Repository.class);
+    when(repository2.getFormat()).thenReturn(mavenFormat);
+    when(repositoryManager.get("maven-central2")).thenReturn(repository2);
+
+    BlobId[] blobIds = IntStream.range(0, 100)
+        .mapToObj(i -> new BlobId(String.format("86e20baa-0bca-4915-a7dc-9a4f34e7%04d", i)))
+        .toArray(BlobId[]::new);
+    for (int i = 0; i < blobIds.length; i++) {
+      Blob restoredBlob = mock(Blob.class);
+      BlobAttributes attributes = mock(BlobAttributes.class);
+      Properties properties = new Properties();
+      properties.setProperty(HEADER_PREFIX + REPO_NAME_HEADER, i % 2 == 0 ? "maven-central" : "maven-central2");
+      when(attributes.getProperties()).thenReturn(properties);
+      when(fileBlobStore.get(blobIds[i], true)).thenReturn(restoredBlob);
+      when(fileBlobStore.getBlobAttributes(blobIds[i])).thenReturn(attributes);
+    }
+    when(fileBlobStore.getBlobIdStream()).thenReturn(Stream.of(blobIds));
+
+    configuration.setBoolean(RESTORE_BLOBS, true);
+    configuration.setBoolean(UNDELETE_BLOBS, true);
+    configuration.setBoolean(INTEGRITY_CHECK, false);
+    underTest.configure(configuration);
+
+    underTest.execute();
+
+    verify(restoreBlobStrategy, times(100)).restore(any(), any(), eq(BLOBSTORE_NAME), eq(false));
+    for (BlobId id : blobIds) {
+      verify(fileBlobStore).undelete(eq(blobstoreUsageChecker), eq(id), any(), eq(false));
+    }
+    verify(restoreBlobStrategy).after(true, repository);
+    verify(restoreBlobStrategy).after(true, repository2);
+  }
 }
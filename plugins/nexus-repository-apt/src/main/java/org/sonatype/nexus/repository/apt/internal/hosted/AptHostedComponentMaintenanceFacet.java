@@ -18,10 +18,12 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Set;
+import java.util.function.BooleanSupplier;
 
 import javax.inject.Named;
 
 import org.sonatype.nexus.common.entity.EntityId;
+import org.sonatype.nexus.common.stateguard.Guarded;
 import org.sonatype.nexus.repository.apt.internal.hosted.AptHostedFacet.AssetAction;
 import org.sonatype.nexus.repository.apt.internal.hosted.AptHostedFacet.AssetChange;
 import org.sonatype.nexus.repository.storage.Asset;
@@ -33,17 +35,47 @@ import org.sonatype.nexus.repository.transaction.TransactionalDeleteBlob;
 import org.sonatype.nexus.transaction.Transactional;
 import org.sonatype.nexus.transaction.UnitOfWork;
 
+import com.google.common.primitives.Ints;
 import com.orientechnologies.common.concur.ONeedRetryException;
 
+import static org.sonatype.nexus.common.stateguard.StateGuardLifecycleSupport.State.STARTED;
 import static org.sonatype.nexus.repository.storage.AssetEntityAdapter.P_ASSET_KIND;
 
 /**
+ * Deletes hosted packages, updating the indexes in the deleting transaction, or, when index rebuilds are batched,
+ * signalling the deletions once they are committed.
+ *
  * @since 3.17
  */
 @Named
 public class AptHostedComponentMaintenanceFacet
     extends DefaultComponentMaintenanceImpl
 {
+  @Override
+  @Guarded(by = STARTED)
+  public Set<String> deleteAsset(final EntityId assetId, final boolean deleteBlob) {
+    Set<String> deleted = super.deleteAsset(assetId, deleteBlob);
+    getRepository().facet(AptHostedFacet.class).changesCommitted(deleted.size());
+    return deleted;
+  }
+
+  @Override
+  public Set<String> deleteComponent(final EntityId componentId, final boolean deleteBlobs) {
+    Set<String> deleted = super.deleteComponent(componentId, deleteBlobs);
+    getRepository().facet(AptHostedFacet.class).changesCommitted(deleted.size());
+    return deleted;
+  }
+
+  @Override
+  public DeletionProgress deleteComponents(final Iterable<EntityId> components,
+                                           final BooleanSupplier cancelledCheck,
+                                           final int batchSize)
+  {
+    DeletionProgress progress = super.deleteComponents(components, cancelledCheck, batchSize);
+    getRepository().facet(AptHostedFacet.class).changesCommitted(Ints.saturatedCast(progress.getCount()));
+    return progress;
+  }
+
   @Transactional(retryOn = ONeedRetryException.class)
   @Override
   protected Set<String> deleteAssetTx(final EntityId assetId, final boolean deleteBlobs) {
@@ -60,7 +92,7 @@ public class AptHostedComponentMaintenanceFacet
     if ("DEB".equals(assetKind)) {
       try {
         getRepository().facet(AptHostedFacet.class)
-            .rebuildIndexes(Collections.singletonList(new AptHostedFacet.AssetChange(AssetAction.REMOVED, asset)));
+            .updateIndexes(Collections.singletonList(new AptHostedFacet.AssetChange(AssetAction.REMOVED, asset)));
       }
       catch (IOException e) {
         throw new UncheckedIOException(e);
@@ -98,7 +130,7 @@ public class AptHostedComponentMaintenanceFacet
     log.debug("Deleting component: {}", component.toStringExternal());
     DeletionResult result = new DeletionResult(component, tx.deleteComponent(component, deleteBlobs));
     try {
-      getRepository().facet(AptHostedFacet.class).rebuildIndexes(changes);
+      getRepository().facet(AptHostedFacet.class).updateIndexes(changes);
     }
     catch (IOException e) {
       throw new UncheckedIOException(e);
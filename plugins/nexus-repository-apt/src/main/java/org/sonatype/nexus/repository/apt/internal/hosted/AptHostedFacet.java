@@ -24,8 +24,10 @@ import java.util.Map;
 import java.util.Set;
 import java.util.stream.Collectors;
 
+import javax.inject.Inject;
 import javax.inject.Named;
 
+import org.sonatype.goodies.common.Time;
 import org.sonatype.nexus.common.hash.HashAlgorithm;
 import org.sonatype.nexus.orient.entity.AttachedEntityHelper;
 import org.sonatype.nexus.repository.Facet;
@@ -58,6 +60,7 @@ import com.orientechnologies.orient.core.record.impl.ODocument;
 import org.apache.commons.io.IOUtils;
 import org.apache.http.client.utils.DateUtils;
 
+import static com.google.common.base.Preconditions.checkNotNull;
 import static java.util.Collections.singletonList;
 import static org.sonatype.nexus.common.hash.HashAlgorithm.MD5;
 import static org.sonatype.nexus.common.hash.HashAlgorithm.SHA1;
@@ -91,6 +94,57 @@ public class AptHostedFacet
       "WHERE bucket=:bucket " +
       "AND attributes.apt.asset_kind=:asset_kind";
 
+  private final Time rebuildQuietPeriod;
+
+  private final int rebuildMaxPendingChanges;
+
+  private final Time rebuildStopTimeout;
+
+  private final AptIndexRebuildScheduler rebuildScheduler;
+
+  private BatchingIndexRebuilder batchingIndexRebuilder;
+
+  /**
+   * @param rebuildQuietPeriod       when positive, indexes are rebuilt once per batch of uploads, after no further
+   *                                 upload arrived for this period, instead of on every upload
+   * @param rebuildMaxPendingChanges number of uploads after which a batch is rebuilt without waiting any longer
+   * @param rebuildStopTimeout       time to wait on stop for the rebuild of a pending batch
+   * @param rebuildScheduler         scheduler of the batched rebuilds, shared by all hosted repositories
+   */
+  @Inject
+  public AptHostedFacet(
+      @Named("${nexus.apt.hosted.rebuild.quietPeriod:-0s}") final Time rebuildQuietPeriod,
+      @Named("${nexus.apt.hosted.rebuild.maxPendingChanges:-500}") final int rebuildMaxPendingChanges,
+      @Named("${nexus.apt.hosted.rebuild.stopTimeout:-60s}") final Time rebuildStopTimeout,
+      final AptIndexRebuildScheduler rebuildScheduler)
+  {
+    this.rebuildQuietPeriod = checkNotNull(rebuildQuietPeriod);
+    this.rebuildMaxPendingChanges = rebuildMaxPendingChanges;
+    this.rebuildStopTimeout = checkNotNull(rebuildStopTimeout);
+    this.rebuildScheduler = checkNotNull(rebuildScheduler);
+  }
+
+  @Override
+  protected void doStart() throws Exception {
+    if (rebuildQuietPeriod.toMillis() > 0) {
+      batchingIndexRebuilder = new BatchingIndexRebuilder(getRepository().getName(), this::rebuildCommittedIndexes,
+          rebuildQuietPeriod, rebuildMaxPendingChanges, rebuildScheduler.startUsing());
+    }
+  }
+
+  @Override
+  protected void doStop() throws Exception {
+    if (batchingIndexRebuilder != null) {
+      try {
+        batchingIndexRebuilder.flushAndStop(rebuildStopTimeout);
+      }
+      finally {
+        rebuildScheduler.stopUsing();
+      }
+      batchingIndexRebuilder = null;
+    }
+  }
+
   public Asset ingestAsset(final Payload body) throws IOException {
     StorageFacet storageFacet = facet(StorageFacet.class);
     try (TempBlob tempBlob = storageFacet.createTempBlob(body, FacetHelper.hashAlgorithms)) {
@@ -98,7 +152,10 @@ public class AptHostedFacet
       if (control == null) {
         throw new IllegalOperationException("Invalid Debian package supplied");
       }
-      return ingestAsset(control, tempBlob, body.getSize(), body.getContentType());
+      Asset asset = ingestAsset(control, tempBlob, body.getSize(), body.getContentType());
+      // the asset is committed by now, so a batched rebuild will see it
+      changesCommitted(1);
+      return asset;
     }
   }
 
@@ -130,12 +187,59 @@ public class AptHostedFacet
     asset.formatAttributes().set(P_ASSET_KIND, "DEB");
     tx.saveAsset(asset);
 
-    rebuildIndexes(singletonList(new AssetChange(AssetAction.ADDED, asset)));
+    updateIndexes(singletonList(new AssetChange(AssetAction.ADDED, asset)));
     return asset;
   }
 
+  /**
+   * Rebuilds the indexes from the committed state of the repository. When rebuilds are batched, the rebuild runs in
+   * turn with the batched ones, and this waits for it to complete.
+   */
   public void rebuildIndexes() throws IOException {
-    rebuildIndexes(Collections.emptyList());
+    BatchingIndexRebuilder rebuilder = batchingIndexRebuilder;
+    if (rebuilder != null) {
+      rebuilder.rebuildAndWait();
+    }
+    else {
+      rebuildIndexes(Collections.emptyList());
+    }
+  }
+
+  /**
+   * Rebuilds the indexes as part of the current transaction for the changes it made, unless rebuilds are batched.
+   * Batched rebuilds only see committed changes, so those are to be signalled with {@link #changesCommitted(int)}.
+   *
+   * @since 3.26
+   */
+  public void updateIndexes(final List<AssetChange> changes) throws IOException {
+    if (batchingIndexRebuilder == null) {
+      rebuildIndexes(changes);
+    }
+  }
+
+  /**
+   * Signals committed changes to the batched rebuild, if rebuilds are batched.
+   *
+   * @since 3.26
+   */
+  public void changesCommitted(final int count) {
+    BatchingIndexRebuilder rebuilder = batchingIndexRebuilder;
+    if (rebuilder != null && count > 0) {
+      rebuilder.changed(count);
+    }
+  }
+
+  /**
+   * Rebuilds the indexes in a unit of work of its own, for a batch of changes that are already committed.
+   */
+  private void rebuildCommittedIndexes() throws IOException {
+    UnitOfWork.begin(facet(StorageFacet.class).txSupplier());
+    try {
+      rebuildIndexes(Collections.emptyList());
+    }
+    finally {
+      UnitOfWork.end();
+    }
   }
 
   @TransactionalStoreMetadata
@@ -158,7 +262,7 @@ public class AptHostedFacet
 
         Content gzContent = aptFacet.put(
             packageIndexName(entry.getKey(), ".gz"),
-            new StreamPayload(entry.getValue().gzSupplier(), entry.getValue().bzSize(), AptMimeTypes.GZIP));
+            new StreamPayload(entry.getValue().gzSupplier(), entry.getValue().gzSize(), AptMimeTypes.GZIP));
         addSignatureItem(md5Builder, MD5, gzContent, packageRelativeIndexName(entry.getKey(), ".gz"));
         addSignatureItem(sha256Builder, SHA256, gzContent, packageRelativeIndexName(entry.getKey(), ".gz"));
 
@@ -228,6 +332,11 @@ public class AptHostedFacet
         outWriter.write(indexSection);
         outWriter.write("\n\n");
       }
+
+      // closing waits for the compression of each index to complete, and reports any failure of it
+      for (Writer writer : streams.values()) {
+        writer.close();
+      }
       ok = true;
     }
     finally {
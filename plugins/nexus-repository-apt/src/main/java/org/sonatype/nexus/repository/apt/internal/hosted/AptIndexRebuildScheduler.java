@@ -0,0 +1,77 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-present Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.repository.apt.internal.hosted;
+
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import org.sonatype.goodies.common.ComponentSupport;
+import org.sonatype.nexus.thread.NexusThreadFactory;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkState;
+
+/**
+ * Scheduler shared by the batched index rebuilds of all hosted repositories, running a bounded number of rebuilds at
+ * a time. Its threads are started with the first repository using it and stopped with the last.
+ *
+ * @since 3.26
+ */
+@Named
+@Singleton
+class AptIndexRebuildScheduler
+    extends ComponentSupport
+{
+  private final int threads;
+
+  private ScheduledThreadPoolExecutor executor;
+
+  private int activeClients;
+
+  @Inject
+  AptIndexRebuildScheduler(@Named("${nexus.apt.hosted.rebuild.threads:-2}") final int threads) {
+    checkArgument(threads > 0, "threads must be positive");
+    this.threads = threads;
+  }
+
+  /**
+   * Returns the shared scheduler. Each invocation must be paired with a corresponding invocation of
+   * {@link #stopUsing()}.
+   */
+  synchronized ScheduledExecutorService startUsing() {
+    if (activeClients == 0) {
+      executor = new ScheduledThreadPoolExecutor(threads, new NexusThreadFactory("apt-index-rebuild", "apt"));
+      // rebuilds are rescheduled on every change, don't keep the cancelled ones queued until their delay expires
+      executor.setRemoveOnCancelPolicy(true);
+    }
+    activeClients++;
+    return executor;
+  }
+
+  /**
+   * Signals the caller no longer schedules rebuilds. The scheduler is shut down, letting rebuilds already scheduled
+   * complete, if this invocation balances out all previous invocations of {@link #startUsing()}.
+   */
+  synchronized void stopUsing() {
+    checkState(activeClients > 0, "Not started");
+    activeClients--;
+    if (activeClients == 0) {
+      executor.shutdown();
+      executor = null;
+    }
+  }
+}
@@ -0,0 +1,238 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-present Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.repository.apt.internal.hosted;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.sonatype.goodies.common.ComponentSupport;
+import org.sonatype.goodies.common.Time;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+
+/**
+ * Batches the index rebuilds of a hosted repository. Committed changes are counted, and a single rebuild runs once
+ * no further change arrived for a quiet period, or as soon as a maximum number of changes is pending. Rebuilds run on
+ * a scheduler shared with other repositories, but only one at a time for a repository, and each replaces the indexes
+ * in a single transaction, so readers keep seeing the last consistent indexes until a rebuild completes. The changes
+ * of a failed rebuild are kept pending and rebuilt again after a quiet period.
+ *
+ * @since 3.26
+ */
+class BatchingIndexRebuilder
+    extends ComponentSupport
+{
+  /**
+   * A rebuild of all indexes from the committed state of the repository.
+   */
+  @FunctionalInterface
+  interface Rebuild
+  {
+    void run() throws Exception;
+  }
+
+  private final String repositoryName;
+
+  private final Rebuild rebuild;
+
+  private final long quietPeriodMillis;
+
+  private final int maxPendingChanges;
+
+  private final ScheduledExecutorService executor;
+
+  private int pendingChanges;
+
+  private ScheduledFuture<?> scheduled;
+
+  private boolean running;
+
+  private boolean urgent;
+
+  private boolean stopped;
+
+  private boolean abandoned;
+
+  private long startedRebuilds;
+
+  private long completedRebuilds;
+
+  private long succeededRebuild;
+
+  private Exception lastFailure;
+
+  BatchingIndexRebuilder(final String repositoryName,
+                         final Rebuild rebuild,
+                         final Time quietPeriod,
+                         final int maxPendingChanges,
+                         final ScheduledExecutorService executor)
+  {
+    this.repositoryName = checkNotNull(repositoryName);
+    this.rebuild = checkNotNull(rebuild);
+    this.quietPeriodMillis = checkNotNull(quietPeriod).toMillis();
+    checkArgument(maxPendingChanges > 0, "maxPendingChanges must be positive");
+    this.maxPendingChanges = maxPendingChanges;
+    this.executor = checkNotNull(executor);
+  }
+
+  /**
+   * Records committed changes, (re)scheduling the rebuild that will pick them up. Changes recorded once stopped, e.g. by
+   * uploads racing with the stop of the repository, are ignored and only seen by the next rebuild.
+   */
+  synchronized void changed(final int count) {
+    if (stopped) {
+      log.debug("Ignoring {} changes of stopped repository {}", count, repositoryName);
+      return;
+    }
+    pendingChanges += count;
+    if (!running) {
+      // a running rebuild schedules the next one for the changes recorded meanwhile once it completes
+      reschedule(nextDelayMillis());
+    }
+  }
+
+  /**
+   * Rebuilds right away, or right after the rebuild already running, and waits for the rebuild to complete. The
+   * rebuild picks up any other pending changes as well.
+   *
+   * @throws IOException if the rebuild failed, or was abandoned as the repository stopped
+   */
+  synchronized void rebuildAndWait() throws IOException {
+    checkState(!stopped, "Repository %s is stopped", repositoryName);
+    pendingChanges++;
+    urgent = true;
+    long rebuild = startedRebuilds + 1;
+    if (!running) {
+      reschedule(0);
+    }
+    try {
+      while (completedRebuilds < rebuild) {
+        if (abandoned) {
+          throw new IOException("Index rebuild of repository " + repositoryName + " was abandoned on stop");
+        }
+        wait();
+      }
+    }
+    catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted waiting for index rebuild of repository " + repositoryName);
+    }
+    if (succeededRebuild < rebuild) {
+      throw new IOException("Failed to rebuild indexes of repository " + repositoryName, lastFailure);
+    }
+  }
+
+  /**
+   * Rebuilds right away if any changes are pending, then waits for the rebuild to complete and stops.
+   */
+  synchronized void flushAndStop(final Time timeout) throws InterruptedException {
+    stopped = true;
+    if (pendingChanges > 0 && !running) {
+      reschedule(0);
+    }
+    long deadline = System.currentTimeMillis() + timeout.toMillis();
+    while (running || pendingChanges > 0) {
+      long remaining = deadline - System.currentTimeMillis();
+      if (remaining <= 0) {
+        log.warn("Timed out waiting for pending index rebuild of repository {}", repositoryName);
+        if (scheduled != null) {
+          scheduled.cancel(false);
+        }
+        abandoned = true;
+        notifyAll();
+        return;
+      }
+      wait(remaining);
+    }
+  }
+
+  private long nextDelayMillis() {
+    return urgent || stopped || pendingChanges >= maxPendingChanges ? 0 : quietPeriodMillis;
+  }
+
+  /**
+   * Replaces a rebuild that has not started yet.
+   */
+  private void reschedule(final long delayMillis) {
+    if (scheduled != null) {
+      scheduled.cancel(false);
+    }
+    scheduled = executor.schedule(this::rebuild, delayMillis, TimeUnit.MILLISECONDS);
+  }
+
+  private void rebuild() {
+    int changes;
+    long number;
+    synchronized (this) {
+      if (running || pendingChanges == 0) {
+        return;
+      }
+      changes = pendingChanges;
+      pendingChanges = 0;
+      scheduled = null;
+      running = true;
+      urgent = false;
+      number = ++startedRebuilds;
+    }
+    log.debug("Rebuilding indexes of repository {} for {} changes", repositoryName, changes);
+    boolean succeeded = false;
+    Exception failure = null;
+    try {
+      rebuild.run();
+      succeeded = true;
+    }
+    catch (Exception e) {
+      failure = e;
+    }
+    finally {
+      completed(number, changes, succeeded, failure);
+    }
+  }
+
+  /**
+   * Completes a rebuild. The changes of a failed rebuild are pending again, unless the repository stopped meanwhile.
+   */
+  private synchronized void completed(final long number,
+                                      final int changes,
+                                      final boolean succeeded,
+                                      final Exception failure)
+  {
+    running = false;
+    completedRebuilds = number;
+    long delayMillis = nextDelayMillis();
+    if (succeeded) {
+      succeededRebuild = number;
+    }
+    else if (stopped) {
+      log.warn("Failed to rebuild indexes of repository {}, they will be rebuilt on the next change",
+          repositoryName, failure);
+      lastFailure = failure;
+    }
+    else {
+      log.warn("Failed to rebuild indexes of repository {}, keeping its {} changes for the next rebuild",
+          repositoryName, changes, failure);
+      lastFailure = failure;
+      pendingChanges += changes;
+      delayMillis = urgent ? 0 : quietPeriodMillis;
+    }
+    if (pendingChanges > 0) {
+      reschedule(delayMillis);
+    }
+    notifyAll();
+  }
+}
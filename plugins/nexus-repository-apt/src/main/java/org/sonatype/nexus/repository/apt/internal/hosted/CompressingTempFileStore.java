@@ -12,6 +12,7 @@
  */
 package org.sonatype.nexus.repository.apt.internal.hosted;
 
+import java.io.BufferedOutputStream;
 import java.io.IOException;
 import java.io.OutputStreamWriter;
 import java.io.UncheckedIOException;
@@ -22,19 +23,23 @@ import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.zip.GZIPOutputStream;
 
 import org.sonatype.goodies.common.ComponentSupport;
 import org.sonatype.nexus.repository.view.payloads.StreamPayload.InputStreamSupplier;
+import org.sonatype.nexus.thread.NexusThreadFactory;
 
 import com.google.common.base.Charsets;
 import com.google.common.collect.Maps;
 import org.apache.commons.compress.compressors.bzip2.BZip2CompressorOutputStream;
 import org.apache.commons.io.output.CountingOutputStream;
-import org.bouncycastle.util.io.TeeOutputStream;
 
 /**
- * Stores a set of temp files, automatically compressing each into a GZIP, BZ2 and plain format.
+ * Stores a set of temp files, automatically compressing each into a GZIP, BZ2 and plain format. Each format is written
+ * by a worker of its own, pipelined with the writer of the output, so the CPU heavy BZ2 compression does not hold up
+ * the other formats or the producer; an output is complete once its writer has been closed.
  *
  * @since 3.17
  */
@@ -42,8 +47,15 @@ class CompressingTempFileStore
     extends ComponentSupport
     implements AutoCloseable
 {
+  private static final int CHUNK_SIZE = 64 * 1024;
+
+  private static final int QUEUED_CHUNKS = 32;
+
   private final Map<String, FileHolder> holdersByKey = new HashMap<>();
 
+  private final ExecutorService executor =
+      Executors.newCachedThreadPool(new NexusThreadFactory("apt-compress", "apt-compress"));
+
   public Writer openOutput(final String key) {
     try {
       if (holdersByKey.containsKey(key)) {
@@ -51,10 +63,10 @@ class CompressingTempFileStore
       }
       FileHolder holder = new FileHolder();
       holdersByKey.put(key, holder);
-      return new OutputStreamWriter(new TeeOutputStream(
-          new TeeOutputStream(new GZIPOutputStream(Files.newOutputStream(holder.gzTempFile)),
-              new BZip2CompressorOutputStream(Files.newOutputStream(holder.bzTempFile))),
-          Files.newOutputStream(holder.plainTempFile)), Charsets.UTF_8);
+      return new OutputStreamWriter(new PipelinedTeeOutputStream(executor, CHUNK_SIZE, QUEUED_CHUNKS,
+          new GZIPOutputStream(holder.gzStream, CHUNK_SIZE),
+          new BZip2CompressorOutputStream(holder.bzStream),
+          holder.plainStream), Charsets.UTF_8);
     }
     catch (IOException e) {
       throw new UncheckedIOException(e);
@@ -66,11 +78,14 @@ class CompressingTempFileStore
   }
 
   public void close() {
+    executor.shutdownNow();
+
     List<Path> notDeletedFiles = new LinkedList<>();
 
     for (FileHolder holder : holdersByKey.values()) {
       deleteFile(holder.bzTempFile, notDeletedFiles);
       deleteFile(holder.gzTempFile, notDeletedFiles);
+      deleteFile(holder.plainTempFile, notDeletedFiles);
     }
 
     if (!notDeletedFiles.isEmpty()) {
@@ -137,11 +152,15 @@ class CompressingTempFileStore
     public FileHolder() throws IOException {
       super();
       this.plainTempFile = Files.createTempFile("", "");
-      this.plainStream = new CountingOutputStream(Files.newOutputStream(plainTempFile));
+      this.plainStream = newCountingOutputStream(plainTempFile);
       this.gzTempFile = Files.createTempFile("", "");
-      this.gzStream = new CountingOutputStream(Files.newOutputStream(gzTempFile));
+      this.gzStream = newCountingOutputStream(gzTempFile);
       this.bzTempFile = Files.createTempFile("", "");
-      this.bzStream = new CountingOutputStream(Files.newOutputStream(bzTempFile));
+      this.bzStream = newCountingOutputStream(bzTempFile);
+    }
+
+    private static CountingOutputStream newCountingOutputStream(final Path path) throws IOException {
+      return new CountingOutputStream(new BufferedOutputStream(Files.newOutputStream(path), CHUNK_SIZE));
     }
   }
 }
@@ -0,0 +1,210 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-present Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.repository.apt.internal.hosted;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * An output stream that copies all bytes written to it into several target streams, each written (and finally closed)
+ * by a worker of its own. The writing thread only fills chunks which are handed over to the workers through bounded
+ * queues, so slow targets such as compressors run in parallel to each other and to the producer, while each target
+ * still receives exactly the bytes written in order.
+ *
+ * @since 3.26
+ */
+class PipelinedTeeOutputStream
+    extends OutputStream
+{
+  private static final byte[] END = new byte[0];
+
+  private final int chunkSize;
+
+  private final List<Worker> workers = new ArrayList<>();
+
+  private byte[] chunk;
+
+  private int count;
+
+  private boolean closed;
+
+  PipelinedTeeOutputStream(final ExecutorService executor,
+                           final int chunkSize,
+                           final int queuedChunks,
+                           final OutputStream... targets)
+  {
+    checkNotNull(executor);
+    checkArgument(chunkSize > 0, "chunkSize must be positive");
+    checkArgument(queuedChunks > 0, "queuedChunks must be positive");
+    this.chunkSize = chunkSize;
+    this.chunk = new byte[chunkSize];
+    for (OutputStream target : targets) {
+      Worker worker = new Worker(checkNotNull(target), queuedChunks);
+      worker.future = executor.submit(worker);
+      workers.add(worker);
+    }
+  }
+
+  @Override
+  public void write(final int b) throws IOException {
+    if (count == chunkSize) {
+      publish();
+    }
+    chunk[count++] = (byte) b;
+  }
+
+  @Override
+  public void write(final byte[] b, final int off, final int len) throws IOException {
+    int offset = off;
+    int remaining = len;
+    while (remaining > 0) {
+      if (count == chunkSize) {
+        publish();
+      }
+      int length = Math.min(remaining, chunkSize - count);
+      System.arraycopy(b, offset, chunk, count, length);
+      count += length;
+      offset += length;
+      remaining -= length;
+    }
+  }
+
+  /**
+   * Waits for all targets to have been written and closed, rethrowing the first failure of any of them.
+   */
+  @Override
+  public void close() throws IOException {
+    if (closed) {
+      return;
+    }
+    closed = true;
+    if (count > 0) {
+      publish();
+    }
+    chunk = null;
+    IOException failure = null;
+    for (Worker worker : workers) {
+      try {
+        put(worker, END);
+        worker.future.get();
+      }
+      catch (InterruptedIOException e) {
+        worker.future.cancel(true);
+        failure = failure != null ? failure : e;
+      }
+      catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        worker.future.cancel(true);
+        failure = failure != null ? failure : new InterruptedIOException();
+      }
+      catch (ExecutionException e) {
+        failure = failure != null ? failure : asIOException(e.getCause());
+      }
+    }
+    if (failure != null) {
+      throw failure;
+    }
+  }
+
+  /**
+   * Hands the current chunk to every worker; chunks are never modified once published, so they are shared.
+   */
+  private void publish() throws IOException {
+    byte[] published = count == chunkSize ? chunk : copyOf(chunk, count);
+    for (Worker worker : workers) {
+      put(worker, published);
+    }
+    chunk = new byte[chunkSize];
+    count = 0;
+  }
+
+  private static byte[] copyOf(final byte[] bytes, final int length) {
+    byte[] copy = new byte[length];
+    System.arraycopy(bytes, 0, copy, 0, length);
+    return copy;
+  }
+
+  private static void put(final Worker worker, final byte[] bytes) throws InterruptedIOException {
+    try {
+      worker.queue.put(bytes);
+    }
+    catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException();
+    }
+  }
+
+  private static IOException asIOException(final Throwable cause) {
+    return cause instanceof IOException ? (IOException) cause : new IOException(cause);
+  }
+
+  /**
+   * Writes the chunks of its queue to a target until the end marker. After a failure the queue is still drained, so
+   * the producer never blocks on it, and the failure is reported once all bytes were written.
+   */
+  private static class Worker
+      implements Callable<Void>
+  {
+    private final OutputStream target;
+
+    private final BlockingQueue<byte[]> queue;
+
+    private Future<Void> future;
+
+    Worker(final OutputStream target, final int queuedChunks) {
+      this.target = target;
+      this.queue = new ArrayBlockingQueue<>(queuedChunks);
+    }
+
+    @Override
+    public Void call() throws Exception {
+      IOException failure = null;
+      try {
+        for (byte[] bytes = queue.take(); bytes != END; bytes = queue.take()) {
+          if (failure == null) {
+            try {
+              target.write(bytes);
+            }
+            catch (IOException e) {
+              failure = e;
+            }
+          }
+        }
+      }
+      finally {
+        try {
+          target.close();
+        }
+        catch (IOException e) {
+          failure = failure != null ? failure : e;
+        }
+      }
+      if (failure != null) {
+        throw failure;
+      }
+      return null;
+    }
+  }
+}
@@ -0,0 +1,176 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-present Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.repository.apt.internal.hosted;
+
+import java.io.IOException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.sonatype.goodies.common.Time;
+import org.sonatype.goodies.testsupport.TestSupport;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.fail;
+
+/**
+ * @since 3.26
+ */
+public class BatchingIndexRebuilderTest
+    extends TestSupport
+{
+  private final AtomicInteger rebuilds = new AtomicInteger();
+
+  private ScheduledExecutorService executor;
+
+  @Before
+  public void setUp() {
+    executor = new ScheduledThreadPoolExecutor(4);
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    executor.shutdownNow();
+    executor.awaitTermination(10, TimeUnit.SECONDS);
+  }
+
+  @Test
+  public void rebuildsOnceForBatchReachingMaxPendingChanges() throws Exception {
+    BatchingIndexRebuilder underTest =
+        new BatchingIndexRebuilder("test", rebuilds::incrementAndGet, Time.hours(1), 3, executor);
+
+    underTest.changed(1);
+    underTest.changed(1);
+    underTest.changed(1);
+    underTest.flushAndStop(Time.seconds(10));
+
+    assertThat(rebuilds.get(), is(1));
+  }
+
+  @Test
+  public void rebuildsOnceAfterQuietPeriod() throws Exception {
+    BatchingIndexRebuilder underTest =
+        new BatchingIndexRebuilder("test", rebuilds::incrementAndGet, Time.millis(50), 100, executor);
+
+    for (int i = 0; i < 10; i++) {
+      underTest.changed(1);
+    }
+    Thread.sleep(500);
+
+    assertThat(rebuilds.get(), is(1));
+    underTest.flushAndStop(Time.seconds(10));
+    assertThat(rebuilds.get(), is(1));
+  }
+
+  @Test
+  public void flushesPendingChangesOnStop() throws Exception {
+    BatchingIndexRebuilder underTest =
+        new BatchingIndexRebuilder("test", rebuilds::incrementAndGet, Time.hours(1), 100, executor);
+
+    underTest.flushAndStop(Time.seconds(10));
+    assertThat(rebuilds.get(), is(0));
+
+    underTest = new BatchingIndexRebuilder("test", rebuilds::incrementAndGet, Time.hours(1), 100, executor);
+    underTest.changed(2);
+    underTest.flushAndStop(Time.seconds(10));
+    assertThat(rebuilds.get(), is(1));
+  }
+
+  @Test
+  public void ignoresChangesOnceStopped() throws Exception {
+    BatchingIndexRebuilder underTest =
+        new BatchingIndexRebuilder("test", rebuilds::incrementAndGet, Time.millis(1), 100, executor);
+
+    underTest.flushAndStop(Time.seconds(10));
+    underTest.changed(1);
+    Thread.sleep(100);
+
+    assertThat(rebuilds.get(), is(0));
+  }
+
+  @Test
+  public void rebuildsOfRepositoryNeverOverlapOnSharedScheduler() throws Exception {
+    AtomicInteger running = new AtomicInteger();
+    AtomicInteger overlaps = new AtomicInteger();
+    BatchingIndexRebuilder underTest = new BatchingIndexRebuilder("test", () -> {
+      if (running.incrementAndGet() > 1) {
+        overlaps.incrementAndGet();
+      }
+      Thread.sleep(20);
+      rebuilds.incrementAndGet();
+      running.decrementAndGet();
+    }, Time.millis(1), 1, executor);
+
+    for (int i = 0; i < 50; i++) {
+      underTest.changed(1);
+      Thread.sleep(1);
+    }
+    underTest.flushAndStop(Time.seconds(10));
+
+    assertThat(overlaps.get(), is(0));
+    assertThat(rebuilds.get() > 0, is(true));
+  }
+
+  @Test
+  public void failedRebuildKeepsItsChangesPending() throws Exception {
+    AtomicInteger attempts = new AtomicInteger();
+    BatchingIndexRebuilder underTest = new BatchingIndexRebuilder("test", () -> {
+      if (attempts.incrementAndGet() == 1) {
+        throw new IOException("failed");
+      }
+      rebuilds.incrementAndGet();
+    }, Time.millis(50), 100, executor);
+
+    underTest.changed(1);
+    Thread.sleep(500);
+
+    assertThat(attempts.get(), is(2));
+    assertThat(rebuilds.get(), is(1));
+    underTest.flushAndStop(Time.seconds(10));
+    assertThat(attempts.get(), is(2));
+  }
+
+  @Test
+  public void explicitRebuildRunsRightAwayWithPendingChanges() throws Exception {
+    BatchingIndexRebuilder underTest =
+        new BatchingIndexRebuilder("test", rebuilds::incrementAndGet, Time.hours(1), 100, executor);
+
+    underTest.changed(1);
+    underTest.rebuildAndWait();
+
+    assertThat(rebuilds.get(), is(1));
+    underTest.flushAndStop(Time.seconds(10));
+    assertThat(rebuilds.get(), is(1));
+  }
+
+  @Test
+  public void explicitRebuildReportsFailure() throws Exception {
+    BatchingIndexRebuilder underTest = new BatchingIndexRebuilder("test", () -> {
+      throw new IOException("failed");
+    }, Time.hours(1), 100, executor);
+
+    try {
+      underTest.rebuildAndWait();
+      fail("Expected failure to rebuild");
+    }
+    catch (IOException e) {
+      assertThat(e.getCause().getMessage(), is("failed"));
+    }
+  }
+}
@@ -0,0 +1,97 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-present Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.repository.apt.internal.hosted;
+
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.GZIPOutputStream;
+
+import org.sonatype.goodies.testsupport.TestSupport;
+
+import com.google.common.base.Stopwatch;
+import org.apache.commons.compress.compressors.bzip2.BZip2CompressorOutputStream;
+import org.bouncycastle.util.io.TeeOutputStream;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+/**
+ * Performance comparison of writing a synthetic {@code Packages} index through {@link CompressingTempFileStore} and
+ * through the sequential tee of the three formats it replaced. The package count defaults to 100k and can be changed
+ * with {@code -Dperf.packages=N}.
+ */
+public class CompressingTempFileStorePerf
+    extends TestSupport
+{
+  private static final int PACKAGES = Integer.getInteger("perf.packages", 100_000);
+
+  @Rule
+  public TemporaryFolder tmpDir = new TemporaryFolder();
+
+  @Test
+  public void sequential() throws Exception {
+    Path plain = tmpDir.newFile().toPath();
+    Path gz = tmpDir.newFile().toPath();
+    Path bz = tmpDir.newFile().toPath();
+
+    Stopwatch stopwatch = Stopwatch.createStarted();
+    try (OutputStream gzOut = new GZIPOutputStream(Files.newOutputStream(gz));
+         OutputStream bzOut = new BZip2CompressorOutputStream(Files.newOutputStream(bz));
+         OutputStream plainOut = Files.newOutputStream(plain);
+         Writer writer = new OutputStreamWriter(new TeeOutputStream(new TeeOutputStream(gzOut, bzOut), plainOut),
+             UTF_8)) {
+      writeIndex(writer);
+    }
+    log.info("sequential: {} packages, {} ms, {} bytes plain, {} gz, {} bz2", PACKAGES,
+        stopwatch.elapsed(MILLISECONDS), Files.size(plain), Files.size(gz), Files.size(bz));
+  }
+
+  @Test
+  public void pipelined() throws Exception {
+    Stopwatch stopwatch = Stopwatch.createStarted();
+    try (CompressingTempFileStore store = new CompressingTempFileStore()) {
+      try (Writer writer = store.openOutput("amd64")) {
+        writeIndex(writer);
+      }
+      CompressingTempFileStore.FileMetadata files = store.getFiles().get("amd64");
+      log.info("pipelined: {} packages, {} ms, {} bytes plain, {} gz, {} bz2", PACKAGES,
+          stopwatch.elapsed(MILLISECONDS), files.plainSize(), files.gzSize(), files.bzSize());
+    }
+  }
+
+  private static void writeIndex(final Writer writer) throws Exception {
+    for (int i = 0; i < PACKAGES; i++) {
+      writer.write("Package: package-" + i + "\n" +
+          "Version: 1." + (i % 13) + "." + i + "-1\n" +
+          "Architecture: amd64\n" +
+          "Maintainer: Example Maintainer <maintainer@example.com>\n" +
+          "Installed-Size: " + (i % 5000) + "\n" +
+          "Depends: libc6 (>= 2.17), libpackage-" + (i % 97) + "\n" +
+          "Section: utils\n" +
+          "Priority: optional\n" +
+          "Description: Synthetic package " + i + "\n" +
+          " A synthetic package used to measure index compression.\n" +
+          "Filename: pool/p/package-" + i + "/package-" + i + "_1." + i + "_amd64.deb\n" +
+          "Size: " + (1000 + i) + "\n" +
+          "MD5Sum: " + String.format("%032x", i) + "\n" +
+          "SHA1: " + String.format("%040x", i) + "\n" +
+          "SHA256: " + String.format("%064x", i) + "\n\n");
+    }
+  }
+}
@@ -0,0 +1,74 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-present Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.repository.apt.internal.hosted;
+
+import java.io.InputStream;
+import java.io.Writer;
+import java.util.zip.GZIPInputStream;
+
+import org.sonatype.goodies.testsupport.TestSupport;
+import org.sonatype.nexus.repository.apt.internal.hosted.CompressingTempFileStore.FileMetadata;
+
+import com.google.common.io.ByteStreams;
+import org.apache.commons.compress.compressors.bzip2.BZip2CompressorInputStream;
+import org.junit.Test;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+/**
+ * @since 3.26
+ */
+public class CompressingTempFileStoreTest
+    extends TestSupport
+{
+  @Test
+  public void writesAllFormats() throws Exception {
+    StringBuilder expected = new StringBuilder();
+    for (int i = 0; i < 20_000; i++) {
+      expected.append("Package: package").append(i).append("\nVersion: 1.0.").append(i).append("\n\n");
+    }
+
+    try (CompressingTempFileStore underTest = new CompressingTempFileStore()) {
+      try (Writer amd64 = underTest.openOutput("amd64"); Writer i386 = underTest.openOutput("i386")) {
+        amd64.write(expected.toString());
+        i386.write("");
+      }
+
+      FileMetadata amd64 = underTest.getFiles().get("amd64");
+      assertThat(read(amd64.plainSupplier().get()), is(expected.toString()));
+      assertThat(read(new GZIPInputStream(amd64.gzSupplier().get())), is(expected.toString()));
+      assertThat(read(new BZip2CompressorInputStream(amd64.bzSupplier().get())), is(expected.toString()));
+      assertThat(amd64.plainSize(), is((long) expected.toString().getBytes(UTF_8).length));
+      assertThat(amd64.gzSize(), is(size(amd64.gzSupplier().get())));
+      assertThat(amd64.bzSize(), is(size(amd64.bzSupplier().get())));
+
+      FileMetadata i386 = underTest.getFiles().get("i386");
+      assertThat(read(new GZIPInputStream(i386.gzSupplier().get())), is(""));
+      assertThat(read(new BZip2CompressorInputStream(i386.bzSupplier().get())), is(""));
+    }
+  }
+
+  private static long size(final InputStream in) throws Exception {
+    try (InputStream input = in) {
+      return ByteStreams.exhaust(input);
+    }
+  }
+
+  private static String read(final InputStream in) throws Exception {
+    try (InputStream input = in) {
+      return new String(ByteStreams.toByteArray(input), UTF_8);
+    }
+  }
+}
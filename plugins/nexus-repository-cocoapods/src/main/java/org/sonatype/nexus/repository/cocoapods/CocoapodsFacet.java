@@ -31,5 +31,12 @@ public interface CocoapodsFacet
 
   Content getOrCreateAsset(final String path, final Content content, boolean toAttachComponent) throws IOException;
 
+  /**
+   * Stores a spec file whose source was transformed to download through the given repository URL.
+   *
+   * @since 3.26
+   */
+  Content storeProxiedSpec(final String path, final Content content, final String repositoryUrl) throws IOException;
+
   boolean delete(final String path) throws IOException;
 }
@@ -46,6 +46,7 @@ import static java.util.Collections.singletonList;
 import static org.sonatype.nexus.common.hash.HashAlgorithm.MD5;
 import static org.sonatype.nexus.common.hash.HashAlgorithm.SHA1;
 import static org.sonatype.nexus.common.hash.HashAlgorithm.SHA256;
+import static org.sonatype.nexus.repository.cocoapods.internal.CocoapodsFormat.P_PROXIED_REPOSITORY_URL;
 import static org.sonatype.nexus.repository.storage.ComponentEntityAdapter.P_VERSION;
 import static org.sonatype.nexus.repository.storage.MetadataNodeEntityAdapter.P_NAME;
 import static org.sonatype.nexus.repository.storage.Query.builder;
@@ -99,6 +100,23 @@ public class CocoapodsFacetImpl
   @TransactionalStoreBlob
   public Content getOrCreateAsset(final String path, final Content content, boolean toAttachComponent)
       throws IOException
+  {
+    return storeAsset(path, content, toAttachComponent, null, null);
+  }
+
+  @Override
+  @TransactionalStoreBlob
+  public Content storeProxiedSpec(final String path, final Content content, final String repositoryUrl)
+      throws IOException
+  {
+    return storeAsset(path, content, false, content.getContentType(), repositoryUrl);
+  }
+
+  private Content storeAsset(final String path,
+                             final Content content,
+                             final boolean toAttachComponent,
+                             @Nullable final String contentType,
+                             @Nullable final String proxiedRepositoryUrl) throws IOException
   {
     StorageFacet storageFacet = facet(StorageFacet.class);
     try (final TempBlob tempBlob = storageFacet.createTempBlob(content, HASH_ALGORITHMS)) {
@@ -116,7 +134,8 @@ public class CocoapodsFacetImpl
         }
       }
       Content.applyToAsset(asset, content.getAttributes());
-      AssetBlob blob = tx.setBlob(asset, path, tempBlob, HASH_ALGORITHMS, null, null, false);
+      asset.formatAttributes().set(P_PROXIED_REPOSITORY_URL, proxiedRepositoryUrl);
+      AssetBlob blob = tx.setBlob(asset, path, tempBlob, HASH_ALGORITHMS, null, contentType, false);
       tx.saveAsset(asset);
 
       final Content updatedContent = new Content(new BlobPayload(blob.getBlob(), asset.requireContentType()));
@@ -30,6 +30,13 @@ public class CocoapodsFormat
 
   public static final String NAME = "cocoapods";
 
+  /**
+   * Format attribute of proxied spec files recording the repository URL their source was transformed for.
+   *
+   * @since 3.26
+   */
+  public static final String P_PROXIED_REPOSITORY_URL = "proxied_repository_url";
+
   public CocoapodsFormat() {
     super(NAME);
   }
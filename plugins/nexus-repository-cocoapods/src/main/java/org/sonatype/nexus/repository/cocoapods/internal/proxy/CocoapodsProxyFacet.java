@@ -12,11 +12,15 @@
  */
 package org.sonatype.nexus.repository.cocoapods.internal.proxy;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.URI;
+import java.util.Map.Entry;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import javax.inject.Inject;
 import javax.inject.Named;
 
@@ -33,18 +37,19 @@ import org.sonatype.nexus.repository.transaction.TransactionalTouchMetadata;
 import org.sonatype.nexus.repository.view.Content;
 import org.sonatype.nexus.repository.view.Context;
 import org.sonatype.nexus.repository.view.Payload;
-import org.sonatype.nexus.repository.view.payloads.StringPayload;
+import org.sonatype.nexus.repository.view.payloads.BytesPayload;
 import org.sonatype.nexus.transaction.UnitOfWork;
 
-import org.apache.commons.io.Charsets;
 import org.apache.commons.io.IOUtils;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 import static org.sonatype.nexus.repository.cache.CacheControllerHolder.CONTENT;
 import static org.sonatype.nexus.repository.cocoapods.internal.AssetKind.SPEC;
 import static org.sonatype.nexus.repository.cocoapods.internal.CocoapodsFormat.CDN_METADATA_PREFIX;
+import static org.sonatype.nexus.repository.cocoapods.internal.CocoapodsFormat.P_PROXIED_REPOSITORY_URL;
 import static org.sonatype.nexus.repository.cocoapods.internal.CocoapodsFormat.removeInitialSlashFromPath;
 import static org.sonatype.nexus.repository.cocoapods.internal.pod.PodsUtils.extractPodPath;
+import static org.sonatype.nexus.repository.view.ContentTypes.APPLICATION_JSON;
 
 /**
  * @since 3.19
@@ -66,19 +71,71 @@ public class CocoapodsProxyFacet
     this.specTransformer = specTransformer;
   }
 
-  private Content transformSpecFile(final Payload payload) throws IOException {
-    try (InputStream data = payload.openInputStream()) {
-      String specFile = IOUtils.toString(data, Charsets.UTF_8);
-      try {
-        return new Content(
-            new StringPayload(specTransformer.toProxiedSpec(specFile, URI.create(getRepository().getUrl() + "/")),
-                "application/json"));
+  /**
+   * Spec files are cached already transformed for the repository URL they were stored under, so they are served as
+   * is while that URL stays the same. Otherwise the cached spec file is transformed again on the way out.
+   */
+  @Nullable
+  private Content transformSpecFile(final Content content) throws IOException {
+    String repositoryUrl = getRepositoryUrl();
+    Asset asset = content.getAttributes().get(Asset.class);
+    String proxiedRepositoryUrl = asset != null ?
+        asset.formatAttributes().get(P_PROXIED_REPOSITORY_URL, String.class) : null;
+    if (repositoryUrl.equals(proxiedRepositoryUrl)) {
+      return content;
+    }
+
+    ByteArrayOutputStream transformed = new ByteArrayOutputStream();
+    try (InputStream data = content.openInputStream()) {
+      if (proxiedRepositoryUrl == null) {
+        specTransformer.toProxiedSpec(data, transformed, URI.create(repositoryUrl));
       }
-      catch (InvalidSpecFileException e) {
-        log.info("Invalid Spec file", e);
-        return null;
+      else {
+        specTransformer.rebaseProxiedSpec(data, transformed, URI.create(proxiedRepositoryUrl),
+            URI.create(repositoryUrl));
       }
     }
+    catch (InvalidSpecFileException e) {
+      log.info("Invalid Spec file", e);
+      return null;
+    }
+    return new Content(new BytesPayload(transformed.toByteArray(), APPLICATION_JSON));
+  }
+
+  /**
+   * Transforms a fetched spec file before it is cached. Invalid spec files are cached as fetched, so they are not
+   * fetched again until they go stale.
+   */
+  private Content storeSpecFile(final String path, final Content content) throws IOException {
+    byte[] specFile;
+    try (InputStream data = content.openInputStream()) {
+      specFile = IOUtils.toByteArray(data);
+    }
+
+    String repositoryUrl = getRepositoryUrl();
+    ByteArrayOutputStream transformed = new ByteArrayOutputStream(specFile.length + 256);
+    try {
+      specTransformer.toProxiedSpec(new ByteArrayInputStream(specFile), transformed, URI.create(repositoryUrl));
+    }
+    catch (InvalidSpecFileException e) {
+      log.info("Invalid Spec file", e);
+      return facet(CocoapodsFacet.class)
+          .getOrCreateAsset(path, withAttributes(new BytesPayload(specFile, content.getContentType()), content), false);
+    }
+    return facet(CocoapodsFacet.class).storeProxiedSpec(path,
+        withAttributes(new BytesPayload(transformed.toByteArray(), APPLICATION_JSON), content), repositoryUrl);
+  }
+
+  private static Content withAttributes(final Payload payload, final Content content) {
+    Content ret = new Content(payload);
+    for (Entry<String, Object> attribute : content.getAttributes()) {
+      ret.getAttributes().set(attribute.getKey(), attribute.getValue());
+    }
+    return ret;
+  }
+
+  private String getRepositoryUrl() {
+    return getRepository().getUrl() + "/";
   }
 
   @Override
@@ -131,7 +188,7 @@ public class CocoapodsProxyFacet
         cacheControllerHolder.getMetadataCacheController().invalidateCache();
         break;
       case SPEC:
-        ret = facet(CocoapodsFacet.class).getOrCreateAsset(path, content, toAttachComponent);
+        ret = storeSpecFile(path, content);
         cacheControllerHolder.getMetadataCacheController().invalidateCache();
         break;
       case POD:
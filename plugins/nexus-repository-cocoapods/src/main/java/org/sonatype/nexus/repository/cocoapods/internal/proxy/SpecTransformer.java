@@ -13,6 +13,9 @@
 package org.sonatype.nexus.repository.cocoapods.internal.proxy;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.StringWriter;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.Arrays;
@@ -24,11 +27,19 @@ import javax.inject.Named;
 import org.sonatype.nexus.repository.cocoapods.internal.pod.PodPathProvider;
 import org.sonatype.nexus.repository.cocoapods.internal.pod.git.GitRepoUriParser;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.databind.node.NullNode;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
 
 /**
+ * Rewrites the source of spec files so pods are downloaded through the proxy repository. Spec files are rewritten
+ * token by token; only the name, version and source values are read into memory.
+ *
  * @since 3.19
  */
 @Named
@@ -60,37 +71,142 @@ public class SpecTransformer
   }
 
   public String toProxiedSpec(final String specFile, final URI repoUri) throws InvalidSpecFileException {
-    try {
-      return transformSpec(specFile, repoUri);
+    StringWriter writer = new StringWriter(specFile.length() + 256);
+    try (JsonParser parser = mapper.getFactory().createParser(specFile);
+         JsonGenerator generator = mapper.getFactory().createGenerator(writer)) {
+      rewrite(parser, generator, (source, name, version) -> buidProxiedUri(source, name, version, repoUri));
     }
     catch (IOException ioe) {
       throw new InvalidSpecFileException(specFile, ioe);
     }
+    return writer.toString();
+  }
+
+  /**
+   * Streams the spec file to the given output with its source replaced by a download through the repository.
+   *
+   * @since 3.26
+   */
+  public void toProxiedSpec(final InputStream specFile, final OutputStream out, final URI repoUri)
+      throws IOException, InvalidSpecFileException
+  {
+    rewrite(specFile, out, (source, name, version) -> buidProxiedUri(source, name, version, repoUri));
   }
 
-  private String transformSpec(final String specFile, final URI repoUri) throws IOException, InvalidSpecFileException {
-    ObjectNode jsonSpec = (ObjectNode) mapper.readTree(specFile);
+  /**
+   * Streams a spec file already transformed for one repository URL to the given output, moving its source to another
+   * repository URL.
+   *
+   * @since 3.26
+   */
+  public void rebaseProxiedSpec(final InputStream proxiedSpecFile,
+                                final OutputStream out,
+                                final URI fromRepoUri,
+                                final URI toRepoUri) throws IOException, InvalidSpecFileException
+  {
+    String fromPrefix = fromRepoUri.toString();
+    rewrite(proxiedSpecFile, out, (source, name, version) -> {
+      String httpDownloadUri = source.path(HTTP_NODE_NAME).textValue();
+      if (httpDownloadUri == null || !httpDownloadUri.startsWith(fromPrefix)) {
+        throw new InvalidSpecFileException("Source not proxied by " + fromPrefix + ": " + source.toString());
+      }
+      return toRepoUri.resolve(httpDownloadUri.substring(fromPrefix.length()));
+    });
+  }
+
+  private void rewrite(final InputStream in, final OutputStream out, final SourceRewriter sourceRewriter)
+      throws IOException, InvalidSpecFileException
+  {
+    try (JsonParser parser = mapper.getFactory().createParser(in);
+         JsonGenerator generator = mapper.getFactory().createGenerator(out)) {
+      rewrite(parser, generator, sourceRewriter);
+    }
+    catch (JsonProcessingException e) {
+      throw new InvalidSpecFileException("Invalid spec file JSON", e);
+    }
+  }
+
+  /**
+   * Copies the spec file token by token. Should the source come before the name or version, the fields following it
+   * are buffered until both are known, so the source keeps its position.
+   */
+  private void rewrite(final JsonParser parser, final JsonGenerator generator, final SourceRewriter sourceRewriter)
+      throws IOException, InvalidSpecFileException
+  {
+    if (parser.nextToken() != JsonToken.START_OBJECT) {
+      throw new InvalidSpecFileException("Spec file is not a JSON object");
+    }
+    generator.useDefaultPrettyPrinter();
+    generator.writeStartObject();
+
+    JsonNode name = null;
+    JsonNode version = null;
+    JsonNode source = null;
+    TokenBuffer deferred = null;
+    JsonGenerator target = generator;
+
+    String field;
+    while ((field = parser.nextFieldName()) != null) {
+      parser.nextToken();
+      if (SOURCE_NODE_NAME.equals(field)) {
+        source = readValue(parser);
+        if (name == null || version == null) {
+          deferred = new TokenBuffer(parser);
+          deferred.writeStartObject();
+          target = deferred;
+        }
+        else {
+          writeSource(target, sourceRewriter.rewrite(source, name.asText(), version.asText().trim()));
+        }
+        continue;
+      }
+
+      target.writeFieldName(field);
+      if (POD_NAME_FIELD.equals(field)) {
+        name = readValue(parser);
+        target.writeTree(name);
+      }
+      else if (POD_VERSION_FIELD.equals(field)) {
+        version = readValue(parser);
+        target.writeTree(version);
+      }
+      else {
+        target.copyCurrentStructure(parser);
+      }
+    }
 
-    if (!jsonSpec.has(POD_NAME_FIELD)) {
+    if (name == null) {
       throw new InvalidSpecFileException("Spec file without Name");
     }
-    if (!jsonSpec.has(POD_VERSION_FIELD)) {
+    if (version == null) {
       throw new InvalidSpecFileException("Spec file without Version");
     }
-    if (!jsonSpec.has(SOURCE_NODE_NAME)) {
+    if (source == null) {
       throw new InvalidSpecFileException("Spec file without Source");
     }
 
-    final String name = jsonSpec.get(POD_NAME_FIELD).asText();
-    final String version = jsonSpec.get(POD_VERSION_FIELD).asText().trim();
-
-    URI sourceUri = buidProxiedUri(jsonSpec.get(SOURCE_NODE_NAME), name, version, repoUri);
+    if (deferred != null) {
+      writeSource(generator, sourceRewriter.rewrite(source, name.asText(), version.asText().trim()));
+      deferred.writeEndObject();
+      try (JsonParser replay = deferred.asParser()) {
+        replay.nextToken();
+        while (replay.nextToken() == JsonToken.FIELD_NAME) {
+          generator.copyCurrentStructure(replay);
+        }
+      }
+    }
+    generator.writeEndObject();
+  }
 
-    final ObjectNode sourceNode = mapper.createObjectNode();
-    sourceNode.put(HTTP_NODE_NAME, sourceUri.toString());
+  private static JsonNode readValue(final JsonParser parser) throws IOException {
+    JsonNode value = parser.readValueAsTree();
+    return value != null ? value : NullNode.getInstance();
+  }
 
-    jsonSpec.set(SOURCE_NODE_NAME, sourceNode);
-    return mapper.writerWithDefaultPrettyPrinter().writeValueAsString(jsonSpec);
+  private static void writeSource(final JsonGenerator generator, final URI sourceUri) throws IOException {
+    generator.writeObjectFieldStart(SOURCE_NODE_NAME);
+    generator.writeStringField(HTTP_NODE_NAME, sourceUri.toString());
+    generator.writeEndObject();
   }
 
   private URI buidProxiedUri(final JsonNode sourceNode, String name, String version, final URI repoUri)
@@ -151,4 +267,9 @@ public class SpecTransformer
     }
     return gitRepoUri;
   }
+
+  private interface SourceRewriter
+  {
+    URI rewrite(JsonNode sourceNode, String name, String version) throws InvalidSpecFileException;
+  }
 }
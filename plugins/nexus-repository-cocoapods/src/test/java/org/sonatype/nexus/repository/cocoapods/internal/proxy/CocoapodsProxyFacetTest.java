@@ -0,0 +1,156 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-present Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.repository.cocoapods.internal.proxy;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.util.HashMap;
+
+import org.sonatype.goodies.testsupport.TestSupport;
+import org.sonatype.nexus.common.collect.AttributesMap;
+import org.sonatype.nexus.common.collect.NestedAttributesMap;
+import org.sonatype.nexus.repository.Repository;
+import org.sonatype.nexus.repository.cache.CacheController;
+import org.sonatype.nexus.repository.cache.CacheInfo;
+import org.sonatype.nexus.repository.cocoapods.internal.AssetKind;
+import org.sonatype.nexus.repository.cocoapods.internal.pod.PodPathParser;
+import org.sonatype.nexus.repository.cocoapods.internal.pod.PodPathProvider;
+import org.sonatype.nexus.repository.storage.Asset;
+import org.sonatype.nexus.repository.view.Content;
+import org.sonatype.nexus.repository.view.Context;
+import org.sonatype.nexus.repository.view.payloads.StringPayload;
+
+import org.apache.commons.io.IOUtils;
+import org.joda.time.DateTime;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.when;
+import static org.sonatype.nexus.repository.cocoapods.internal.CocoapodsFormat.P_PROXIED_REPOSITORY_URL;
+import static org.sonatype.nexus.repository.view.ContentTypes.APPLICATION_JSON;
+
+/**
+ * @since 3.26
+ */
+public class CocoapodsProxyFacetTest
+    extends TestSupport
+{
+  private static final String REPOSITORY_URL = "http://localhost:8081/repository/cocoapods-proxy";
+
+  private static final String OTHER_REPOSITORY_URL = "https://otherhost/repository/cocoapods-proxy/";
+
+  private static final String SPEC = "{\"name\": \"AppSpectorTVSDK\",\"version\": \"1.0.0\"," +
+      "\"source\": {\"http\": \"https://github.com/appspector/ios-sdk/blob/master/AppSpectorTVSDK.zip\"}}";
+
+  private static final String POD_PATH =
+      "/pods/AppSpectorTVSDK/1.0.0/https/github.com/appspector/ios-sdk/blob/master/AppSpectorTVSDK.zip";
+
+  @Mock
+  private Repository repository;
+
+  @Mock
+  private Context context;
+
+  @Mock
+  private CacheController cacheController;
+
+  @Mock
+  private Asset asset;
+
+  private NestedAttributesMap formatAttributes;
+
+  private final SpecTransformer specTransformer =
+      new SpecTransformer(new PodPathProvider("https://api.github.com", "https://bitbucket.org", "https://gitlab.com"));
+
+  private CocoapodsProxyFacet underTest;
+
+  @Before
+  public void setUp() throws Exception {
+    when(repository.getUrl()).thenReturn(REPOSITORY_URL);
+
+    AttributesMap attributes = new AttributesMap();
+    attributes.set(AssetKind.class, AssetKind.SPEC);
+    when(context.getAttributes()).thenReturn(attributes);
+
+    formatAttributes = new NestedAttributesMap("cocoapods", new HashMap<>());
+    when(asset.formatAttributes()).thenReturn(formatAttributes);
+
+    when(cacheController.isStale(any(CacheInfo.class))).thenReturn(false);
+
+    underTest = spy(new CocoapodsProxyFacet(specTransformer, new PodPathParser("api.github.com")));
+    underTest.attach(repository);
+    doReturn(cacheController).when(underTest).getCacheController(context);
+  }
+
+  @Test
+  public void specFileCachedByOlderVersionIsTransformed() throws Exception {
+    cache(SPEC);
+
+    String spec = read(underTest.get(context));
+
+    assertThat(spec, containsString(REPOSITORY_URL + POD_PATH));
+    assertThat(spec, not(containsString("\"https://github.com")));
+  }
+
+  @Test
+  public void specFileTransformedForRepositoryUrlIsServedAsIs() throws Exception {
+    formatAttributes.set(P_PROXIED_REPOSITORY_URL, REPOSITORY_URL + "/");
+    Content cached = cache(specTransformer.toProxiedSpec(SPEC, URI.create(REPOSITORY_URL + "/")));
+
+    assertThat(underTest.get(context), is(sameInstance(cached)));
+  }
+
+  @Test
+  public void specFileTransformedForAnotherUrlIsRebased() throws Exception {
+    formatAttributes.set(P_PROXIED_REPOSITORY_URL, OTHER_REPOSITORY_URL);
+    cache(specTransformer.toProxiedSpec(SPEC, URI.create(OTHER_REPOSITORY_URL)));
+
+    String spec = read(underTest.get(context));
+
+    assertThat(spec, containsString(REPOSITORY_URL + POD_PATH));
+    assertThat(spec, not(containsString(OTHER_REPOSITORY_URL)));
+  }
+
+  @Test
+  public void invalidSpecFileIsNotFound() throws Exception {
+    cache("invalid_json");
+
+    assertThat(underTest.get(context), is(nullValue()));
+  }
+
+  private Content cache(final String spec) {
+    Content content = new Content(new StringPayload(spec, APPLICATION_JSON));
+    content.getAttributes().set(Asset.class, asset);
+    content.getAttributes().set(CacheInfo.class, new CacheInfo(DateTime.now(), null));
+    doReturn(content).when(underTest).getCachedContent(context);
+    return content;
+  }
+
+  private static String read(final Content content) throws IOException {
+    try (InputStream in = content.openInputStream()) {
+      return IOUtils.toString(in, UTF_8);
+    }
+  }
+}
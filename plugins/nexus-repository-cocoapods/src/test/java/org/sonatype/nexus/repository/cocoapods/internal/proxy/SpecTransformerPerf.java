@@ -0,0 +1,101 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-present Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.repository.cocoapods.internal.proxy;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.net.URI;
+
+import org.sonatype.goodies.testsupport.TestSupport;
+import org.sonatype.nexus.repository.cocoapods.internal.pod.PodPathProvider;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.google.common.base.Stopwatch;
+import org.junit.Test;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+/**
+ * Compares the throughput of transforming spec files token by token with reading them into a tree and writing the
+ * tree back, which is how spec files used to be transformed on every serve. The number of transformations defaults to
+ * 20000 and can be changed with {@code -Dperf.iterations=COUNT}.
+ */
+public class SpecTransformerPerf
+    extends TestSupport
+{
+  private static final int ITERATIONS = Integer.getInteger("perf.iterations", 20000);
+
+  private static final URI REPO_URI = URI.create("http://localhost:8081/repository/cocoapods-proxy/");
+
+  private static final ObjectMapper mapper = new ObjectMapper();
+
+  private final SpecTransformer underTest =
+      new SpecTransformer(new PodPathProvider("https://api.github.com", "https://bitbucket.org", "https://gitlab.com"));
+
+  @Test
+  public void transformSpecFiles() throws Exception {
+    byte[] spec = specFile(50).getBytes(UTF_8);
+
+    for (int i = 0; i < ITERATIONS / 10; i++) {
+      streaming(spec);
+      tree(spec);
+    }
+
+    Stopwatch stopwatch = Stopwatch.createStarted();
+    for (int i = 0; i < ITERATIONS; i++) {
+      streaming(spec);
+    }
+    long streamingMillis = stopwatch.elapsed(MILLISECONDS);
+
+    stopwatch.reset().start();
+    for (int i = 0; i < ITERATIONS; i++) {
+      tree(spec);
+    }
+    long treeMillis = stopwatch.elapsed(MILLISECONDS);
+
+    log.info("transformed {} byte spec file {} times: streaming {} ms, tree {} ms", spec.length, ITERATIONS,
+        streamingMillis, treeMillis);
+  }
+
+  private void streaming(final byte[] spec) throws Exception {
+    ByteArrayOutputStream out = new ByteArrayOutputStream(spec.length);
+    underTest.toProxiedSpec(new ByteArrayInputStream(spec), out, REPO_URI);
+  }
+
+  private static void tree(final byte[] spec) throws Exception {
+    ObjectNode jsonSpec = (ObjectNode) mapper.readTree(spec);
+    ObjectNode sourceNode = mapper.createObjectNode();
+    sourceNode.put("http", REPO_URI.resolve("pods/Perf/1.0.0/https/api.github.com/repos/perf/perf/tarball/1.0.0.tar.gz")
+        .toString());
+    jsonSpec.set("source", sourceNode);
+    mapper.writerWithDefaultPrettyPrinter().writeValueAsBytes(jsonSpec);
+  }
+
+  private static String specFile(final int subspecs) {
+    StringBuilder spec = new StringBuilder("{\"name\":\"Perf\",\"version\":\"1.0.0\",\"summary\":\"Perf\"," +
+        "\"homepage\":\"https://github.com/perf/perf\",\"license\":{\"type\":\"MIT\",\"file\":\"LICENSE\"}," +
+        "\"authors\":{\"perf\":\"perf@example.com\"},\"platforms\":{\"ios\":\"9.0\",\"osx\":\"10.10\"}," +
+        "\"source\":{\"git\":\"https://github.com/perf/perf.git\",\"tag\":\"1.0.0\"},\"subspecs\":[");
+    for (int i = 0; i < subspecs; i++) {
+      if (i > 0) {
+        spec.append(',');
+      }
+      spec.append("{\"name\":\"Sub").append(i).append("\",\"source_files\":[\"Sources/Sub").append(i)
+          .append("/**/*.{h,m,swift}\"],\"frameworks\":[\"Foundation\",\"UIKit\"],")
+          .append("\"dependencies\":{\"Perf/Core\":[]}}");
+    }
+    return spec.append("],\"requires_arc\":true}").toString();
+  }
+}
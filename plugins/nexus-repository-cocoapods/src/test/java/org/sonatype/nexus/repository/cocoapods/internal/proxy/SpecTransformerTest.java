@@ -12,12 +12,15 @@
  */
 package org.sonatype.nexus.repository.cocoapods.internal.proxy;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.net.URI;
 
 import org.sonatype.nexus.repository.cocoapods.internal.pod.PodPathProvider;
 
 import org.junit.Test;
 
+import static java.nio.charset.StandardCharsets.UTF_8;
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.MatcherAssert.assertThat;
 
@@ -180,4 +183,63 @@ public class SpecTransformerTest
     String res = new SpecTransformer(podPathProvider).toProxiedSpec(spec, repoUri);
     assertThat(res.contains("/Realm/0.92.3/"), is(true));
   }
+
+  @Test
+  public void streamingToProxiedSpecKeepsFieldOrderTest() throws Exception {
+    String spec = "{" +
+        "\"source\": {\"http\": \"https://github.com/appspector/ios-sdk/blob/master/AppSpectorTVSDK.zip\"}," +
+        "\"platforms\": {\"ios\": \"9.0\"}," +
+        "\"name\": \"AppSpectorTVSDK\"," +
+        "\"version\": \"1.0.0\"," +
+        "\"requires_arc\": true" +
+        "}";
+
+    String transformedSpec = "{\n" +
+        "  \"source\" : {\n" +
+        "    \"http\" : \"http://repouri/pods/AppSpectorTVSDK/1.0.0/https/github.com/appspector/ios-sdk/blob/master/AppSpectorTVSDK.zip\"\n" +
+        "  },\n" +
+        "  \"platforms\" : {\n" +
+        "    \"ios\" : \"9.0\"\n" +
+        "  },\n" +
+        "  \"name\" : \"AppSpectorTVSDK\",\n" +
+        "  \"version\" : \"1.0.0\",\n" +
+        "  \"requires_arc\" : true\n" +
+        "}";
+
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    new SpecTransformer(podPathProvider)
+        .toProxiedSpec(new ByteArrayInputStream(spec.getBytes(UTF_8)), out, URI.create("http://repouri/"));
+    assertThat(new String(out.toByteArray(), UTF_8), is(transformedSpec));
+  }
+
+  @Test
+  public void rebaseProxiedSpecTest() throws Exception {
+    String spec = "{" +
+        "\"name\": \"MasonryHidden\"," +
+        "\"version\": \"1.0.0\"," +
+        "\"source\": {\n" +
+        "\"git\": \"https://github.com/SunnySunning/MasonryHidden.git\"," +
+        "\"tag\": \"0.5.0\"" +
+        "}" +
+        "}";
+
+    SpecTransformer underTest = new SpecTransformer(podPathProvider);
+    String proxiedSpec = underTest.toProxiedSpec(spec, URI.create("http://repouri/"));
+
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    underTest.rebaseProxiedSpec(new ByteArrayInputStream(proxiedSpec.getBytes(UTF_8)), out,
+        URI.create("http://repouri/"), URI.create("https://otherhost/repository/cocoapods/"));
+
+    assertThat(new String(out.toByteArray(), UTF_8),
+        is(underTest.toProxiedSpec(spec, URI.create("https://otherhost/repository/cocoapods/"))));
+  }
+
+  @Test(expected = InvalidSpecFileException.class)
+  public void rebaseNotProxiedSpecTest() throws Exception {
+    String spec = "{\"name\": \"AppSpectorTVSDK\",\"version\": \"1.0.0\"," +
+        "\"source\": {\"http\": \"https://github.com/appspector/ios-sdk/blob/master/AppSpectorTVSDK.zip\"}}";
+
+    new SpecTransformer(podPathProvider).rebaseProxiedSpec(new ByteArrayInputStream(spec.getBytes(UTF_8)),
+        new ByteArrayOutputStream(), URI.create("http://repouri/"), URI.create("http://otherhost/"));
+  }
 }
@@ -36,6 +36,8 @@ public interface GolangHostedFacet
 
   Content getList(final String module);
 
+  Content getLatest(final String module);
+
   void upload(final String path, final GolangAttributes golangAttributes, final Payload payload, final AssetKind assetKind)
       throws IOException;
 }
@@ -15,9 +15,9 @@ package org.sonatype.nexus.repository.golang.internal.hosted;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.List;
-import java.util.stream.Collectors;
-import java.util.stream.StreamSupport;
 
 import javax.annotation.Nullable;
 import javax.inject.Inject;
@@ -29,6 +29,7 @@ import org.sonatype.nexus.repository.golang.internal.metadata.GolangAttributes;
 import org.sonatype.nexus.repository.golang.internal.metadata.GolangInfo;
 import org.sonatype.nexus.repository.golang.internal.util.CompressedContentExtractor;
 import org.sonatype.nexus.repository.golang.internal.util.GolangDataAccess;
+import org.sonatype.nexus.repository.golang.internal.util.GolangVersionComparator;
 import org.sonatype.nexus.repository.storage.Asset;
 import org.sonatype.nexus.repository.storage.StorageFacet;
 import org.sonatype.nexus.repository.storage.StorageTx;
@@ -47,10 +48,10 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import static com.google.common.base.Charsets.UTF_8;
 import static com.google.common.base.Preconditions.checkNotNull;
 import static java.lang.String.format;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
 import static org.sonatype.nexus.repository.golang.AssetKind.MODULE;
 import static org.sonatype.nexus.repository.golang.AssetKind.PACKAGE;
 import static org.sonatype.nexus.repository.golang.internal.util.GolangDataAccess.HASH_ALGORITHMS;
-import static org.sonatype.nexus.repository.storage.AssetEntityAdapter.P_ASSET_KIND;
 import static org.sonatype.nexus.repository.view.ContentTypes.APPLICATION_JSON;
 import static org.sonatype.nexus.repository.view.ContentTypes.TEXT_PLAIN;
 import static org.sonatype.nexus.repository.view.Payload.UNKNOWN_SIZE;
@@ -98,6 +99,7 @@ public class GolangHostedFacetImpl
     return new Content(streamPayload);
   }
 
+  @Nullable
   @Transactional
   @Override
   public Content getList(final String module) {
@@ -105,22 +107,39 @@ public class GolangHostedFacetImpl
 
     StorageTx tx = UnitOfWork.currentTx();
 
-    Iterable<Asset> assetsForModule = golangDataAccess.findAssetsForModule(tx, getRepository(), module);
+    List<String> versions = golangDataAccess.findVersionsForModule(tx, getRepository(), module);
+    if (versions.isEmpty()) {
+      return null;
+    }
+
+    String listOfVersions = String.join("\n", versions);
+
+    return new Content(new BytesPayload(listOfVersions.getBytes(UTF_8), TEXT_PLAIN));
+  }
+
+  @Nullable
+  @Transactional
+  @Override
+  public Content getLatest(final String module) {
+    checkNotNull(module);
 
-    List<String> collection = StreamSupport.stream(assetsForModule.spliterator(), false)
-        .filter(asset -> PACKAGE.name().equals(asset.formatAttributes().get(P_ASSET_KIND)))
-        .map(Asset::name)
-        .map(name -> name.split("/@v/")[1])
-        .map(name -> name.replaceAll(".zip", ""))
-        .collect(Collectors.toList());
+    StorageTx tx = UnitOfWork.currentTx();
 
-    if (collection.isEmpty()) {
+    List<String> versions = golangDataAccess.findVersionsForModule(tx, getRepository(), module);
+    String version = GolangVersionComparator.latest(versions);
+    if (version == null) {
       return null;
     }
 
-    String listOfVersions = String.join("\n", collection);
+    GolangAttributes golangAttributes = new GolangAttributes();
+    golangAttributes.setModule(module);
+    golangAttributes.setVersion(version);
 
-    return new Content(new BytesPayload(listOfVersions.getBytes(UTF_8), TEXT_PLAIN));
+    StreamPayload streamPayload = extractInfoFromZip(golangAttributes, format("%s/@v/%s.zip", module, version));
+    if (streamPayload == null) {
+      return null;
+    }
+    return new Content(streamPayload);
   }
 
   @Nullable
@@ -154,8 +173,19 @@ public class GolangHostedFacetImpl
       throw new IllegalArgumentException("Unsupported AssetKind");
     }
 
-    storeContent(path, golangAttributes, payload, assetKind);
-    extractAndSaveMod(path, golangAttributes);
+    Path zip = Files.createTempFile("golang-", ".zip");
+    try {
+      try (InputStream inputStream = payload.openInputStream()) {
+        Files.copy(inputStream, zip, REPLACE_EXISTING);
+      }
+      try (InputStream inputStream = Files.newInputStream(zip)) {
+        storeContent(path, golangAttributes, inputStream, payload, assetKind);
+      }
+      extractAndSaveMod(path, golangAttributes, zip);
+    }
+    finally {
+      Files.delete(zip);
+    }
   }
 
   private String getZipAssetPathFromInfoPath(final String path) {
@@ -201,67 +231,32 @@ public class GolangHostedFacetImpl
 
   private void storeContent(final String path,
                             final GolangAttributes golangAttributes,
+                            final InputStream inputStream,
                             final Payload payload,
                             final AssetKind assetKind) throws IOException
   {
     StorageFacet storageFacet = facet(StorageFacet.class);
-    try (TempBlob tempBlob = storageFacet.createTempBlob(payload.openInputStream(), HASH_ALGORITHMS)) {
+    try (TempBlob tempBlob = storageFacet.createTempBlob(inputStream, HASH_ALGORITHMS)) {
       golangDataAccess
           .maybeCreateAndSaveComponent(getRepository(), golangAttributes, path, tempBlob, payload, assetKind);
     }
   }
 
   /**
-   * Rather than reading the stream once to decide if the file is present and then to also
-   * pass that stream in to the {@code StreamPayload} from {@code getModAsPayload}, it is read
-   * separately. Reading the stream twice prevents the possibility of the stream getting closed
-   * before the {@code StreamPayload} has had chance to read the content.
+   * The zip is extracted from the local copy it was stored from, so only its central directory and the go.mod entry
+   * are read, instead of decompressing the stored blob up to that entry.
    */
-  private void extractAndSaveMod(final String path, final GolangAttributes golangAttributes) {
-    Payload content = getZip(path);
-
-    if (content != null && goModExistsInZip(content, path)) {
-      try {
-        storeContent(path.replaceAll("\\.zip", "\\.mod"),
-            golangAttributes,
-            getModAsPayload(content, path),
-            MODULE);
-      }
-      catch (IOException e) {
-        log.warn("Unable to open content {}", path, e);
-      }
-    }
-  }
-
-  private Payload getModAsPayload(final Payload content, final String path) {
-    return new StreamPayload(() -> doGetModAsStream(content, path),
-        UNKNOWN_SIZE, TEXT_PLAIN);
-  }
-
-  private InputStream doGetModAsStream(final Payload content, final String path) {
-    try (InputStream contentStream = content.openInputStream()) {
-      InputStream inputStream = compressedContentExtractor.extractFile(contentStream, GO_MOD_FILENAME);
-      checkNotNull(inputStream, format("Unable to find file %s in %s", GO_MOD_FILENAME, path));
-      return inputStream;
-    }
-    catch (IOException e) {
-      throw new RuntimeException(format("Unable to open content %s", path), e);
-    }
-  }
-
-  private boolean goModExistsInZip(final Payload content, final String path) {
-    return compressedContentExtractor.fileExists(content, path, GO_MOD_FILENAME);
-  }
-
-  @TransactionalTouchBlob
-  protected Payload getZip(final String path) {
-    StorageTx tx = UnitOfWork.currentTx();
-
-    Asset asset = golangDataAccess.findAsset(tx, tx.findBucket(getRepository()), path);
-    if (asset == null) {
-      log.warn("Unable to find {} for extraction", path);
-      return null;
+  private void extractAndSaveMod(final String path, final GolangAttributes golangAttributes, final Path zip)
+      throws IOException
+  {
+    byte[] goMod = compressedContentExtractor.extractFile(zip, GO_MOD_FILENAME);
+    if (goMod != null) {
+      Payload modPayload = new BytesPayload(goMod, TEXT_PLAIN);
+      storeContent(path.replaceAll("\\.zip", "\\.mod"),
+          golangAttributes,
+          modPayload.openInputStream(),
+          modPayload,
+          MODULE);
     }
-    return golangDataAccess.getBlobAsPayload(tx, asset);
   }
 }
@@ -63,6 +63,9 @@ public class HostedHandlers
       case LIST:
         content = getList(context);
         break;
+      case LATEST:
+        content = getLatest(context);
+        break;
       default:
         throw new RuntimeException(format("Unknown assetKind %s", assetKind.name()));
     }
@@ -76,6 +79,12 @@ public class HostedHandlers
     return context.getRepository().facet(GolangHostedFacet.class).getList(module);
   }
 
+  private Content getLatest(final Context context) {
+    State state = context.getAttributes().require(State.class);
+    String module = pathUtils.module(state);
+    return context.getRepository().facet(GolangHostedFacet.class).getLatest(module);
+  }
+
   private Content getPackage(final Context context) {
     State state = context.getAttributes().require(State.class);
     String path = pathUtils.assetPath(state);
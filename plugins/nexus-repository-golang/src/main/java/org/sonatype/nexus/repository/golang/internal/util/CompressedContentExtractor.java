@@ -12,20 +12,18 @@
  */
 package org.sonatype.nexus.repository.golang.internal.util;
 
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.util.function.Function;
+import java.nio.file.Path;
+import java.util.Enumeration;
 import java.util.zip.ZipEntry;
-import java.util.zip.ZipInputStream;
+import java.util.zip.ZipFile;
 
 import javax.annotation.Nullable;
 
 import org.sonatype.goodies.common.ComponentSupport;
-import org.sonatype.nexus.repository.view.Payload;
 
-import org.apache.commons.io.input.NullInputStream;
+import com.google.common.io.ByteStreams;
 
 /**
  * Extracts a file from a zip image
@@ -36,39 +34,23 @@ public class CompressedContentExtractor
     extends ComponentSupport
 {
   /**
-   * Extracts a file from a zip image
+   * Extracts a file from a zip file, only reading its central directory and the entry of the file rather than
+   * decompressing every entry up to it.
    *
-   * @param projectAsStream zip file as a stream
-   * @param fileName        file to extract
-   * @return stream of extracted file
+   * @param zip      zip file
+   * @param fileName file to extract
+   * @return content of extracted file
+   * @since 3.26
    */
   @Nullable
-  public InputStream extractFile(final InputStream projectAsStream, final String fileName) {
-    return extract(projectAsStream, fileName, this::fetchFileAsStream);
-  }
-
-  /**
-   * Checks if a file exists in the zip
-   *
-   * @param payload  zip file as a payload
-   * @param path     path of stream to be extracted
-   * @param fileName file to check exists
-   * @return true if it exists
-   */
-  public boolean fileExists(final Payload payload, final String path, final String fileName) {
-    try (InputStream projectAsStream = payload.openInputStream()) {
-      return extract(projectAsStream, fileName, (ZipInputStream z) -> new NullInputStream(-1)) != null;
-    }
-    catch (IOException e) {
-      log.warn("Unable to open content {}", path, e);
-    }
-    return false;
-  }
-
-  private ByteArrayInputStream fetchFileAsStream(final ZipInputStream zipInputStream) {
-    try {
-      ByteArrayOutputStream outputStream = extractEntry(zipInputStream);
-      return new ByteArrayInputStream(outputStream.toByteArray());
+  public byte[] extractFile(final Path zip, final String fileName) {
+    try (ZipFile zipFile = new ZipFile(zip.toFile())) {
+      ZipEntry entry = findEntry(zipFile, fileName);
+      if (entry != null) {
+        try (InputStream inputStream = zipFile.getInputStream(entry)) {
+          return ByteStreams.toByteArray(inputStream);
+        }
+      }
     }
     catch (IOException e) {
       log.warn("Unable to uncompress zip", e);
@@ -76,36 +58,15 @@ public class CompressedContentExtractor
     return null;
   }
 
-  private ByteArrayOutputStream extractEntry(final ZipInputStream zipInputStream) throws IOException {
-    ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-    byte[] bytes = new byte[1024];
-    while (true) {
-      int read = zipInputStream.read(bytes);
-      if (read < 0) {
-        break;
-      }
-      outputStream.write(bytes, 0, read);
-    }
-    return outputStream;
-  }
-
-  private InputStream extract(final InputStream projectAsStream,
-                              final String fileName,
-                              final Function<ZipInputStream, InputStream> method)
-  {
-    try (ZipInputStream zipInputStream = new ZipInputStream(projectAsStream)) {
-      ZipEntry nextEntry = zipInputStream.getNextEntry();
-      while (nextEntry != null) {
-        if (nextEntry.getName().endsWith(fileName)) {
-          return method.apply(zipInputStream);
-        }
-        zipInputStream.closeEntry();
-        nextEntry = zipInputStream.getNextEntry();
+  @Nullable
+  private ZipEntry findEntry(final ZipFile zipFile, final String fileName) {
+    Enumeration<? extends ZipEntry> entries = zipFile.entries();
+    while (entries.hasMoreElements()) {
+      ZipEntry entry = entries.nextElement();
+      if (entry.getName().endsWith(fileName)) {
+        return entry;
       }
     }
-    catch (IOException e) {
-      log.warn("Unable to uncompress zip", e);
-    }
     return null;
   }
 }
@@ -14,7 +14,10 @@ package org.sonatype.nexus.repository.golang.internal.util;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import javax.annotation.Nullable;
 import javax.inject.Named;
@@ -22,6 +25,7 @@ import javax.inject.Named;
 import org.sonatype.nexus.blobstore.api.Blob;
 import org.sonatype.nexus.common.collect.AttributesMap;
 import org.sonatype.nexus.common.hash.HashAlgorithm;
+import org.sonatype.nexus.orient.entity.AttachedEntityHelper;
 import org.sonatype.nexus.repository.Repository;
 import org.sonatype.nexus.repository.golang.AssetKind;
 import org.sonatype.nexus.repository.golang.internal.metadata.GolangAttributes;
@@ -41,11 +45,14 @@ import org.sonatype.nexus.transaction.UnitOfWork;
 
 import com.google.common.base.Supplier;
 import com.google.common.collect.ImmutableList;
+import com.orientechnologies.orient.core.metadata.schema.OType;
+import com.orientechnologies.orient.core.record.impl.ODocument;
 
 import static java.util.Collections.singletonList;
 import static org.sonatype.nexus.common.hash.HashAlgorithm.SHA1;
 import static org.sonatype.nexus.repository.storage.AssetEntityAdapter.P_ASSET_KIND;
 import static org.sonatype.nexus.repository.storage.ComponentEntityAdapter.P_VERSION;
+import static org.sonatype.nexus.repository.storage.MetadataNodeEntityAdapter.P_BUCKET;
 import static org.sonatype.nexus.repository.storage.MetadataNodeEntityAdapter.P_NAME;
 
 /**
@@ -58,6 +65,9 @@ public class GolangDataAccess
 {
   public static final List<HashAlgorithm> HASH_ALGORITHMS = ImmutableList.of(SHA1);
 
+  private static final String SQL_FIND_MODULE_VERSIONS = String
+      .format("SELECT %s FROM component WHERE %s = :bucketRid AND %s = :module", P_VERSION, P_BUCKET, P_NAME);
+
   /**
    * Find a component by its name and tag (version)
    *
@@ -93,19 +103,26 @@ public class GolangDataAccess
   }
 
   /**
-   * Finds all the assets for a given module
+   * Finds the versions uploaded for a given module, ordered by {@link GolangVersionComparator}. Each version has its
+   * own component and deleting any of its assets deletes the component, so the versions are read from the component
+   * bucket/name/version index rather than by loading every asset of the module.
    *
-   * @return assets associated with a given module
+   * @return versions of the module
    */
-  public Iterable<Asset> findAssetsForModule(final StorageTx tx,
-                                             final Repository repository,
-                                             final String moduleName)
+  public List<String> findVersionsForModule(final StorageTx tx,
+                                            final Repository repository,
+                                            final String moduleName)
   {
-    Query query = Query.builder()
-        .where(P_NAME).like(moduleName + "/%")
-        .build();
+    Map<String, Object> sqlParams = new HashMap<>();
+    sqlParams.put("bucketRid", AttachedEntityHelper.id(tx.findBucket(repository)));
+    sqlParams.put("module", moduleName);
 
-    return tx.findAssets(query, ImmutableList.of(repository));
+    List<String> versions = new ArrayList<>();
+    for (ODocument document : tx.browse(SQL_FIND_MODULE_VERSIONS, sqlParams)) {
+      versions.add(document.field(P_VERSION, OType.STRING));
+    }
+    versions.sort(GolangVersionComparator.INSTANCE);
+    return versions;
   }
 
   /**
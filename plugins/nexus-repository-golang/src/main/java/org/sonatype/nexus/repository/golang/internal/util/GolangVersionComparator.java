@@ -0,0 +1,149 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-present Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.repository.golang.internal.util;
+
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import javax.annotation.Nullable;
+
+/**
+ * Orders go module versions by semantic version precedence, ignoring build metadata such as {@code +incompatible}.
+ * Pseudo-versions are pre-releases, so they sort below the release they are based on. Versions which are not
+ * semantic versions sort below all others.
+ *
+ * @since 3.26
+ */
+public class GolangVersionComparator
+    implements Comparator<String>
+{
+  public static final GolangVersionComparator INSTANCE = new GolangVersionComparator();
+
+  private static final Pattern VERSION = Pattern
+      .compile("v(\\d+)(?:\\.(\\d+))?(?:\\.(\\d+))?(?:-([0-9A-Za-z.-]+))?(?:\\+[0-9A-Za-z.-]+)?");
+
+  private static final int PRERELEASE_GROUP = 4;
+
+  /**
+   * Picks the version go resolves {@code @latest} to: the highest release, or the highest pre-release when there are
+   * no releases.
+   *
+   * @return latest version or null if there are no versions
+   */
+  @Nullable
+  public static String latest(final Collection<String> versions) {
+    String latestRelease = null;
+    String latest = null;
+    for (String version : versions) {
+      if (latest == null || INSTANCE.compare(version, latest) > 0) {
+        latest = version;
+      }
+      if (!isPrerelease(version) && (latestRelease == null || INSTANCE.compare(version, latestRelease) > 0)) {
+        latestRelease = version;
+      }
+    }
+    return latestRelease != null ? latestRelease : latest;
+  }
+
+  private static boolean isPrerelease(final String version) {
+    Matcher matcher = VERSION.matcher(version);
+    return !matcher.matches() || matcher.group(PRERELEASE_GROUP) != null;
+  }
+
+  @Override
+  public int compare(final String left, final String right) {
+    Matcher leftMatcher = VERSION.matcher(left);
+    Matcher rightMatcher = VERSION.matcher(right);
+    boolean leftValid = leftMatcher.matches();
+    boolean rightValid = rightMatcher.matches();
+    if (!leftValid || !rightValid) {
+      if (leftValid) {
+        return 1;
+      }
+      return rightValid ? -1 : left.compareTo(right);
+    }
+
+    for (int group = 1; group < PRERELEASE_GROUP; group++) {
+      int result = compareNumbers(leftMatcher.group(group), rightMatcher.group(group));
+      if (result != 0) {
+        return result;
+      }
+    }
+    return comparePrereleases(leftMatcher.group(PRERELEASE_GROUP), rightMatcher.group(PRERELEASE_GROUP));
+  }
+
+  private static int compareNumbers(@Nullable final String left, @Nullable final String right) {
+    String leftNumber = stripLeadingZeros(left);
+    String rightNumber = stripLeadingZeros(right);
+    if (leftNumber.length() != rightNumber.length()) {
+      return Integer.compare(leftNumber.length(), rightNumber.length());
+    }
+    return leftNumber.compareTo(rightNumber);
+  }
+
+  private static String stripLeadingZeros(@Nullable final String number) {
+    if (number == null) {
+      return "";
+    }
+    int start = 0;
+    while (start < number.length() && number.charAt(start) == '0') {
+      start++;
+    }
+    return number.substring(start);
+  }
+
+  private static int comparePrereleases(@Nullable final String left, @Nullable final String right) {
+    if (left == null || right == null) {
+      if (left == null) {
+        return right == null ? 0 : 1;
+      }
+      return -1;
+    }
+
+    String[] leftIdentifiers = left.split("\\.");
+    String[] rightIdentifiers = right.split("\\.");
+    for (int i = 0; i < Math.min(leftIdentifiers.length, rightIdentifiers.length); i++) {
+      int result = compareIdentifiers(leftIdentifiers[i], rightIdentifiers[i]);
+      if (result != 0) {
+        return result;
+      }
+    }
+    return Integer.compare(leftIdentifiers.length, rightIdentifiers.length);
+  }
+
+  private static int compareIdentifiers(final String left, final String right) {
+    boolean leftNumeric = isNumeric(left);
+    boolean rightNumeric = isNumeric(right);
+    if (leftNumeric && rightNumeric) {
+      return compareNumbers(left, right);
+    }
+    if (leftNumeric || rightNumeric) {
+      return leftNumeric ? -1 : 1;
+    }
+    return left.compareTo(right);
+  }
+
+  private static boolean isNumeric(final String identifier) {
+    if (identifier.isEmpty()) {
+      return false;
+    }
+    for (int i = 0; i < identifier.length(); i++) {
+      if (!Character.isDigit(identifier.charAt(i))) {
+        return false;
+      }
+    }
+    return true;
+  }
+}
@@ -12,14 +12,15 @@
  */
 package org.sonatype.nexus.repository.golang.internal.hosted;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.nio.file.Path;
 
 import org.sonatype.goodies.testsupport.TestSupport;
 import org.sonatype.nexus.blobstore.api.Blob;
 import org.sonatype.nexus.blobstore.api.BlobRef;
-import org.sonatype.nexus.common.collect.NestedAttributesMap;
 import org.sonatype.nexus.repository.Repository;
 import org.sonatype.nexus.repository.golang.internal.metadata.GolangAttributes;
 import org.sonatype.nexus.repository.golang.internal.util.CompressedContentExtractor;
@@ -74,7 +75,7 @@ public class GolangHostedFacetImplTest
   private Repository repository;
 
   @Mock
-  private Asset asset1, asset2;
+  private Asset asset1;
 
   @Mock
   private Payload payload;
@@ -99,28 +100,6 @@ public class GolangHostedFacetImplTest
     UnitOfWork.end();
   }
 
-  @Test
-  public void getZipFailsToFindAsset() {
-    when(dataAccess.findAsset(any(), any(), any())).thenReturn(null);
-
-    assertThat(underTest.getZip(SOME_PATH), is(nullValue()));
-
-    verify(dataAccess).findAsset(any(), any(), any());
-    verifyNoMoreInteractions(dataAccess);
-  }
-
-  @Test
-  public void getZipFindsAsset() {
-    when(dataAccess.findAsset(any(), any(), any())).thenReturn(asset1);
-    when(dataAccess.getBlobAsPayload(tx, asset1)).thenReturn(payload);
-
-    assertThat(underTest.getZip(SOME_PATH), is(payload));
-
-    verify(dataAccess).findAsset(any(), any(), any());
-    verify(dataAccess).getBlobAsPayload(tx, asset1);
-    verifyNoMoreInteractions(dataAccess);
-  }
-
   @Test
   public void getInfo() throws IOException {
     DateTime blobCreated = DateTime.now();
@@ -153,21 +132,34 @@ public class GolangHostedFacetImplTest
   @Test
   public void getList() throws IOException {
     String expected = "v1.0.0\nv1.0.1";
-    String name = "module/@v/v1.0.0.list";
+    String module = "modulename";
+
+    when(dataAccess.findVersionsForModule(tx, repository, module)).thenReturn(ImmutableList.of("v1.0.0", "v1.0.1"));
+
+    Content content = underTest.getList(module);
+
+    String response = CharStreams.toString(new InputStreamReader(content.openInputStream(), Charsets.UTF_8));
+
+    assertThat(response, is(equalTo(expected)));
+  }
 
-    NestedAttributesMap attributesMap = mock(NestedAttributesMap.class);
-    when(attributesMap.get("asset_kind")).thenReturn(PACKAGE.name());
-    when(asset1.name()).thenReturn("modulename/@v/v1.0.0.zip");
-    when(asset1.formatAttributes()).thenReturn(attributesMap);
-    when(asset2.name()).thenReturn("modulename/@v/v1.0.1.zip");
-    when(asset2.formatAttributes()).thenReturn(attributesMap);
+  @Test
+  public void getListWithoutVersions() {
+    when(dataAccess.findVersionsForModule(tx, repository, "modulename")).thenReturn(ImmutableList.of());
 
-    when(dataAccess.findAssetsForModule(tx, repository, name)).thenReturn(
-        ImmutableList.of(asset1, asset2)
-    );
+    assertThat(underTest.getList("modulename"), is(nullValue()));
+  }
 
-    Content content = underTest.getList(name);
+  @Test
+  public void getLatest() throws IOException {
+    DateTime blobCreated = DateTime.now();
+    String expected = String.format("{\"Version\":\"v1.1.0\",\"Time\":\"%s\"}", blobCreated.toString());
+    when(dataAccess.findVersionsForModule(tx, repository, "modulename"))
+        .thenReturn(ImmutableList.of("v1.0.0", "v1.1.0", "v1.2.0-beta"));
+    when(dataAccess.findAsset(any(), any(), eq("modulename/@v/v1.1.0.zip"))).thenReturn(asset1);
+    when(asset1.blobCreated()).thenReturn(blobCreated);
 
+    Content content = underTest.getLatest("modulename");
     String response = CharStreams.toString(new InputStreamReader(content.openInputStream(), Charsets.UTF_8));
 
     assertThat(response, is(equalTo(expected)));
@@ -183,22 +175,38 @@ public class GolangHostedFacetImplTest
     StorageFacet storageFacet = mock(StorageFacet.class);
     TempBlob tempBlob = mock(TempBlob.class);
 
-    InputStream payloadStream = mock(InputStream.class);
-    when(payload.openInputStream()).thenReturn(payloadStream);
+    when(payload.openInputStream()).thenReturn(new ByteArrayInputStream(new byte[]{1, 2, 3}));
     when(repository.facet(StorageFacet.class)).thenReturn(storageFacet);
-    when(storageFacet.createTempBlob(payloadStream, GolangDataAccess.HASH_ALGORITHMS)).thenReturn(tempBlob);
+    when(storageFacet.createTempBlob(any(InputStream.class), eq(GolangDataAccess.HASH_ALGORITHMS)))
+        .thenReturn(tempBlob);
 
-    when(dataAccess.findAsset(any(), any(), any())).thenReturn(asset1);
-    when(dataAccess.getBlobAsPayload(tx, asset1)).thenReturn(payload);
+    when(compressExtractor.extractFile(any(Path.class), eq(GO_MOD))).thenReturn("module modulename".getBytes());
 
+    underTest.upload(path, goAttributes, payload, PACKAGE);
 
-    when(compressExtractor.fileExists(payload, path, GO_MOD)).thenReturn(true);
-    when(compressExtractor.extractFile(payloadStream, GO_MOD)).thenReturn(payloadStream);
+    verify(dataAccess).maybeCreateAndSaveComponent(repository, goAttributes, path, tempBlob, payload, PACKAGE);
+    verify(dataAccess)
+        .maybeCreateAndSaveComponent(eq(repository), eq(goAttributes), eq(gomod_path), eq(tempBlob), any(), eq(MODULE));
+  }
+
+  @Test
+  public void uploadWithoutGoMod() throws IOException {
+    String path = "modulename/@v/v1.0.0.zip";
+    GolangAttributes goAttributes = new GolangAttributes();
+    goAttributes.setModule("modulename");
+    goAttributes.setVersion("v1.0.0");
+    StorageFacet storageFacet = mock(StorageFacet.class);
+    TempBlob tempBlob = mock(TempBlob.class);
+
+    when(payload.openInputStream()).thenReturn(new ByteArrayInputStream(new byte[]{1, 2, 3}));
+    when(repository.facet(StorageFacet.class)).thenReturn(storageFacet);
+    when(storageFacet.createTempBlob(any(InputStream.class), eq(GolangDataAccess.HASH_ALGORITHMS)))
+        .thenReturn(tempBlob);
 
     underTest.upload(path, goAttributes, payload, PACKAGE);
 
     verify(dataAccess).maybeCreateAndSaveComponent(repository, goAttributes, path, tempBlob, payload, PACKAGE);
-    verify(dataAccess).maybeCreateAndSaveComponent(eq(repository), eq(goAttributes), eq(gomod_path), eq(tempBlob), any(), eq(MODULE));
+    verifyNoMoreInteractions(dataAccess);
   }
 
   private void verifyGet(final String path) {
@@ -13,27 +13,23 @@
 package org.sonatype.nexus.repository.golang.internal.util;
 
 import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
 
-import org.sonatype.nexus.repository.view.ContentTypes;
-import org.sonatype.nexus.repository.view.payloads.StreamPayload;
-
-import com.google.common.base.Charsets;
-import com.google.common.io.ByteSource;
+import com.google.common.io.ByteStreams;
 import org.junit.Before;
 import org.junit.Test;
 
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
 import static org.hamcrest.CoreMatchers.equalTo;
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.CoreMatchers.nullValue;
 import static org.hamcrest.MatcherAssert.assertThat;
-import static org.sonatype.nexus.repository.view.Payload.UNKNOWN_SIZE;
 
 public class CompressedContentExtractorTest
 {
   private static final String SONATYPE_ZIP = "sonatype.zip";
 
-  private static final String ANYPATH = "anypath";
-
   private static final String GO_MOD = "go.mod";
 
   private CompressedContentExtractor underTest;
@@ -44,53 +40,22 @@ public class CompressedContentExtractorTest
   }
 
   @Test
-  public void canExtractFile() throws Exception {
-    InputStream project = getClass().getResourceAsStream(SONATYPE_ZIP);
-    InputStream goMod = getClass().getResourceAsStream(GO_MOD);
-
-    InputStream result = underTest.extractFile(project, GO_MOD);
-
-    String goModFromProject = new ByteSource()
-    {
-      @Override
-      public InputStream openStream() {
-        return result;
-      }
-    }.asCharSource(Charsets.UTF_8).read();
-
-    String goModAsString = new ByteSource()
-    {
-      @Override
-      public InputStream openStream() {
-        return goMod;
-      }
-    }.asCharSource(Charsets.UTF_8).read();
-
-    assertThat(goModFromProject, is(equalTo(goModAsString)));
+  public void canExtractFileFromZipFile() throws Exception {
+    Path project = copyToTempFile(SONATYPE_ZIP);
+    try (InputStream goMod = getClass().getResourceAsStream(GO_MOD)) {
+      assertThat(underTest.extractFile(project, GO_MOD), is(equalTo(ByteStreams.toByteArray(goMod))));
+      assertThat(underTest.extractFile(project, "does_not_exist.txt"), is(nullValue()));
+    }
+    finally {
+      Files.delete(project);
+    }
   }
 
-  @Test
-  public void entryNotFound() {
-    InputStream project = getClass().getResourceAsStream(SONATYPE_ZIP);
-
-    InputStream response = underTest.extractFile(project, "does_not_exist.txt");
-
-    assertThat(response, is(nullValue()));
-  }
-
-  @Test
-  public void fileExists() {
-    StreamPayload payload = new StreamPayload(() -> getClass().getResourceAsStream(SONATYPE_ZIP),
-        UNKNOWN_SIZE, ContentTypes.TEXT_PLAIN);
-
-    assertThat(underTest.fileExists(payload, ANYPATH, GO_MOD), is(true));
-  }
-
-  @Test
-  public void fileDoesNotExist() {
-    StreamPayload payload = new StreamPayload(() -> getClass().getResourceAsStream(SONATYPE_ZIP),
-        UNKNOWN_SIZE, ContentTypes.TEXT_PLAIN);
-
-    assertThat(underTest.fileExists(payload, ANYPATH, "does_not_exist.mod"), is(false));
+  private Path copyToTempFile(final String resource) throws Exception {
+    Path path = Files.createTempFile("project", ".zip");
+    try (InputStream in = getClass().getResourceAsStream(resource)) {
+      Files.copy(in, path, REPLACE_EXISTING);
+    }
+    return path;
   }
 }
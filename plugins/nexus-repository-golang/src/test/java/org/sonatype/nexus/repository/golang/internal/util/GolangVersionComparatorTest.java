@@ -0,0 +1,74 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-present Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.repository.golang.internal.util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.sonatype.goodies.testsupport.TestSupport;
+
+import com.google.common.collect.ImmutableList;
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class GolangVersionComparatorTest
+    extends TestSupport
+{
+  @Test
+  public void sortsBySemanticVersionPrecedence() {
+    List<String> versions = new ArrayList<>(ImmutableList.of(
+        "v1.10.0",
+        "v1.2.0",
+        "v1.2.0-rc.1",
+        "v1.2.0-beta.11",
+        "v1.2.0-beta.2",
+        "v0.0.0-20190101000000-abcdefabcdef",
+        "v2.0.0+incompatible",
+        "latest"
+    ));
+
+    versions.sort(GolangVersionComparator.INSTANCE);
+
+    assertThat(versions, is(equalTo(ImmutableList.of(
+        "latest",
+        "v0.0.0-20190101000000-abcdefabcdef",
+        "v1.2.0-beta.2",
+        "v1.2.0-beta.11",
+        "v1.2.0-rc.1",
+        "v1.2.0",
+        "v1.10.0",
+        "v2.0.0+incompatible"
+    ))));
+  }
+
+  @Test
+  public void latestPrefersReleases() {
+    assertThat(GolangVersionComparator.latest(ImmutableList.of("v1.0.0", "v1.1.0", "v2.0.0-beta")),
+        is(equalTo("v1.1.0")));
+  }
+
+  @Test
+  public void latestFallsBackToPrereleases() {
+    assertThat(GolangVersionComparator.latest(ImmutableList.of("v0.0.0-20190101000000-abcdefabcdef", "v1.0.0-rc.1")),
+        is(equalTo("v1.0.0-rc.1")));
+  }
+
+  @Test
+  public void latestOfNoVersions() {
+    assertThat(GolangVersionComparator.latest(ImmutableList.of()), is(nullValue()));
+  }
+}
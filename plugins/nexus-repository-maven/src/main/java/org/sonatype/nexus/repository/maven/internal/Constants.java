@@ -13,6 +13,7 @@
 package org.sonatype.nexus.repository.maven.internal;
 
 import java.util.Locale;
+import java.util.regex.Pattern;
 
 import org.sonatype.nexus.repository.view.ContentTypes;
 
@@ -80,4 +81,12 @@ public class Constants
    * The full path of maven index chunk file assets.
    */
   public static final String INDEX_MAIN_CHUNK_FILE_PATH = INDEX_FILE_BASE_PATH + ".gz";
+
+  /**
+   * The pattern of full path of maven index incremental chunk file assets.
+   *
+   * @since 3.26
+   */
+  public static final Pattern INDEX_INCREMENTAL_CHUNK_FILE_PATH_PATTERN =
+      Pattern.compile(Pattern.quote(INDEX_FILE_BASE_PATH) + "\\.\\d+\\.gz");
 }
@@ -12,10 +12,8 @@
  */
 package org.sonatype.nexus.repository.maven.internal.filter;
 
-import java.io.Closeable;
-import java.io.IOException;
-
 import com.google.common.base.Predicate;
+import com.google.common.collect.Iterables;
 
 /**
  * Strategy for filtering Maven records
@@ -23,10 +21,15 @@ import com.google.common.base.Predicate;
  * @since 3.11
  */
 public interface DuplicateDetectionStrategy<T>
-    extends Predicate<T>, Closeable
+    extends Predicate<T>, RecordDeduplicator<T>
 {
+  /**
+   * Filters {@code records} by this predicate.
+   *
+   * @since 3.26
+   */
   @Override
-  default void close() throws IOException {
-    // no-op
+  default Iterable<T> deduplicate(final Iterable<T> records) {
+    return Iterables.filter(records, this);
   }
 }
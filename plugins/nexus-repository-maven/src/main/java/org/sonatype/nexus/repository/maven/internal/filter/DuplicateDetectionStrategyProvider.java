@@ -32,7 +32,7 @@ import static com.google.common.base.Preconditions.checkNotNull;
 @Named
 public class DuplicateDetectionStrategyProvider
     extends ComponentSupport
-    implements Provider<DuplicateDetectionStrategy<Record>>
+    implements Provider<RecordDeduplicator<Record>>
 {
   private final String strategy;
 
@@ -42,26 +42,32 @@ public class DuplicateDetectionStrategyProvider
 
   private final int maxDiskSizeGb;
 
+  private final int maxRecordsPerRun;
+
   @Inject
   public DuplicateDetectionStrategyProvider(
       final ApplicationDirectories applicationDirectories,
       @Named("${nexus.maven.duplicate.detection.strategy:-BLOOM}") final String strategy,
       @Named("${nexus.maven.duplicate.detection.heap.max.gb:-1}") final int maxHeapGb,
-      @Named("${nexus.maven.duplicate.detection.disk.max.gb:-10}") final int maxDiskSizeGb)
+      @Named("${nexus.maven.duplicate.detection.disk.max.gb:-10}") final int maxDiskSizeGb,
+      @Named("${nexus.maven.duplicate.detection.sort.run.size:-100000}") final int maxRecordsPerRun)
   {
     this.applicationDirectories = checkNotNull(applicationDirectories);
     this.strategy = checkNotNull(strategy);
     this.maxHeapGb = maxHeapGb;
     this.maxDiskSizeGb = maxDiskSizeGb;
+    this.maxRecordsPerRun = maxRecordsPerRun;
   }
 
   @Override
-  public DuplicateDetectionStrategy<Record> get() {
+  public RecordDeduplicator<Record> get() {
     switch (getStrategy()) {
       case HASH:
         return new HashBasedDuplicateDetectionStrategy();
       case DISK:
         return new DiskBackedDuplicateDetectionStrategy(applicationDirectories, maxHeapGb, maxDiskSizeGb);
+      case SORT:
+        return new ExternalSortRecordDeduplicator(applicationDirectories, maxRecordsPerRun);
       case BLOOM:
       default:
         return new BloomFilterDuplicateDetectionStrategy();
@@ -84,6 +90,7 @@ public class DuplicateDetectionStrategyProvider
   {
     HASH,
     BLOOM,
-    DISK
+    DISK,
+    SORT
   }
 }
@@ -0,0 +1,266 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-present Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.repository.maven.internal.filter;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.sonatype.nexus.common.app.ApplicationDirectories;
+import org.sonatype.nexus.common.io.DirectoryHelper;
+
+import com.google.common.io.Closer;
+import org.apache.maven.index.reader.Record;
+import org.apache.maven.index.reader.RecordCompactor;
+import org.apache.maven.index.reader.RecordExpander;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.sonatype.nexus.repository.maven.internal.utils.RecordUtils.gavceForRecord;
+
+/**
+ * Filters Maven records based on unique GAV-CE using an external merge sort. Records are collected into sorted runs of
+ * at most {@code maxRecordsPerRun} records, which are spilled to temporary files once full, and the runs are k-way
+ * merged when the de-duplicated records are iterated. Like {@link HashBasedDuplicateDetectionStrategy} it is exact,
+ * but memory use is bounded by the run size, and unlike {@link DiskBackedDuplicateDetectionStrategy} disk IO is
+ * sequential only.
+ *
+ * As it has to see all records before it can decide, this is not a {@link DuplicateDetectionStrategy} predicate,
+ * and records are returned ordered by GAV-CE rather than in their original order.
+ *
+ * @since 3.26
+ */
+public class ExternalSortRecordDeduplicator
+    implements RecordDeduplicator<Record>
+{
+  private static final RecordCompactor RECORD_COMPACTOR = new RecordCompactor();
+
+  private static final RecordExpander RECORD_EXPANDER = new RecordExpander();
+
+  private static final int BUFFER_SIZE = 64 * 1024;
+
+  private final File directory;
+
+  private final int maxRecordsPerRun;
+
+  private final Closer closer = Closer.create();
+
+  private final AtomicInteger runCounter = new AtomicInteger();
+
+  public ExternalSortRecordDeduplicator(final ApplicationDirectories directories, final int maxRecordsPerRun) {
+    checkArgument(maxRecordsPerRun > 0, "maxRecordsPerRun must be positive");
+    this.directory = new File(directories.getTemporaryDirectory(), UUID.randomUUID().toString());
+    this.maxRecordsPerRun = maxRecordsPerRun;
+  }
+
+  @Override
+  public Iterable<Record> deduplicate(final Iterable<Record> records) {
+    return () -> {
+      try {
+        return sortAndMerge(records.iterator());
+      }
+      catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    };
+  }
+
+  @Override
+  public void close() throws IOException {
+    try {
+      closer.close();
+    }
+    finally {
+      DirectoryHelper.deleteIfExists(directory.toPath());
+    }
+  }
+
+  private Iterator<Record> sortAndMerge(final Iterator<Record> records) throws IOException {
+    List<File> runs = new ArrayList<>();
+    TreeMap<String, Record> run = new TreeMap<>();
+    while (records.hasNext()) {
+      Record record = records.next();
+      run.putIfAbsent(gavceForRecord(record), record);
+      if (run.size() >= maxRecordsPerRun) {
+        runs.add(spill(run));
+        run.clear();
+      }
+    }
+    if (runs.isEmpty()) {
+      return run.values().iterator();
+    }
+    if (!run.isEmpty()) {
+      runs.add(spill(run));
+      run.clear();
+    }
+    List<RunReader> readers = new ArrayList<>(runs.size());
+    for (int i = 0; i < runs.size(); i++) {
+      readers.add(closer.register(new RunReader(i, runs.get(i))));
+    }
+    return new MergingIterator(readers);
+  }
+
+  /**
+   * Writes out sorted run to a new temporary file.
+   */
+  private File spill(final TreeMap<String, Record> run) throws IOException {
+    DirectoryHelper.mkdir(directory);
+    File file = new File(directory, "run-" + runCounter.getAndIncrement());
+    try (DataOutputStream out = new DataOutputStream(
+        new BufferedOutputStream(Files.newOutputStream(file.toPath()), BUFFER_SIZE))) {
+      for (Entry<String, Record> entry : run.entrySet()) {
+        Map<String, String> compacted = RECORD_COMPACTOR.apply(entry.getValue());
+        out.writeInt(compacted.size());
+        writeString(out, entry.getKey());
+        for (Entry<String, String> field : compacted.entrySet()) {
+          writeString(out, field.getKey());
+          writeString(out, field.getValue());
+        }
+      }
+    }
+    return file;
+  }
+
+  private static void writeString(final DataOutputStream out, final String value) throws IOException {
+    byte[] bytes = value.getBytes(UTF_8);
+    out.writeInt(bytes.length);
+    out.write(bytes);
+  }
+
+  private static String readString(final DataInputStream in) throws IOException {
+    byte[] bytes = new byte[in.readInt()];
+    in.readFully(bytes);
+    return new String(bytes, UTF_8);
+  }
+
+  /**
+   * Sequential reader of a spilled run, exposing the current (smallest not yet consumed) record of it.
+   */
+  private static class RunReader
+      implements Closeable
+  {
+    private final int index;
+
+    private final DataInputStream in;
+
+    private String key;
+
+    private Record record;
+
+    private RunReader(final int index, final File file) throws IOException {
+      this.index = index;
+      this.in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file.toPath()), BUFFER_SIZE));
+      advance();
+    }
+
+    /**
+     * Reads next record of the run, returns {@code false} if run is exhausted.
+     */
+    private boolean advance() throws IOException {
+      int fieldCount;
+      try {
+        fieldCount = in.readInt();
+      }
+      catch (EOFException e) { // NOSONAR
+        key = null;
+        record = null;
+        return false;
+      }
+      key = readString(in);
+      Map<String, String> compacted = new HashMap<>(fieldCount * 2);
+      for (int i = 0; i < fieldCount; i++) {
+        compacted.put(readString(in), readString(in));
+      }
+      record = RECORD_EXPANDER.apply(compacted);
+      return true;
+    }
+
+    @Override
+    public void close() throws IOException {
+      in.close();
+    }
+  }
+
+  /**
+   * K-way merge of sorted runs, emitting first record of each GAV-CE; on ties earlier runs win, as they hold records
+   * that were seen first.
+   */
+  private static class MergingIterator
+      implements Iterator<Record>
+  {
+    private final PriorityQueue<RunReader> queue;
+
+    private MergingIterator(final List<RunReader> readers) {
+      this.queue = new PriorityQueue<>(readers.size(),
+          Comparator.comparing((RunReader reader) -> reader.key).thenComparingInt(reader -> reader.index));
+      for (RunReader reader : readers) {
+        if (reader.record != null) {
+          queue.add(reader);
+        }
+      }
+    }
+
+    @Override
+    public boolean hasNext() {
+      return !queue.isEmpty();
+    }
+
+    @Override
+    public Record next() {
+      if (queue.isEmpty()) {
+        throw new NoSuchElementException();
+      }
+      RunReader head = queue.poll();
+      String key = head.key;
+      Record result = head.record;
+      requeue(head);
+      while (!queue.isEmpty() && key.equals(queue.peek().key)) {
+        requeue(queue.poll());
+      }
+      return result;
+    }
+
+    private void requeue(final RunReader reader) {
+      try {
+        if (reader.advance()) {
+          queue.add(reader);
+        }
+        else {
+          reader.close();
+        }
+      }
+      catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    }
+  }
+}
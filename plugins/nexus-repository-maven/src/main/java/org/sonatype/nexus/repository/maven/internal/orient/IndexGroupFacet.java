@@ -24,7 +24,7 @@ import org.sonatype.nexus.repository.Repository;
 import org.sonatype.nexus.repository.group.GroupFacet;
 import org.sonatype.nexus.repository.maven.MavenIndexFacet;
 import org.sonatype.nexus.repository.maven.internal.filter.DuplicateDetectionStrategyProvider;
-import org.sonatype.nexus.repository.maven.internal.filter.DuplicateDetectionStrategy;
+import org.sonatype.nexus.repository.maven.internal.filter.RecordDeduplicator;
 import org.sonatype.nexus.repository.storage.StorageFacet;
 import org.sonatype.nexus.transaction.UnitOfWork;
 
@@ -51,7 +51,7 @@ public class IndexGroupFacet
   @Override
   public void publishIndex() throws IOException {
     UnitOfWork.begin(getRepository().facet(StorageFacet.class).txSupplier());
-    try (DuplicateDetectionStrategy<Record> strategy = duplicateDetectionStrategyProvider.get()) {
+    try (RecordDeduplicator<Record> strategy = duplicateDetectionStrategyProvider.get()) {
       List<Repository> leafMembers = facet(GroupFacet.class).leafMembers();
       ArrayList<String> withoutIndex = new ArrayList<>();
       for (Iterator<Repository> ri = leafMembers.iterator(); ri.hasNext(); ) {
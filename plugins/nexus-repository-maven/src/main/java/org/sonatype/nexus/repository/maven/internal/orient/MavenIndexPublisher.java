@@ -22,13 +22,20 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Date;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
 import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicLong;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 
 import org.sonatype.nexus.common.text.Strings2;
 import org.sonatype.nexus.orient.entity.AttachedEntityHelper;
@@ -37,7 +44,7 @@ import org.sonatype.nexus.orient.maven.MavenFacet;
 import org.sonatype.nexus.repository.maven.MavenPath;
 import org.sonatype.nexus.repository.maven.MavenPath.SignatureType;
 import org.sonatype.nexus.repository.maven.internal.Attributes.AssetKind;
-import org.sonatype.nexus.repository.maven.internal.filter.DuplicateDetectionStrategy;
+import org.sonatype.nexus.repository.maven.internal.filter.RecordDeduplicator;
 import org.sonatype.nexus.repository.proxy.ProxyFacet;
 import org.sonatype.nexus.repository.storage.StorageFacet;
 import org.sonatype.nexus.repository.storage.StorageTx;
@@ -55,6 +62,7 @@ import com.google.common.base.Predicate;
 import com.google.common.io.Closer;
 import com.orientechnologies.orient.core.record.impl.ODocument;
 import org.apache.maven.index.reader.ChunkReader;
+import org.apache.maven.index.reader.ChunkWriter;
 import org.apache.maven.index.reader.IndexReader;
 import org.apache.maven.index.reader.IndexWriter;
 import org.apache.maven.index.reader.Record;
@@ -71,10 +79,12 @@ import org.slf4j.LoggerFactory;
 
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
 import static com.google.common.collect.Iterables.concat;
 import static com.google.common.collect.Iterables.filter;
 import static com.google.common.collect.Iterables.transform;
 import static java.util.Collections.singletonList;
+import static org.apache.maven.index.reader.Utils.INDEX_FILE_PREFIX;
 import static org.apache.maven.index.reader.Utils.allGroups;
 import static org.apache.maven.index.reader.Utils.descriptor;
 import static org.apache.maven.index.reader.Utils.rootGroup;
@@ -82,6 +92,7 @@ import static org.apache.maven.index.reader.Utils.rootGroups;
 import static org.sonatype.nexus.repository.http.HttpMethods.GET;
 import static org.sonatype.nexus.repository.maven.internal.Constants.INDEX_MAIN_CHUNK_FILE_PATH;
 import static org.sonatype.nexus.repository.maven.internal.Constants.INDEX_PROPERTY_FILE_PATH;
+import static org.sonatype.nexus.repository.maven.internal.utils.RecordUtils.gavceForRecord;
 import static org.sonatype.nexus.repository.storage.AssetEntityAdapter.P_ASSET_KIND;
 import static org.sonatype.nexus.repository.storage.MetadataNodeEntityAdapter.P_BUCKET;
 
@@ -98,6 +109,18 @@ public final class MavenIndexPublisher
 
   private static final String INDEX_MAIN_CHUNK_FILE = "/" + INDEX_MAIN_CHUNK_FILE_PATH;
 
+  private static final String INDEX_MAIN_CHUNK_FILE_NAME = INDEX_FILE_PREFIX + ".gz";
+
+  private static final String INDEX_PROPERTY_FILE_NAME = INDEX_FILE_PREFIX + ".properties";
+
+  private static final String INCREMENTAL_CHUNK_PROPERTY_PREFIX = "nexus.index.incremental-";
+
+  /**
+   * Property recording the instant when the browse of the last publish started, used as lower bound of changes to be
+   * picked up by next incremental publish.
+   */
+  private static final String PUBLISH_STARTED_PROPERTY = "nexus.index.nexus-publish-started";
+
   private static final String SELECT_HOSTED_ARTIFACTS =
       "SELECT " +
           "last_updated AS lastModified, " +
@@ -117,10 +140,27 @@ public final class MavenIndexPublisher
           "AND attributes.maven2.asset_kind=:asset_kind " +
           "AND component IS NOT NULL";
 
+  private static final String SELECT_HOSTED_ARTIFACTS_CHANGED_SINCE =
+      SELECT_HOSTED_ARTIFACTS + " AND last_updated > :since";
+
+  private static final String SELECT_HOSTED_ARTIFACT_KEYS =
+      "SELECT " +
+          "component.group AS groupId, " +
+          "component.name AS artifactId, " +
+          "component.attributes.maven2.baseVersion AS version, " +
+          "attributes.maven2.classifier AS classifier, " +
+          "name AS path " +
+          "FROM asset " +
+          "WHERE bucket=:bucket " +
+          "AND attributes.maven2.asset_kind=:asset_kind " +
+          "AND component IS NOT NULL";
+
   private static final RecordExpander RECORD_EXPANDER = new RecordExpander();
 
   private static final RecordCompactor RECORD_COMPACTOR = new RecordCompactor();
 
+  private static final int INDEX_V1 = 1;
+
   private MavenIndexPublisher() {
     // nop
   }
@@ -157,7 +197,12 @@ public final class MavenIndexPublisher
    */
   public static boolean unpublishIndexFiles(final Repository repository) throws IOException {
     checkNotNull(repository);
-    return delete(repository, INDEX_PROPERTY_FILE) && delete(repository, INDEX_MAIN_CHUNK_FILE);
+    List<String> incrementalChunks = incrementalChunkNames(loadIndexProperties(repository));
+    boolean deleted = delete(repository, INDEX_PROPERTY_FILE) && delete(repository, INDEX_MAIN_CHUNK_FILE);
+    for (String chunkName : incrementalChunks) {
+      delete(repository, "/.index/" + chunkName);
+    }
+    return deleted;
   }
 
   /**
@@ -165,7 +210,7 @@ public final class MavenIndexPublisher
    */
   public static void publishMergedIndex(final Repository target,
                                         final List<Repository> repositories,
-                                        final DuplicateDetectionStrategy<Record> duplicateDetectionStrategy)
+                                        final RecordDeduplicator<Record> duplicateDetectionStrategy)
       throws IOException
   {
     checkNotNull(target);
@@ -176,7 +221,7 @@ public final class MavenIndexPublisher
       indexWriter.writeChunk(
           transform(
               decorate(
-                  filter(concat(getGroupRecords(repositories, closer)), duplicateDetectionStrategy),
+                  duplicateDetectionStrategy.deduplicate(concat(getGroupRecords(repositories, closer))),
                   target.getName()
               ),
               RECORD_COMPACTOR::apply
@@ -195,7 +240,25 @@ public final class MavenIndexPublisher
    * Publishes MI index into {@code target}, sourced from repository's own CMA structures.
    */
   public static void publishHostedIndex(final Repository repository,
-                                        final DuplicateDetectionStrategy<Record> duplicateDetectionStrategy)
+                                        final RecordDeduplicator<Record> duplicateDetectionStrategy)
+      throws IOException
+  {
+    publishHostedIndex(repository, duplicateDetectionStrategy, 0);
+  }
+
+  /**
+   * Publishes MI index into {@code target}, sourced from repository's own CMA structures. If repository already has
+   * a published index with less than {@code maxIncrementalChunks} incremental chunks, only the records of artifacts
+   * changed since last publish are read from CMA, and they are published as new incremental chunk (and merged into
+   * main chunk). Otherwise, or when artifacts were removed since last publish, a full publish is performed that starts
+   * a new index chain. Value of {@code 0} for {@code maxIncrementalChunks} forces full publish. Callers must not
+   * publish the same repository concurrently, as the publish state is read and stored without a lock.
+   *
+   * @since 3.26
+   */
+  public static void publishHostedIndex(final Repository repository,
+                                        final RecordDeduplicator<Record> duplicateDetectionStrategy,
+                                        final int maxIncrementalChunks)
       throws IOException
   {
     checkNotNull(repository);
@@ -203,16 +266,18 @@ public final class MavenIndexPublisher
         () -> {
           final StorageTx tx = UnitOfWork.currentTx();
           try (Maven2WritableResourceHandler resourceHandler = new Maven2WritableResourceHandler(repository)) {
-            try (IndexWriter indexWriter = new IndexWriter(resourceHandler, repository.getName(), false)) {
-              indexWriter.writeChunk(
-                  transform(
-                      decorate(
-                          filter(getHostedRecords(tx, repository), duplicateDetectionStrategy),
-                          repository.getName()
-                      ),
-                      RECORD_COMPACTOR::apply
-                  ).iterator()
-              );
+            Properties properties = loadIndexProperties(resourceHandler);
+            List<String> incrementalChunks = incrementalChunkNames(properties);
+            if (maxIncrementalChunks > 0 &&
+                properties != null &&
+                properties.getProperty(PUBLISH_STARTED_PROPERTY) != null &&
+                incrementalChunks.size() < maxIncrementalChunks &&
+                publishIncrementalIndex(tx, repository, resourceHandler, properties)) {
+              return null;
+            }
+            publishFullIndex(tx, repository, resourceHandler, duplicateDetectionStrategy);
+            for (String chunkName : incrementalChunks) {
+              delete(repository, "/.index/" + chunkName);
             }
           }
           return null;
@@ -220,6 +285,155 @@ public final class MavenIndexPublisher
     );
   }
 
+  /**
+   * Publishes full MI index of hosted repository, starting new index chain.
+   */
+  private static void publishFullIndex(final StorageTx tx,
+                                       final Repository repository,
+                                       final Maven2WritableResourceHandler resourceHandler,
+                                       final RecordDeduplicator<Record> duplicateDetectionStrategy)
+      throws IOException
+  {
+    Date publishStarted = new Date();
+    try (IndexWriter indexWriter = new IndexWriter(resourceHandler, repository.getName(), false)) {
+      indexWriter.writeChunk(
+          transform(
+              decorate(
+                  duplicateDetectionStrategy.deduplicate(getHostedRecords(tx, repository, null)),
+                  repository.getName()
+              ),
+              RECORD_COMPACTOR::apply
+          ).iterator()
+      );
+    }
+    storeChainState(resourceHandler, publishStarted);
+  }
+
+  /**
+   * Publishes artifacts changed since last publish as new incremental chunk of existing index chain, and merges them
+   * into main chunk. Returns {@code false} if incremental publish is not possible, as artifacts were removed since
+   * last publish: main chunk has records whose GAVCE is no longer present in repository, and incremental chunks
+   * cannot express removals.
+   */
+  private static boolean publishIncrementalIndex(final StorageTx tx,
+                                                 final Repository repository,
+                                                 final Maven2WritableResourceHandler resourceHandler,
+                                                 final Properties properties)
+      throws IOException
+  {
+    Date publishStarted = new Date();
+    Date since = new Date(Long.parseLong(properties.getProperty(PUBLISH_STARTED_PROPERTY)));
+    // several assets may share a GAVCE (like timestamped snapshots), hence parity is checked on distinct keys
+    Set<String> artifactKeys = getHostedArtifactKeys(tx, repository);
+
+    Map<String, Record> changed = new LinkedHashMap<>();
+    for (Record record : getHostedRecords(tx, repository, since)) {
+      changed.put(gavceForRecord(record), record);
+    }
+    if (changed.isEmpty()) {
+      if (hasRemovedArtifacts(resourceHandler, artifactKeys)) {
+        log.debug("Artifacts were removed from {} since {}, full publish needed", repository.getName(), since);
+        return false;
+      }
+      log.debug("No changes in {} since {}, index is up to date", repository.getName(), since);
+      return true;
+    }
+
+    // merge changes into main chunk, having all (old and new) GAVs along
+    final TreeSet<String> allGroups = new TreeSet<>();
+    final TreeSet<String> rootGroups = new TreeSet<>();
+    final AtomicLong removedCount = new AtomicLong();
+    try (WritableResource mainChunk = resourceHandler.locate(INDEX_MAIN_CHUNK_FILE_NAME)) {
+      try (InputStream inputStream = mainChunk.read()) {
+        if (inputStream == null) {
+          return false;
+        }
+        try (ChunkReader chunkReader = new ChunkReader(INDEX_MAIN_CHUNK_FILE_NAME, inputStream);
+             ChunkWriter chunkWriter = new ChunkWriter(INDEX_MAIN_CHUNK_FILE_NAME, mainChunk.write(), INDEX_V1,
+                 publishStarted)) {
+          chunkWriter.writeChunk(
+              transform(
+                  decorate(
+                      concat(
+                          filter(
+                              transform(chunkReader, RECORD_EXPANDER::apply),
+                              (Record rec) -> Type.ARTIFACT_ADD == rec.getType() &&
+                                  !changed.containsKey(gavceForRecord(rec)) &&
+                                  isPresent(rec, artifactKeys, removedCount)
+                          ),
+                          changed.values()
+                      ),
+                      repository.getName(),
+                      allGroups,
+                      rootGroups
+                  ),
+                  RECORD_COMPACTOR::apply
+              ).iterator()
+          );
+        }
+      }
+      if (removedCount.get() > 0) {
+        // merged chunk is discarded by full publish that follows
+        log.debug("{} artifacts were removed from {} since {}, full publish needed",
+            removedCount.get(), repository.getName(), since);
+        return false;
+      }
+    }
+
+    try (IndexWriter indexWriter = new IndexWriter(resourceHandler, repository.getName(), true)) {
+      log.debug("Publishing {} changed records of {} as {}",
+          changed.size(), repository.getName(), indexWriter.getNextChunkName());
+      indexWriter.writeChunk(
+          transform(
+              concat(
+                  singletonList(descriptor(repository.getName())),
+                  changed.values(),
+                  singletonList(allGroups(allGroups)),
+                  singletonList(rootGroups(rootGroups))
+              ),
+              RECORD_COMPACTOR::apply
+          ).iterator()
+      );
+    }
+    storeChainState(resourceHandler, publishStarted);
+    return true;
+  }
+
+  /**
+   * Returns {@code true} if main chunk is missing or has artifact records whose GAVCE is not among the passed in keys.
+   */
+  private static boolean hasRemovedArtifacts(final Maven2WritableResourceHandler resourceHandler,
+                                             final Set<String> artifactKeys)
+      throws IOException
+  {
+    try (WritableResource mainChunk = resourceHandler.locate(INDEX_MAIN_CHUNK_FILE_NAME);
+         InputStream inputStream = mainChunk.read()) {
+      if (inputStream == null) {
+        return true;
+      }
+      try (ChunkReader chunkReader = new ChunkReader(INDEX_MAIN_CHUNK_FILE_NAME, inputStream)) {
+        for (Map<String, String> compact : chunkReader) {
+          Record record = RECORD_EXPANDER.apply(compact);
+          if (Type.ARTIFACT_ADD == record.getType() && !artifactKeys.contains(gavceForRecord(record))) {
+            return true;
+          }
+        }
+      }
+      return false;
+    }
+  }
+
+  /**
+   * Returns {@code true} if GAVCE of record is among the passed in keys, otherwise counts it as removed.
+   */
+  private static boolean isPresent(final Record record, final Set<String> artifactKeys, final AtomicLong removedCount) {
+    if (artifactKeys.contains(gavceForRecord(record))) {
+      return true;
+    }
+    removedCount.incrementAndGet();
+    return false;
+  }
+
   /**
    * Primes proxy cache with given path and return {@code true} if succeeds. Accepts only maven proxy type.
    */
@@ -247,16 +461,46 @@ public final class MavenIndexPublisher
    * Returns the records to publish of a hosted repository, the SELECT result count will be in parity with published
    * records count!
    */
-  private static Iterable<Record> getHostedRecords(final StorageTx tx, final Repository repository) throws IOException {
+  private static Iterable<Record> getHostedRecords(final StorageTx tx,
+                                                  final Repository repository,
+                                                  @Nullable final Date since)
+      throws IOException
+  {
     Map<String, Object> sqlParams = new HashMap<>();
     sqlParams.put(P_BUCKET, AttachedEntityHelper.id(tx.findBucket(repository)));
     sqlParams.put(P_ASSET_KIND, AssetKind.ARTIFACT.name());
+    if (since != null) {
+      sqlParams.put("since", since);
+    }
     return transform(
-        tx.browse(SELECT_HOSTED_ARTIFACTS, sqlParams),
+        tx.browse(since == null ? SELECT_HOSTED_ARTIFACTS : SELECT_HOSTED_ARTIFACTS_CHANGED_SINCE, sqlParams),
         (ODocument document) -> toRecord(repository.facet(MavenFacet.class), document)
     );
   }
 
+  /**
+   * Returns the distinct GAVCE keys of artifacts of a hosted repository, same as keys of the records returned by
+   * {@link #getHostedRecords}, but without browsing the fields that are not part of the key.
+   */
+  private static Set<String> getHostedArtifactKeys(final StorageTx tx, final Repository repository) {
+    MavenFacet mavenFacet = repository.facet(MavenFacet.class);
+    Map<String, Object> sqlParams = new HashMap<>();
+    sqlParams.put(P_BUCKET, AttachedEntityHelper.id(tx.findBucket(repository)));
+    sqlParams.put(P_ASSET_KIND, AssetKind.ARTIFACT.name());
+    Set<String> result = new HashSet<>();
+    for (ODocument document : tx.browse(SELECT_HOSTED_ARTIFACT_KEYS, sqlParams)) {
+      MavenPath mavenPath = mavenFacet.getMavenPathParser().parsePath(document.field("path", String.class));
+      Record record = new Record(Type.ARTIFACT_ADD, new HashMap<>());
+      record.put(Record.GROUP_ID, document.field("groupId", String.class));
+      record.put(Record.ARTIFACT_ID, document.field("artifactId", String.class));
+      record.put(Record.VERSION, document.field("version", String.class));
+      record.put(Record.CLASSIFIER, document.field("classifier", String.class));
+      record.put(Record.FILE_EXTENSION, pathExtension(mavenPath.getFileName()));
+      result.add(gavceForRecord(record));
+    }
+    return result;
+  }
+
   private static Iterable<Iterable<Record>> getGroupRecords(final List<Repository> repositories, final Closer closer)
       throws IOException
   {
@@ -285,6 +529,62 @@ public final class MavenIndexPublisher
     }
   }
 
+  /**
+   * Loads the published index properties of given repository, or {@code null} if repository has no index published.
+   */
+  @Nullable
+  private static Properties loadIndexProperties(final Repository repository) throws IOException {
+    try (Maven2WritableResourceHandler resourceHandler = new Maven2WritableResourceHandler(repository)) {
+      return loadIndexProperties(resourceHandler);
+    }
+  }
+
+  @Nullable
+  private static Properties loadIndexProperties(final Maven2WritableResourceHandler resourceHandler)
+      throws IOException
+  {
+    try (WritableResource resource = resourceHandler.locate(INDEX_PROPERTY_FILE_NAME);
+         InputStream inputStream = resource.read()) {
+      if (inputStream == null) {
+        return null;
+      }
+      Properties properties = new Properties();
+      properties.load(inputStream);
+      return properties;
+    }
+  }
+
+  /**
+   * Records the chain state needed by next incremental publish into index properties written by {@link IndexWriter}.
+   */
+  private static void storeChainState(final Maven2WritableResourceHandler resourceHandler,
+                                      final Date publishStarted)
+      throws IOException
+  {
+    Properties properties = loadIndexProperties(resourceHandler);
+    checkState(properties != null, "Index properties missing after publish");
+    properties.setProperty(PUBLISH_STARTED_PROPERTY, String.valueOf(publishStarted.getTime()));
+    try (WritableResource resource = resourceHandler.locate(INDEX_PROPERTY_FILE_NAME);
+         OutputStream outputStream = resource.write()) {
+      properties.store(outputStream, "Maven Indexer Index Properties");
+    }
+  }
+
+  /**
+   * Returns the file names of incremental chunks listed in index properties.
+   */
+  private static List<String> incrementalChunkNames(@Nullable final Properties properties) {
+    List<String> result = new ArrayList<>();
+    if (properties != null) {
+      for (String key : properties.stringPropertyNames()) {
+        if (key.startsWith(INCREMENTAL_CHUNK_PROPERTY_PREFIX)) {
+          result.add(INDEX_FILE_PREFIX + "." + properties.getProperty(key) + ".gz");
+        }
+      }
+    }
+    return result;
+  }
+
   /**
    * Converts orient SQL query result into Maven Indexer Reader {@link Record}. Should be invoked only with documents
    * belonging to components, but not checksums or signatures.
@@ -368,8 +668,18 @@ public final class MavenIndexPublisher
   private static Iterable<Record> decorate(final Iterable<Record> iterable,
                                            final String repositoryName)
   {
-    final TreeSet<String> allGroups = new TreeSet<>();
-    final TreeSet<String> rootGroups = new TreeSet<>();
+    return decorate(iterable, repositoryName, new TreeSet<>(), new TreeSet<>());
+  }
+
+  /**
+   * Same as {@link #decorate(Iterable, String)} but collects groups into passed in sets, to make them available
+   * once iteration is done.
+   */
+  private static Iterable<Record> decorate(final Iterable<Record> iterable,
+                                           final String repositoryName,
+                                           final TreeSet<String> allGroups,
+                                           final TreeSet<String> rootGroups)
+  {
     return transform(
         concat(
             singletonList(descriptor(repositoryName)),
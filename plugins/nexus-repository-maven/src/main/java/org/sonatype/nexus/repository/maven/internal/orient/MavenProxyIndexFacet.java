@@ -23,7 +23,7 @@ import org.sonatype.nexus.repository.config.Configuration;
 import org.sonatype.nexus.repository.config.ConfigurationFacet;
 import org.sonatype.nexus.repository.maven.MavenIndexFacet;
 import org.sonatype.nexus.repository.maven.internal.filter.DuplicateDetectionStrategyProvider;
-import org.sonatype.nexus.repository.maven.internal.filter.DuplicateDetectionStrategy;
+import org.sonatype.nexus.repository.maven.internal.filter.RecordDeduplicator;
 import org.sonatype.nexus.repository.storage.StorageFacet;
 import org.sonatype.nexus.repository.types.ProxyType;
 import org.sonatype.nexus.transaction.UnitOfWork;
@@ -87,7 +87,7 @@ public class MavenProxyIndexFacet
   public void publishIndex() throws IOException {
     log.debug("Fetching maven index properties from remote");
     UnitOfWork.begin(getRepository().facet(StorageFacet.class).txSupplier());
-    try(DuplicateDetectionStrategy<Record> strategy = duplicateDetectionStrategyProvider.get()) {
+    try(RecordDeduplicator<Record> strategy = duplicateDetectionStrategyProvider.get()) {
       if (!prefetchIndexFiles(getRepository())) {
         if (Boolean.TRUE.equals(config.cacheFallback)) {
           log.debug("No remote index found... generating partial index from caches");
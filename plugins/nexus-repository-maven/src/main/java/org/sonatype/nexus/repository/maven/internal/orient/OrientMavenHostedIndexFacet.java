@@ -13,13 +13,15 @@
 package org.sonatype.nexus.repository.maven.internal.orient;
 
 import java.io.IOException;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 
 import javax.inject.Inject;
 import javax.inject.Named;
 
 import org.sonatype.nexus.repository.maven.MavenIndexFacet;
 import org.sonatype.nexus.repository.maven.internal.filter.DuplicateDetectionStrategyProvider;
-import org.sonatype.nexus.repository.maven.internal.filter.DuplicateDetectionStrategy;
+import org.sonatype.nexus.repository.maven.internal.filter.RecordDeduplicator;
 import org.sonatype.nexus.repository.maven.internal.hosted.MavenHostedIndexFacet;
 import org.sonatype.nexus.repository.storage.StorageFacet;
 import org.sonatype.nexus.transaction.UnitOfWork;
@@ -39,19 +41,37 @@ public class OrientMavenHostedIndexFacet
 {
   private final DuplicateDetectionStrategyProvider duplicateDetectionStrategyProvider;
 
+  private final int maxIncrementalChunks;
+
+  /**
+   * Serializes the publishes of the repository, so the publish state read by an incremental publish can't be replaced
+   * by a concurrent publish before this one stores its own.
+   */
+  private final Lock publishLock = new ReentrantLock();
+
   @Inject
-  public OrientMavenHostedIndexFacet(final DuplicateDetectionStrategyProvider duplicateDetectionStrategyProvider) {
+  public OrientMavenHostedIndexFacet(
+      final DuplicateDetectionStrategyProvider duplicateDetectionStrategyProvider,
+      @Named("${nexus.maven.index.incremental.maxChunks:-30}") final int maxIncrementalChunks)
+  {
     this.duplicateDetectionStrategyProvider = checkNotNull(duplicateDetectionStrategyProvider);
+    this.maxIncrementalChunks = maxIncrementalChunks;
   }
 
   @Override
   public void publishIndex() throws IOException {
-    UnitOfWork.begin(getRepository().facet(StorageFacet.class).txSupplier());
-    try (DuplicateDetectionStrategy<Record> strategy = duplicateDetectionStrategyProvider.get()) {
-      MavenIndexPublisher.publishHostedIndex(getRepository(), strategy);
+    publishLock.lock();
+    try {
+      UnitOfWork.begin(getRepository().facet(StorageFacet.class).txSupplier());
+      try (RecordDeduplicator<Record> strategy = duplicateDetectionStrategyProvider.get()) {
+        MavenIndexPublisher.publishHostedIndex(getRepository(), strategy, maxIncrementalChunks);
+      }
+      finally {
+        UnitOfWork.end();
+      }
     }
     finally {
-      UnitOfWork.end();
+      publishLock.unlock();
     }
   }
 }
@@ -0,0 +1,137 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-present Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.repository.maven.internal.filter;
+
+import java.util.HashMap;
+import java.util.Iterator;
+
+import org.sonatype.goodies.testsupport.TestSupport;
+import org.sonatype.nexus.common.app.ApplicationDirectories;
+
+import com.google.common.base.Stopwatch;
+import com.google.common.collect.AbstractIterator;
+import org.apache.maven.index.reader.Record;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.Mock;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.mockito.Mockito.when;
+
+/**
+ * Performance comparison of {@link RecordDeduplicator} implementations on a synthetic merged index. The
+ * record count defaults to 50M (as of a large group) and can be lowered with {@code -Dperf.records=N}; every tenth
+ * record is a duplicate of an earlier one.
+ */
+public class DuplicateDetectionStrategyPerf
+    extends TestSupport
+{
+  private static final long RECORDS = Long.getLong("perf.records", 50_000_000L);
+
+  @Rule
+  public TemporaryFolder tmpDir = new TemporaryFolder();
+
+  @Mock
+  private ApplicationDirectories applicationDirectories;
+
+  @Before
+  public void setUp() {
+    when(applicationDirectories.getTemporaryDirectory()).thenReturn(tmpDir.getRoot());
+  }
+
+  @Test
+  public void hash() throws Exception {
+    measure("HASH");
+  }
+
+  @Test
+  public void bloom() throws Exception {
+    measure("BLOOM");
+  }
+
+  @Test
+  public void disk() throws Exception {
+    measure("DISK");
+  }
+
+  @Test
+  public void sort() throws Exception {
+    measure("SORT");
+  }
+
+  private void measure(final String strategyName) throws Exception {
+    Runtime runtime = Runtime.getRuntime();
+    System.gc();
+    long usedBefore = runtime.totalMemory() - runtime.freeMemory();
+    long maxUsed = usedBefore;
+    long unique = 0;
+
+    Stopwatch stopwatch = Stopwatch.createStarted();
+    try (RecordDeduplicator<Record> strategy =
+             new DuplicateDetectionStrategyProvider(applicationDirectories, strategyName, 1, 10, 100_000).get()) {
+      for (Record record : strategy.deduplicate(this::syntheticRecords)) { // NOSONAR
+        if (++unique % 1_000_000 == 0) {
+          maxUsed = Math.max(maxUsed, runtime.totalMemory() - runtime.freeMemory());
+        }
+      }
+    }
+    catch (OutOfMemoryError e) {
+      log.info("{}: out of memory after {} ms", strategyName, stopwatch.elapsed(MILLISECONDS));
+      return;
+    }
+    long elapsed = stopwatch.elapsed(MILLISECONDS);
+
+    log.info("{}: {} records, {} unique ({} expected), {} ms, {} records/s, ~{} MB heap", strategyName, RECORDS, unique,
+        RECORDS - RECORDS / 10, elapsed, RECORDS * 1000 / Math.max(elapsed, 1),
+        (maxUsed - usedBefore) / (1024 * 1024));
+  }
+
+  private Iterator<Record> syntheticRecords() {
+    return new AbstractIterator<Record>()
+    {
+      private long counter;
+
+      @Override
+      protected Record computeNext() {
+        if (counter >= RECORDS) {
+          return endOfData();
+        }
+        long n = counter++;
+        // every tenth record repeats the one just before it
+        return buildRecord(n % 10 == 9 ? n - 1 : n);
+      }
+    };
+  }
+
+  private static Record buildRecord(final long n) {
+    Record record = new Record(Record.Type.ARTIFACT_ADD, new HashMap<>());
+    record.put(Record.REC_MODIFIED, n);
+    record.put(Record.GROUP_ID, "org.example.group" + (n % 1000));
+    record.put(Record.ARTIFACT_ID, "artifact" + (n / 1000));
+    record.put(Record.VERSION, "1." + (n % 7));
+    record.put(Record.CLASSIFIER, null);
+    record.put(Record.PACKAGING, "jar");
+    record.put(Record.NAME, "Artifact " + n);
+    record.put(Record.DESCRIPTION, "");
+    record.put(Record.HAS_SOURCES, true);
+    record.put(Record.HAS_JAVADOC, false);
+    record.put(Record.HAS_SIGNATURE, false);
+    record.put(Record.FILE_EXTENSION, "jar");
+    record.put(Record.FILE_MODIFIED, n);
+    record.put(Record.FILE_SIZE, n);
+    record.put(Record.SHA1, "da39a3ee5e6b4b0d3255bfef95601890afd80709");
+    return record;
+  }
+}
@@ -34,6 +34,8 @@ public class DuplicateDetectionStrategyProviderTest
 
   private static final int MAX_DISK_SIZE_GB = 10;
 
+  private static final int MAX_RECORDS_PER_RUN = 1000;
+
   @Rule
   public TemporaryFolder tmpDir = new TemporaryFolder();
 
@@ -47,27 +49,27 @@ public class DuplicateDetectionStrategyProviderTest
 
   @Test
   public void shouldReturnBloomStrategy() throws Exception {
-    DuplicateDetectionStrategy<Record> strategy = new DuplicateDetectionStrategyProvider(applicationDirectories,
-        "BLOOM", MAX_HEAP_GB, MAX_DISK_SIZE_GB).get();
+    RecordDeduplicator<Record> strategy = new DuplicateDetectionStrategyProvider(applicationDirectories,
+        "BLOOM", MAX_HEAP_GB, MAX_DISK_SIZE_GB, MAX_RECORDS_PER_RUN).get();
 
     assertThat(strategy, is(instanceOf(BloomFilterDuplicateDetectionStrategy.class)));
 
-    DuplicateDetectionStrategy<Record> strategyLowerCase = new DuplicateDetectionStrategyProvider(
-        applicationDirectories, "bloom", MAX_HEAP_GB, MAX_DISK_SIZE_GB).get();
+    RecordDeduplicator<Record> strategyLowerCase = new DuplicateDetectionStrategyProvider(
+        applicationDirectories, "bloom", MAX_HEAP_GB, MAX_DISK_SIZE_GB, MAX_RECORDS_PER_RUN).get();
 
     assertThat(strategyLowerCase, is(instanceOf(BloomFilterDuplicateDetectionStrategy.class)));
   }
 
   @Test
   public void shouldReturnDiskStrategy() throws Exception {
-    DuplicateDetectionStrategy<Record> strategy = new DuplicateDetectionStrategyProvider(applicationDirectories, "DISK",
-        MAX_HEAP_GB, MAX_DISK_SIZE_GB)
+    RecordDeduplicator<Record> strategy = new DuplicateDetectionStrategyProvider(applicationDirectories, "DISK",
+        MAX_HEAP_GB, MAX_DISK_SIZE_GB, MAX_RECORDS_PER_RUN)
         .get();
 
     assertThat(strategy, is(instanceOf(DiskBackedDuplicateDetectionStrategy.class)));
 
-    DuplicateDetectionStrategy<Record> strategyLowerCase = new DuplicateDetectionStrategyProvider(
-        applicationDirectories, "disk", MAX_HEAP_GB, MAX_DISK_SIZE_GB)
+    RecordDeduplicator<Record> strategyLowerCase = new DuplicateDetectionStrategyProvider(
+        applicationDirectories, "disk", MAX_HEAP_GB, MAX_DISK_SIZE_GB, MAX_RECORDS_PER_RUN)
         .get();
 
     assertThat(strategyLowerCase, is(instanceOf(DiskBackedDuplicateDetectionStrategy.class)));
@@ -75,23 +77,38 @@ public class DuplicateDetectionStrategyProviderTest
 
   @Test
   public void shouldReturnInMemoryStrategy() throws Exception {
-    DuplicateDetectionStrategy<Record> strategy = new DuplicateDetectionStrategyProvider(applicationDirectories, "HASH",
-        MAX_HEAP_GB, MAX_DISK_SIZE_GB)
+    RecordDeduplicator<Record> strategy = new DuplicateDetectionStrategyProvider(applicationDirectories, "HASH",
+        MAX_HEAP_GB, MAX_DISK_SIZE_GB, MAX_RECORDS_PER_RUN)
         .get();
 
     assertThat(strategy, is(instanceOf(HashBasedDuplicateDetectionStrategy.class)));
 
-    DuplicateDetectionStrategy<Record> strategyLowerCase = new DuplicateDetectionStrategyProvider(
-        applicationDirectories, "hash", MAX_HEAP_GB, MAX_DISK_SIZE_GB)
+    RecordDeduplicator<Record> strategyLowerCase = new DuplicateDetectionStrategyProvider(
+        applicationDirectories, "hash", MAX_HEAP_GB, MAX_DISK_SIZE_GB, MAX_RECORDS_PER_RUN)
         .get();
 
     assertThat(strategyLowerCase, is(instanceOf(HashBasedDuplicateDetectionStrategy.class)));
   }
 
+  @Test
+  public void shouldReturnExternalSortStrategy() throws Exception {
+    RecordDeduplicator<Record> strategy = new DuplicateDetectionStrategyProvider(applicationDirectories, "SORT",
+        MAX_HEAP_GB, MAX_DISK_SIZE_GB, MAX_RECORDS_PER_RUN)
+        .get();
+
+    assertThat(strategy, is(instanceOf(ExternalSortRecordDeduplicator.class)));
+
+    RecordDeduplicator<Record> strategyLowerCase = new DuplicateDetectionStrategyProvider(
+        applicationDirectories, "sort", MAX_HEAP_GB, MAX_DISK_SIZE_GB, MAX_RECORDS_PER_RUN)
+        .get();
+
+    assertThat(strategyLowerCase, is(instanceOf(ExternalSortRecordDeduplicator.class)));
+  }
+
   @Test
   public void shouldFallBackToBloomForUnknownStrategy() throws Exception {
-    DuplicateDetectionStrategy<Record> strategy = new DuplicateDetectionStrategyProvider(applicationDirectories,
-        "unknown", MAX_HEAP_GB, MAX_DISK_SIZE_GB)
+    RecordDeduplicator<Record> strategy = new DuplicateDetectionStrategyProvider(applicationDirectories,
+        "unknown", MAX_HEAP_GB, MAX_DISK_SIZE_GB, MAX_RECORDS_PER_RUN)
         .get();
 
     assertThat(strategy, is(instanceOf(BloomFilterDuplicateDetectionStrategy.class)));
@@ -0,0 +1,128 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-present Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.repository.maven.internal.filter;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+import org.sonatype.goodies.testsupport.TestSupport;
+import org.sonatype.nexus.common.app.ApplicationDirectories;
+
+import org.apache.maven.index.reader.Record;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.Mock;
+
+import static java.util.Arrays.asList;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.emptyArray;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.Mockito.when;
+import static org.sonatype.nexus.repository.maven.internal.utils.RecordUtils.gavceForRecord;
+
+public class ExternalSortRecordDeduplicatorTest
+    extends TestSupport
+{
+  @Rule
+  public TemporaryFolder tmpDir = new TemporaryFolder();
+
+  @Mock
+  private ApplicationDirectories applicationDirectories;
+
+  @Before
+  public void setup() {
+    when(applicationDirectories.getTemporaryDirectory()).thenReturn(tmpDir.getRoot());
+  }
+
+  @Test
+  public void shouldDeduplicateEachCallIndependently() throws Exception {
+    try (ExternalSortRecordDeduplicator deduplicator = new ExternalSortRecordDeduplicator(applicationDirectories, 1)) {
+      List<Record> first = new ArrayList<>();
+      deduplicator.deduplicate(asList(buildRecord("artifact1", "first"), buildRecord("artifact2", "first")))
+          .forEach(first::add);
+      List<Record> second = new ArrayList<>();
+      deduplicator.deduplicate(asList(buildRecord("artifact3", "second"), buildRecord("artifact3", "third")))
+          .forEach(second::add);
+
+      assertThat(first, hasSize(2));
+      assertThat(second, hasSize(1));
+      assertThat(second.get(0).get(Record.ARTIFACT_ID), is("artifact3"));
+      assertThat(second.get(0).get(Record.NAME), is("second"));
+    }
+  }
+
+  @Test
+  public void shouldIdentifyDuplicatesInMemory() throws Exception {
+    verifyDeduplication(100);
+  }
+
+  @Test
+  public void shouldIdentifyDuplicatesAcrossSpilledRuns() throws Exception {
+    verifyDeduplication(2);
+  }
+
+  private void verifyDeduplication(final int maxRecordsPerRun) throws Exception {
+    List<Record> records = new ArrayList<>();
+    records.add(buildRecord("artifact3", "first"));
+    records.add(buildRecord("artifact1", "first"));
+    records.add(buildRecord("artifact3", "second"));
+    records.add(buildRecord("artifact2", "first"));
+    records.add(buildRecord("artifact1", "second"));
+    records.add(buildRecord("artifact3", "third"));
+    records.add(buildRecord("artifact2", "second"));
+
+    List<String> gavces = new ArrayList<>();
+    List<String> names = new ArrayList<>();
+    try (ExternalSortRecordDeduplicator deduplicator =
+             new ExternalSortRecordDeduplicator(applicationDirectories, maxRecordsPerRun)) {
+      for (Record record : deduplicator.deduplicate(records)) {
+        gavces.add(gavceForRecord(record));
+        names.add(record.get(Record.NAME));
+      }
+    }
+
+    assertThat(gavces, hasSize(3));
+    assertThat(gavces, contains(
+        "group1artifact11.0sources:jar",
+        "group1artifact21.0sources:jar",
+        "group1artifact31.0sources:jar"));
+    assertThat(names, contains("first", "first", "first"));
+    assertThat(tmpDir.getRoot().listFiles(File::isDirectory), emptyArray());
+  }
+
+  private Record buildRecord(final String artifactId, final String name) {
+    Record record = new Record(Record.Type.ARTIFACT_ADD, new HashMap<>());
+    record.put(Record.REC_MODIFIED, 1L);
+    record.put(Record.GROUP_ID, "group1");
+    record.put(Record.ARTIFACT_ID, artifactId);
+    record.put(Record.VERSION, "1.0");
+    record.put(Record.CLASSIFIER, "sources");
+    record.put(Record.PACKAGING, "jar");
+    record.put(Record.NAME, name);
+    record.put(Record.DESCRIPTION, "");
+    record.put(Record.HAS_SOURCES, false);
+    record.put(Record.HAS_JAVADOC, false);
+    record.put(Record.HAS_SIGNATURE, false);
+    record.put(Record.FILE_EXTENSION, "jar");
+    record.put(Record.FILE_MODIFIED, 1L);
+    record.put(Record.FILE_SIZE, 1L);
+    record.put(Record.SHA1, "da39a3ee5e6b4b0d3255bfef95601890afd80709");
+    return record;
+  }
+}
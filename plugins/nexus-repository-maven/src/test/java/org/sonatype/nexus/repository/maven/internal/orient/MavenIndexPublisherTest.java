@@ -0,0 +1,331 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-present Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.repository.maven.internal.orient;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeSet;
+
+import javax.annotation.Nullable;
+
+import org.sonatype.goodies.testsupport.TestSupport;
+import org.sonatype.nexus.common.entity.EntityMetadata;
+import org.sonatype.nexus.orient.entity.AttachedEntityMetadata;
+import org.sonatype.nexus.orient.entity.EntityAdapter;
+import org.sonatype.nexus.orient.maven.MavenFacet;
+import org.sonatype.nexus.repository.Repository;
+import org.sonatype.nexus.repository.maven.MavenPath;
+import org.sonatype.nexus.repository.maven.internal.Constants;
+import org.sonatype.nexus.repository.maven.internal.Maven2MavenPathParser;
+import org.sonatype.nexus.repository.maven.internal.filter.HashBasedDuplicateDetectionStrategy;
+import org.sonatype.nexus.repository.storage.Bucket;
+import org.sonatype.nexus.repository.storage.StorageTx;
+import org.sonatype.nexus.repository.view.Content;
+import org.sonatype.nexus.repository.view.Payload;
+import org.sonatype.nexus.repository.view.payloads.BytesPayload;
+import org.sonatype.nexus.transaction.UnitOfWork;
+
+import com.google.common.io.ByteStreams;
+import com.orientechnologies.orient.core.id.ORecordId;
+import com.orientechnologies.orient.core.record.impl.ODocument;
+import org.apache.maven.index.reader.ChunkReader;
+import org.apache.maven.index.reader.Record;
+import org.apache.maven.index.reader.Record.Type;
+import org.apache.maven.index.reader.RecordExpander;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Matchers;
+import org.mockito.Mock;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyMapOf;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.sonatype.nexus.repository.maven.internal.utils.RecordUtils.gavceForRecord;
+
+public class MavenIndexPublisherTest
+    extends TestSupport
+{
+  private static final String MAIN_CHUNK = Constants.INDEX_MAIN_CHUNK_FILE_PATH;
+
+  private static final String PROPERTIES = Constants.INDEX_PROPERTY_FILE_PATH;
+
+  private static final String INCREMENTAL_CHUNK_PROPERTY_PREFIX = "nexus.index.incremental-";
+
+  @Mock
+  private Repository repository;
+
+  @Mock
+  private MavenFacet mavenFacet;
+
+  @Mock
+  private StorageTx tx;
+
+  @Mock
+  private Bucket bucket;
+
+  private final Map<String, byte[]> files = new HashMap<>();
+
+  private final List<ODocument> artifacts = new ArrayList<>();
+
+  private long lastUpdated;
+
+  @Before
+  public void setUp() throws Exception {
+    when(repository.getName()).thenReturn("maven-hosted");
+    when(repository.facet(MavenFacet.class)).thenReturn(mavenFacet);
+    when(mavenFacet.getMavenPathParser()).thenReturn(new Maven2MavenPathParser());
+    when(mavenFacet.get(any(MavenPath.class))).thenAnswer(invocation -> {
+      byte[] bytes = files.get(((MavenPath) invocation.getArguments()[0]).getPath());
+      return bytes == null ? null : new Content(new BytesPayload(bytes, null));
+    });
+    when(mavenFacet.put(any(MavenPath.class), any(Payload.class))).thenAnswer(invocation -> {
+      try (InputStream in = ((Payload) invocation.getArguments()[1]).openInputStream()) {
+        files.put(((MavenPath) invocation.getArguments()[0]).getPath(), ByteStreams.toByteArray(in));
+      }
+      return null;
+    });
+    when(mavenFacet.delete(Matchers.<MavenPath>anyVararg())).thenAnswer(invocation -> {
+      boolean deleted = false;
+      for (Object path : invocation.getArguments()) {
+        deleted |= files.remove(((MavenPath) path).getPath()) != null;
+      }
+      return deleted;
+    });
+
+    ODocument bucketDocument = mock(ODocument.class);
+    when(bucketDocument.getIdentity()).thenReturn(new ORecordId(1, 1));
+    EntityMetadata entityMetadata = new AttachedEntityMetadata(mock(EntityAdapter.class), bucketDocument);
+    when(bucket.getEntityMetadata()).thenReturn(entityMetadata);
+    when(tx.findBucket(repository)).thenReturn(bucket);
+    when(tx.browse(anyString(), anyMapOf(String.class, Object.class))).thenAnswer(invocation -> {
+      Date since = (Date) ((Map<?, ?>) invocation.getArguments()[1]).get("since");
+      List<ODocument> result = new ArrayList<>();
+      for (ODocument artifact : artifacts) {
+        if (since == null || artifact.<Long>field("lastModified") > since.getTime()) {
+          result.add(artifact);
+        }
+      }
+      return result;
+    });
+
+    UnitOfWork.beginBatch(tx);
+  }
+
+  @After
+  public void tearDown() {
+    UnitOfWork.end();
+  }
+
+  @Test
+  public void changesArePublishedAsIncrementalChunk() throws Exception {
+    artifact("foo", "1.0", "1.0", null, "jar");
+    publish(10);
+    assertThat(incrementalChunks(), hasSize(0));
+
+    artifact("foo", "1.1", "1.1", null, "jar");
+    artifact("foo", "1.1", "1.1", "sources", "jar");
+    publish(10);
+
+    assertThat(incrementalChunks(), hasSize(1));
+    assertThat(incrementalChunkFiles(), hasSize(1));
+    assertThat(mainChunkKeys(), contains(key("foo", "1.0", null, "jar"), key("foo", "1.1", null, "jar"),
+        key("foo", "1.1", "sources", "jar")));
+  }
+
+  @Test
+  public void assetsSharingGavceDoNotForceFullPublish() throws Exception {
+    artifact("foo", "1.0-SNAPSHOT", "1.0-20200101.120000-1", null, "jar");
+    artifact("foo", "1.0-SNAPSHOT", "1.0-20200102.120000-2", null, "jar");
+    publish(10);
+
+    artifact("bar", "2.0", "2.0", null, "jar");
+    publish(10);
+
+    assertThat(incrementalChunks(), hasSize(1));
+    assertThat(mainChunkKeys(), contains(key("bar", "2.0", null, "jar"), key("foo", "1.0-SNAPSHOT", null, "jar")));
+  }
+
+  @Test
+  public void unchangedRepositoryKeepsPublishedIndex() throws Exception {
+    artifact("foo", "1.0", "1.0", null, "jar");
+    publish(10);
+    byte[] mainChunk = files.get(MAIN_CHUNK);
+
+    publish(10);
+
+    assertThat(incrementalChunks(), hasSize(0));
+    assertThat(files.get(MAIN_CHUNK), sameInstance(mainChunk));
+  }
+
+  @Test
+  public void removalFallsBackToFullPublish() throws Exception {
+    ODocument removed = artifact("foo", "1.0", "1.0", null, "jar");
+    artifact("foo", "1.1", "1.1", null, "jar");
+    publish(10);
+    artifact("foo", "1.2", "1.2", null, "jar");
+    publish(10);
+    assertThat(incrementalChunkFiles(), hasSize(1));
+
+    artifacts.remove(removed);
+    artifact("foo", "1.3", "1.3", null, "jar");
+    publish(10);
+
+    assertThat(incrementalChunks(), hasSize(0));
+    assertThat(incrementalChunkFiles(), hasSize(0));
+    assertThat(mainChunkKeys(), contains(key("foo", "1.1", null, "jar"), key("foo", "1.2", null, "jar"),
+        key("foo", "1.3", null, "jar")));
+  }
+
+  @Test
+  public void removalWithoutChangesFallsBackToFullPublish() throws Exception {
+    ODocument removed = artifact("foo", "1.0", "1.0", null, "jar");
+    artifact("foo", "1.1", "1.1", null, "jar");
+    publish(10);
+
+    artifacts.remove(removed);
+    publish(10);
+
+    assertThat(incrementalChunks(), hasSize(0));
+    assertThat(mainChunkKeys(), contains(key("foo", "1.1", null, "jar")));
+  }
+
+  @Test
+  public void reachingMaxIncrementalChunksStartsNewChain() throws Exception {
+    artifact("foo", "1.0", "1.0", null, "jar");
+    publish(2);
+    artifact("foo", "1.1", "1.1", null, "jar");
+    publish(2);
+    artifact("foo", "1.2", "1.2", null, "jar");
+    publish(2);
+    assertThat(incrementalChunks(), hasSize(2));
+    assertThat(incrementalChunkFiles(), hasSize(2));
+
+    artifact("foo", "1.3", "1.3", null, "jar");
+    publish(2);
+
+    assertThat(incrementalChunks(), hasSize(0));
+    assertThat(incrementalChunkFiles(), hasSize(0));
+    assertThat(mainChunkKeys(), hasSize(4));
+  }
+
+  @Test
+  public void zeroMaxIncrementalChunksForcesFullPublish() throws Exception {
+    artifact("foo", "1.0", "1.0", null, "jar");
+    publish(0);
+    artifact("foo", "1.1", "1.1", null, "jar");
+    publish(0);
+
+    assertThat(incrementalChunks(), hasSize(0));
+    assertThat(incrementalChunkFiles(), hasSize(0));
+    assertThat(mainChunkKeys(), hasSize(2));
+  }
+
+  private void publish(final int maxIncrementalChunks) throws Exception {
+    // publish has to start after last update of artifacts added so far
+    while (System.currentTimeMillis() <= lastUpdated) {
+      Thread.sleep(1);
+    }
+    MavenIndexPublisher.publishHostedIndex(repository, new HashBasedDuplicateDetectionStrategy(), maxIncrementalChunks);
+  }
+
+  /**
+   * Adds an artifact asset to repository, last updated after any previous publish.
+   */
+  private ODocument artifact(final String artifactId,
+                             final String baseVersion,
+                             final String version,
+                             @Nullable final String classifier,
+                             final String extension)
+  {
+    lastUpdated = Math.max(lastUpdated, System.currentTimeMillis()) + 1;
+    String fileName = artifactId + "-" + version + (classifier == null ? "" : "-" + classifier) + "." + extension;
+    ODocument document = new ODocument();
+    document.field("lastModified", lastUpdated);
+    document.field("groupId", "org.example");
+    document.field("artifactId", artifactId);
+    document.field("version", baseVersion);
+    document.field("packaging", "jar");
+    document.field("classifier", classifier);
+    document.field("path", "org/example/" + artifactId + "/" + baseVersion + "/" + fileName);
+    document.field("contentLastModified", lastUpdated);
+    document.field("contentSize", 1L);
+    document.field("sha1", "da39a3ee5e6b4b0d3255bfef95601890afd80709");
+    artifacts.add(document);
+    return document;
+  }
+
+  private static String key(final String artifactId,
+                            final String baseVersion,
+                            @Nullable final String classifier,
+                            final String extension)
+  {
+    Record record = new Record(Type.ARTIFACT_ADD, new HashMap<>());
+    record.put(Record.GROUP_ID, "org.example");
+    record.put(Record.ARTIFACT_ID, artifactId);
+    record.put(Record.VERSION, baseVersion);
+    record.put(Record.CLASSIFIER, classifier);
+    record.put(Record.FILE_EXTENSION, extension);
+    return gavceForRecord(record);
+  }
+
+  private Set<String> mainChunkKeys() throws IOException {
+    RecordExpander recordExpander = new RecordExpander();
+    Set<String> keys = new TreeSet<>();
+    try (ChunkReader chunkReader = new ChunkReader("main", new ByteArrayInputStream(files.get(MAIN_CHUNK)))) {
+      for (Map<String, String> compact : chunkReader) {
+        Record record = recordExpander.apply(compact);
+        if (Type.ARTIFACT_ADD == record.getType()) {
+          keys.add(gavceForRecord(record));
+        }
+      }
+    }
+    return keys;
+  }
+
+  private List<String> incrementalChunks() throws IOException {
+    Properties properties = new Properties();
+    properties.load(new ByteArrayInputStream(files.get(PROPERTIES)));
+    List<String> result = new ArrayList<>();
+    for (String name : properties.stringPropertyNames()) {
+      if (name.startsWith(INCREMENTAL_CHUNK_PROPERTY_PREFIX)) {
+        result.add(properties.getProperty(name));
+      }
+    }
+    return result;
+  }
+
+  private List<String> incrementalChunkFiles() {
+    List<String> result = new ArrayList<>();
+    for (String path : files.keySet()) {
+      if (Constants.INDEX_INCREMENTAL_CHUNK_FILE_PATH_PATTERN.matcher(path).matches()) {
+        result.add(path);
+      }
+    }
+    return result;
+  }
+}
@@ -250,6 +250,7 @@ public final class NpmAttributes
   {
     REPOSITORY_ROOT(ContentTypes.APPLICATION_JSON, false),
     PACKAGE_ROOT(ContentTypes.APPLICATION_JSON, true),
+    ABBREVIATED_PACKAGE_ROOT(ContentTypes.APPLICATION_JSON, true),
     TARBALL(ContentTypes.APPLICATION_GZIP, false);
 
     private final String contentType;
@@ -26,6 +26,7 @@ import org.sonatype.nexus.common.collect.NestedAttributesMap;
 import org.sonatype.nexus.repository.view.Content;
 
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Maps;
 import org.joda.time.DateTime;
 import org.joda.time.DateTimeZone;
@@ -77,6 +78,13 @@ public final class NpmMetadataUtils
 
   public static final String META_UPDATED = "_updated";
 
+  /**
+   * Content type npm clients accept for abbreviated package metadata.
+   *
+   * @since 3.26
+   */
+  public static final String ABBREVIATED_CONTENT_TYPE = "application/vnd.npm.install-v1+json";
+
   private static final String AUTHOR = "author";
 
   private static final String DEPENDENCIES = "dependencies";
@@ -87,6 +95,18 @@ public final class NpmMetadataUtils
 
   private static final String SCRIPTS = "scripts";
 
+  private static final String HAS_INSTALL_SCRIPT = "hasInstallScript";
+
+  private static final List<String> INSTALL_SCRIPTS = ImmutableList.of("preinstall", "install", "postinstall");
+
+  /**
+   * Fields kept on each version object of abbreviated package metadata.
+   */
+  private static final List<String> ABBREVIATED_VERSION_FIELDS = ImmutableList.of(
+      NAME, VERSION, DEPRECATED, DEPENDENCIES, "optionalDependencies", DEV_DEPENDENCIES, "bundleDependencies",
+      "peerDependencies", "peerDependenciesMeta", "bin", "directories", DIST, "engines", "_hasShrinkwrap", "os", "cpu"
+  );
+
   /**
    * Extracts the tarball filename from tarball "url-ish" strings.
    */
@@ -248,6 +268,55 @@ public final class NpmMetadataUtils
     return packageRoot;
   }
 
+  /**
+   * Creates the abbreviated ("corgi") form of the package root, as served to clients asking for {@link
+   * #ABBREVIATED_CONTENT_TYPE}: only the fields npm needs to resolve and install versions are kept. The given package
+   * root is not modified.
+   *
+   * @since 3.26
+   */
+  @Nonnull
+  public static NestedAttributesMap abbreviate(final NestedAttributesMap packageRoot) {
+    Map<String, Object> abbreviated = Maps.newLinkedHashMap();
+    copyIfPresent(packageRoot.backing(), abbreviated, NAME);
+    Object time = packageRoot.get(TIME);
+    if (time instanceof Map && ((Map<?, ?>) time).get(MODIFIED) != null) {
+      abbreviated.put(MODIFIED, ((Map<?, ?>) time).get(MODIFIED));
+    }
+    copyIfPresent(packageRoot.backing(), abbreviated, DIST_TAGS);
+
+    Map<String, Object> versions = Maps.newLinkedHashMap();
+    Object fullVersions = packageRoot.get(VERSIONS);
+    if (fullVersions instanceof Map) {
+      for (Entry<?, ?> entry : ((Map<?, ?>) fullVersions).entrySet()) {
+        if (entry.getValue() instanceof Map) {
+          versions.put((String) entry.getKey(), abbreviateVersion((Map<?, ?>) entry.getValue()));
+        }
+      }
+    }
+    abbreviated.put(VERSIONS, versions);
+    return new NestedAttributesMap(packageRoot.getKey(), abbreviated);
+  }
+
+  private static Map<String, Object> abbreviateVersion(final Map<?, ?> version) {
+    Map<String, Object> abbreviated = Maps.newLinkedHashMap();
+    for (String field : ABBREVIATED_VERSION_FIELDS) {
+      copyIfPresent(version, abbreviated, field);
+    }
+    Object scripts = version.get(SCRIPTS);
+    if (scripts instanceof Map && INSTALL_SCRIPTS.stream().anyMatch(((Map<?, ?>) scripts)::containsKey)) {
+      abbreviated.put(HAS_INSTALL_SCRIPT, true);
+    }
+    return abbreviated;
+  }
+
+  private static void copyIfPresent(final Map<?, ?> from, final Map<String, Object> to, final String field) {
+    Object value = from.get(field);
+    if (value != null) {
+      to.put(field, value);
+    }
+  }
+
   /**
    * Overlays 2nd npm metadata object on top of 1st, with care about "shrunk" (version object-less) input. The {@code
    * recessive} input parameter backing map is modified and returned, while the {@code dominant} input parameter is
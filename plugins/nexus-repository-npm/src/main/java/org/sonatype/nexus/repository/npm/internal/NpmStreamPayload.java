@@ -53,7 +53,15 @@ public class NpmStreamPayload
 
   public NpmStreamPayload(final InputStreamSupplier supplier)
   {
-    super(supplier, UNKNOWN_SIZE, APPLICATION_JSON);
+    this(supplier, APPLICATION_JSON);
+  }
+
+  /**
+   * @since 3.26
+   */
+  public NpmStreamPayload(final InputStreamSupplier supplier, final String contentType)
+  {
+    super(supplier, UNKNOWN_SIZE, contentType);
   }
 
   public NpmStreamPayload packageId(final String packageId) {
@@ -0,0 +1,124 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-present Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.repository.npm.internal.orient;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import org.sonatype.goodies.common.ComponentSupport;
+import org.sonatype.nexus.repository.Repository;
+import org.sonatype.nexus.repository.group.GroupHandler.DispatchedRepositories;
+import org.sonatype.nexus.repository.npm.internal.NpmAttributes.AssetKind;
+import org.sonatype.nexus.repository.npm.internal.NpmPackageId;
+import org.sonatype.nexus.repository.npm.internal.NpmStreamPayload;
+import org.sonatype.nexus.repository.storage.Asset;
+import org.sonatype.nexus.repository.storage.StorageFacet;
+import org.sonatype.nexus.repository.storage.StorageTx;
+import org.sonatype.nexus.repository.view.Content;
+import org.sonatype.nexus.repository.view.Context;
+import org.sonatype.nexus.repository.view.Handler;
+import org.sonatype.nexus.repository.view.Payload;
+import org.sonatype.nexus.repository.view.Request;
+import org.sonatype.nexus.repository.view.Response;
+import org.sonatype.nexus.transaction.Transactional;
+import org.sonatype.nexus.transaction.UnitOfWork;
+
+import com.google.common.net.HttpHeaders;
+
+import static org.sonatype.nexus.common.hash.HashAlgorithm.SHA1;
+import static org.sonatype.nexus.repository.npm.internal.NpmFieldFactory.rewriteTarballUrlMatcher;
+import static org.sonatype.nexus.repository.npm.internal.NpmMetadataUtils.ABBREVIATED_CONTENT_TYPE;
+import static org.sonatype.nexus.repository.npm.internal.orient.NpmFacetUtils.findAbbreviatedPackageRootAsset;
+import static org.sonatype.nexus.repository.npm.internal.orient.NpmFacetUtils.isAbbreviationOf;
+import static org.sonatype.nexus.repository.npm.internal.orient.NpmFacetUtils.loadPackageRoot;
+import static org.sonatype.nexus.repository.storage.AssetEntityAdapter.P_ASSET_KIND;
+
+/**
+ * Serves the abbreviated package metadata saved alongside package roots to clients asking for it with {@code Accept:
+ * application/vnd.npm.install-v1+json}, so "npm install" does not have to download the full package root. The full
+ * package root, which such clients accept as well, is served while there is no up to date abbreviated document, e.g.
+ * for package roots saved before abbreviated documents were introduced. Requests dispatched to group members always
+ * get the full package root, as groups merge and cache it.
+ *
+ * @since 3.26
+ */
+@Named
+@Singleton
+public class NpmAbbreviatedMetadataHandler
+    extends ComponentSupport
+    implements Handler
+{
+  @Nonnull
+  @Override
+  public Response handle(@Nonnull final Context context) throws Exception {
+    boolean groupMemberRequest = context.getRequest().getAttributes().contains(DispatchedRepositories.class);
+    Response response = context.proceed();
+    Payload payload = response.getPayload();
+    if (!response.getStatus().isSuccessful() || !(payload instanceof Content)) {
+      return response;
+    }
+
+    Content content = (Content) payload;
+    Asset packageRootAsset = content.getAttributes().get(Asset.class);
+    if (packageRootAsset == null ||
+        !AssetKind.PACKAGE_ROOT.name().equals(packageRootAsset.formatAttributes().get(P_ASSET_KIND, String.class))) {
+      return response;
+    }
+
+    // the representation served depends on the Accept header
+    response.getHeaders().set(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+    if (groupMemberRequest || !acceptsAbbreviated(context.getRequest())) {
+      return response;
+    }
+
+    Repository repository = context.getRepository();
+    Asset abbreviatedAsset = findAbbreviatedAsset(repository, packageRootAsset);
+    if (abbreviatedAsset == null) {
+      log.trace("No up to date abbreviated metadata for {}, serving package root", packageRootAsset.name());
+      return response;
+    }
+
+    NpmContent abbreviated = new NpmContent(
+        new NpmStreamPayload(loadPackageRoot(repository, abbreviatedAsset), ABBREVIATED_CONTENT_TYPE));
+    abbreviated.packageId(packageRootAsset.name())
+        .fieldMatchers(rewriteTarballUrlMatcher(repository, packageRootAsset.name()))
+        .missingBlobInputStreamSupplier(e -> content.openInputStream());
+
+    // keep the package root attributes (last modified, cache info) but tag the abbreviated representation on its own
+    abbreviated.getAttributes().backing().putAll(content.getAttributes().backing());
+    abbreviated.getAttributes().set(Content.CONTENT_ETAG, abbreviatedAsset.getChecksum(SHA1).toString());
+
+    return new Response.Builder().copy(response).payload(abbreviated).build();
+  }
+
+  private static boolean acceptsAbbreviated(final Request request) {
+    for (String accept : request.getHeaders().getAll(HttpHeaders.ACCEPT)) {
+      if (accept.contains(ABBREVIATED_CONTENT_TYPE)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  @Nullable
+  private static Asset findAbbreviatedAsset(final Repository repository, final Asset packageRootAsset) {
+    return Transactional.operation.withDb(repository.facet(StorageFacet.class).txSupplier()).call(() -> {
+      StorageTx tx = UnitOfWork.currentTx();
+      Asset asset = findAbbreviatedPackageRootAsset(tx, tx.findBucket(repository),
+          NpmPackageId.parse(packageRootAsset.name()));
+      return asset != null && isAbbreviationOf(asset, packageRootAsset) ? asset : null;
+    });
+  }
+}
@@ -64,6 +64,7 @@ import org.sonatype.nexus.thread.io.StreamCopier;
 import com.google.common.base.Supplier;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
+import com.google.common.hash.HashCode;
 import com.orientechnologies.orient.core.metadata.schema.OType;
 
 import static com.google.common.collect.Maps.newHashMap;
@@ -96,6 +97,10 @@ import static org.sonatype.nexus.repository.view.Status.success;
  * Component: none
  * Asset: N = NpmPackageId.id()
  *
+ * abbreviated npm package metadata (JSON)
+ * Component: none
+ * Asset: N = "-/abbreviated/" + NpmPackageId.id() (see #abbreviatedPackageRootAssetName)
+ *
  * npm tarball (binary)
  * Component: G = NpmPackageId.scope(), N = NpmPackageId.name(), V = version that tarball belongs to
  * Asset: N = NpmPackage.id() + "/-/" + tarballName (see #tarballAssetName)
@@ -124,6 +129,14 @@ public final class NpmFacetUtils
 
   public static final String REPOSITORY_SEARCH_ASSET = "-/v1/search";
 
+  private static final String ABBREVIATED_PACKAGE_ROOT_PREFIX = "-/abbreviated/";
+
+  /**
+   * Format attribute of abbreviated package root assets holding the SHA1 of the package root blob they were derived
+   * from.
+   */
+  static final String P_PACKAGE_ROOT_SHA1 = "package_root_sha1";
+
   /**
    * Parses JSON content into map.
    */
@@ -255,6 +268,25 @@ public final class NpmFacetUtils
     return packageId.id() + "/-/" + tarballName;
   }
 
+  /**
+   * Formats the asset name of the abbreviated package root of a package.
+   *
+   * @since 3.26
+   */
+  @Nonnull
+  static String abbreviatedPackageRootAssetName(final NpmPackageId packageId) {
+    return ABBREVIATED_PACKAGE_ROOT_PREFIX + packageId.id();
+  }
+
+  /**
+   * Returns {@code true} if the asset name is the name of an abbreviated package root.
+   *
+   * @since 3.26
+   */
+  public static boolean isAbbreviatedPackageRootAssetName(final String assetName) {
+    return assetName.startsWith(ABBREVIATED_PACKAGE_ROOT_PREFIX);
+  }
+
   /**
    * Builds query builder for {@link Component} based on passed in {@link NpmPackageId}.
    */
@@ -319,6 +351,31 @@ public final class NpmFacetUtils
     return tx.findAssetWithProperty(P_NAME, packageId.id(), bucket);
   }
 
+  /**
+   * Find the abbreviated package root asset by package name in repository.
+   *
+   * @since 3.26
+   */
+  @Nullable
+  public static Asset findAbbreviatedPackageRootAsset(final StorageTx tx,
+                                                      final Bucket bucket,
+                                                      final NpmPackageId packageId)
+  {
+    return tx.findAssetWithProperty(P_NAME, abbreviatedPackageRootAssetName(packageId), bucket);
+  }
+
+  /**
+   * Returns {@code true} if the abbreviated package root asset was derived from the current blob of the package root
+   * asset, {@code false} if it is stale.
+   *
+   * @since 3.26
+   */
+  public static boolean isAbbreviationOf(final Asset abbreviatedAsset, final Asset packageRootAsset) {
+    HashCode packageRootSha1 = packageRootAsset.getChecksum(SHA1);
+    return packageRootSha1 != null &&
+        packageRootSha1.toString().equals(abbreviatedAsset.formatAttributes().get(P_PACKAGE_ROOT_SHA1, String.class));
+  }
+
   /**
    * Find a tarball asset by package name and tarball filename in repository.
    */
@@ -390,9 +447,11 @@ public final class NpmFacetUtils
 
   /**
    * Saves the package root JSON content by persisting content into root asset's blob. It also removes some transient
-   * fields from JSON document.
+   * fields from JSON document. The abbreviated package root is saved alongside, so requests for it can be served
+   * without loading the full document.
    */
   static void savePackageRoot(final StorageTx tx,
+                              final Repository repository,
                               final Asset packageRootAsset,
                               final NestedAttributesMap packageRoot) throws IOException
   {
@@ -401,15 +460,34 @@ public final class NpmFacetUtils
     packageRootAsset.formatAttributes().set(
         NpmAttributes.P_NPM_LAST_MODIFIED, NpmMetadataUtils.maintainTime(packageRoot).toDate()
     );
-    storeContent(
-        tx,
-        packageRootAsset,
-        new StreamCopier<Supplier<InputStream>>(
-            outputStream -> serialize(new OutputStreamWriter(outputStream, UTF_8), packageRoot),
-            inputStream -> () -> inputStream).read(),
-        AssetKind.PACKAGE_ROOT
-    );
+    AssetBlob assetBlob = storeContent(tx, packageRootAsset, serializer(packageRoot), AssetKind.PACKAGE_ROOT);
     tx.saveAsset(packageRootAsset);
+
+    saveAbbreviatedPackageRoot(tx, repository, packageRootAsset, packageRoot,
+        assetBlob.getHashes().get(SHA1).toString());
+  }
+
+  private static void saveAbbreviatedPackageRoot(final StorageTx tx,
+                                                 final Repository repository,
+                                                 final Asset packageRootAsset,
+                                                 final NestedAttributesMap packageRoot,
+                                                 final String packageRootSha1) throws IOException
+  {
+    Bucket bucket = tx.findBucket(repository);
+    NpmPackageId packageId = NpmPackageId.parse(packageRootAsset.name());
+    Asset asset = findAbbreviatedPackageRootAsset(tx, bucket, packageId);
+    if (asset == null) {
+      asset = tx.createAsset(bucket, repository.getFormat()).name(abbreviatedPackageRootAssetName(packageId));
+    }
+    asset.formatAttributes().set(P_PACKAGE_ROOT_SHA1, packageRootSha1);
+    storeContent(tx, asset, serializer(NpmMetadataUtils.abbreviate(packageRoot)), AssetKind.ABBREVIATED_PACKAGE_ROOT);
+    tx.saveAsset(asset);
+  }
+
+  private static Supplier<InputStream> serializer(final NestedAttributesMap metadata) {
+    return new StreamCopier<Supplier<InputStream>>(
+        outputStream -> serialize(new OutputStreamWriter(outputStream, UTF_8), metadata),
+        inputStream -> () -> inputStream).read();
   }
 
   /**
@@ -426,9 +504,15 @@ public final class NpmFacetUtils
       return Collections.emptySet();
     }
     tx.deleteAsset(packageRootAsset, deleteBlobs);
+    Set<String> deletedAssetNames = new HashSet<>();
+    // find abbreviated package root asset -> delete
+    Asset abbreviatedAsset = findAbbreviatedPackageRootAsset(tx, tx.findBucket(repository), packageId);
+    if (abbreviatedAsset != null) {
+      tx.deleteAsset(abbreviatedAsset, deleteBlobs);
+      deletedAssetNames.add(abbreviatedAsset.name());
+    }
     // find all tarball components -> delete
     Iterable<Component> npmTarballs = findPackageTarballComponents(tx, repository, packageId);
-    Set<String> deletedAssetNames = new HashSet<>();
     for (Component npmTarball : npmTarballs) {
       deletedAssetNames.addAll(tx.deleteComponent(npmTarball, deleteBlobs));
     }
@@ -528,6 +612,7 @@ public final class NpmFacetUtils
    * Updates the packageRoot with this set of dist-tags
    */
   public static void updateDistTags(final StorageTx tx,
+                                    final Repository repository,
                                     final Asset packageRootAsset,
                                     final String tag,
                                     final Object version) throws IOException
@@ -536,13 +621,14 @@ public final class NpmFacetUtils
     NestedAttributesMap distTags = packageRoot.child(DIST_TAGS);
     distTags.set(tag, version);
 
-    savePackageRoot(tx, packageRootAsset, packageRoot);
+    savePackageRoot(tx, repository, packageRootAsset, packageRoot);
   }
 
   /**
    * Deletes the {@param tag} from the packageRoot
    */
   public static void deleteDistTags(final StorageTx tx,
+                                    final Repository repository,
                                     final Asset packageRootAsset,
                                     final String tag) throws IOException
   {
@@ -550,7 +636,7 @@ public final class NpmFacetUtils
     if (packageRoot.contains(DIST_TAGS)) {
       NestedAttributesMap distTags = packageRoot.child(DIST_TAGS);
       distTags.remove(tag);
-      NpmFacetUtils.savePackageRoot(tx, packageRootAsset, packageRoot);
+      NpmFacetUtils.savePackageRoot(tx, repository, packageRootAsset, packageRoot);
     }
   }
 
@@ -78,6 +78,11 @@ public class NpmHostedComponentMaintenanceImpl
         NpmPackageId packageId = NpmPackageId.parse(asset.name());
         deletedAssets.addAll(deletePackageRoot(packageId, deleteBlob));
       }
+      else if (AssetKind.ABBREVIATED_PACKAGE_ROOT == assetKind) {
+        // regenerated from the package root on its next save, requests fall back to the full package root until then
+        UnitOfWork.currentTx().deleteAsset(asset, deleteBlob);
+        deletedAssets.add(asset.name());
+      }
       else if (AssetKind.TARBALL == assetKind) {
         NpmPackageId packageId = NpmPackageId.parse(asset.name().substring(0, asset.name().indexOf("/-/")));
         String tarballName = NpmMetadataUtils.extractTarballName(asset.name());
@@ -134,7 +139,7 @@ public class NpmHostedComponentMaintenanceImpl
 
       packageRoot.child(NpmMetadataUtils.TIME).remove(version.getKey());
       NpmMetadataUtils.maintainTime(packageRoot);
-      NpmFacetUtils.savePackageRoot(UnitOfWork.currentTx(), packageRootAsset, packageRoot);
+      NpmFacetUtils.savePackageRoot(UnitOfWork.currentTx(), getRepository(), packageRootAsset, packageRoot);
       return getRepository().facet(NpmHostedFacet.class).deleteTarball(packageId, tarballName, deleteBlob);
     }
   }
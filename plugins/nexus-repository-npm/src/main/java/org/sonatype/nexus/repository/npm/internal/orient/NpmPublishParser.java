@@ -12,6 +12,7 @@
  */
 package org.sonatype.nexus.repository.npm.internal.orient;
 
+import java.io.FilterOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
@@ -27,11 +28,13 @@ import javax.annotation.Nullable;
 import org.sonatype.goodies.common.ComponentSupport;
 import org.sonatype.nexus.common.collect.NestedAttributesMap;
 import org.sonatype.nexus.common.hash.HashAlgorithm;
+import org.sonatype.nexus.repository.InvalidContentException;
 import org.sonatype.nexus.repository.npm.internal.NpmMetadataUtils;
 import org.sonatype.nexus.repository.storage.StorageFacet;
 import org.sonatype.nexus.repository.storage.TempBlob;
 import org.sonatype.nexus.thread.io.StreamCopier;
 
+import com.fasterxml.jackson.core.JsonLocation;
 import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.core.JsonToken;
 
@@ -50,6 +53,10 @@ import static java.util.Objects.nonNull;
  * that something goes wrong. Once the parse operation has succeeded, the ownership of the temp blobs is assigned to the
  * returned result.
  *
+ * Attachment data is base64 decoded straight into its temporary blob, so memory use does not depend on the size of the
+ * attachments. Optional limits on the decoded size of each attachment and on the size of the remaining JSON reject
+ * oversized requests with {@link InvalidContentException}.
+ *
  * Do not reuse instances of this class.
  *
  * @since 3.4
@@ -77,8 +84,16 @@ public class NpmPublishParser
 
   private final List<HashAlgorithm> hashAlgorithms;
 
+  private final long maxAttachmentSize;
+
+  private final long maxMetadataSize;
+
   private final Map<String, TempBlob> tempBlobs = new LinkedHashMap<>();
 
+  private long attachmentDataSize;
+
+  private volatile Exception attachmentFailure;
+
   /**
    * @param jsonParser     json parser containing the content
    * @param storageFacet   storage facet for creating temp blobs (if needed)
@@ -87,10 +102,30 @@ public class NpmPublishParser
   public NpmPublishParser(final JsonParser jsonParser,
                           final StorageFacet storageFacet,
                           final List<HashAlgorithm> hashAlgorithms)
+  {
+    this(jsonParser, storageFacet, hashAlgorithms, 0, 0);
+  }
+
+  /**
+   * @param jsonParser        json parser containing the content
+   * @param storageFacet      storage facet for creating temp blobs (if needed)
+   * @param hashAlgorithms    hash algorithms to apply to the temp blobs (if any are created)
+   * @param maxAttachmentSize maximum decoded size in bytes of each attachment, or 0 for no limit
+   * @param maxMetadataSize   maximum size of the content excluding attachment data, in characters (bytes when parsing
+   *                          a byte stream), or 0 for no limit
+   * @since 3.26
+   */
+  public NpmPublishParser(final JsonParser jsonParser,
+                          final StorageFacet storageFacet,
+                          final List<HashAlgorithm> hashAlgorithms,
+                          final long maxAttachmentSize,
+                          final long maxMetadataSize)
   {
     this.jsonParser = checkNotNull(jsonParser);
     this.storageFacet = checkNotNull(storageFacet);
     this.hashAlgorithms = checkNotNull(hashAlgorithms);
+    this.maxAttachmentSize = maxAttachmentSize;
+    this.maxMetadataSize = maxMetadataSize;
   }
 
   /**
@@ -390,28 +425,45 @@ public class NpmPublishParser
    * as a string.
    */
   private String parseAttachmentData() throws IOException {
+    long start = sourceOffset();
+    attachmentFailure = null;
+    TempBlob tempBlob;
     try {
-      TempBlob tempBlob = readBinaryValueIntoTempBlob();
-      String id = tempBlob.getBlob().getId().toString();
-      tempBlobs.put(id, tempBlob);
-      return id;
+      tempBlob = readBinaryValueIntoTempBlob();
     }
     catch (Exception e) {
       throw new IOException("failed to process attachment data", e);
     }
+
+    if (attachmentFailure != null) {
+      tempBlob.close();
+      if (attachmentFailure instanceof AttachmentTooLargeException) {
+        throw new InvalidContentException(attachmentFailure.getMessage());
+      }
+      throw new IOException("failed to process attachment data", attachmentFailure);
+    }
+
+    String id = tempBlob.getBlob().getId().toString();
+    tempBlobs.put(id, tempBlob);
+    attachmentDataSize += sourceOffset() - start;
+    consumeToken();
+    return id;
   }
 
   private TempBlob readBinaryValueIntoTempBlob() {
     return new StreamCopier<>(this::readBinaryValue, this::createTempBlob).read();
   }
 
+  /**
+   * Decodes the attachment data into the given stream, closing it even on failure so the temp blob being created from
+   * it is not left waiting for more data. The failure, if any, is kept for the parsing thread to act upon.
+   */
   private void readBinaryValue(final OutputStream outputStream) {
-    try {
-      jsonParser.readBinaryValue(outputStream);
-      consumeToken();
+    try (OutputStream limitedStream = new LimitedOutputStream(outputStream, maxAttachmentSize)) {
+      jsonParser.readBinaryValue(limitedStream);
     }
-    catch (IOException e) {
-      throw new RuntimeException("Unable to read binary value", e);
+    catch (Exception e) {
+      attachmentFailure = e;
     }
   }
 
@@ -434,6 +486,17 @@ public class NpmPublishParser
    */
   private void consumeToken() throws IOException {
     jsonParser.nextToken();
+    if (maxMetadataSize > 0 && sourceOffset() - attachmentDataSize > maxMetadataSize) {
+      throw new InvalidContentException("npm request exceeds maximum metadata size of " + maxMetadataSize);
+    }
+  }
+
+  /**
+   * Returns how far the underlying parser has read into its source, in characters or bytes, depending on the source.
+   */
+  private long sourceOffset() {
+    JsonLocation location = jsonParser.getCurrentLocation();
+    return location.getCharOffset() >= 0 ? location.getCharOffset() : location.getByteOffset();
   }
 
   /**
@@ -442,4 +505,47 @@ public class NpmPublishParser
   private JsonToken currentToken() {
     return jsonParser.currentToken();
   }
+
+  private static class AttachmentTooLargeException
+      extends IOException
+  {
+    AttachmentTooLargeException(final long maxSize) {
+      super("npm attachment exceeds maximum size of " + maxSize + " bytes");
+    }
+  }
+
+  /**
+   * Fails with {@link AttachmentTooLargeException} once more than the given number of bytes are written, unless 0.
+   */
+  private static class LimitedOutputStream
+      extends FilterOutputStream
+  {
+    private final long maxSize;
+
+    private long size;
+
+    LimitedOutputStream(final OutputStream out, final long maxSize) {
+      super(out);
+      this.maxSize = maxSize;
+    }
+
+    @Override
+    public void write(final int b) throws IOException {
+      count(1);
+      out.write(b);
+    }
+
+    @Override
+    public void write(final byte[] b, final int off, final int len) throws IOException {
+      count(len);
+      out.write(b, off, len);
+    }
+
+    private void count(final int length) throws AttachmentTooLargeException {
+      size += length;
+      if (maxSize > 0 && size > maxSize) {
+        throw new AttachmentTooLargeException(maxSize);
+      }
+    }
+  }
 }
@@ -21,6 +21,7 @@ import javax.inject.Inject;
 import javax.inject.Named;
 import javax.inject.Singleton;
 
+import org.sonatype.goodies.common.ByteSize;
 import org.sonatype.goodies.common.ComponentSupport;
 import org.sonatype.nexus.repository.InvalidContentException;
 import org.sonatype.nexus.repository.Repository;
@@ -39,6 +40,7 @@ import com.google.common.annotations.VisibleForTesting;
 import static com.google.common.base.Preconditions.checkNotNull;
 import static java.nio.charset.StandardCharsets.ISO_8859_1;
 import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Collections.emptyList;
 import static org.sonatype.nexus.repository.npm.internal.orient.NpmFacetUtils.HASH_ALGORITHMS;
 
 /**
@@ -60,9 +62,22 @@ public class NpmRequestParser
 
   private final SecuritySystem securitySystem;
 
+  private final long maxAttachmentSize;
+
+  private final long maxMetadataSize;
+
+  /**
+   * @param maxAttachmentSize maximum decoded size of each attachment in a publish request, or 0 for no limit
+   * @param maxMetadataSize   maximum size of a publish request excluding attachment data, or 0 for no limit
+   */
   @Inject
-  public NpmRequestParser(final SecuritySystem securitySystem) {
+  public NpmRequestParser(final SecuritySystem securitySystem,
+                          @Named("${nexus.npm.publish.maxAttachmentSize:-0}") final ByteSize maxAttachmentSize,
+                          @Named("${nexus.npm.publish.maxMetadataSize:-0}") final ByteSize maxMetadataSize)
+  {
     this.securitySystem = securitySystem;
+    this.maxAttachmentSize = maxAttachmentSize.toBytes();
+    this.maxMetadataSize = maxMetadataSize.toBytes();
   }
 
   /**
@@ -74,7 +89,8 @@ public class NpmRequestParser
     checkNotNull(repository);
     checkNotNull(payload);
     StorageFacet storageFacet = repository.facet(StorageFacet.class);
-    try (TempBlob tempBlob = storageFacet.createTempBlob(payload, NpmFacetUtils.HASH_ALGORITHMS)) {
+    // the request itself is only spooled for parsing, so only the attachments extracted from it are hashed
+    try (TempBlob tempBlob = storageFacet.createTempBlob(payload, emptyList())) {
       try {
         return parseNpmPublish(storageFacet, tempBlob, UTF_8);
       }
@@ -115,6 +131,6 @@ public class NpmRequestParser
 
   @VisibleForTesting
   NpmPublishParser npmPublishParserFor(final JsonParser jsonParser, final StorageFacet storageFacet) {
-    return new NpmPublishParser(jsonParser, storageFacet, HASH_ALGORITHMS);
+    return new NpmPublishParser(jsonParser, storageFacet, HASH_ALGORITHMS, maxAttachmentSize, maxMetadataSize);
   }
 }
@@ -37,7 +37,8 @@ public class NpmWritePolicySelector
   public WritePolicy select(final Asset asset, final WritePolicy configured) {
     if (WritePolicy.ALLOW_ONCE == configured) {
       final String assetKind = asset.formatAttributes().get(P_ASSET_KIND, String.class);
-      if (Objects.equals(AssetKind.PACKAGE_ROOT.name(), assetKind)) {
+      if (Objects.equals(AssetKind.PACKAGE_ROOT.name(), assetKind)
+          || Objects.equals(AssetKind.ABBREVIATED_PACKAGE_ROOT.name(), assetKind)) {
         return WritePolicy.ALLOW;
       }
     }
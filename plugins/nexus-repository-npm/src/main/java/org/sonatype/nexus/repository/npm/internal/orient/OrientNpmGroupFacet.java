@@ -78,6 +78,7 @@ import static org.sonatype.nexus.repository.npm.internal.NpmMetadataUtils.mergeC
 import static org.sonatype.nexus.repository.npm.internal.NpmMetadataUtils.parseContent;
 import static org.sonatype.nexus.repository.npm.internal.orient.NpmFacetUtils.errorInputStream;
 import static org.sonatype.nexus.repository.npm.internal.orient.NpmFacetUtils.findPackageRootAsset;
+import static org.sonatype.nexus.repository.npm.internal.orient.NpmFacetUtils.isAbbreviatedPackageRootAssetName;
 import static org.sonatype.nexus.repository.npm.internal.orient.NpmFacetUtils.savePackageRoot;
 import static org.sonatype.nexus.repository.npm.internal.orient.NpmFacetUtils.toContent;
 import static org.sonatype.nexus.repository.view.Content.applyToAsset;
@@ -286,7 +287,7 @@ public class OrientNpmGroupFacet
     maintainCacheInfo(contentAttributes);
     applyToAsset(asset, contentAttributes);
 
-    savePackageRoot(tx, asset, result);
+    savePackageRoot(tx, getRepository(), asset, result);
 
     return asset;
   }
@@ -386,7 +387,8 @@ public class OrientNpmGroupFacet
   }
 
   private boolean matchingEvent(final AssetEvent event) {
-    return matchesRepository(event) && isNull(event.getComponentId());
+    return matchesRepository(event) && isNull(event.getComponentId())
+        && !isAbbreviatedPackageRootAssetName(event.getAsset().name());
   }
 
   private boolean matchesRepository(final AssetEvent event) {
@@ -153,6 +153,7 @@ class OrientNpmGroupRecipe
         .handler(conditionalRequestHandler)
         .handler(contentHeadersHandler)
         .handler(lastDownloadedHandler)
+        .handler(abbreviatedMetadataHandler)
         .handler(packageHandler)
         .create())
 
@@ -152,7 +152,7 @@ public class OrientNpmHostedFacet
     try {
       NestedAttributesMap packageRoot = NpmFacetUtils.loadPackageRoot(tx, asset);
       packageRoot.set(META_REV, revision);
-      savePackageRoot(UnitOfWork.currentTx(), packageRootAsset, packageRoot);
+      savePackageRoot(UnitOfWork.currentTx(), getRepository(), packageRootAsset, packageRoot);
     }
     catch (IOException e) {
       log.warn("Failed to update revision in package root. Revision '{}' was not set" +
@@ -285,7 +285,7 @@ public class OrientNpmHostedFacet
 
     updateRevision(packageRoot, packageRootAsset, createdPackageRoot);
 
-    savePackageRoot(tx, packageRootAsset, packageRoot);
+    savePackageRoot(tx, getRepository(), packageRootAsset, packageRoot);
     if (update) {
       updateDeprecationFlags(tx, packageId, packageRoot);
     }
@@ -484,7 +484,7 @@ public class OrientNpmHostedFacet
     }
 
     try {
-      NpmFacetUtils.updateDistTags(tx, packageRootAsset, tag, version);
+      NpmFacetUtils.updateDistTags(tx, getRepository(), packageRootAsset, tag, version);
     }
     catch (IOException e) {
       log.error("Unable to update dist-tags for {}", packageId.id(), e);
@@ -510,7 +510,7 @@ public class OrientNpmHostedFacet
     }
 
     try {
-      NpmFacetUtils.deleteDistTags(tx, packageRootAsset, tag);
+      NpmFacetUtils.deleteDistTags(tx, getRepository(), packageRootAsset, tag);
     }
     catch (IOException e) {
       log.info("Unable to obtain dist-tags for {}", packageId.id(), e);
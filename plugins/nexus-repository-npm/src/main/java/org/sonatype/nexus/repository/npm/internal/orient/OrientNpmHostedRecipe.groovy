@@ -147,6 +147,7 @@ class OrientNpmHostedRecipe
         .handler(contentHeadersHandler)
         .handler(unitOfWorkHandler)
         .handler(lastDownloadedHandler)
+        .handler(abbreviatedMetadataHandler)
         .handler(NpmHandlers.getPackage)
         .create())
 
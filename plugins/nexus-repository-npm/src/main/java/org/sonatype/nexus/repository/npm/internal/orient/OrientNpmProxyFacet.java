@@ -324,7 +324,7 @@ public class OrientNpmProxyFacet
     }
 
     Content.applyToAsset(asset, Content.maintainLastModified(asset, content.getAttributes()));
-    NpmFacetUtils.savePackageRoot(tx, asset, newPackageRoot);
+    NpmFacetUtils.savePackageRoot(tx, getRepository(), asset, newPackageRoot);
 
     return toContent(getRepository(), asset)
         .fieldMatchers(rewriteTarballUrlMatcher(getRepository(), packageId.id()))
@@ -206,6 +206,7 @@ class OrientNpmProxyRecipe
         .handler(proxyTargetHandler.rcurry(ProxyTarget.PACKAGE))
         .handler(unitOfWorkHandler)
         .handler(lastDownloadedHandler)
+        .handler(abbreviatedMetadataHandler)
         .handler(proxyHandler)
         .create())
 
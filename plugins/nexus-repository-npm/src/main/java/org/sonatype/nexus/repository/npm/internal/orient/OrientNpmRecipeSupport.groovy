@@ -108,6 +108,9 @@ abstract class OrientNpmRecipeSupport
   @Inject
   LastDownloadedHandler lastDownloadedHandler
 
+  @Inject
+  NpmAbbreviatedMetadataHandler abbreviatedMetadataHandler
+
   @Inject
   NpmAuditErrorHandler auditErrorHandler
 
@@ -13,10 +13,12 @@
 package org.sonatype.nexus.repository.npm.internal.search.legacy;
 
 import java.io.IOException;
+import java.util.Set;
 
 import javax.annotation.Nullable;
 
 import org.sonatype.nexus.repository.Facet;
+import org.sonatype.nexus.repository.npm.internal.NpmPackageId;
 import org.sonatype.nexus.repository.view.Content;
 
 import org.joda.time.DateTime;
@@ -41,4 +43,14 @@ public interface NpmSearchIndexFacet
    * Invalidates cached index document, if applicable.
    */
   void invalidateCachedSearchIndex();
+
+  /**
+   * Updates cached index document for changes of the given packages, if applicable. By default the cached index
+   * document is invalidated.
+   *
+   * @since 3.26
+   */
+  default void updateCachedSearchIndex(final Set<NpmPackageId> packageIds) {
+    invalidateCachedSearchIndex();
+  }
 }
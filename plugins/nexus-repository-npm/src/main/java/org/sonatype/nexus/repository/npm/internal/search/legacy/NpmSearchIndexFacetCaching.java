@@ -51,7 +51,7 @@ public abstract class NpmSearchIndexFacetCaching
     extends FacetSupport
     implements NpmSearchIndexFacet
 {
-  private final EventManager eventManager;
+  protected final EventManager eventManager;
 
   private final AssetManager assetManager;
 
@@ -73,6 +73,13 @@ public abstract class NpmSearchIndexFacetCaching
       // ... second attempt allowed to create the index, requiring unfrozen database though
       searchIndex = getSearchIndex();
     }
+    return filterModifiedSince(searchIndex, since);
+  }
+
+  /**
+   * Filters the index document by package modification time, see {@link NpmSearchIndexFilter}.
+   */
+  protected Content filterModifiedSince(final Content searchIndex, @Nullable final DateTime since) throws IOException {
     return NpmSearchIndexFilter.filterModifiedSince(searchIndex, since);
   }
 
@@ -102,6 +109,7 @@ public abstract class NpmSearchIndexFacetCaching
       final Path path = Files.createTempFile("npm-searchIndex", "json");
       try {
         Content content = buildIndex(tx, path);
+        beforeSaveIndex(asset);
         return saveRepositoryRoot(
             tx,
             asset,
@@ -155,6 +163,13 @@ public abstract class NpmSearchIndexFacetCaching
     eventManager.post(new NpmSearchIndexInvalidatedEvent(getRepository()));
   }
 
+  /**
+   * Invoked before a newly built index document is saved, allowing to record how it was built on its asset.
+   */
+  protected void beforeSaveIndex(final Asset asset) {
+    // nop
+  }
+
   /**
    * Builds the full index document of repository.
    */
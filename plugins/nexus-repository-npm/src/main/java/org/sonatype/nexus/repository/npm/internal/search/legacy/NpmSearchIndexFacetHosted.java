@@ -15,32 +15,36 @@ package org.sonatype.nexus.repository.npm.internal.search.legacy;
 import java.io.BufferedInputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.Writer;
-import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
 import java.util.Set;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import javax.inject.Inject;
 import javax.inject.Named;
 
+import org.sonatype.nexus.blobstore.api.Blob;
 import org.sonatype.nexus.common.collect.NestedAttributesMap;
 import org.sonatype.nexus.common.event.EventManager;
 import org.sonatype.nexus.repository.npm.internal.orient.NpmFacetUtils;
-import org.sonatype.nexus.repository.npm.internal.NpmJsonUtils;
 import org.sonatype.nexus.repository.npm.internal.NpmMetadataUtils;
 import org.sonatype.nexus.repository.npm.internal.NpmPackageId;
 import org.sonatype.nexus.repository.storage.Asset;
 import org.sonatype.nexus.repository.storage.AssetManager;
 import org.sonatype.nexus.repository.storage.Bucket;
+import org.sonatype.nexus.repository.storage.StorageFacet;
 import org.sonatype.nexus.repository.storage.StorageTx;
+import org.sonatype.nexus.repository.transaction.TransactionalStoreBlob;
 import org.sonatype.nexus.repository.view.Content;
 import org.sonatype.nexus.repository.view.ContentTypes;
 import org.sonatype.nexus.repository.view.payloads.StreamPayload;
 import org.sonatype.nexus.repository.view.payloads.StreamPayload.InputStreamSupplier;
+import org.sonatype.nexus.transaction.UnitOfWork;
 
-import com.fasterxml.jackson.core.JsonGenerator;
 import com.google.common.collect.Sets;
 import org.joda.time.DateTime;
 
@@ -56,6 +60,10 @@ import org.joda.time.DateTime;
 public class NpmSearchIndexFacetHosted
     extends NpmSearchIndexFacetCaching
 {
+  private final Set<NpmPackageId> pendingPackageIds = new HashSet<>();
+
+  private boolean updating;
+
   @Inject
   public NpmSearchIndexFacetHosted(final EventManager eventManager, final AssetManager assetManager) {
     super(eventManager, assetManager);
@@ -68,26 +76,173 @@ public class NpmSearchIndexFacetHosted
   @Override
   protected Content buildIndex(final StorageTx tx, final Path path) throws IOException {
     Bucket bucket = tx.findBucket(getRepository());
-    try (final Writer writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+    try (OrderedSearchIndex.Writer writer = new OrderedSearchIndex.Writer()) {
       Set<NpmPackageId> packageIds = Sets.newHashSet(NpmFacetUtils.findAllPackageNames(tx, bucket));
       DateTime updated = new DateTime();
-      JsonGenerator generator = NpmJsonUtils.mapper.getFactory().createGenerator(writer);
-      generator.writeStartObject();
-      generator.writeNumberField(NpmMetadataUtils.META_UPDATED, updated.getMillis());
       for (NpmPackageId packageId : packageIds) {
-        final Asset packageRootAsset = NpmFacetUtils.findPackageRootAsset(tx, bucket, packageId);
-        if (packageRootAsset != null) { // removed during iteration, skip
-          NestedAttributesMap packageRoot = NpmFacetUtils.loadPackageRoot(tx, packageRootAsset);
-          if (!packageRoot.isEmpty()) {
-            NpmMetadataUtils.shrink(packageRoot);
-            generator.writeObjectField(packageId.id(), packageRoot.backing());
-          }
+        NestedAttributesMap packageRoot = loadShrunkPackageRoot(tx, bucket, packageId);
+        if (packageRoot != null) { // removed during iteration, skip
+          writer.add(packageId.id(), packageRoot);
+        }
+      }
+      writer.writeTo(path, updated);
+    }
+    return jsonContent(path);
+  }
+
+  @Override
+  protected void beforeSaveIndex(final Asset asset) {
+    OrderedSearchIndex.markOrdered(asset);
+  }
+
+  @Override
+  protected Content filterModifiedSince(final Content searchIndex, @Nullable final DateTime since) throws IOException {
+    Asset asset = searchIndex.getAttributes().get(Asset.class);
+    if (asset != null && OrderedSearchIndex.isOrdered(asset)) {
+      return NpmSearchIndexFilter.filterModifiedSinceOrdered(searchIndex, since);
+    }
+    return super.filterModifiedSince(searchIndex, since);
+  }
+
+  /**
+   * Patches the cached index document for the changed packages, rather than dropping it to be rebuilt from every
+   * package root on the next request. Cached index documents which are not ordered are invalidated instead.
+   *
+   * Changes are coalesced: while an update of the document is running, changes of further batches are only recorded,
+   * and the running update then applies all of them at once. So the document is rewritten once per update rather than
+   * once per batch, however many batches arrive while it is being rewritten.
+   *
+   * If the document can't be patched it is invalidated; if it can't be invalidated either, the changes are kept to be
+   * applied by the next update.
+   */
+  @Override
+  public void updateCachedSearchIndex(final Set<NpmPackageId> packageIds) {
+    synchronized (pendingPackageIds) {
+      pendingPackageIds.addAll(packageIds);
+      if (updating) {
+        return;
+      }
+      updating = true;
+    }
+    Set<NpmPackageId> changed = takePendingPackageIds();
+    try {
+      while (changed != null) {
+        applyUpdate(changed);
+        changed = takePendingPackageIds();
+      }
+    }
+    finally {
+      if (changed != null) {
+        synchronized (pendingPackageIds) {
+          pendingPackageIds.addAll(changed);
+          updating = false;
         }
       }
-      generator.writeEndObject();
-      generator.flush();
     }
+  }
+
+  /**
+   * Returns the changed packages not yet applied to the cached index document, or {@code null} when there are none,
+   * in which case the running update is done.
+   */
+  @Nullable
+  private Set<NpmPackageId> takePendingPackageIds() {
+    synchronized (pendingPackageIds) {
+      if (pendingPackageIds.isEmpty()) {
+        updating = false;
+        return null;
+      }
+      Set<NpmPackageId> changed = new HashSet<>(pendingPackageIds);
+      pendingPackageIds.clear();
+      return changed;
+    }
+  }
+
+  private void applyUpdate(final Set<NpmPackageId> packageIds) {
+    boolean patched = false;
+    UnitOfWork.begin(getRepository().facet(StorageFacet.class).txSupplier());
+    try {
+      patched = patchCachedSearchIndex(packageIds);
+    }
+    catch (Exception e) {
+      log.warn("Could not update cached search index for {}, invalidating it", getRepository().getName(), e);
+    }
+    finally {
+      UnitOfWork.end();
+    }
+    if (!patched) {
+      invalidateCachedSearchIndex();
+    }
+  }
+
+  /**
+   * Replaces the entries of the given packages in the cached index document with their current package roots.
+   *
+   * @return {@code false} if the cached index document is not ordered, so can't be patched
+   */
+  @TransactionalStoreBlob
+  protected boolean patchCachedSearchIndex(final Set<NpmPackageId> packageIds) throws IOException {
+    StorageTx tx = UnitOfWork.currentTx();
+    Bucket bucket = tx.findBucket(getRepository());
+    Asset asset = NpmFacetUtils.findRepositoryRootAsset(tx, bucket);
+    if (asset == null) {
+      return true;
+    }
+    if (!OrderedSearchIndex.isOrdered(asset)) {
+      return false;
+    }
+
+    log.debug("Updating npm index of {} for {}", getRepository().getName(), packageIds);
+    Map<String, NestedAttributesMap> changed = new HashMap<>();
+    for (NpmPackageId packageId : packageIds) {
+      changed.put(packageId.id(), loadShrunkPackageRoot(tx, bucket, packageId));
+    }
+
+    Path path = Files.createTempFile("npm-searchIndex", "json");
+    try {
+      Blob blob = tx.requireBlob(asset.requireBlobRef());
+      try (InputStream index = new BufferedInputStream(blob.getInputStream())) {
+        OrderedSearchIndex.patch(index, path, changed);
+      }
+      Content content = jsonContent(path);
+      NpmFacetUtils.saveRepositoryRoot(
+          tx,
+          asset,
+          () -> {
+            try {
+              return content.openInputStream();
+            }
+            catch (IOException e) {
+              throw new RuntimeException(e);
+            }
+          },
+          content
+      );
+    }
+    finally {
+      Files.delete(path);
+    }
+    eventManager.post(new NpmSearchIndexInvalidatedEvent(getRepository()));
+    return true;
+  }
+
+  @Nullable
+  private NestedAttributesMap loadShrunkPackageRoot(final StorageTx tx,
+                                                    final Bucket bucket,
+                                                    final NpmPackageId packageId) throws IOException
+  {
+    Asset packageRootAsset = NpmFacetUtils.findPackageRootAsset(tx, bucket, packageId);
+    if (packageRootAsset == null) {
+      return null;
+    }
+    NestedAttributesMap packageRoot = NpmFacetUtils.loadPackageRoot(tx, packageRootAsset);
+    if (packageRoot.isEmpty()) {
+      return null;
+    }
+    return NpmMetadataUtils.shrink(packageRoot);
+  }
 
+  private static Content jsonContent(final Path path) throws IOException {
     return new Content(new StreamPayload(
         new InputStreamSupplier()
         {
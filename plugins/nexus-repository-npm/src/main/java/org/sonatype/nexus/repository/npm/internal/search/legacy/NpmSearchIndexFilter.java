@@ -89,11 +89,33 @@ public class NpmSearchIndexFilter
     }
   }
 
+  /**
+   * Same as {@link #filterModifiedSince(Content, DateTime)}, but for index documents ordered by
+   * {@link OrderedSearchIndex}: reading stops at the first package not modified since, as no later package can be.
+   */
+  static Content filterModifiedSinceOrdered(final Content orderedIndex,
+                                            @Nullable DateTime lastModified) throws IOException
+  {
+    if (lastModified == null) {
+      return orderedIndex;
+    }
+    else {
+      return filter(orderedIndex, new PackageModifiedSince(lastModified), true);
+    }
+  }
+
   /**
    * Filters the npm index document with given predicate/
    */
   static Content filter(final Content fullIndex,
                         final Predicate<NestedAttributesMap> predicate) throws IOException
+  {
+    return filter(fullIndex, predicate, false);
+  }
+
+  private static Content filter(final Content fullIndex,
+                                final Predicate<NestedAttributesMap> predicate,
+                                final boolean stopAtFirstRejected) throws IOException
   {
     checkNotNull(fullIndex);
     checkNotNull(predicate);
@@ -115,6 +137,9 @@ public class NpmSearchIndexFilter
         if (predicate.apply(packageRoot)) {
           generator.writeObjectField(packageRoot.getKey(), packageRoot.backing());
         }
+        else if (stopAtFirstRejected) {
+          break;
+        }
       }
       generator.writeEndObject();
       generator.flush();
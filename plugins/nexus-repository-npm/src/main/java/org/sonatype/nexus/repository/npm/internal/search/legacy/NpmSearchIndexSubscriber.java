@@ -12,6 +12,11 @@
  */
 package org.sonatype.nexus.repository.npm.internal.search.legacy;
 
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
 import javax.annotation.Nullable;
 import javax.inject.Inject;
 import javax.inject.Named;
@@ -19,6 +24,7 @@ import javax.inject.Singleton;
 
 import org.sonatype.nexus.repository.npm.internal.orient.NpmFacetUtils;
 import org.sonatype.nexus.repository.npm.internal.NpmFormat;
+import org.sonatype.nexus.repository.npm.internal.NpmPackageId;
 
 import org.sonatype.goodies.common.ComponentSupport;
 import org.sonatype.nexus.common.entity.EntityBatchEvent;
@@ -58,33 +64,37 @@ public class NpmSearchIndexSubscriber
 
   /**
    * On package root {@link Asset} change event (any change, CREATE, UPDATE or DELETE), the owning repository's cached
-   * index document should be invalidated.
+   * index document should be updated for the changed packages, once per repository for the whole batch.
    */
   @Subscribe
   @AllowConcurrentEvents
   public void on(final EntityBatchEvent batchEvent) {
     // skip when replicating, origin node will delete any search indexes
     if (!EventHelper.isReplicating()) {
+      final Map<Repository, Set<NpmPackageId>> changedPackages = new LinkedHashMap<>();
       for (final EntityEvent event : batchEvent.getEvents()) {
         final Repository npmAssetRepository = filterNpmAssetRepository(event);
         if (npmAssetRepository != null) {
-          invalidateCachedSearchIndex(npmAssetRepository);
+          changedPackages.computeIfAbsent(npmAssetRepository, repository -> new HashSet<>())
+              .add(NpmPackageId.parse(((AssetEvent) event).getAsset().name()));
         }
       }
+      changedPackages.forEach(this::updateCachedSearchIndex);
     }
   }
 
   /**
    * Returns passed in event only if: a) it is {@link AssetEvent}, b) is about {@link Asset} without component
    * (package metadata) and c) is NOT having name of {@link NpmFacetUtils#REPOSITORY_ROOT_ASSET} (is not index document
-   * itself).
+   * itself) nor of an abbreviated package root (changes together with its package root).
    */
   @Nullable
   private Repository filterNpmAssetRepository(final EntityEvent entityEvent) {
     if (entityEvent instanceof AssetEvent) {
       final AssetEvent assetEvent = (AssetEvent) entityEvent;
       if (assetEvent.getComponentId() == null
-          && !NpmFacetUtils.REPOSITORY_ROOT_ASSET.equals(assetEvent.getAsset().name())) {
+          && !NpmFacetUtils.REPOSITORY_ROOT_ASSET.equals(assetEvent.getAsset().name())
+          && !NpmFacetUtils.isAbbreviatedPackageRootAssetName(assetEvent.getAsset().name())) {
         return findNpmRepository(assetEvent.getRepositoryName());
       }
     }
@@ -104,9 +114,9 @@ public class NpmSearchIndexSubscriber
   }
 
   /**
-   * Invalidates the cached search document of repository.
+   * Updates the cached search document of repository for the changed packages.
    */
-  private void invalidateCachedSearchIndex(final Repository repository) {
-    repository.facet(NpmSearchIndexFacet.class).invalidateCachedSearchIndex();
+  private void updateCachedSearchIndex(final Repository repository, final Set<NpmPackageId> packageIds) {
+    repository.facet(NpmSearchIndexFacet.class).updateCachedSearchIndex(packageIds);
   }
 }
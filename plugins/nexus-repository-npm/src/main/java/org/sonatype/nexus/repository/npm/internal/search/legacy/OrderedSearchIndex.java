@@ -0,0 +1,244 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-present Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.repository.npm.internal.search.legacy;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import javax.annotation.Nullable;
+
+import org.sonatype.nexus.common.collect.NestedAttributesMap;
+import org.sonatype.nexus.repository.npm.internal.NpmMetadataUtils;
+import org.sonatype.nexus.repository.storage.Asset;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.google.common.io.CountingOutputStream;
+import org.joda.time.DateTime;
+
+import static java.lang.Math.toIntExact;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.util.Comparator.naturalOrder;
+import static java.util.Comparator.nullsFirst;
+import static java.util.Comparator.reverseOrder;
+import static org.sonatype.nexus.repository.npm.internal.NpmJsonUtils.mapper;
+import static org.sonatype.nexus.repository.npm.internal.NpmJsonUtils.rawMapJsonTypeRef;
+
+/**
+ * npm index documents with packages ordered most recently modified first. Packages without "time.modified", which
+ * "modified since" filters always let through, come first. This lets a cached index document be patched for changed
+ * packages instead of being rebuilt from every package root, and lets "modified since" filters stop reading at the
+ * first package not modified since.
+ *
+ * @since 3.26
+ * @deprecated No longer actively used by npm upstream, replaced by v1 search api (NEXUS-13150).
+ */
+@Deprecated
+class OrderedSearchIndex
+{
+  /**
+   * Format attribute marking cached index documents written in this order.
+   */
+  static final String P_MODIFIED_ORDER = "modified_order";
+
+  private static final Comparator<IndexEntry> ORDER = Comparator
+      .comparing((IndexEntry entry) -> entry.modified, nullsFirst(reverseOrder()))
+      .thenComparing(entry -> entry.packageId, naturalOrder());
+
+  private OrderedSearchIndex() {
+    // nop
+  }
+
+  static boolean isOrdered(final Asset asset) {
+    return Boolean.TRUE.equals(asset.formatAttributes().get(P_MODIFIED_ORDER, Boolean.class));
+  }
+
+  static void markOrdered(final Asset asset) {
+    asset.formatAttributes().set(P_MODIFIED_ORDER, true);
+  }
+
+  /**
+   * Copies an ordered index document to the given path, replacing the entries of the changed packages with their
+   * current package roots, or dropping them where the package root is {@code null}, while keeping the order.
+   */
+  static void patch(final InputStream index,
+                    final Path path,
+                    final Map<String, NestedAttributesMap> changed) throws IOException
+  {
+    List<IndexEntry> updates = new ArrayList<>();
+    for (Entry<String, NestedAttributesMap> entry : changed.entrySet()) {
+      if (entry.getValue() != null) {
+        updates.add(new IndexEntry(entry.getKey(), lastModified(entry.getValue()), entry.getValue().backing()));
+      }
+    }
+    updates.sort(ORDER);
+
+    try (JsonParser parser = mapper.getFactory().createParser(index);
+         JsonGenerator generator = createGenerator(path)) {
+      if (parser.nextToken() != JsonToken.START_OBJECT) {
+        throw new IOException("Malformed npm index document");
+      }
+      generator.writeStartObject();
+      generator.writeNumberField(NpmMetadataUtils.META_UPDATED, System.currentTimeMillis());
+
+      int next = 0;
+      String packageId;
+      while ((packageId = parser.nextFieldName()) != null) {
+        parser.nextToken();
+        if (NpmMetadataUtils.META_UPDATED.equals(packageId) || changed.containsKey(packageId)) {
+          parser.skipChildren();
+          continue;
+        }
+        NestedAttributesMap packageRoot = new NestedAttributesMap(packageId, parser.readValueAs(rawMapJsonTypeRef));
+        IndexEntry existing = new IndexEntry(packageId, lastModified(packageRoot), packageRoot.backing());
+        while (next < updates.size() && ORDER.compare(updates.get(next), existing) < 0) {
+          updates.get(next++).writeTo(generator);
+        }
+        existing.writeTo(generator);
+      }
+      while (next < updates.size()) {
+        updates.get(next++).writeTo(generator);
+      }
+      generator.writeEndObject();
+    }
+  }
+
+  @Nullable
+  static Long lastModified(final NestedAttributesMap packageRoot) {
+    if (!packageRoot.contains(NpmMetadataUtils.TIME)) {
+      return null;
+    }
+    DateTime lastModified = NpmMetadataUtils.lastModified(packageRoot);
+    return lastModified != null ? lastModified.getMillis() : null;
+  }
+
+  private static JsonGenerator createGenerator(final Path path) throws IOException {
+    return mapper.getFactory().createGenerator(new BufferedOutputStream(Files.newOutputStream(path)));
+  }
+
+  /**
+   * Writes an ordered index document. Package roots are spooled to a temporary file as they are added, so only their
+   * ids, modification times and spool offsets are held in memory while ordering them.
+   */
+  static class Writer
+      implements Closeable
+  {
+    private final Path spool;
+
+    private final CountingOutputStream spoolStream;
+
+    private final JsonGenerator spoolGenerator;
+
+    private final List<IndexEntry> entries = new ArrayList<>();
+
+    Writer() throws IOException {
+      this.spool = Files.createTempFile("npm-searchIndex-spool", "json");
+      this.spoolStream = new CountingOutputStream(new BufferedOutputStream(Files.newOutputStream(spool)));
+      this.spoolGenerator = mapper.getFactory().createGenerator(spoolStream)
+          .disable(JsonGenerator.Feature.FLUSH_PASSED_TO_STREAM)
+          .setRootValueSeparator(null);
+    }
+
+    void add(final String packageId, final NestedAttributesMap packageRoot) throws IOException {
+      long start = spoolStream.getCount();
+      spoolGenerator.writeObject(packageRoot.backing());
+      spoolGenerator.flush();
+      entries.add(new IndexEntry(packageId, lastModified(packageRoot), start, spoolStream.getCount()));
+    }
+
+    void writeTo(final Path path, final DateTime updated) throws IOException {
+      spoolGenerator.close();
+      entries.sort(ORDER);
+
+      try (FileChannel channel = FileChannel.open(spool, READ);
+           JsonGenerator generator = createGenerator(path)) {
+        generator.writeStartObject();
+        generator.writeNumberField(NpmMetadataUtils.META_UPDATED, updated.getMillis());
+        for (IndexEntry entry : entries) {
+          generator.writeFieldName(entry.packageId);
+          generator.writeRawValue(read(channel, entry.start, entry.end));
+        }
+        generator.writeEndObject();
+      }
+    }
+
+    private static String read(final FileChannel channel, final long start, final long end) throws IOException {
+      ByteBuffer buffer = ByteBuffer.allocate(toIntExact(end - start));
+      while (buffer.hasRemaining()) {
+        if (channel.read(buffer, start + buffer.position()) < 0) {
+          throw new EOFException("Truncated npm index spool");
+        }
+      }
+      return new String(buffer.array(), UTF_8);
+    }
+
+    @Override
+    public void close() throws IOException {
+      try {
+        spoolGenerator.close();
+      }
+      finally {
+        Files.deleteIfExists(spool);
+      }
+    }
+  }
+
+  private static class IndexEntry
+  {
+    private final String packageId;
+
+    @Nullable
+    private final Long modified;
+
+    @Nullable
+    private final Map<String, Object> packageRoot;
+
+    private final long start;
+
+    private final long end;
+
+    IndexEntry(final String packageId, @Nullable final Long modified, final Map<String, Object> packageRoot) {
+      this.packageId = packageId;
+      this.modified = modified;
+      this.packageRoot = packageRoot;
+      this.start = -1;
+      this.end = -1;
+    }
+
+    IndexEntry(final String packageId, @Nullable final Long modified, final long start, final long end) {
+      this.packageId = packageId;
+      this.modified = modified;
+      this.packageRoot = null;
+      this.start = start;
+      this.end = end;
+    }
+
+    void writeTo(final JsonGenerator generator) throws IOException {
+      generator.writeObjectField(packageId, packageRoot);
+    }
+  }
+}
@@ -172,6 +172,46 @@ public class NpmMetadataUtilsTest
     assertThat(versions.get("1.0.3").toString(), equalTo("latest"));
   }
 
+  @Test
+  public void abbreviate() {
+    NestedAttributesMap packageRoot = new NestedAttributesMap("package", Maps.newHashMap());
+    packageRoot.set("_id", "package");
+    packageRoot.set("name", "package");
+    packageRoot.set("description", "a package");
+    packageRoot.set("readme", "a long readme");
+    packageRoot.child("time").set("modified", "2020-01-01T00:00:00.000Z");
+    packageRoot.child("dist-tags").set("latest", "1.0");
+    NestedAttributesMap version = packageRoot.child("versions").child("1.0");
+    version.set("name", "package");
+    version.set("version", "1.0");
+    version.set("description", "a package");
+    version.set("readme", "a long readme");
+    version.child("dependencies").set("dep", "^1.0.0");
+    version.child("scripts").set("postinstall", "node install.js");
+    version.child("scripts").set("test", "node test.js");
+    version.child("dist").set("tarball", "http://example.com/path/package-1.0.tgz");
+    packageRoot.child("versions").child("2.0").set("name", "package");
+    packageRoot.child("versions").child("2.0").child("scripts").set("test", "node test.js");
+
+    NestedAttributesMap abbreviated = NpmMetadataUtils.abbreviate(packageRoot);
+
+    assertThat(abbreviated.keys(), Matchers.contains("name", "modified", "dist-tags", "versions"));
+    assertThat(abbreviated.get("modified"), equalTo("2020-01-01T00:00:00.000Z"));
+    assertThat(abbreviated.child("dist-tags").get("latest"), equalTo("1.0"));
+
+    NestedAttributesMap abbreviatedVersion = abbreviated.child("versions").child("1.0");
+    assertThat(abbreviatedVersion.keys(),
+        Matchers.contains("name", "version", "dependencies", "dist", "hasInstallScript"));
+    assertThat(abbreviatedVersion.child("dependencies").get("dep"), equalTo("^1.0.0"));
+    assertThat(abbreviatedVersion.child("dist").get("tarball"), equalTo("http://example.com/path/package-1.0.tgz"));
+    assertThat(abbreviatedVersion.get("hasInstallScript"), equalTo(true));
+    assertThat(abbreviated.child("versions").child("2.0").keys(), Matchers.contains("name"));
+
+    // source is left as is
+    assertThat(packageRoot.get("readme"), equalTo("a long readme"));
+    assertThat(version.get("readme"), equalTo("a long readme"));
+  }
+
   @Test
   public void selectVersionByTarballNameTest() {
     NestedAttributesMap packageRoot = new NestedAttributesMap("package", Maps.newHashMap());
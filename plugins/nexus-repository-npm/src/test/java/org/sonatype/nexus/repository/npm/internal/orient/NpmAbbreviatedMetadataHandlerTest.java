@@ -0,0 +1,181 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-present Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.repository.npm.internal.orient;
+
+import java.util.HashMap;
+
+import org.sonatype.goodies.testsupport.TestSupport;
+import org.sonatype.nexus.common.collect.AttributesMap;
+import org.sonatype.nexus.common.collect.NestedAttributesMap;
+import org.sonatype.nexus.repository.Repository;
+import org.sonatype.nexus.repository.group.GroupHandler.DispatchedRepositories;
+import org.sonatype.nexus.repository.storage.Asset;
+import org.sonatype.nexus.repository.storage.Bucket;
+import org.sonatype.nexus.repository.storage.StorageFacet;
+import org.sonatype.nexus.repository.storage.StorageTx;
+import org.sonatype.nexus.repository.view.Content;
+import org.sonatype.nexus.repository.view.Context;
+import org.sonatype.nexus.repository.view.Headers;
+import org.sonatype.nexus.repository.view.Request;
+import org.sonatype.nexus.repository.view.Response;
+import org.sonatype.nexus.repository.view.payloads.BytesPayload;
+import org.sonatype.nexus.transaction.UnitOfWork;
+
+import com.google.common.hash.HashCode;
+import com.google.common.net.HttpHeaders;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.sonatype.nexus.common.hash.HashAlgorithm.SHA1;
+import static org.sonatype.nexus.repository.http.HttpStatus.OK;
+import static org.sonatype.nexus.repository.npm.internal.NpmMetadataUtils.ABBREVIATED_CONTENT_TYPE;
+import static org.sonatype.nexus.repository.storage.AssetEntityAdapter.P_ASSET_KIND;
+import static org.sonatype.nexus.repository.storage.MetadataNodeEntityAdapter.P_NAME;
+import static org.sonatype.nexus.repository.view.ContentTypes.APPLICATION_JSON;
+import static org.sonatype.nexus.repository.view.Status.success;
+
+public class NpmAbbreviatedMetadataHandlerTest
+    extends TestSupport
+{
+  private static final String PACKAGE_ROOT_SHA1 = "aaaa";
+
+  private static final String ABBREVIATED_SHA1 = "bbbb";
+
+  @Mock
+  private Context context;
+
+  @Mock
+  private Request request;
+
+  @Mock
+  private Repository repository;
+
+  @Mock
+  private StorageFacet storageFacet;
+
+  @Mock
+  private StorageTx storageTx;
+
+  @Mock
+  private Bucket bucket;
+
+  @Mock
+  private Asset packageRootAsset;
+
+  @Mock
+  private Asset abbreviatedAsset;
+
+  private Headers requestHeaders;
+
+  private AttributesMap requestAttributes;
+
+  private NestedAttributesMap abbreviatedFormatAttributes;
+
+  private Content packageRoot;
+
+  private NpmAbbreviatedMetadataHandler underTest;
+
+  @Before
+  public void setUp() throws Exception {
+    underTest = new NpmAbbreviatedMetadataHandler();
+
+    requestHeaders = new Headers();
+    requestAttributes = new AttributesMap();
+    when(request.getHeaders()).thenReturn(requestHeaders);
+    when(request.getAttributes()).thenReturn(requestAttributes);
+    when(context.getRequest()).thenReturn(request);
+    when(context.getRepository()).thenReturn(repository);
+
+    when(repository.getName()).thenReturn("npm-hosted");
+    when(repository.facet(StorageFacet.class)).thenReturn(storageFacet);
+    when(storageFacet.txSupplier()).thenReturn(() -> storageTx);
+    when(storageTx.getTransaction()).thenReturn(storageTx);
+    when(storageTx.findBucket(repository)).thenReturn(bucket);
+
+    NestedAttributesMap formatAttributes = new NestedAttributesMap("npm", new HashMap<>());
+    formatAttributes.set(P_ASSET_KIND, "PACKAGE_ROOT");
+    when(packageRootAsset.name()).thenReturn("package");
+    when(packageRootAsset.formatAttributes()).thenReturn(formatAttributes);
+    when(packageRootAsset.getChecksum(SHA1)).thenReturn(HashCode.fromString(PACKAGE_ROOT_SHA1));
+
+    abbreviatedFormatAttributes = new NestedAttributesMap("npm", new HashMap<>());
+    abbreviatedFormatAttributes.set(NpmFacetUtils.P_PACKAGE_ROOT_SHA1, PACKAGE_ROOT_SHA1);
+    when(abbreviatedAsset.formatAttributes()).thenReturn(abbreviatedFormatAttributes);
+    when(abbreviatedAsset.getChecksum(SHA1)).thenReturn(HashCode.fromString(ABBREVIATED_SHA1));
+    when(storageTx.findAssetWithProperty(P_NAME, "-/abbreviated/package", bucket)).thenReturn(abbreviatedAsset);
+
+    packageRoot = new Content(new BytesPayload("{}".getBytes(), APPLICATION_JSON));
+    packageRoot.getAttributes().set(Asset.class, packageRootAsset);
+    packageRoot.getAttributes().set(Content.CONTENT_ETAG, "etag");
+    when(context.proceed()).thenReturn(new Response.Builder().status(success(OK)).payload(packageRoot).build());
+
+    UnitOfWork.beginBatch(storageTx);
+  }
+
+  @After
+  public void tearDown() {
+    UnitOfWork.end();
+  }
+
+  @Test
+  public void servesAbbreviatedMetadataWhenAccepted() throws Exception {
+    requestHeaders.set(HttpHeaders.ACCEPT, ABBREVIATED_CONTENT_TYPE + "; q=1.0, application/json; q=0.8, */*");
+
+    Response response = underTest.handle(context);
+
+    Content content = (Content) response.getPayload();
+    assertThat(content.getContentType(), is(ABBREVIATED_CONTENT_TYPE));
+    assertThat(content.getAttributes().get(Content.CONTENT_ETAG), is(ABBREVIATED_SHA1));
+    assertThat(content.getAttributes().get(Asset.class), sameInstance(packageRootAsset));
+    assertThat(response.getHeaders().get(HttpHeaders.VARY), is(HttpHeaders.ACCEPT));
+  }
+
+  @Test
+  public void servesPackageRootWhenNotAccepted() throws Exception {
+    requestHeaders.set(HttpHeaders.ACCEPT, APPLICATION_JSON);
+
+    Response response = underTest.handle(context);
+
+    assertThat(response.getPayload(), sameInstance(packageRoot));
+    assertThat(response.getHeaders().get(HttpHeaders.VARY), is(HttpHeaders.ACCEPT));
+    verify(storageTx, never()).findAssetWithProperty(P_NAME, "-/abbreviated/package", bucket);
+  }
+
+  @Test
+  public void servesPackageRootWhenAbbreviatedMetadataIsStale() throws Exception {
+    requestHeaders.set(HttpHeaders.ACCEPT, ABBREVIATED_CONTENT_TYPE);
+    abbreviatedFormatAttributes.set(NpmFacetUtils.P_PACKAGE_ROOT_SHA1, "cccc");
+
+    Response response = underTest.handle(context);
+
+    assertThat(response.getPayload(), sameInstance(packageRoot));
+  }
+
+  @Test
+  public void servesPackageRootToGroups() throws Exception {
+    requestHeaders.set(HttpHeaders.ACCEPT, ABBREVIATED_CONTENT_TYPE);
+    requestAttributes.getOrCreate(DispatchedRepositories.class);
+
+    Response response = underTest.handle(context);
+
+    assertThat(response.getPayload(), sameInstance(packageRoot));
+  }
+}
@@ -0,0 +1,153 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-present Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.repository.npm.internal.orient;
+
+import java.io.BufferedOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.Random;
+
+import org.sonatype.goodies.testsupport.TestSupport;
+import org.sonatype.nexus.blobstore.api.Blob;
+import org.sonatype.nexus.blobstore.api.BlobId;
+import org.sonatype.nexus.common.hash.HashAlgorithm;
+import org.sonatype.nexus.repository.storage.StorageFacet;
+import org.sonatype.nexus.repository.storage.TempBlob;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.google.common.base.Stopwatch;
+import com.google.common.hash.Hashing;
+import com.google.common.hash.HashingInputStream;
+import org.apache.commons.io.output.CloseShieldOutputStream;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.Mock;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.when;
+
+/**
+ * Measures time and peak heap use of parsing an "npm publish" request with a large attachment. The attachment size
+ * defaults to 100 MB and can be changed with {@code -Dperf.attachmentSize=BYTES}; peak heap should stay flat as the
+ * attachment size grows.
+ */
+public class NpmPublishParserPerf
+    extends TestSupport
+{
+  private static final long ATTACHMENT_SIZE = Long.getLong("perf.attachmentSize", 100L * 1024 * 1024);
+
+  @Rule
+  public TemporaryFolder tmpDir = new TemporaryFolder();
+
+  @Mock
+  private StorageFacet storageFacet;
+
+  @Mock
+  private TempBlob tempBlob;
+
+  @Mock
+  private Blob blob;
+
+  private String attachmentHash;
+
+  @Before
+  public void setUp() throws Exception {
+    Path attachment = tmpDir.newFile().toPath();
+    when(tempBlob.getBlob()).thenReturn(blob);
+    when(blob.getId()).thenReturn(new BlobId("perf"));
+    when(storageFacet.createTempBlob(any(InputStream.class), any())).thenAnswer(invocation -> {
+      try (HashingInputStream in = new HashingInputStream(Hashing.sha1(),
+          (InputStream) invocation.getArguments()[0])) {
+        Files.copy(in, attachment, REPLACE_EXISTING);
+        attachmentHash = in.hash().toString();
+      }
+      return tempBlob;
+    });
+  }
+
+  @Test
+  public void parseLargeAttachment() throws Exception {
+    Path request = tmpDir.newFile().toPath();
+    writePublishRequest(request);
+
+    resetPeakHeap();
+    Stopwatch stopwatch = Stopwatch.createStarted();
+    try (Reader reader = Files.newBufferedReader(request, UTF_8);
+         JsonParser jsonParser = new JsonFactory().createParser(reader)) {
+      NpmPublishParser underTest = new NpmPublishParser(jsonParser, storageFacet,
+          Collections.singletonList(HashAlgorithm.SHA1));
+      underTest.parse(null).close();
+    }
+    log.info("parsed {} byte request with {} byte attachment: {} ms, {} MB peak heap, sha1 {}", Files.size(request),
+        ATTACHMENT_SIZE, stopwatch.elapsed(MILLISECONDS), peakHeap() / (1024 * 1024), attachmentHash);
+  }
+
+  private static void writePublishRequest(final Path path) throws Exception {
+    try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(path))) {
+      Writer writer = new OutputStreamWriter(out, UTF_8);
+      writer.write("{\"_id\":\"perf\",\"name\":\"perf\",\"description\":\"perf\"," +
+          "\"dist-tags\":{\"latest\":\"1.0.0\"}," +
+          "\"versions\":{\"1.0.0\":{\"name\":\"perf\",\"version\":\"1.0.0\"," +
+          "\"dist\":{\"tarball\":\"http://localhost/perf/-/perf-1.0.0.tgz\"}}}," +
+          "\"_attachments\":{\"perf-1.0.0.tgz\":{\"content_type\":\"application/octet-stream\",\"data\":\"");
+      writer.flush();
+
+      OutputStream encoder = Base64.getEncoder().wrap(new CloseShieldOutputStream(out));
+      Random random = new Random(0);
+      byte[] buffer = new byte[64 * 1024];
+      for (long remaining = ATTACHMENT_SIZE; remaining > 0; remaining -= buffer.length) {
+        random.nextBytes(buffer);
+        encoder.write(buffer, 0, (int) Math.min(buffer.length, remaining));
+      }
+      encoder.close();
+
+      writer.write("\",\"length\":" + ATTACHMENT_SIZE + "}}}");
+      writer.flush();
+    }
+  }
+
+  private static void resetPeakHeap() {
+    System.gc();
+    for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+      if (pool.getType() == MemoryType.HEAP) {
+        pool.resetPeakUsage();
+      }
+    }
+  }
+
+  private static long peakHeap() {
+    long peak = 0;
+    for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+      if (pool.getType() == MemoryType.HEAP) {
+        peak += pool.getPeakUsage().getUsed();
+      }
+    }
+    return peak;
+  }
+}
@@ -27,6 +27,7 @@ import org.sonatype.nexus.blobstore.api.Blob;
 import org.sonatype.nexus.blobstore.api.BlobId;
 import org.sonatype.nexus.common.collect.NestedAttributesMap;
 import org.sonatype.nexus.common.hash.HashAlgorithm;
+import org.sonatype.nexus.repository.InvalidContentException;
 import org.sonatype.nexus.repository.storage.StorageFacet;
 import org.sonatype.nexus.repository.storage.TempBlob;
 
@@ -43,6 +44,7 @@ import org.junit.rules.ExpectedException;
 import org.mockito.Mock;
 
 import static java.nio.charset.StandardCharsets.ISO_8859_1;
+import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.notNullValue;
 import static org.junit.Assert.assertThat;
@@ -190,6 +192,41 @@ public class NpmPublishParserTest
     verify(tempBlob).close();
   }
 
+  @Test
+  public void parsePublishJsonWithinLimits() throws Exception {
+    try (InputStream in = getClass().getResourceAsStream("../publish.json");
+         JsonParser jsonParser = jsonFactory.createParser(in)) {
+      NpmPublishParser underTest = new NpmPublishParser(jsonParser, storageFacet, HASH_ALGORITHMS, 447, 4096);
+      try (NpmPublishRequest request = underTest.parse(NO_USER)) {
+        assertRequestContents(request, "foo", "1.0", "http://localhost:10004/repository/search/foo/-/foo-1.0.tgz");
+      }
+    }
+  }
+
+  @Test
+  public void rejectAttachmentOverMaximumSize() throws Exception {
+    try (InputStream in = getClass().getResourceAsStream("../publish.json");
+         JsonParser jsonParser = jsonFactory.createParser(in)) {
+      NpmPublishParser underTest = new NpmPublishParser(jsonParser, storageFacet, HASH_ALGORITHMS, 446, 0);
+      underTest.parse(NO_USER);
+      fail(); // exception should be thrown on parse
+    }
+    catch (InvalidContentException e) {
+      assertThat(e.getMessage(), containsString("446"));
+    }
+    verify(tempBlob).close();
+  }
+
+  @Test
+  public void rejectMetadataOverMaximumSize() throws Exception {
+    exception.expect(InvalidContentException.class);
+    try (InputStream in = getClass().getResourceAsStream("../publish.json");
+         JsonParser jsonParser = jsonFactory.createParser(in)) {
+      NpmPublishParser underTest = new NpmPublishParser(jsonParser, storageFacet, HASH_ALGORITHMS, 0, 64);
+      underTest.parse(NO_USER);
+    }
+  }
+
   @Test
   public void throwExceptionOnInvalidUtf8Content() throws Exception {
     exception.expectMessage("Invalid UTF-8");
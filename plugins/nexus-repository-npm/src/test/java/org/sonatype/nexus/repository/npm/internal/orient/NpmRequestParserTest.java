@@ -14,6 +14,7 @@ package org.sonatype.nexus.repository.npm.internal.orient;
 
 import java.io.InputStream;
 
+import org.sonatype.goodies.common.ByteSize;
 import org.sonatype.goodies.testsupport.TestSupport;
 import org.sonatype.nexus.blobstore.api.Blob;
 import org.sonatype.nexus.blobstore.api.BlobId;
@@ -82,7 +83,7 @@ public class NpmRequestParserTest
 
   @Before
   public void setUp() throws Exception {
-    underTest = spy(new NpmRequestParser(securitySystem));
+    underTest = spy(new NpmRequestParser(securitySystem, ByteSize.bytes(0), ByteSize.bytes(0)));
 
     when(tempBlob.get()).thenReturn(inputStream);
     when(tempBlob.getBlob()).thenReturn(blob);
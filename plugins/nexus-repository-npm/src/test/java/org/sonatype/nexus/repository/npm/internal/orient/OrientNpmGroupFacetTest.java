@@ -56,6 +56,7 @@ import org.sonatype.nexus.validation.ConstraintViolationFactory;
 
 import com.google.common.base.Supplier;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.hash.HashCode;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
@@ -65,6 +66,7 @@ import org.mockito.Mock;
 
 import static com.google.common.collect.Maps.newHashMap;
 import static java.lang.String.format;
+import static java.util.Collections.singletonMap;
 import static org.hamcrest.CoreMatchers.not;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.equalTo;
@@ -80,6 +82,7 @@ import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.sonatype.nexus.common.hash.HashAlgorithm.SHA1;
 import static org.mockito.internal.verification.VerificationModeFactory.atMost;
 import static org.sonatype.nexus.repository.npm.internal.NpmHandlers.T_PACKAGE_NAME;
 import static org.sonatype.nexus.repository.npm.internal.NpmJsonUtils.bytes;
@@ -182,6 +185,7 @@ public class OrientNpmGroupFacetTest
     when(packageRootAsset.formatAttributes()).thenReturn(new NestedAttributesMap("metadata", new HashMap<>()));
     when(packageRootAsset.attributes()).thenReturn(new NestedAttributesMap("content", new HashMap<>()));
     when(packageRootAsset.name(any())).thenReturn(packageRootAsset);
+    when(packageRootAsset.name()).thenReturn("simple");
     when(packageRootAsset.requireBlobRef()).thenReturn(blobRef);
 
     when(storageFacet.txSupplier()).thenReturn(() -> storageTx);
@@ -191,6 +195,7 @@ public class OrientNpmGroupFacetTest
 
     when(storageTx.createAsset(any(), any(NpmFormat.class))).thenReturn(packageRootAsset);
     when(storageTx.createBlob(any(), any(), any(), any(), any(), anyBoolean())).thenReturn(assetBlob);
+    when(assetBlob.getHashes()).thenReturn(singletonMap(SHA1, HashCode.fromString("abcd")));
     when(storageTx.requireBlob(blobRef)).thenReturn(blob);
 
     when(asset.blobRef()).thenReturn(blobRef);
@@ -370,7 +375,8 @@ public class OrientNpmGroupFacetTest
     Content mergedPackageRoot = underTest.buildMergedPackageRoot(responses, context);
 
     assertThat(mergedPackageRoot, notNullValue());
-    verify(storageTx).createAsset(any(), any(NpmFormat.class));
+    // package root and its abbreviated form
+    verify(storageTx, times(2)).createAsset(any(), any(NpmFormat.class));
 
     return mergedPackageRoot;
   }
@@ -412,11 +418,11 @@ public class OrientNpmGroupFacetTest
   }
 
   private Supplier<InputStream> captureGroupStoredBlobInputStream() throws IOException {
-    verify(storageTx).createBlob(any(),
+    verify(storageTx, times(2)).createBlob(any(),
         inputStreamCaptor.capture()
         , any(), any(), any(), anyBoolean());
 
 
-    return inputStreamCaptor.getValue();
+    return inputStreamCaptor.getAllValues().get(0);
   }
 }
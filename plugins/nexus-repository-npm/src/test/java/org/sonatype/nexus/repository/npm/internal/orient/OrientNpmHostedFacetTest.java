@@ -132,6 +132,7 @@ public class OrientNpmHostedFacetTest
     when(storageTx.createAsset(any(), any(Format.class))).thenReturn(packageRootAsset);
     when(packageRootAsset.formatAttributes()).thenReturn(new NestedAttributesMap("metadata", new HashMap<>()));
     when(packageRootAsset.name(any())).thenReturn(packageRootAsset);
+    when(packageRootAsset.name()).thenReturn("package");
 
     when(repository.facet(NpmFacet.class)).thenReturn(npmFacet);
 
@@ -140,6 +141,8 @@ public class OrientNpmHostedFacetTest
     when(storageTx.createBlob(anyString(), Matchers.<Supplier<InputStream>> any(), anyCollection(), anyMap(),
         anyString(), anyBoolean()))
         .thenReturn(assetBlob);
+    when(assetBlob.getHashes())
+        .thenReturn(Collections.singletonMap(HashAlgorithm.SHA1, HashCode.fromBytes("abcd".getBytes())));
 
     UnitOfWork.beginBatch(storageTx);
   }
@@ -0,0 +1,150 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-present Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.repository.npm.internal.search.legacy;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.sonatype.goodies.testsupport.TestSupport;
+import org.sonatype.nexus.common.event.EventManager;
+import org.sonatype.nexus.repository.Repository;
+import org.sonatype.nexus.repository.npm.internal.NpmPackageId;
+import org.sonatype.nexus.repository.storage.AssetManager;
+import org.sonatype.nexus.repository.storage.StorageFacet;
+import org.sonatype.nexus.repository.storage.StorageTx;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.singleton;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class NpmSearchIndexFacetHostedTest
+    extends TestSupport
+{
+  private static final NpmPackageId FIRST = NpmPackageId.parse("first");
+
+  private static final NpmPackageId SECOND = NpmPackageId.parse("second");
+
+  private static final NpmPackageId THIRD = NpmPackageId.parse("third");
+
+  @Mock
+  private EventManager eventManager;
+
+  @Mock
+  private AssetManager assetManager;
+
+  @Mock
+  private Repository repository;
+
+  @Mock
+  private StorageFacet storageFacet;
+
+  @Mock
+  private StorageTx storageTx;
+
+  private NpmSearchIndexFacetHosted underTest;
+
+  private List<Set<NpmPackageId>> patches;
+
+  @Before
+  public void setUp() throws Exception {
+    when(repository.getName()).thenReturn("npm-hosted");
+    when(repository.facet(StorageFacet.class)).thenReturn(storageFacet);
+    when(storageFacet.txSupplier()).thenReturn(() -> storageTx);
+
+    NpmSearchIndexFacetHosted facet = new NpmSearchIndexFacetHosted(eventManager, assetManager);
+    facet.attach(repository);
+    underTest = spy(facet);
+
+    patches = new ArrayList<>();
+  }
+
+  @Test
+  public void changesArrivingDuringAnUpdateAreAppliedTogether() throws Exception {
+    doAnswer(invocation -> {
+      patches.add(new HashSet<>((Set<NpmPackageId>) invocation.getArguments()[0]));
+      if (patches.size() == 1) {
+        // further batches arrive while the first one is applied
+        underTest.updateCachedSearchIndex(singleton(SECOND));
+        underTest.updateCachedSearchIndex(singleton(THIRD));
+      }
+      return true;
+    }).when(underTest).patchCachedSearchIndex(any());
+
+    underTest.updateCachedSearchIndex(singleton(FIRST));
+
+    assertThat(patches, contains(singleton(FIRST), new HashSet<>(asList(SECOND, THIRD))));
+    verify(underTest, never()).invalidateCachedSearchIndex();
+  }
+
+  @Test
+  public void unorderedIndexIsInvalidated() throws Exception {
+    doReturn(false).when(underTest).patchCachedSearchIndex(any());
+    doNothing().when(underTest).invalidateCachedSearchIndex();
+
+    underTest.updateCachedSearchIndex(singleton(FIRST));
+
+    verify(underTest).invalidateCachedSearchIndex();
+  }
+
+  @Test
+  public void failedUpdateInvalidatesIndex() throws Exception {
+    doThrow(new IllegalStateException("failed")).when(underTest).patchCachedSearchIndex(any());
+    doNothing().when(underTest).invalidateCachedSearchIndex();
+
+    underTest.updateCachedSearchIndex(singleton(FIRST));
+
+    verify(underTest).invalidateCachedSearchIndex();
+  }
+
+  @Test
+  public void changesAreKeptWhenTheIndexCanNotBeInvalidated() throws Exception {
+    doAnswer(invocation -> {
+      patches.add(new HashSet<>((Set<NpmPackageId>) invocation.getArguments()[0]));
+      if (patches.size() == 1) {
+        throw new IllegalStateException("failed");
+      }
+      return true;
+    }).when(underTest).patchCachedSearchIndex(any());
+    doThrow(new IllegalStateException("failed")).when(underTest).invalidateCachedSearchIndex();
+
+    try {
+      underTest.updateCachedSearchIndex(singleton(FIRST));
+      fail("Expected failure to invalidate the index");
+    }
+    catch (IllegalStateException e) {
+      // expected
+    }
+    underTest.updateCachedSearchIndex(singleton(SECOND));
+
+    assertThat(patches, contains(singleton(FIRST), new HashSet<>(asList(FIRST, SECOND))));
+    verify(underTest, times(2)).patchCachedSearchIndex(any());
+  }
+}
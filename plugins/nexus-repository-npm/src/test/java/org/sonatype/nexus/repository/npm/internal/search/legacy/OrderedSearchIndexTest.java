@@ -0,0 +1,145 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-present Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.repository.npm.internal.search.legacy;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.annotation.Nullable;
+
+import org.sonatype.goodies.testsupport.TestSupport;
+import org.sonatype.nexus.common.collect.NestedAttributesMap;
+import org.sonatype.nexus.repository.view.Content;
+import org.sonatype.nexus.repository.view.ContentTypes;
+import org.sonatype.nexus.repository.view.payloads.BytesPayload;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.google.common.collect.ImmutableMap;
+import org.joda.time.DateTime;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+import static org.sonatype.nexus.repository.npm.internal.NpmJsonUtils.mapper;
+
+public class OrderedSearchIndexTest
+    extends TestSupport
+{
+  private Path index;
+
+  private Path patched;
+
+  @Before
+  public void setUp() throws Exception {
+    index = Files.createTempFile("ordered-index", "json");
+    patched = Files.createTempFile("ordered-index-patched", "json");
+
+    try (OrderedSearchIndex.Writer writer = new OrderedSearchIndex.Writer()) {
+      writer.add("old", packageRoot("old", "2019-01-01T00:00:00.000Z"));
+      writer.add("ancient", packageRoot("ancient", null));
+      writer.add("newest", packageRoot("newest", "2020-03-01T00:00:00.000Z"));
+      writer.add("middle", packageRoot("middle", "2020-01-01T00:00:00.000Z"));
+      writer.writeTo(index, new DateTime());
+    }
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    Files.delete(index);
+    Files.delete(patched);
+  }
+
+  @Test
+  public void writesPackagesMostRecentlyModifiedFirst() throws Exception {
+    assertThat(packageIds(index), contains("ancient", "newest", "middle", "old"));
+  }
+
+  @Test
+  public void patchReplacesInsertsAndRemovesPackages() throws Exception {
+    Map<String, NestedAttributesMap> changed = new HashMap<>();
+    changed.put("old", packageRoot("old", "2020-04-01T00:00:00.000Z"));
+    changed.put("added", packageRoot("added", "2019-06-01T00:00:00.000Z"));
+    changed.put("middle", null);
+
+    try (InputStream in = Files.newInputStream(index)) {
+      OrderedSearchIndex.patch(in, patched, changed);
+    }
+
+    assertThat(packageIds(patched), contains("ancient", "old", "newest", "added"));
+  }
+
+  @Test
+  public void orderedFilterStopsAtFirstPackageNotModifiedSince() throws Exception {
+    Content content = new Content(new BytesPayload(Files.readAllBytes(index), ContentTypes.APPLICATION_JSON));
+
+    Content filtered = NpmSearchIndexFilter
+        .filterModifiedSinceOrdered(content, DateTime.parse("2019-12-01T00:00:00.000Z"));
+
+    try (InputStream in = filtered.openInputStream()) {
+      Path filteredPath = Files.createTempFile("ordered-index-filtered", "json");
+      try {
+        Files.copy(in, filteredPath, REPLACE_EXISTING);
+        assertThat(packageIds(filteredPath), contains("ancient", "newest", "middle"));
+      }
+      finally {
+        Files.delete(filteredPath);
+      }
+    }
+  }
+
+  @Test
+  public void emptyIndex() throws Exception {
+    try (OrderedSearchIndex.Writer writer = new OrderedSearchIndex.Writer()) {
+      writer.writeTo(index, new DateTime());
+    }
+    assertThat(packageIds(index).isEmpty(), is(true));
+  }
+
+  private static NestedAttributesMap packageRoot(final String name, @Nullable final String modified) {
+    Map<String, Object> backing = new HashMap<>();
+    backing.put("name", name);
+    if (modified != null) {
+      backing.put("time", new HashMap<>(ImmutableMap.of("modified", modified)));
+    }
+    return new NestedAttributesMap(name, backing);
+  }
+
+  private static List<String> packageIds(final Path path) throws IOException {
+    List<String> packageIds = new ArrayList<>();
+    try (JsonParser parser = mapper.getFactory().createParser(path.toFile())) {
+      parser.nextToken();
+      String field;
+      while ((field = parser.nextFieldName()) != null) {
+        parser.nextToken();
+        if ("_updated".equals(field)) {
+          parser.skipChildren();
+        }
+        else {
+          assertThat((String) mapper.readValue(parser, Map.class).get("name"), is(field));
+          packageIds.add(field);
+        }
+      }
+    }
+    return packageIds;
+  }
+}
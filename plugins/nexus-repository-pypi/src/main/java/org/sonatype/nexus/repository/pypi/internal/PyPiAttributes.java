@@ -151,6 +151,13 @@ public final class PyPiAttributes
    */
   public static final String P_ARCHIVE_TYPE = "archive_type";
 
+  /**
+   * Version of the package names stored for the root index of a hosted repository, incremented on every change.
+   *
+   * @since 3.26
+   */
+  public static final String P_ROOT_INDEX_VERSION = "root_index_version";
+
   private PyPiAttributes() {
     // empty
   }
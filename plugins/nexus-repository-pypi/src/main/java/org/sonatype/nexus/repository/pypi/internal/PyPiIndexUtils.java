@@ -17,29 +17,37 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.Reader;
-import java.net.URL;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map.Entry;
 import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.SortedMap;
 import java.util.function.Function;
 import java.util.regex.Pattern;
 
+import javax.annotation.Nullable;
+
 import org.sonatype.nexus.common.template.TemplateHelper;
 import org.sonatype.nexus.common.template.TemplateParameters;
 
+import com.google.common.collect.AbstractIterator;
 import com.google.common.collect.ImmutableMap;
-import com.google.common.io.CharStreams;
-import org.jsoup.Jsoup;
-import org.jsoup.nodes.Document;
-import org.jsoup.nodes.Element;
-import org.jsoup.select.Elements;
+import com.google.common.collect.Iterators;
+import com.google.common.collect.PeekingIterator;
 
 import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.collect.Lists.newArrayList;
+import static java.util.Comparator.comparing;
 import static java.util.regex.Pattern.compile;
-import static java.util.stream.Collectors.toList;
 
 /**
  * Utility methods for working with PyPI indexes.
@@ -48,15 +56,6 @@ import static java.util.stream.Collectors.toList;
  */
 public final class PyPiIndexUtils
 {
-  /**
-   * From PEP_053:
-   * A repository MAY include a data-requires-python attribute on a file link.
-   * This exposes the Requires-Python metadata field, specified in PEP 345, for the corresponding release.
-   * Where this is present, installer tools SHOULD ignore the download when installing
-   * to a Python version that doesn't satisfy the requirement.
-   */
-  private static final String PYPI_REQUIRES_PYTHON = "data-requires-python";
-
   public static final String ABSOLUTE_URL_PREFIX = "^https?://.*";
 
   public static final Pattern PATH_WITH_HOST_PREFIX = compile(
@@ -64,13 +63,26 @@ public final class PyPiIndexUtils
 
   public static final String RELATIVE_PREFIX = "../../";
 
+  private static final String ROOT_INDEX_ETAG_PREFIX = "{NAMES{";
+
+  /**
+   * Order of the package names listed by a root index, matching the order of links expected by {@link #mergeLinks}.
+   *
+   * @since 3.26
+   */
+  public static final Comparator<String> PACKAGE_NAME_ORDER =
+      comparing((String name) -> name.toLowerCase()).thenComparing(Comparator.naturalOrder());
+
   /**
    * Returns a map (in original order of appearance) of the files and associated paths extracted from the index.
    */
   public static List<PyPiLink> extractLinksFromIndex(final InputStream in) throws IOException {
     checkNotNull(in);
-    try (Reader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
-      return extractLinksFromIndex(CharStreams.toString(reader));
+    try (PyPiLinkScanner scanner = scanLinksFromIndex(in)) {
+      return newArrayList(scanner);
+    }
+    catch (UncheckedIOException e) { // NOSONAR: unchecked wrapper, we're only interested in its cause
+      throw e.getCause();
     }
   }
 
@@ -79,16 +91,184 @@ public final class PyPiIndexUtils
    */
   public static List<PyPiLink> extractLinksFromIndex(final String html) {
     checkNotNull(html);
-    List<PyPiLink> results = new ArrayList<>();
-    Document document = Jsoup.parse(html);
-    Elements links = document.select("a[href]");
-    for (Element link : links) {
-      String file = link.text().trim();
-      String path = link.attr("href");
-      String requiresPython = link.attr(PYPI_REQUIRES_PYTHON);
-      results.add(new PyPiLink(file, path, requiresPython));
+    return newArrayList(new PyPiLinkScanner(new StringReader(html)));
+  }
+
+  /**
+   * Returns a streaming scanner of the links (in original order of appearance) of the index, that must be closed
+   * once done with. Reading links may throw {@link UncheckedIOException}.
+   *
+   * @since 3.26
+   */
+  public static PyPiLinkScanner scanLinksFromIndex(final InputStream in) {
+    checkNotNull(in);
+    return new PyPiLinkScanner(new InputStreamReader(in, StandardCharsets.UTF_8));
+  }
+
+  /**
+   * Returns the links ordered by lower-cased file name, as expected by {@link #mergeLinks}. The sort is stable, so the
+   * first of several same named links stays first, and takes linear time for links which are already ordered.
+   *
+   * @since 3.26
+   */
+  public static Iterator<PyPiLink> sortLinks(final List<PyPiLink> links) {
+    List<PyPiLink> sortedLinks = new ArrayList<>(links);
+    sortedLinks.sort(comparing(link -> link.getFile().toLowerCase()));
+    return sortedLinks.iterator();
+  }
+
+  /**
+   * Merges links of several indexes that are each already ordered by lower-cased file name into a single sequence in
+   * the same order, keeping only the first link of each file name, where earlier indexes (and earlier links within an
+   * index) take precedence. The indexes are k-way merged lazily and only ever read forward, so they may be streamed
+   * from a {@link PyPiLinkScanner} each and no structure spanning all the links is built.
+   *
+   * @since 3.26
+   */
+  public static Iterator<PyPiLink> mergeLinks(final List<Iterator<PyPiLink>> indexes) {
+    checkNotNull(indexes);
+    PriorityQueue<SortedLinks> queue = new PriorityQueue<>(Math.max(1, indexes.size()));
+    for (int i = 0; i < indexes.size(); i++) {
+      SortedLinks sortedLinks = new SortedLinks(i, indexes.get(i));
+      if (sortedLinks.advance()) {
+        queue.add(sortedLinks);
+      }
+    }
+    return new AbstractIterator<PyPiLink>()
+    {
+      @Override
+      protected PyPiLink computeNext() {
+        SortedLinks head = queue.poll();
+        if (head == null) {
+          return endOfData();
+        }
+        String key = head.key;
+        PyPiLink result = head.link;
+        requeue(head);
+        while (!queue.isEmpty() && key.equals(queue.peek().key)) {
+          requeue(queue.poll());
+        }
+        return result;
+      }
+
+      private void requeue(final SortedLinks sortedLinks) {
+        if (sortedLinks.advance()) {
+          queue.add(sortedLinks);
+        }
+      }
+    };
+  }
+
+  /**
+   * Returns the ETag of a root index page rendered from the package names of a repository at the given version.
+   *
+   * @since 3.26
+   */
+  public static String rootIndexEtag(final long version) {
+    return ROOT_INDEX_ETAG_PREFIX + version + "}}";
+  }
+
+  /**
+   * Returns {@code true} if the ETag denotes a root index page rendered from the package names of a repository, whose
+   * links are therefore ordered by name and can be merged with {@link #mergeLinks} as they are.
+   *
+   * @since 3.26
+   */
+  public static boolean isRootIndexEtag(@Nullable final String etag) {
+    return etag != null && etag.startsWith(ROOT_INDEX_ETAG_PREFIX);
+  }
+
+  /**
+   * Returns a reader of package names stored one per line, as written by {@link #writePackageNames}. The names are
+   * only ever read forward, so they may be streamed. Reading names may throw {@link UncheckedIOException}.
+   *
+   * @since 3.26
+   */
+  public static Iterator<String> readPackageNames(final Reader reader) {
+    BufferedReader lines = reader instanceof BufferedReader ? (BufferedReader) reader : new BufferedReader(reader);
+    return new AbstractIterator<String>()
+    {
+      @Override
+      protected String computeNext() {
+        try {
+          String name = lines.readLine();
+          return name != null ? name : endOfData();
+        }
+        catch (IOException e) {
+          throw new UncheckedIOException(e);
+        }
+      }
+    };
+  }
+
+  /**
+   * Writes package names one per line, in iteration order.
+   *
+   * @since 3.26
+   */
+  public static void writePackageNames(final Iterator<String> names, final Writer writer) throws IOException {
+    checkNotNull(names);
+    checkNotNull(writer);
+    while (names.hasNext()) {
+      writer.write(names.next());
+      writer.write('\n');
     }
-    return results;
+  }
+
+  /**
+   * Writes package names ordered by {@link #PACKAGE_NAME_ORDER}, applying changes to them: a name mapped to
+   * {@code true} is added if missing and a name mapped to {@code false} is removed if present. The names are only
+   * ever read forward, so they may be streamed.
+   *
+   * @return {@code true} if the changes made a difference to the names
+   * @since 3.26
+   */
+  public static boolean mergePackageNames(final Iterator<String> names,
+                                          final SortedMap<String, Boolean> changes,
+                                          final Writer writer) throws IOException
+  {
+    checkNotNull(names);
+    checkNotNull(changes);
+    checkNotNull(writer);
+    PeekingIterator<Entry<String, Boolean>> pending = Iterators.peekingIterator(changes.entrySet().iterator());
+    boolean changed = false;
+    while (names.hasNext()) {
+      String name = names.next();
+      while (pending.hasNext() && PACKAGE_NAME_ORDER.compare(pending.peek().getKey(), name) < 0) {
+        changed |= writeAdded(pending.next(), writer);
+      }
+      if (pending.hasNext() && pending.peek().getKey().equals(name)) {
+        if (!pending.next().getValue()) {
+          changed = true;
+          continue; // removed
+        }
+      }
+      writer.write(name);
+      writer.write('\n');
+    }
+    while (pending.hasNext()) {
+      changed |= writeAdded(pending.next(), writer);
+    }
+    return changed;
+  }
+
+  private static boolean writeAdded(final Entry<String, Boolean> change, final Writer writer) throws IOException {
+    if (change.getValue()) {
+      writer.write(change.getKey());
+      writer.write('\n');
+      return true;
+    }
+    return false;
+  }
+
+  /**
+   * Returns the root index links of the package names, in iteration order.
+   *
+   * @since 3.26
+   */
+  public static Iterator<PyPiLink> packageLinks(final Iterator<String> names) {
+    checkNotNull(names);
+    return Iterators.transform(names, name -> new PyPiLink(name, name + "/"));
   }
 
   /**
@@ -98,11 +278,35 @@ public final class PyPiIndexUtils
     checkNotNull(helper);
     checkNotNull(name);
     checkNotNull(links);
-    URL template = PyPiIndexUtils.class.getResource("pypi-index.vm");
+    return helper.render(PyPiIndexUtils.class.getResource("pypi-index.vm"),
+        indexParameters(helper, name, links.iterator()));
+  }
+
+  /**
+   * Renders the HTML simple index page for the links to a writer, reading the links once as the page is rendered.
+   *
+   * @since 3.26
+   */
+  public static void renderIndexPage(final TemplateHelper helper,
+                                     final String name,
+                                     final Iterator<PyPiLink> links,
+                                     final Writer writer) throws IOException
+  {
+    checkNotNull(helper);
+    checkNotNull(name);
+    checkNotNull(links);
+    checkNotNull(writer);
+    helper.render(PyPiIndexUtils.class.getResource("pypi-index.vm"), indexParameters(helper, name, links), writer);
+  }
+
+  private static TemplateParameters indexParameters(final TemplateHelper helper,
+                                                    final String name,
+                                                    final Iterator<PyPiLink> links)
+  {
     TemplateParameters params = helper.parameters();
     params.set("name", name);
-    params.set("assets", links.stream().map(PyPiIndexUtils::indexLinkToMap).collect(toList()));
-    return helper.render(template, params);
+    params.set("assets", Iterators.transform(links, PyPiIndexUtils::indexLinkToMap));
+    return params;
   }
 
   /**
@@ -111,10 +315,30 @@ public final class PyPiIndexUtils
   public static String buildRootIndexPage(final TemplateHelper helper, final Collection<PyPiLink> links) {
     checkNotNull(helper);
     checkNotNull(links);
-    URL template = PyPiIndexUtils.class.getResource("pypi-root-index.vm");
+    return helper.render(PyPiIndexUtils.class.getResource("pypi-root-index.vm"),
+        rootIndexParameters(helper, links.iterator()));
+  }
+
+  /**
+   * Renders the HTML simple root index page for the links to a writer, reading the links once as the page is
+   * rendered.
+   *
+   * @since 3.26
+   */
+  public static void renderRootIndexPage(final TemplateHelper helper,
+                                         final Iterator<PyPiLink> links,
+                                         final Writer writer) throws IOException
+  {
+    checkNotNull(helper);
+    checkNotNull(links);
+    checkNotNull(writer);
+    helper.render(PyPiIndexUtils.class.getResource("pypi-root-index.vm"), rootIndexParameters(helper, links), writer);
+  }
+
+  private static TemplateParameters rootIndexParameters(final TemplateHelper helper, final Iterator<PyPiLink> links) {
     TemplateParameters params = helper.parameters();
-    params.set("assets", links.stream().map(PyPiIndexUtils::rootIndexLinkToMap).collect(toList()));
-    return helper.render(template, params);
+    params.set("assets", Iterators.transform(links, PyPiIndexUtils::rootIndexLinkToMap));
+    return params;
   }
 
   /**
@@ -223,6 +447,48 @@ public final class PyPiIndexUtils
     return link;
   }
 
+  /**
+   * Links of one index ordered by lower-cased file name, with a cursor to the current link.
+   */
+  private static class SortedLinks
+      implements Comparable<SortedLinks>
+  {
+    private final int index;
+
+    private final Iterator<PyPiLink> links;
+
+    private String key;
+
+    private PyPiLink link;
+
+    SortedLinks(final int index, final Iterator<PyPiLink> links) {
+      this.index = index;
+      this.links = checkNotNull(links);
+    }
+
+    /**
+     * Moves to next link having a different name than the current, returns {@code false} if there is none.
+     */
+    boolean advance() {
+      while (links.hasNext()) {
+        PyPiLink next = links.next();
+        String nextKey = next.getFile().toLowerCase();
+        if (!nextKey.equals(key)) {
+          key = nextKey;
+          link = next;
+          return true;
+        }
+      }
+      return false;
+    }
+
+    @Override
+    public int compareTo(final SortedLinks other) {
+      int result = key.compareTo(other.key);
+      return result != 0 ? result : Integer.compare(index, other.index);
+    }
+  }
+
   private PyPiIndexUtils() {
     // empty
   }
@@ -0,0 +1,333 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-present Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.repository.pypi.internal;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import javax.annotation.Nullable;
+
+import org.jsoup.parser.Parser;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Streaming tokenizer extracting {@code <a href>} links from PyPI simple index pages. Unlike parsing the page into a
+ * DOM, it reads the page once through a small buffer and retains nothing but the link being returned, which matters
+ * for root indexes having hundreds of thousands of links.
+ *
+ * Links are extracted the way {@code a[href]} selection of a parsed document would: tag and attribute names are case
+ * insensitive, attribute values may be double, single or not quoted, character references are decoded, and the link
+ * text is the whitespace normalized text content of the element.
+ *
+ * @since 3.26
+ */
+public class PyPiLinkScanner
+    implements Iterator<PyPiLink>, Closeable
+{
+  private static final String HREF = "href";
+
+  /**
+   * From PEP_053:
+   * A repository MAY include a data-requires-python attribute on a file link.
+   * This exposes the Requires-Python metadata field, specified in PEP 345, for the corresponding release.
+   * Where this is present, installer tools SHOULD ignore the download when installing
+   * to a Python version that doesn't satisfy the requirement.
+   */
+  private static final String DATA_REQUIRES_PYTHON = "data-requires-python";
+
+  private static final int EOF = -1;
+
+  private final Reader reader;
+
+  private final char[] buffer = new char[8192];
+
+  private int position;
+
+  private int limit;
+
+  private final StringBuilder scratch = new StringBuilder();
+
+  private PyPiLink next;
+
+  public PyPiLinkScanner(final Reader reader) {
+    this.reader = checkNotNull(reader);
+  }
+
+  @Override
+  public boolean hasNext() {
+    if (next == null) {
+      try {
+        next = scan();
+      }
+      catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    }
+    return next != null;
+  }
+
+  @Override
+  public PyPiLink next() {
+    if (!hasNext()) {
+      throw new NoSuchElementException();
+    }
+    PyPiLink result = next;
+    next = null;
+    return result;
+  }
+
+  @Override
+  public void close() throws IOException {
+    reader.close();
+  }
+
+  /**
+   * Scans forward to the next anchor having a {@code href} attribute, returns {@code null} at end of the page.
+   */
+  @Nullable
+  private PyPiLink scan() throws IOException {
+    int c;
+    while ((c = read()) != EOF) {
+      if (c != '<') {
+        continue;
+      }
+      c = read();
+      if (!isTagStart(c)) {
+        unread(c); // plain text '<', may be directly followed by a tag
+      }
+      else if (c == '!') {
+        skipDeclaration();
+      }
+      else if ((c == 'a' || c == 'A') && isTagNameEnd(peek())) {
+        PyPiLink link = readAnchor();
+        if (link != null) {
+          return link;
+        }
+      }
+      else {
+        skipTag(c);
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Reads attributes and text of an anchor whose {@code <a} was already consumed.
+   */
+  @Nullable
+  private PyPiLink readAnchor() throws IOException {
+    String href = null;
+    String requiresPython = null;
+    int c;
+    while ((c = skipWhitespace()) != EOF && c != '>') {
+      if (c == '/') {
+        continue;
+      }
+      String name = readAttributeName(c);
+      String value = readAttributeValue();
+      if (HREF.equalsIgnoreCase(name)) {
+        href = value != null ? value : "";
+      }
+      else if (DATA_REQUIRES_PYTHON.equalsIgnoreCase(name)) {
+        requiresPython = value;
+      }
+    }
+    if (href == null) {
+      return null;
+    }
+    return new PyPiLink(readText(), href, requiresPython);
+  }
+
+  private String readAttributeName(final int first) throws IOException {
+    scratch.setLength(0);
+    scratch.append((char) first);
+    int c;
+    while ((c = peek()) != EOF && c != '=' && c != '>' && c != '/' && !Character.isWhitespace(c)) {
+      scratch.append((char) read());
+    }
+    return scratch.toString();
+  }
+
+  /**
+   * Reads the value of an attribute if there is one, with the attribute name already consumed.
+   */
+  @Nullable
+  private String readAttributeValue() throws IOException {
+    int c = peekSkippingWhitespace();
+    if (c != '=') {
+      return null;
+    }
+    read();
+    int quote = peekSkippingWhitespace();
+    scratch.setLength(0);
+    if (quote == '"' || quote == '\'') {
+      read();
+      while ((c = read()) != EOF && c != quote) {
+        scratch.append((char) c);
+      }
+    }
+    else {
+      while ((c = peek()) != EOF && c != '>' && !Character.isWhitespace(c)) {
+        scratch.append((char) read());
+      }
+    }
+    return unescape(scratch, true);
+  }
+
+  /**
+   * Reads text content of the anchor up to its closing tag, skipping any nested tags.
+   */
+  private String readText() throws IOException {
+    StringBuilder text = new StringBuilder();
+    boolean pendingSpace = false;
+    int c;
+    while ((c = read()) != EOF) {
+      if (c == '<' && isTagStart(peek())) {
+        c = read();
+        if (c == '/' && (peek() == 'a' || peek() == 'A')) {
+          read();
+          if (isTagNameEnd(peek())) {
+            skipTag(c);
+            break;
+          }
+        }
+        if (c == '!') {
+          skipDeclaration();
+        }
+        else {
+          skipTag(c);
+        }
+      }
+      else if (Character.isWhitespace(c)) {
+        pendingSpace = text.length() > 0;
+      }
+      else {
+        if (pendingSpace) {
+          text.append(' ');
+          pendingSpace = false;
+        }
+        text.append((char) c);
+      }
+    }
+    return unescape(text, false);
+  }
+
+  /**
+   * Skips to the end of the current tag, honoring quoted attribute values which may contain {@code >}.
+   */
+  private void skipTag(final int first) throws IOException {
+    int c = first;
+    int quote = EOF;
+    while (c != EOF) {
+      if (quote != EOF) {
+        if (c == quote) {
+          quote = EOF;
+        }
+      }
+      else if (c == '"' || c == '\'') {
+        quote = c;
+      }
+      else if (c == '>') {
+        return;
+      }
+      c = read();
+    }
+  }
+
+  /**
+   * Skips comments ({@code <!-- ... -->}) and declarations like {@code <!DOCTYPE html>}, with {@code <!} consumed.
+   */
+  private void skipDeclaration() throws IOException {
+    if (peek() != '-') {
+      skipTag('!');
+      return;
+    }
+    int dashes = 0;
+    int c;
+    while ((c = read()) != EOF) {
+      if (c == '>' && dashes >= 4) {
+        return;
+      }
+      dashes = c == '-' ? dashes + 1 : Math.min(dashes, 2);
+    }
+  }
+
+  private static boolean isTagStart(final int c) {
+    return c == '/' || c == '!' || c == '?' || (c != EOF && Character.isLetter(c));
+  }
+
+  private static boolean isTagNameEnd(final int c) {
+    return c == EOF || c == '>' || c == '/' || Character.isWhitespace(c);
+  }
+
+  private static String unescape(final CharSequence value, final boolean inAttribute) {
+    String result = value.toString();
+    return result.indexOf('&') == -1 ? result : Parser.unescapeEntities(result, inAttribute);
+  }
+
+  private int skipWhitespace() throws IOException {
+    int c;
+    do {
+      c = read();
+    }
+    while (c != EOF && Character.isWhitespace(c));
+    return c;
+  }
+
+  private int peekSkippingWhitespace() throws IOException {
+    int c;
+    while ((c = peek()) != EOF && Character.isWhitespace(c)) {
+      read();
+    }
+    return c;
+  }
+
+  private int read() throws IOException {
+    if (position == limit && !fill()) {
+      return EOF;
+    }
+    return buffer[position++];
+  }
+
+  private int peek() throws IOException {
+    if (position == limit && !fill()) {
+      return EOF;
+    }
+    return buffer[position];
+  }
+
+  private void unread(final int c) {
+    if (c != EOF) {
+      position--;
+    }
+  }
+
+  private boolean fill() throws IOException {
+    int read;
+    do {
+      read = reader.read(buffer, 0, buffer.length);
+    }
+    while (read == 0);
+    if (read == EOF) {
+      return false;
+    }
+    position = 0;
+    limit = read;
+    return true;
+  }
+}
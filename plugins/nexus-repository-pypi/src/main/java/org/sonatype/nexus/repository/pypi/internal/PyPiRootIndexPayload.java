@@ -0,0 +1,72 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-present Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.repository.pypi.internal;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.Iterator;
+
+import org.sonatype.nexus.common.template.TemplateHelper;
+import org.sonatype.nexus.repository.view.Payload;
+import org.sonatype.nexus.repository.view.payloads.StreamPayload;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.sonatype.nexus.repository.pypi.internal.PyPiIndexUtils.packageLinks;
+import static org.sonatype.nexus.repository.pypi.internal.PyPiIndexUtils.renderRootIndexPage;
+import static org.sonatype.nexus.repository.view.ContentTypes.TEXT_HTML;
+
+/**
+ * PyPI specific {@link StreamPayload} of a root index stored as package names, which implements its own
+ * {@link #copy(InputStream, OutputStream)} method to render the HTML simple root index page while it is sent.
+ *
+ * The stream opened by {@link #openInputStream()} has the package names, one per line and ordered by
+ * {@link PyPiIndexUtils#PACKAGE_NAME_ORDER}, so groups can merge them without parsing the page.
+ *
+ * @since 3.26
+ */
+public class PyPiRootIndexPayload
+    extends StreamPayload
+{
+  private final TemplateHelper templateHelper;
+
+  public PyPiRootIndexPayload(final Payload packageNames, final TemplateHelper templateHelper) {
+    super(packageNames::openInputStream, UNKNOWN_SIZE, TEXT_HTML);
+    this.templateHelper = checkNotNull(templateHelper);
+  }
+
+  /**
+   * Returns the package names of a stream opened by {@link #openInputStream()}.
+   */
+  public static Iterator<String> readPackageNames(final InputStream input) {
+    return PyPiIndexUtils.readPackageNames(new InputStreamReader(input, UTF_8));
+  }
+
+  @Override
+  public void copy(final InputStream input, final OutputStream output) throws IOException {
+    Writer writer = new BufferedWriter(new OutputStreamWriter(output, UTF_8));
+    try {
+      renderRootIndexPage(templateHelper, packageLinks(readPackageNames(input)), writer);
+    }
+    catch (UncheckedIOException e) { // NOSONAR: unchecked wrapper of a name reader, we're only interested in its cause
+      throw e.getCause();
+    }
+    writer.flush();
+  }
+}
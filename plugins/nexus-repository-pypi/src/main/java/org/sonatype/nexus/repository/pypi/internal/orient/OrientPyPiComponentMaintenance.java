@@ -27,6 +27,7 @@ import org.sonatype.nexus.repository.storage.Component;
 import org.sonatype.nexus.repository.storage.DefaultComponentMaintenanceImpl;
 import org.sonatype.nexus.repository.storage.StorageTx;
 import org.sonatype.nexus.repository.transaction.TransactionalDeleteBlob;
+import org.sonatype.nexus.repository.types.HostedType;
 import org.sonatype.nexus.transaction.UnitOfWork;
 
 import static org.sonatype.nexus.repository.pypi.internal.PyPiAttributes.P_NAME;
@@ -105,6 +106,10 @@ public class OrientPyPiComponentMaintenance
   }
 
   private void deleteRootIndex() {
+    if (getRepository().getType() instanceof HostedType) {
+      // the package names listed by a hosted root index are kept up to date from component events
+      return;
+    }
     PyPiIndexFacet facet = getRepository().facet(PyPiIndexFacet.class);
     facet.deleteRootIndex();
   }
@@ -12,12 +12,14 @@
  */
 package org.sonatype.nexus.repository.pypi.internal.orient;
 
+import java.io.BufferedInputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.Map;
 import java.util.Map.Entry;
-import java.util.function.Supplier;
 
 import javax.annotation.Nullable;
 import javax.inject.Inject;
@@ -52,7 +54,7 @@ import org.sonatype.nexus.repository.view.Content;
 import org.sonatype.nexus.repository.view.ContentTypes;
 import org.sonatype.nexus.repository.view.Response;
 import org.sonatype.nexus.repository.view.payloads.BlobPayload;
-import org.sonatype.nexus.repository.view.payloads.StringPayload;
+import org.sonatype.nexus.repository.view.payloads.StreamPayload;
 import org.sonatype.nexus.transaction.Transactional;
 import org.sonatype.nexus.transaction.UnitOfWork;
 import org.sonatype.nexus.validation.ConstraintViolationFactory;
@@ -65,6 +67,7 @@ import com.orientechnologies.orient.core.exception.ORecordNotFoundException;
 import org.joda.time.DateTime;
 
 import static com.google.common.base.Preconditions.checkArgument;
+import static java.nio.charset.StandardCharsets.UTF_8;
 import static java.util.Objects.isNull;
 import static java.util.Objects.nonNull;
 import static org.sonatype.nexus.common.stateguard.StateGuardLifecycleSupport.State.STARTED;
@@ -77,6 +80,7 @@ import static org.sonatype.nexus.repository.pypi.internal.orient.OrientPyPiDataU
 import static org.sonatype.nexus.repository.pypi.internal.orient.OrientPyPiDataUtils.toContent;
 import static org.sonatype.nexus.repository.storage.AssetEntityAdapter.P_ASSET_KIND;
 import static org.sonatype.nexus.repository.storage.MetadataNodeEntityAdapter.P_NAME;
+import static org.sonatype.nexus.repository.view.Content.CONTENT_ETAG;
 import static org.sonatype.nexus.repository.view.Content.CONTENT_LAST_MODIFIED;
 
 /**
@@ -136,11 +140,14 @@ public class OrientPyPiGroupFacet
    * Build the PyPi Index Root merging all the given responses into one. This method allows {@link Cooperation} to
    * work, meaning that multiple requests to the same group request path will join in returning the same result.
    */
-  public Content buildIndexRoot(final String name, final AssetKind assetKind, final Supplier<String> lazyMergeResult)
+  public Content buildIndexRoot(final String name,
+                                final AssetKind assetKind,
+                                @Nullable final String etag,
+                                final IndexPageWriter mergedPage)
       throws IOException
   {
     if (isNull(indexRootCooperation)) {
-      return buildMergedIndexRoot(name, lazyMergeResult, true);
+      return buildMergedIndexRoot(name, etag, mergedPage, true);
     }
 
     try {
@@ -154,7 +161,7 @@ public class OrientPyPiGroupFacet
           }
         }
 
-        return buildMergedIndexRoot(name, lazyMergeResult, true);
+        return buildMergedIndexRoot(name, etag, mergedPage, true);
       });
     }
     catch (IOException e) {
@@ -162,19 +169,69 @@ public class OrientPyPiGroupFacet
           name, getRepository().getName(), e);
     }
 
-    return buildMergedIndexRoot(name, lazyMergeResult, false); // last resort, merge but don't cache
+    return buildMergedIndexRoot(name, etag, mergedPage, false); // last resort, merge but don't cache
   }
 
-  protected Content buildMergedIndexRoot(final String name, final Supplier<String> lazyMergeResult, boolean save)
+  /**
+   * Merges the page into a temporary file and keeps the optional ETag with it, so the page is never held in memory.
+   * The file is deleted once the page is cached, or else once the returned content is closed.
+   */
+  protected Content buildMergedIndexRoot(final String name,
+                                         @Nullable final String etag,
+                                         final IndexPageWriter mergedPage,
+                                         final boolean save)
       throws IOException
   {
+    Path path = Files.createTempFile("pypi-group-index", ".html");
     try {
-      String html = lazyMergeResult.get();
-      Content newContent = new Content(new StringPayload(html, ContentTypes.TEXT_HTML));
-      return save ? saveToCache(name, newContent) : newContent;
+      try (Writer writer = Files.newBufferedWriter(path, UTF_8)) {
+        mergedPage.write(writer);
+      }
+      Content newContent = new Content(new TempFilePayload(path));
+      newContent.getAttributes().set(CONTENT_ETAG, etag);
+      if (!save) {
+        return newContent;
+      }
+      try {
+        return saveToCache(name, newContent);
+      }
+      finally {
+        newContent.close();
+      }
+    }
+    catch (IOException | RuntimeException e) {
+      Files.deleteIfExists(path);
+      throw e;
+    }
+  }
+
+  /**
+   * Writes a merged index page.
+   *
+   * @since 3.26
+   */
+  @FunctionalInterface
+  public interface IndexPageWriter
+  {
+    void write(Writer writer) throws IOException;
+  }
+
+  /**
+   * Payload of a page merged into a temporary file, which is deleted when the payload is closed.
+   */
+  private static class TempFilePayload
+      extends StreamPayload
+  {
+    private final Path path;
+
+    TempFilePayload(final Path path) throws IOException {
+      super(() -> new BufferedInputStream(Files.newInputStream(path)), Files.size(path), ContentTypes.TEXT_HTML);
+      this.path = path;
     }
-    catch (UncheckedIOException e) { // NOSONAR: unchecked wrapper, we're only interested in its cause
-      throw e.getCause();
+
+    @Override
+    public void close() throws IOException {
+      Files.deleteIfExists(path);
     }
   }
 
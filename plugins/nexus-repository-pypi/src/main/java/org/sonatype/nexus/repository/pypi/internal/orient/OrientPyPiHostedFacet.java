@@ -14,6 +14,7 @@ package org.sonatype.nexus.repository.pypi.internal.orient;
 
 import java.io.IOException;
 import java.util.Map;
+import java.util.Set;
 
 import org.sonatype.nexus.repository.Facet;
 import org.sonatype.nexus.repository.pypi.internal.SignablePyPiPackage;
@@ -38,6 +39,15 @@ public interface OrientPyPiHostedFacet
    */
   Content getRootIndex();
 
+  /**
+   * Updates the package names listed by the root index for packages which may have gained their first version or
+   * lost their last.
+   *
+   * @param names package names
+   * @since 3.26
+   */
+  void updateRootIndex(Set<String> names);
+
   /**
    * Retrieve index.
    *
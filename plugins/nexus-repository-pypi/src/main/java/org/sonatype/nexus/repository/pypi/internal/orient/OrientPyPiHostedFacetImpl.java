@@ -15,20 +15,30 @@ package org.sonatype.nexus.repository.pypi.internal.orient;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.SortedSet;
 import java.util.TreeMap;
+import java.util.TreeSet;
 
 import javax.annotation.Nullable;
 import javax.inject.Inject;
 import javax.inject.Named;
 
+import org.sonatype.nexus.blobstore.api.Blob;
 import org.sonatype.nexus.common.collect.AttributesMap;
 import org.sonatype.nexus.common.collect.NestedAttributesMap;
 import org.sonatype.nexus.common.hash.HashAlgorithm;
 import org.sonatype.nexus.common.template.TemplateHelper;
+import org.sonatype.nexus.orient.entity.AttachedEntityHelper;
 import org.sonatype.nexus.repository.FacetSupport;
 import org.sonatype.nexus.repository.IllegalOperationException;
 import org.sonatype.nexus.repository.pypi.internal.AssetKind;
@@ -37,6 +47,7 @@ import org.sonatype.nexus.repository.pypi.internal.PyPiFormat;
 import org.sonatype.nexus.repository.pypi.internal.PyPiIndexFacet;
 import org.sonatype.nexus.repository.pypi.internal.PyPiInfoUtils;
 import org.sonatype.nexus.repository.pypi.internal.PyPiLink;
+import org.sonatype.nexus.repository.pypi.internal.PyPiRootIndexPayload;
 import org.sonatype.nexus.repository.pypi.internal.SignablePyPiPackage;
 import org.sonatype.nexus.repository.storage.Asset;
 import org.sonatype.nexus.repository.storage.Bucket;
@@ -48,22 +59,29 @@ import org.sonatype.nexus.repository.transaction.TransactionalStoreBlob;
 import org.sonatype.nexus.repository.transaction.TransactionalStoreMetadata;
 import org.sonatype.nexus.repository.transaction.TransactionalTouchBlob;
 import org.sonatype.nexus.repository.view.Content;
-import org.sonatype.nexus.repository.view.payloads.StringPayload;
+import org.sonatype.nexus.repository.view.payloads.BlobPayload;
 import org.sonatype.nexus.repository.view.payloads.TempBlobPartPayload;
 import org.sonatype.nexus.transaction.Transactional;
 import org.sonatype.nexus.transaction.UnitOfWork;
 
 import com.google.common.hash.HashCode;
+import com.orientechnologies.orient.core.metadata.schema.OType;
+import com.orientechnologies.orient.core.record.impl.ODocument;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Collections.singletonMap;
 import static org.sonatype.nexus.common.hash.HashAlgorithm.MD5;
 import static org.sonatype.nexus.repository.pypi.internal.AssetKind.ROOT_INDEX;
 import static org.sonatype.nexus.repository.pypi.internal.PyPiAttributes.P_NAME;
+import static org.sonatype.nexus.repository.pypi.internal.PyPiAttributes.P_ROOT_INDEX_VERSION;
 import static org.sonatype.nexus.repository.pypi.internal.PyPiAttributes.P_SUMMARY;
 import static org.sonatype.nexus.repository.pypi.internal.PyPiAttributes.P_VERSION;
 import static org.sonatype.nexus.repository.pypi.internal.PyPiIndexUtils.buildIndexPage;
-import static org.sonatype.nexus.repository.pypi.internal.PyPiIndexUtils.buildRootIndexPage;
+import static org.sonatype.nexus.repository.pypi.internal.PyPiIndexUtils.PACKAGE_NAME_ORDER;
+import static org.sonatype.nexus.repository.pypi.internal.PyPiIndexUtils.mergePackageNames;
+import static org.sonatype.nexus.repository.pypi.internal.PyPiIndexUtils.rootIndexEtag;
+import static org.sonatype.nexus.repository.pypi.internal.PyPiIndexUtils.writePackageNames;
 import static org.sonatype.nexus.repository.pypi.internal.PyPiPathUtils.INDEX_PATH_PREFIX;
 import static org.sonatype.nexus.repository.pypi.internal.PyPiPathUtils.indexPath;
 import static org.sonatype.nexus.repository.pypi.internal.PyPiPathUtils.normalizeName;
@@ -77,8 +95,10 @@ import static org.sonatype.nexus.repository.pypi.internal.orient.OrientPyPiDataU
 import static org.sonatype.nexus.repository.pypi.internal.orient.OrientPyPiDataUtils.saveAsset;
 import static org.sonatype.nexus.repository.pypi.internal.orient.OrientPyPiDataUtils.toContent;
 import static org.sonatype.nexus.repository.storage.AssetEntityAdapter.P_ASSET_KIND;
+import static org.sonatype.nexus.repository.storage.MetadataNodeEntityAdapter.P_BUCKET;
 import static org.sonatype.nexus.repository.view.Content.CONTENT_ETAG;
 import static org.sonatype.nexus.repository.view.ContentTypes.TEXT_HTML;
+import static org.sonatype.nexus.repository.view.ContentTypes.TEXT_PLAIN;
 
 /**
  * {@link OrientPyPiHostedFacet} implementation.
@@ -90,8 +110,15 @@ public class OrientPyPiHostedFacetImpl
     extends FacetSupport
     implements OrientPyPiHostedFacet
 {
+  private static final String SELECT_PACKAGE_NAMES =
+      "SELECT DISTINCT(" + P_NAME + ") AS " + P_NAME + " FROM component WHERE " + P_BUCKET + " = :" + P_BUCKET;
+
   private final TemplateHelper templateHelper;
 
+  private final Set<String> pendingPackageNames = new HashSet<>();
+
+  private boolean updating;
+
   @Inject
   public OrientPyPiHostedFacetImpl(final TemplateHelper templateHelper) {
     this.templateHelper = checkNotNull(templateHelper);
@@ -105,9 +132,9 @@ public class OrientPyPiHostedFacetImpl
     Bucket bucket = tx.findBucket(getRepository());
 
     Asset asset = findAsset(tx, bucket, INDEX_PATH_PREFIX);
-    if (asset == null) {
+    if (asset == null || rootIndexVersion(asset) == null) {
       try {
-        return createAndSaveRootIndex(bucket);
+        asset = createAndSaveRootIndex(bucket, asset);
       }
       catch (IOException e) {
         log.error("Unable to create root index for repository: {}", getRepository().getName(), e);
@@ -115,17 +142,32 @@ public class OrientPyPiHostedFacetImpl
       }
     }
 
-    return toContent(asset, tx.requireBlob(asset.requireBlobRef()));
+    return rootIndexContent(asset, tx.requireBlob(asset.requireBlobRef()));
   }
 
-  private Content createAndSaveRootIndex(final Bucket bucket) throws IOException {
+  /**
+   * Stores the names of all packages, from which the root index is rendered. This is only needed when no names are
+   * stored yet, or only a root index page stored by an earlier version; from then on the names are kept up to date by
+   * {@link #updateRootIndex(Set)}. The version of the names starts from the build time, so an ETag of names stored
+   * before is never reused.
+   */
+  private Asset createAndSaveRootIndex(final Bucket bucket, @Nullable final Asset existing) throws IOException {
     StorageTx tx = UnitOfWork.currentTx();
-    List<PyPiLink> links = findAllLinks();
+    SortedSet<String> names = findAllPackageNames();
 
-    Asset asset = createRootIndexAsset(bucket);
+    Asset asset = existing != null ? existing : createRootIndexAsset(bucket);
 
-    String rootIndexHtml = buildRootIndexPage(templateHelper, links);
-    return storeHtmlPage(tx, asset, rootIndexHtml);
+    Path path = Files.createTempFile("pypi-root-index", "txt");
+    try {
+      try (Writer writer = Files.newBufferedWriter(path, UTF_8)) {
+        writePackageNames(names.iterator(), writer);
+      }
+      storePackageNames(tx, asset, path, System.currentTimeMillis());
+    }
+    finally {
+      Files.delete(path);
+    }
+    return asset;
   }
 
   @TransactionalStoreMetadata
@@ -137,24 +179,163 @@ public class OrientPyPiHostedFacetImpl
     return asset;
   }
 
+  /**
+   * Finds the distinct package names of the components, in root index order, without loading the components
+   * themselves.
+   */
   @Transactional
-  protected List<PyPiLink> findAllLinks() {
+  protected SortedSet<String> findAllPackageNames() {
+    StorageTx tx = UnitOfWork.currentTx();
+    Map<String, Object> sqlParams = singletonMap(P_BUCKET, AttachedEntityHelper.id(tx.findBucket(getRepository())));
+    SortedSet<String> names = new TreeSet<>(PACKAGE_NAME_ORDER);
+    for (ODocument document : tx.browse(SELECT_PACKAGE_NAMES, sqlParams)) {
+      names.add(document.field(P_NAME, OType.STRING));
+    }
+    return names;
+  }
+
+  /**
+   * Updates the stored package names, rather than dropping them to be rebuilt from all packages on the next request.
+   *
+   * Changes are coalesced: while an update of the names is running, changes of further batches are only recorded,
+   * and the running update then applies all of them at once. So the names are rewritten once per update rather than
+   * once per batch, however many batches arrive while they are being rewritten.
+   *
+   * If the names can't be updated the root index is deleted, to be rebuilt from all packages when next requested; if
+   * it can't be deleted either, the changes are kept to be applied by the next update.
+   */
+  @Override
+  public void updateRootIndex(final Set<String> names) {
+    synchronized (pendingPackageNames) {
+      pendingPackageNames.addAll(names);
+      if (updating) {
+        return;
+      }
+      updating = true;
+    }
+    Set<String> changed = takePendingPackageNames();
+    try {
+      while (changed != null) {
+        applyUpdate(changed);
+        changed = takePendingPackageNames();
+      }
+    }
+    finally {
+      if (changed != null) {
+        synchronized (pendingPackageNames) {
+          pendingPackageNames.addAll(changed);
+          updating = false;
+        }
+      }
+    }
+  }
+
+  /**
+   * Returns the changed packages not yet applied to the stored names, or {@code null} when there are none, in which
+   * case the running update is done.
+   */
+  @Nullable
+  private Set<String> takePendingPackageNames() {
+    synchronized (pendingPackageNames) {
+      if (pendingPackageNames.isEmpty()) {
+        updating = false;
+        return null;
+      }
+      Set<String> changed = new HashSet<>(pendingPackageNames);
+      pendingPackageNames.clear();
+      return changed;
+    }
+  }
+
+  private void applyUpdate(final Set<String> names) {
+    UnitOfWork.begin(facet(StorageFacet.class).txSupplier());
+    try {
+      try {
+        patchRootIndex(names);
+      }
+      catch (Exception e) {
+        log.warn("Could not update root index of {}, deleting it", getRepository().getName(), e);
+        facet(PyPiIndexFacet.class).deleteRootIndex();
+      }
+    }
+    finally {
+      UnitOfWork.end();
+    }
+  }
+
+  /**
+   * Adds the given packages which have a version to the stored names, and removes those which have none. When no
+   * names are stored yet, they are built from all packages instead.
+   */
+  @TransactionalStoreBlob
+  protected void patchRootIndex(final Set<String> names) throws IOException {
     StorageTx tx = UnitOfWork.currentTx();
-    Map<String, PyPiLink> links = new TreeMap<>();
-    Iterable<Component> components = tx.browseComponents(tx.findBucket(getRepository()));
-    components.forEach(c -> links.put(c.name(), new PyPiLink(c.name(), c.name() + "/")));
-    return new ArrayList<>(links.values());
+    Bucket bucket = tx.findBucket(getRepository());
+
+    Asset asset = findAsset(tx, bucket, INDEX_PATH_PREFIX);
+    Long version = asset != null ? rootIndexVersion(asset) : null;
+    if (version == null) {
+      createAndSaveRootIndex(bucket, asset);
+      return;
+    }
+
+    SortedMap<String, Boolean> changes = new TreeMap<>(PACKAGE_NAME_ORDER);
+    for (String name : names) {
+      changes.put(name, findComponentExists(tx, getRepository(), name));
+    }
+
+    Path path = Files.createTempFile("pypi-root-index", "txt");
+    try {
+      boolean changed;
+      Blob blob = tx.requireBlob(asset.requireBlobRef());
+      try (InputStream in = blob.getInputStream(); Writer writer = Files.newBufferedWriter(path, UTF_8)) {
+        changed = mergePackageNames(PyPiRootIndexPayload.readPackageNames(in), changes, writer);
+      }
+      if (changed) {
+        log.debug("Updating root index of {} for {}", getRepository().getName(), names);
+        storePackageNames(tx, asset, path, version + 1);
+      }
+    }
+    finally {
+      Files.delete(path);
+    }
   }
 
+  /**
+   * Stores the package names written to the path as the blob of the root index, along with their version.
+   */
   @TransactionalStoreBlob
-  protected Content storeHtmlPage(final StorageTx tx, final Asset asset, final String indexPage) throws IOException
+  protected void storePackageNames(final StorageTx tx, final Asset asset, final Path path, final long version)
+      throws IOException
   {
+    asset.formatAttributes().set(P_ROOT_INDEX_VERSION, version);
+    AttributesMap contentAttributes = new AttributesMap();
+    contentAttributes.set(CONTENT_ETAG, rootIndexEtag(version));
     StorageFacet storageFacet = facet(StorageFacet.class);
-    try (TempBlob tempBlob = storageFacet.createTempBlob(new StringPayload(indexPage, TEXT_HTML), HASH_ALGORITHMS)) {
-      return saveAsset(tx, asset, tempBlob, TEXT_HTML, null);
+    try (InputStream in = Files.newInputStream(path);
+         TempBlob tempBlob = storageFacet.createTempBlob(in, HASH_ALGORITHMS)) {
+      saveAsset(tx, asset, tempBlob, TEXT_PLAIN, contentAttributes);
     }
   }
 
+  @Nullable
+  private static Long rootIndexVersion(final Asset asset) {
+    Number version = asset.formatAttributes().get(P_ROOT_INDEX_VERSION, Number.class);
+    return version != null ? version.longValue() : null;
+  }
+
+  /**
+   * Returns the root index page rendered from the stored package names, which are also kept as an attribute of the
+   * content for groups to merge.
+   */
+  private Content rootIndexContent(final Asset asset, final Blob blob) {
+    PyPiRootIndexPayload payload = new PyPiRootIndexPayload(new BlobPayload(blob, TEXT_PLAIN), templateHelper);
+    Content content = new Content(payload);
+    Content.extractFromAsset(asset, HASH_ALGORITHMS, content.getAttributes());
+    content.getAttributes().set(PyPiRootIndexPayload.class, payload);
+    return content;
+  }
+
   @Override
   @TransactionalStoreBlob
   public Content getIndex(final String name) throws IOException {
@@ -267,7 +448,7 @@ public class OrientPyPiHostedFacetImpl
 
     String packagePath = createPackagePath(name, version, filename);
 
-    Component component = findOrCreateComponent(name, version, normalizedName, indexFacet, tx, bucket);
+    Component component = findOrCreateComponent(name, version, normalizedName, tx, bucket);
 
     component.formatAttributes().set(P_SUMMARY, attributes.get(P_SUMMARY)); // use the most recent summary received?
     tx.saveComponent(component);
@@ -296,14 +477,11 @@ public class OrientPyPiHostedFacetImpl
       final String name,
       final String version,
       final String normalizedName,
-      final PyPiIndexFacet indexFacet, final StorageTx tx, final Bucket bucket)
+      final StorageTx tx, final Bucket bucket)
   {
     Component component = findComponent(tx, getRepository(), normalizedName, version);
     if (component == null) {
       component = createComponent(name, version, normalizedName, tx, bucket);
-
-      //A new component so we will need to regenerate the root index
-      indexFacet.deleteRootIndex();
     }
     return component;
   }
@@ -15,12 +15,15 @@ package org.sonatype.nexus.repository.pypi.internal.orient;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
-import java.util.TreeMap;
-import java.util.function.Supplier;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import javax.inject.Inject;
 import javax.inject.Named;
 import javax.inject.Singleton;
@@ -31,22 +34,35 @@ import org.sonatype.nexus.repository.group.GroupHandler;
 import org.sonatype.nexus.repository.http.HttpResponses;
 import org.sonatype.nexus.repository.http.HttpStatus;
 import org.sonatype.nexus.repository.pypi.internal.AssetKind;
-import org.sonatype.nexus.repository.pypi.internal.PyPiIndexUtils;
 import org.sonatype.nexus.repository.pypi.internal.PyPiLink;
+import org.sonatype.nexus.repository.pypi.internal.PyPiRootIndexPayload;
 import org.sonatype.nexus.repository.view.Content;
 import org.sonatype.nexus.repository.view.Context;
 import org.sonatype.nexus.repository.view.Payload;
 import org.sonatype.nexus.repository.view.Response;
 import org.sonatype.nexus.repository.view.matchers.token.TokenMatcher;
 
-import com.google.common.base.Suppliers;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.google.common.io.Closer;
 
 import static com.google.common.base.Preconditions.checkNotNull;
+import static java.nio.charset.StandardCharsets.UTF_8;
 import static org.sonatype.nexus.repository.pypi.internal.AssetKind.INDEX;
 import static org.sonatype.nexus.repository.pypi.internal.AssetKind.ROOT_INDEX;
 import static org.sonatype.nexus.repository.pypi.internal.PyPiIndexUtils.extractLinksFromIndex;
+import static org.sonatype.nexus.repository.pypi.internal.PyPiIndexUtils.isRootIndexEtag;
+import static org.sonatype.nexus.repository.pypi.internal.PyPiIndexUtils.mergeLinks;
+import static org.sonatype.nexus.repository.pypi.internal.PyPiIndexUtils.packageLinks;
+import static org.sonatype.nexus.repository.pypi.internal.PyPiIndexUtils.renderIndexPage;
+import static org.sonatype.nexus.repository.pypi.internal.PyPiIndexUtils.renderRootIndexPage;
+import static org.sonatype.nexus.repository.pypi.internal.PyPiIndexUtils.rootIndexEtag;
+import static org.sonatype.nexus.repository.pypi.internal.PyPiIndexUtils.scanLinksFromIndex;
+import static org.sonatype.nexus.repository.pypi.internal.PyPiIndexUtils.sortLinks;
 import static org.sonatype.nexus.repository.pypi.internal.PyPiPathUtils.INDEX_PATH_PREFIX;
 import static org.sonatype.nexus.repository.pypi.internal.PyPiPathUtils.name;
+import static org.sonatype.nexus.repository.pypi.internal.PyPiRootIndexPayload.readPackageNames;
+import static org.sonatype.nexus.repository.view.Content.CONTENT_ETAG;
 
 /**
  * Support for merging PyPI simple indexes together.
@@ -88,58 +104,93 @@ class OrientPyPiIndexGroupHandler
     Map<Repository, Response> memberResponses = getAll(context, groupFacet.members(), dispatched);
 
     if (groupFacet.isStale(name, content, memberResponses)) {
+      String etag = ROOT_INDEX.equals(assetKind) ? mergedRootIndexEtag(memberResponses) : null;
       return HttpResponses.ok(
           groupFacet.buildIndexRoot(
-              name, assetKind, lazyMergeResult(name, assetKind, memberResponses)));
+              name, assetKind, etag, writer -> mergeResponses(name, assetKind, memberResponses, writer)));
     }
 
     return HttpResponses.ok(content);
   }
 
-  private Supplier<String> lazyMergeResult(final String name,
-                                           final AssetKind assetKind,
-                                           final Map<Repository, Response> remoteResponses)
+  /**
+   * Merges member responses with a k-way merge of their links, writing the merged page as links are merged.
+   */
+  private void mergeResponses(final String name,
+                              final AssetKind assetKind,
+                              final Map<Repository, Response> remoteResponses,
+                              final Writer writer) throws IOException
   {
-    return Suppliers.memoize(() -> {
-      try {
-        return mergeResponses(name, assetKind, remoteResponses);
-      }
-      catch (IOException e) {
-        throw new UncheckedIOException(e);
+    try (Closer closer = Closer.create()) {
+      List<Iterator<PyPiLink>> memberLinks = new ArrayList<>(remoteResponses.size());
+      for (Response response : remoteResponses.values()) {
+        if (isOk(response)) {
+          memberLinks.add(processResults(response, assetKind, closer));
+        }
       }
-    });
-  }
 
-  private String mergeResponses(final String name,
-                                final AssetKind assetKind,
-                                final Map<Repository, Response> remoteResponses) throws IOException
-  {
-    Map<String, PyPiLink> results = new TreeMap<>();
-    for (Entry<Repository, Response> entry : remoteResponses.entrySet()) {
-      Response response = entry.getValue();
-      if (response.getStatus().getCode() == HttpStatus.OK && response.getPayload() != null) {
-        processResults(response, results);
+      Iterator<PyPiLink> results = mergeLinks(memberLinks);
+      if (INDEX.equals(assetKind)) {
+        renderIndexPage(templateHelper, name, results, writer);
+      }
+      else {
+        renderRootIndexPage(templateHelper, results, writer);
       }
     }
-
-    if (INDEX.equals(assetKind)) {
-      return PyPiIndexUtils.buildIndexPage(templateHelper, name, results.values());
-    }
-    else {
-      return PyPiIndexUtils.buildRootIndexPage(templateHelper, results.values());
+    catch (UncheckedIOException e) { // NOSONAR: unchecked wrapper of a link reader, we're only interested in its cause
+      throw e.getCause();
     }
   }
 
   /**
-   * Processes the content of a particular repository's response.
+   * Processes the content of a particular repository's response, reading it once. The links of a hosted root index
+   * are streamed from its package names, and those of a merged root index from its page, as both are ordered by name.
+   * The order of links of any other response is only known once all of them are read, so they are read and sorted,
+   * which takes linear time when they already are ordered.
    */
-  private void processResults(final Response response, final Map<String, PyPiLink> results) throws IOException {
+  private Iterator<PyPiLink> processResults(final Response response,
+                                            final AssetKind assetKind,
+                                            final Closer closer) throws IOException
+  {
     checkNotNull(response);
-    checkNotNull(results);
     Payload payload = checkNotNull(response.getPayload());
+    if (ROOT_INDEX.equals(assetKind) && payload instanceof Content
+        && ((Content) payload).getAttributes().contains(PyPiRootIndexPayload.class)) {
+      return packageLinks(readPackageNames(closer.register(payload.openInputStream())));
+    }
+    if (ROOT_INDEX.equals(assetKind) && isRootIndexEtag(etag(payload))) {
+      return closer.register(scanLinksFromIndex(payload.openInputStream()));
+    }
     try (InputStream in = payload.openInputStream()) {
-      extractLinksFromIndex(in)
-          .forEach(link -> results.putIfAbsent(link.getFile().toLowerCase(), link));
+      return sortLinks(extractLinksFromIndex(in));
     }
   }
+
+  /**
+   * Returns an ETag for the merged root index derived from the member ETags when each member serves a root index
+   * rendered from a maintained package name set, otherwise {@code null}.
+   */
+  @Nullable
+  private String mergedRootIndexEtag(final Map<Repository, Response> responses) {
+    Hasher hasher = Hashing.murmur3_128().newHasher();
+    for (Entry<Repository, Response> entry : responses.entrySet()) {
+      if (isOk(entry.getValue())) {
+        String etag = etag(entry.getValue().getPayload());
+        if (!isRootIndexEtag(etag)) {
+          return null;
+        }
+        hasher.putString(entry.getKey().getName(), UTF_8).putString(etag, UTF_8);
+      }
+    }
+    return rootIndexEtag(hasher.hash().asLong());
+  }
+
+  private boolean isOk(final Response response) {
+    return response.getStatus().getCode() == HttpStatus.OK && response.getPayload() != null;
+  }
+
+  @Nullable
+  private String etag(@Nullable final Payload payload) {
+    return payload instanceof Content ? ((Content) payload).getAttributes().get(CONTENT_ETAG, String.class) : null;
+  }
 }
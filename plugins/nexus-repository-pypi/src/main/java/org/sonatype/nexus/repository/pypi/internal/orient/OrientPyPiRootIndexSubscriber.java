@@ -0,0 +1,104 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-present Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.repository.pypi.internal.orient;
+
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.Nullable;
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import org.sonatype.goodies.common.ComponentSupport;
+import org.sonatype.nexus.common.entity.EntityBatchEvent;
+import org.sonatype.nexus.common.entity.EntityEvent;
+import org.sonatype.nexus.common.event.EventAware;
+import org.sonatype.nexus.common.event.EventAware.Asynchronous;
+import org.sonatype.nexus.common.event.EventHelper;
+import org.sonatype.nexus.repository.Repository;
+import org.sonatype.nexus.repository.manager.RepositoryManager;
+import org.sonatype.nexus.repository.pypi.internal.PyPiFormat;
+import org.sonatype.nexus.repository.storage.ComponentCreatedEvent;
+import org.sonatype.nexus.repository.storage.ComponentDeletedEvent;
+import org.sonatype.nexus.repository.storage.ComponentEvent;
+
+import com.google.common.eventbus.AllowConcurrentEvents;
+import com.google.common.eventbus.Subscribe;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Subscriber of batched component events, which are used to maintain the package names listed by the root indexes
+ * of hosted repositories.
+ *
+ * @since 3.26
+ */
+@Named
+@Singleton
+public class OrientPyPiRootIndexSubscriber
+    extends ComponentSupport
+    implements EventAware, Asynchronous
+{
+  private final RepositoryManager repositoryManager;
+
+  @Inject
+  public OrientPyPiRootIndexSubscriber(final RepositoryManager repositoryManager) {
+    this.repositoryManager = checkNotNull(repositoryManager);
+  }
+
+  /**
+   * On component create or delete event, a package may have gained its first version or lost its last, so the root
+   * index of the owning hosted repository should be updated for the changed packages, once per repository for the
+   * whole batch.
+   */
+  @Subscribe
+  @AllowConcurrentEvents
+  public void on(final EntityBatchEvent batchEvent) {
+    // skip when replicating, origin node will update the root indexes
+    if (!EventHelper.isReplicating()) {
+      final Map<Repository, Set<String>> changedPackages = new LinkedHashMap<>();
+      for (final EntityEvent event : batchEvent.getEvents()) {
+        if (event instanceof ComponentCreatedEvent || event instanceof ComponentDeletedEvent) {
+          final ComponentEvent componentEvent = (ComponentEvent) event;
+          final Repository repository = findPyPiHostedRepository(componentEvent.getRepositoryName());
+          if (repository != null) {
+            changedPackages.computeIfAbsent(repository, r -> new HashSet<>())
+                .add(componentEvent.getComponent().name());
+          }
+        }
+      }
+      changedPackages.forEach(this::updateRootIndex);
+    }
+  }
+
+  /**
+   * Returns the repository if it is a hosted repository of {@link PyPiFormat}, {@code null} otherwise.
+   */
+  @Nullable
+  private Repository findPyPiHostedRepository(final String repositoryName) {
+    final Repository repository = repositoryManager.get(repositoryName);
+    if (repository != null
+        && PyPiFormat.NAME.equals(repository.getFormat().getValue())
+        && repository.optionalFacet(OrientPyPiHostedFacet.class).isPresent()) {
+      return repository;
+    }
+    return null;
+  }
+
+  private void updateRootIndex(final Repository repository, final Set<String> names) {
+    repository.facet(OrientPyPiHostedFacet.class).updateRootIndex(names);
+  }
+}
@@ -89,4 +89,93 @@ class PyPiIndexUtilsTest
           new PyPiLink('zzhfun', 'zzhfun/'),
       ]
   }
+
+  def 'Correctly extract links from loosely formatted markup'() {
+    when: 'A page with varied anchor markup is parsed'
+      List<PyPiLink> links = PyPiIndexUtils.extractLinksFromIndex('''<!DOCTYPE html>
+<html><body>
+<!-- <a href="/commented/">commented</a> -->
+1 < 2 <A HREF='/packages/a-1.0.tar.gz#sha256=ab'>a-1.0.tar.gz</A><br>
+<a name="anchor">no href</a>
+<a class=x href=/packages/b-1.0.zip data-requires-python="&gt;=3.6">
+  <span>b-1.0</span>.zip
+</a>
+<a href="/packages/c-1.0.whl?x=1&amp;y=2" data-requires-python='>=2.7, !=3.0.*'>c&#45;1.0.whl</a>
+</body></html>''')
+    then: 'the links will be extracted as from a parsed document'
+      links == [
+          new PyPiLink('a-1.0.tar.gz', '/packages/a-1.0.tar.gz#sha256=ab'),
+          new PyPiLink('b-1.0.zip', '/packages/b-1.0.zip', '>=3.6'),
+          new PyPiLink('c-1.0.whl', '/packages/c-1.0.whl?x=1&y=2', '>=2.7, !=3.0.*')
+      ]
+  }
+
+  def 'Correctly merge links of several indexes'() {
+    when: 'Links of several indexes are sorted and merged'
+      List<PyPiLink> merged = PyPiIndexUtils.mergeLinks([
+          PyPiIndexUtils.sortLinks([new PyPiLink('zeta', 'first/zeta/'), new PyPiLink('Alpha', 'first/alpha/'),
+                                    new PyPiLink('alpha', 'first/alpha-again/')]),
+          [].iterator(),
+          PyPiIndexUtils.sortLinks([new PyPiLink('beta', 'third/beta/'), new PyPiLink('zeta', 'third/zeta/'),
+                                    new PyPiLink('ALPHA', 'third/alpha/')])
+      ]).toList()
+    then: 'links are ordered by lower-cased name and the first index with a name wins'
+      merged == [
+          new PyPiLink('Alpha', 'first/alpha/'),
+          new PyPiLink('beta', 'third/beta/'),
+          new PyPiLink('zeta', 'first/zeta/')
+      ]
+  }
+
+  def 'Correctly merge links streamed from ordered index pages'() {
+    given: 'Two root index pages ordered by name'
+      String first = '<html><body><a href="alpha/">alpha</a><br/><a href="zeta/">zeta</a><br/></body></html>'
+      String second = '<html><body><a href="beta/">Beta</a><br/><a href="other/">zeta</a><br/></body></html>'
+    when: 'The links scanned from the pages are merged'
+      List<PyPiLink> merged = PyPiIndexUtils.scanLinksFromIndex(stream(first)).withCloseable { firstLinks ->
+        PyPiIndexUtils.scanLinksFromIndex(stream(second)).withCloseable { secondLinks ->
+          PyPiIndexUtils.mergeLinks([firstLinks, secondLinks]).toList()
+        }
+      }
+    then: 'the names are merged in order, keeping the links of the first page'
+      merged == [
+          new PyPiLink('alpha', 'alpha/'),
+          new PyPiLink('Beta', 'beta/'),
+          new PyPiLink('zeta', 'zeta/')
+      ]
+  }
+
+  def 'Correctly recognise root index ETags'() {
+    expect:
+      PyPiIndexUtils.isRootIndexEtag(PyPiIndexUtils.rootIndexEtag(42L))
+      PyPiIndexUtils.rootIndexEtag(42L) != PyPiIndexUtils.rootIndexEtag(43L)
+      !PyPiIndexUtils.isRootIndexEtag('{SHA1{2aae6c35c94fcfb415dbe95f408b9ce91ee846ed}}')
+      !PyPiIndexUtils.isRootIndexEtag(null)
+  }
+
+  @Unroll
+  def 'Correctly merge changes into package names: #changes'() {
+    given: 'Package names ordered for a root index'
+      TreeMap<String, Boolean> pending = new TreeMap<>(PyPiIndexUtils.PACKAGE_NAME_ORDER)
+      pending.putAll(changes)
+      StringWriter writer = new StringWriter()
+    when: 'The changes are merged into the names'
+      boolean changed = PyPiIndexUtils.mergePackageNames(
+          PyPiIndexUtils.readPackageNames(new StringReader('Beta\nflask\nzeta\n')), pending, writer)
+    then: 'names are added and removed in order, and only actual changes are reported'
+      writer.toString() == names
+      changed == expectChanged
+
+    where:
+      changes                               | names                                    | expectChanged
+      [:]                                   | 'Beta\nflask\nzeta\n'                    | false
+      [alpha: true, django: true, zz: true] | 'alpha\nBeta\ndjango\nflask\nzeta\nzz\n' | true
+      [Beta: false, zeta: false]            | 'flask\n'                                | true
+      [flask: true, pyyaml: false]          | 'Beta\nflask\nzeta\n'                    | false
+      [beta: true, flask: false]            | 'Beta\nbeta\nzeta\n'                     | true
+  }
+
+  private static InputStream stream(final String html) {
+    return new ByteArrayInputStream(html.getBytes('UTF-8'))
+  }
 }
@@ -0,0 +1,97 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-present Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.repository.pypi.internal.orient;
+
+import org.sonatype.goodies.testsupport.TestSupport;
+import org.sonatype.nexus.common.entity.EntityId;
+import org.sonatype.nexus.repository.Repository;
+import org.sonatype.nexus.repository.pypi.internal.PyPiIndexFacet;
+import org.sonatype.nexus.repository.storage.Bucket;
+import org.sonatype.nexus.repository.storage.Component;
+import org.sonatype.nexus.repository.storage.StorageTx;
+import org.sonatype.nexus.repository.types.HostedType;
+import org.sonatype.nexus.repository.types.ProxyType;
+import org.sonatype.nexus.transaction.UnitOfWork;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class OrientPyPiComponentMaintenanceTest
+    extends TestSupport
+{
+  @Mock
+  private StorageTx tx;
+
+  @Mock
+  private Repository repository;
+
+  @Mock
+  private PyPiIndexFacet indexFacet;
+
+  @Mock
+  private Bucket bucket;
+
+  @Mock
+  private Component component;
+
+  @Mock
+  private EntityId componentId;
+
+  private OrientPyPiComponentMaintenance underTest;
+
+  @Before
+  public void setUp() throws Exception {
+    when(repository.facet(PyPiIndexFacet.class)).thenReturn(indexFacet);
+    when(tx.findBucket(repository)).thenReturn(bucket);
+    when(tx.findComponentInBucket(componentId, bucket)).thenReturn(component);
+    when(component.name()).thenReturn("requests");
+
+    underTest = new OrientPyPiComponentMaintenance();
+    underTest.attach(repository);
+
+    UnitOfWork.beginBatch(tx);
+  }
+
+  @After
+  public void teardown() {
+    UnitOfWork.end();
+  }
+
+  @Test
+  public void deletingComponentOfProxyDeletesRootIndex() {
+    when(repository.getType()).thenReturn(new ProxyType());
+
+    underTest.deleteComponentTx(componentId, true);
+
+    verify(indexFacet).deleteRootIndex();
+    verify(indexFacet).deleteIndex("requests");
+    verify(tx).deleteComponent(component, true);
+  }
+
+  @Test
+  public void deletingComponentOfHostedKeepsRootIndex() {
+    when(repository.getType()).thenReturn(new HostedType());
+
+    underTest.deleteComponentTx(componentId, true);
+
+    verify(indexFacet, never()).deleteRootIndex();
+    verify(indexFacet).deleteIndex("requests");
+    verify(tx).deleteComponent(component, true);
+  }
+}
@@ -12,26 +12,75 @@
  */
 package org.sonatype.nexus.repository.pypi.internal.orient;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.Writer;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.Arrays;
-import java.util.List;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
 
 import org.sonatype.goodies.testsupport.TestSupport;
+import org.sonatype.nexus.blobstore.api.Blob;
+import org.sonatype.nexus.blobstore.api.BlobRef;
+import org.sonatype.nexus.common.collect.NestedAttributesMap;
+import org.sonatype.nexus.common.entity.EntityMetadata;
 import org.sonatype.nexus.common.template.TemplateHelper;
+import org.sonatype.nexus.common.template.TemplateParameters;
+import org.sonatype.nexus.orient.entity.AttachedEntityMetadata;
+import org.sonatype.nexus.orient.entity.EntityAdapter;
 import org.sonatype.nexus.repository.Repository;
-import org.sonatype.nexus.repository.pypi.internal.PyPiLink;
-import org.sonatype.nexus.repository.storage.Component;
+import org.sonatype.nexus.repository.pypi.internal.PyPiFormat;
+import org.sonatype.nexus.repository.pypi.internal.PyPiIndexFacet;
+import org.sonatype.nexus.repository.pypi.internal.PyPiRootIndexPayload;
+import org.sonatype.nexus.repository.storage.Asset;
+import org.sonatype.nexus.repository.storage.Bucket;
+import org.sonatype.nexus.repository.storage.Query;
+import org.sonatype.nexus.repository.storage.StorageFacet;
 import org.sonatype.nexus.repository.storage.StorageTx;
+import org.sonatype.nexus.repository.view.Content;
 import org.sonatype.nexus.transaction.UnitOfWork;
 
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Iterators;
+import com.google.common.collect.Lists;
+import com.orientechnologies.orient.core.id.ORecordId;
+import com.orientechnologies.orient.core.record.impl.ODocument;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
+import org.mockito.invocation.InvocationOnMock;
 
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Collections.singleton;
+import static java.util.stream.Collectors.toList;
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.is;
 import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.anyMapOf;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.sonatype.nexus.repository.pypi.internal.PyPiAttributes.P_ROOT_INDEX_VERSION;
+import static org.sonatype.nexus.repository.pypi.internal.PyPiPathUtils.INDEX_PATH_PREFIX;
+import static org.sonatype.nexus.repository.storage.MetadataNodeEntityAdapter.P_ATTRIBUTES;
+import static org.sonatype.nexus.repository.storage.MetadataNodeEntityAdapter.P_NAME;
 
 public class OrientPyPiHostedFacetImplTest
     extends TestSupport
@@ -46,19 +95,47 @@ public class OrientPyPiHostedFacetImplTest
   private Repository repository;
 
   @Mock
-  private Component component1;
+  private Bucket bucket;
 
   @Mock
-  private Component component2;
+  private Asset rootIndex;
 
   @Mock
-  private Component component3;
+  private Blob rootIndexBlob;
+
+  @Mock
+  private StorageFacet storageFacet;
+
+  @Mock
+  private PyPiIndexFacet indexFacet;
+
+  private NestedAttributesMap rootIndexAttributes;
 
   private OrientPyPiHostedFacetImpl underTest;
 
+  private String storedNames;
+
+  private Long storedVersion;
+
   @Before
   public void setUp() throws Exception {
+    ODocument bucketDocument = mock(ODocument.class);
+    when(bucketDocument.getIdentity()).thenReturn(new ORecordId(1, 1));
+    EntityMetadata entityMetadata = new AttachedEntityMetadata(mock(EntityAdapter.class), bucketDocument);
+    when(bucket.getEntityMetadata()).thenReturn(entityMetadata);
+    when(tx.findBucket(repository)).thenReturn(bucket);
+    when(repository.facet(StorageFacet.class)).thenReturn(storageFacet);
+    when(repository.facet(PyPiIndexFacet.class)).thenReturn(indexFacet);
+    when(storageFacet.txSupplier()).thenReturn(() -> tx);
+
+    rootIndexAttributes = new NestedAttributesMap(P_ATTRIBUTES, new HashMap<>());
+    when(rootIndex.attributes()).thenReturn(rootIndexAttributes);
+    when(rootIndex.formatAttributes()).thenReturn(rootIndexAttributes.child(PyPiFormat.NAME));
+    when(rootIndex.requireBlobRef()).thenReturn(mock(BlobRef.class));
+    when(tx.requireBlob(any())).thenReturn(rootIndexBlob);
+
     underTest = new OrientPyPiHostedFacetImpl(templateHelper);
+    underTest.attach(repository);
 
     UnitOfWork.beginBatch(tx);
   }
@@ -69,21 +146,115 @@ public class OrientPyPiHostedFacetImplTest
   }
 
   @Test
-  public void shouldOrderLinks() throws Exception {
-    when(repository.getUrl()).thenReturn("http://localhost:8081/repository/test");
-    when(component1.name()).thenReturn("z");
-    when(component2.name()).thenReturn("a");
-    when(component3.name()).thenReturn("0");
-    when(tx.browseComponents(any())).thenReturn(Arrays.asList(
-        component1, component2, component3
-    ));
-    underTest.attach(repository);
+  public void shouldOrderPackageNames() throws Exception {
+    packageNames("z", "a", "0", "B");
+
+    assertThat(underTest.findAllPackageNames(), contains("0", "a", "B", "z"));
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  public void rootIndexIsBuiltFromPackageNamesWhenMissing() throws Exception {
+    packageNames("requests", "flask");
+    underTest = spy(underTest);
+    doReturn(rootIndex).when(underTest).createRootIndexAsset(bucket);
+    doAnswer(this::storePackageNames).when(underTest).storePackageNames(eq(tx), eq(rootIndex), any(), anyLong());
+
+    Content content = underTest.getRootIndex();
+
+    assertThat(storedNames, is("flask\nrequests\n"));
+    assertThat(content.getAttributes().contains(PyPiRootIndexPayload.class), is(true));
+
+    when(templateHelper.parameters()).thenReturn(new TemplateParameters());
+    content.copy(new ByteArrayInputStream(storedNames.getBytes(UTF_8)), new ByteArrayOutputStream());
 
-    List<PyPiLink> links = underTest.findAllLinks();
+    ArgumentCaptor<TemplateParameters> parameters = ArgumentCaptor.forClass(TemplateParameters.class);
+    verify(templateHelper).render(any(URL.class), parameters.capture(), any(Writer.class));
+    Iterator<Map<String, String>> assets = (Iterator<Map<String, String>>) parameters.getValue().get().get("assets");
+    assertThat(Lists.newArrayList(Iterators.transform(assets, asset -> asset.get("name"))),
+        contains("flask", "requests"));
+  }
+
+  @Test
+  public void storedRootIndexIsNotRebuilt() throws Exception {
+    rootIndexVersion(5L);
+    underTest = spy(underTest);
+
+    Content content = underTest.getRootIndex();
+
+    assertThat(content.getAttributes().contains(PyPiRootIndexPayload.class), is(true));
+    verify(underTest, never()).findAllPackageNames();
+  }
+
+  @Test
+  public void patchAddsAndRemovesPackageNames() throws Exception {
+    rootIndexVersion(5L);
+    storedNames("flask\nrequests\n");
+    componentsExist("django", "flask");
+    underTest = spy(underTest);
+    doAnswer(this::storePackageNames).when(underTest).storePackageNames(eq(tx), eq(rootIndex), any(), anyLong());
+
+    underTest.patchRootIndex(ImmutableSet.of("django", "requests"));
+
+    assertThat(storedNames, is("django\nflask\n"));
+    assertThat(storedVersion, is(6L));
+  }
+
+  @Test
+  public void patchWithoutChangesKeepsPackageNames() throws Exception {
+    rootIndexVersion(5L);
+    storedNames("flask\nrequests\n");
+    componentsExist("flask", "requests");
+    underTest = spy(underTest);
+
+    underTest.patchRootIndex(ImmutableSet.of("flask", "pyyaml"));
+
+    verify(underTest, never()).storePackageNames(any(), any(), any(), anyLong());
+  }
+
+  @Test
+  public void failedUpdateDeletesRootIndex() throws Exception {
+    underTest = spy(underTest);
+    doThrow(new IllegalStateException("failed")).when(underTest).patchRootIndex(any());
+
+    UnitOfWork paused = UnitOfWork.pause();
+    try {
+      underTest.updateRootIndex(singleton("flask"));
+    }
+    finally {
+      UnitOfWork.resume(paused);
+    }
+
+    verify(indexFacet).deleteRootIndex();
+  }
+
+  private Object storePackageNames(final InvocationOnMock invocation) throws IOException {
+    storedNames = new String(Files.readAllBytes((Path) invocation.getArguments()[2]), UTF_8);
+    storedVersion = (Long) invocation.getArguments()[3];
+    rootIndexAttributes.child(PyPiFormat.NAME).set(P_ROOT_INDEX_VERSION, storedVersion);
+    return null;
+  }
+
+  private void rootIndexVersion(final long version) {
+    rootIndexAttributes.child(PyPiFormat.NAME).set(P_ROOT_INDEX_VERSION, version);
+    when(tx.findAssetWithProperty(P_NAME, INDEX_PATH_PREFIX, bucket)).thenReturn(rootIndex);
+  }
+
+  private void storedNames(final String names) throws IOException {
+    when(rootIndexBlob.getInputStream()).thenReturn(new ByteArrayInputStream(names.getBytes(UTF_8)));
+  }
+
+  private void componentsExist(final String... names) {
+    Set<String> existing = ImmutableSet.copyOf(names);
+    when(tx.countComponents(any(Query.class), any())).thenAnswer(invocation -> {
+      Query query = (Query) invocation.getArguments()[0];
+      return existing.containsAll(query.getParameters().values()) ? 1L : 0L;
+    });
+  }
 
-    String[] result = links.stream().map(PyPiLink::getFile).distinct().toArray(String[]::new);
-    assertThat(result[0], is("0"));
-    assertThat(result[1], is("a"));
-    assertThat(result[2], is("z"));
+  private void packageNames(final String... names) {
+    when(tx.browse(anyString(), anyMapOf(String.class, Object.class))).thenReturn(Arrays.stream(names)
+        .map(name -> new ODocument().field("name", name))
+        .collect(toList()));
   }
 }
@@ -27,6 +27,7 @@ public final class NpmRestoreBlobData
   {
     REPOSITORY_ROOT,
     PACKAGE_ROOT,
+    ABBREVIATED_PACKAGE_ROOT,
     TARBALL;
   }
 
@@ -19,6 +19,7 @@ import org.sonatype.nexus.blobstore.restore.internal.NpmRestoreBlobData.NpmType;
 import org.sonatype.nexus.blobstore.restore.RestoreBlobData;
 
 import static com.google.common.base.Preconditions.checkState;
+import static org.sonatype.nexus.blobstore.restore.internal.NpmRestoreBlobData.NpmType.ABBREVIATED_PACKAGE_ROOT;
 import static org.sonatype.nexus.blobstore.restore.internal.NpmRestoreBlobData.NpmType.PACKAGE_ROOT;
 import static org.sonatype.nexus.blobstore.restore.internal.NpmRestoreBlobData.NpmType.REPOSITORY_ROOT;
 import static org.sonatype.nexus.blobstore.restore.internal.NpmRestoreBlobData.NpmType.TARBALL;
@@ -29,13 +30,16 @@ import static org.eclipse.aether.util.StringUtils.isEmpty;
  */
 public final class NpmRestoreBlobDataFactory
 {
+  private static final String ABBREVIATED_PREFIX = "-/abbreviated/";
+
   private NpmRestoreBlobDataFactory() {}
 
   /**
    * Creates a {@link NpmRestoreBlobData} object. NPM asset types are identified by their name:
    * - {@link REPOSITORY_ROOT} will have a name of '-/all'
+   * - {@link ABBREVIATED_PACKAGE_ROOT} will have a name starting with '-/abbreviated/'
    * - {@link TARBALL} will contain a '/-/' followed by the tarball name
-   * - {@link PACKAGE_ROOT} will have neither of the above characteristics
+   * - {@link PACKAGE_ROOT} will have none of the above characteristics
    */
   public static NpmRestoreBlobData create(@Nonnull final RestoreBlobData data) {
     checkState(!isEmpty(data.getBlobName()), "Blob name cannot be empty");
@@ -44,6 +48,9 @@ public final class NpmRestoreBlobDataFactory
 
     if (parts.length == 1) {
       String id = parts[0];
+      if (id.startsWith(ABBREVIATED_PREFIX)) {
+        return new NpmRestoreBlobData(ABBREVIATED_PACKAGE_ROOT, id.substring(ABBREVIATED_PREFIX.length()), null, data);
+      }
       NpmType type = "-/all".equals(id) ? REPOSITORY_ROOT : PACKAGE_ROOT;
 
       return new NpmRestoreBlobData(type, id, null, data);
@@ -81,6 +81,12 @@ public class NpmRestoreBlobStrategy
       return false;
     }
 
+    if (data.getType() == NpmType.ABBREVIATED_PACKAGE_ROOT) {
+      log.debug("Skipping abbreviated metadata of package {} as it is regenerated from the package root",
+          data.getPackageId());
+      return false;
+    }
+
     return true;
   }
 